@@ -0,0 +1,97 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.helper.JsonCodec;
+import com.telamin.mongoose.example.pnl.helper.JsonCodecs;
+import com.telamin.mongoose.example.pnl.helper.JsonWriter;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encode and decode of the feed records with {@link DataMappers} (Jackson) and with the {@link JsonCodecs} used
+ * by the jsonl file feeds and sinks. The codec benchmarks encode to a String as the sinks do, the writer benchmark
+ * stops at the reused byte buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataMappersBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 12;
+
+    @Param("42")
+    long seed;
+
+    private final Trade[] trades = new Trade[EVENT_COUNT];
+    private final String[] tradeJson = new String[EVENT_COUNT];
+    private final MidPrice[] midPrices = new MidPrice[EVENT_COUNT];
+    private final String[] midPriceJson = new String[EVENT_COUNT];
+    private final JsonCodec<Trade> tradeCodec = JsonCodecs.codecFor(Trade.class);
+    private final JsonCodec<MidPrice> midPriceCodec = JsonCodecs.codecFor(MidPrice.class);
+    private final JsonWriter writer = new JsonWriter();
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(seed);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            trades[i] = generator.generateRandomTrade();
+            tradeJson[i] = DataMappers.toJson(trades[i]);
+            midPrices[i] = generator.generateRandomMidPrice();
+            midPriceJson[i] = DataMappers.toJson(midPrices[i]);
+        }
+    }
+
+    @Benchmark
+    public String tradeToJson() {
+        return DataMappers.toJson(trades[index++ & (EVENT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public Trade tradeFromJson() {
+        return DataMappers.toObject(tradeJson[index++ & (EVENT_COUNT - 1)], Trade.class);
+    }
+
+    @Benchmark
+    public String midPriceToJson() {
+        return DataMappers.toJson(midPrices[index++ & (EVENT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public MidPrice midPriceFromJson() {
+        return DataMappers.toObject(midPriceJson[index++ & (EVENT_COUNT - 1)], MidPrice.class);
+    }
+
+    @Benchmark
+    public String tradeToJsonCodec() {
+        return JsonCodecs.toJson(trades[index++ & (EVENT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public int tradeToJsonCodecBuffer() {
+        tradeCodec.encode(trades[index++ & (EVENT_COUNT - 1)], writer.reset());
+        return writer.length();
+    }
+
+    @Benchmark
+    public Trade tradeFromJsonCodec() {
+        return tradeCodec.decode(JsonCodecs.reader().reset(tradeJson[index++ & (EVENT_COUNT - 1)]));
+    }
+
+    @Benchmark
+    public String midPriceToJsonCodec() {
+        return JsonCodecs.toJson(midPrices[index++ & (EVENT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public MidPrice midPriceFromJsonCodec() {
+        return midPriceCodec.decode(JsonCodecs.reader().reset(midPriceJson[index++ & (EVENT_COUNT - 1)]));
+    }
+}
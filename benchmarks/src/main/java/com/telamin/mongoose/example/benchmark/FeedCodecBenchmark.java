@@ -0,0 +1,75 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.pnl.helper.BinaryRecordCodec;
+import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the jsonl feed encoding with {@link BinaryRecordCodec}. Each operation encodes one generated event and
+ * decodes it back, the work split between the data generator sinks and the feeds-agent of the pnl server. Binary records
+ * are aligned to {@link BinaryRecordCodec#RECORD_ALIGNMENT} bytes.
+ * <p>
+ * The binary round trip writes through a ring of records, so symbol definitions are only emitted once as in a long
+ * running file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedCodecBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 12;
+    private static final int RING_SIZE = 1024 * BinaryRecordCodec.RECORD_ALIGNMENT;
+
+    @Param("42")
+    long seed;
+    @Param({"Trade", "MidPrice"})
+    String eventType;
+
+    private final Object[] events = new Object[EVENT_COUNT];
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RING_SIZE + 4096);
+    private final BinaryRecordCodec writer = new BinaryRecordCodec();
+    private final BinaryRecordCodec reader = new BinaryRecordCodec();
+    private Class<?> eventClass;
+    private int jsonIndex;
+    private int binaryIndex;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(seed);
+        boolean trades = eventType.equals("Trade");
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events[i] = trades ? generator.generateRandomTrade() : generator.generateRandomMidPrice();
+        }
+        eventClass = events[0].getClass();
+    }
+
+    @Benchmark
+    public Object jsonRoundTrip() {
+        Object event = events[jsonIndex++ & (EVENT_COUNT - 1)];
+        return DataMappers.toObject(DataMappers.toJson(event), eventClass);
+    }
+
+    @Benchmark
+    public Object binaryRoundTrip() {
+        Object event = events[binaryIndex++ & (EVENT_COUNT - 1)];
+        if (position >= RING_SIZE) {
+            position = 0;
+        }
+        int offset = position;
+        int length = writer.encode(event, buffer, offset);
+        position += length;
+        Object decoded = null;
+        for (int end = offset + length; decoded == null && offset < end; offset += BinaryRecordCodec.recordLength(buffer, offset)) {
+            decoded = reader.decode(buffer, offset);
+        }
+        return decoded;
+    }
+}
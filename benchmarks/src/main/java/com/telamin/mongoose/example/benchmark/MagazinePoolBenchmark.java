@@ -0,0 +1,94 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.howto.MagazinePool;
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+import com.telamin.mongoose.service.pool.impl.PoolTracker;
+import com.telamin.mongoose.service.pool.impl.Pools;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acquire and release of a pooled message by 1, 4 and 16 producer threads sharing one pool, either straight from the
+ * shared pool or through a {@link MagazinePool} of thread local magazines. Each operation acquires a message and drops
+ * the last reference as a consumer would at the end of its event cycle, on the producer thread. Contention only shows
+ * when the machine has a core per producer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MagazinePoolBenchmark {
+
+    private static final int DEPOT_CAPACITY = 4096;
+
+    @Param({"depot", "magazine"})
+    String pool;
+    @Param("64")
+    int magazineSize;
+    @Param("16")
+    int refillSize;
+
+    private ObjectPool<BenchmarkMessage> objectPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ObjectPool<BenchmarkMessage> depot = Pools.SHARED.getOrCreate(
+                BenchmarkMessage.class, BenchmarkMessage::new, BenchmarkMessage::reset, DEPOT_CAPACITY);
+        objectPool = "magazine".equals(pool)
+                ? new MagazinePool<>(depot, BenchmarkMessage::reset, magazineSize, refillSize)
+                : depot;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long producers1(Producer producer) {
+        return acquireAndRelease();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long producers4(Producer producer) {
+        return acquireAndRelease();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long producers16(Producer producer) {
+        return acquireAndRelease();
+    }
+
+    private long acquireAndRelease() {
+        BenchmarkMessage message = objectPool.acquire();
+        message.value = 42;
+        PoolTracker<?> tracker = message.getPoolTracker();
+        tracker.releaseReference();
+        tracker.returnToPool();
+        return message.value;
+    }
+
+    /**
+     * Hands each producer thread's magazine back to the depot when the trial ends.
+     */
+    @State(Scope.Thread)
+    public static class Producer {
+
+        @TearDown(Level.Trial)
+        public void handBack(MagazinePoolBenchmark benchmark) {
+            if (benchmark.objectPool instanceof MagazinePool<?> magazinePool) {
+                magazinePool.handBack();
+            }
+        }
+    }
+
+    public static class BenchmarkMessage extends BasePoolAware {
+        long value;
+
+        void reset() {
+            value = 0;
+        }
+    }
+}
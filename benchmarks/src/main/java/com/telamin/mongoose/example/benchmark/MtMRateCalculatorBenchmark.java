@@ -0,0 +1,59 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.pnl.calculator.MtMRateCalculator;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mark to market rate lookups of {@link MtMRateCalculator}, with and without a preceding mid price update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MtMRateCalculatorBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 12;
+
+    @Param("42")
+    long seed;
+
+    private final MidPrice[] midPrices = new MidPrice[EVENT_COUNT];
+    private Instrument[] instruments;
+    private MtMRateCalculator mtMRateCalculator;
+    private int instrumentIndex;
+    private int midPriceIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(seed);
+        mtMRateCalculator = new MtMRateCalculator();
+        Set<Instrument> instrumentSet = new LinkedHashSet<>();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            midPrices[i] = generator.generateRandomMidPrice();
+            instrumentSet.add(midPrices[i].dealtInstrument());
+            instrumentSet.add(midPrices[i].contraInstrument());
+            mtMRateCalculator.midRate(midPrices[i]);
+        }
+        instruments = instrumentSet.toArray(Instrument[]::new);
+    }
+
+    @Benchmark
+    public double getRateForInstrument() {
+        return mtMRateCalculator.getRateForInstrument(instruments[instrumentIndex++ % instruments.length]);
+    }
+
+    @Benchmark
+    public double midRateThenGetRateForInstrument() {
+        mtMRateCalculator.midRate(midPrices[midPriceIndex++ & (EVENT_COUNT - 1)]);
+        return mtMRateCalculator.getRateForInstrument(instruments[instrumentIndex++ % instruments.length]);
+    }
+}
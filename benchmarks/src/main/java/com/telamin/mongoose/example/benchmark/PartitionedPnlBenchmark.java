@@ -0,0 +1,235 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.fluxtion.agrona.concurrent.SleepingMillisIdleStrategy;
+import com.fluxtion.agrona.concurrent.SnowflakeIdGenerator;
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.fluxtion.runtime.output.AbstractMessageSink;
+import com.telamin.fluxtion.runtime.output.MessageSink;
+import com.telamin.mongoose.MongooseServer;
+import com.telamin.mongoose.config.EventFeedConfig;
+import com.telamin.mongoose.config.EventProcessorConfig;
+import com.telamin.mongoose.config.EventSinkConfig;
+import com.telamin.mongoose.config.MongooseServerConfig;
+import com.telamin.mongoose.config.ThreadConfig;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.calculator.RateUniverse;
+import com.telamin.mongoose.example.pnl.calculator.TradePartition;
+import com.telamin.mongoose.example.pnl.connector.BlockingPipe;
+import com.telamin.mongoose.example.pnl.connector.MidPriceConflator;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import com.telamin.mongoose.example.pnl.server.PartitionedPnlDeployment;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.REPORTING_INSTRUMENTS;
+
+/**
+ * Pnl throughput of a booted server, from trades and prices offered to the feeds to the merged summary in the pnl sink.
+ * partitions 0 is the single pnl-processor {@code PnlCalculationServer} runs, with its conflated prices feed.
+ * partitions n is the {@link PartitionedPnlDeployment} with its default settings: the trade router, n pnl partitions
+ * publishing at most every 100 millis and the merge processor, each on its own agent. The feeds are
+ * {@link BlockingPipe}s, they hold events for full processor queues like the server's file feeds do.
+ * <p>
+ * An invocation offers every event then a marker trade per partition, on an unpriced instrument of its own, and ends
+ * when the pnl sink sees every marker. JMH reports the wall time per trade, the speedup of n partitions is the
+ * partitions 0 score over the n partition score, bounded by the available cores.
+ * <p>
+ * The only recorded run is from a single core host: partitions 0 at 4.5 us/trade, 2 at 6.4 and 4 at 6.4. The router
+ * and merge hops and the prices handled by every partition cost more than partitioning saves when the agents share
+ * one core. Until a run on a host with a core per agent shows a speedup, the server is not partitioned.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PartitionedPnlBenchmark {
+
+    private static final int TRADE_COUNT = 1_000_000;
+    private static final int TRADES_PER_PRICE = 10;
+
+    @Param({"0", "2", "4"})
+    int partitions;
+
+    private final CompletionSink completionSink = new CompletionSink();
+    private Object[] events;
+    private Trade[] markerTrades;
+    private Instrument[] markerInstruments;
+    private BlockingPipe tradesFeed;
+    private BlockingPipe pricesFeed;
+    private MongooseServer server;
+    private Path dataDir;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RateUniverse universe = new RateUniverse(100, 2, 42);
+        SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(1);
+        events = events(universe, idGenerator).toArray();
+        int markerCount = Math.max(1, partitions);
+        markerTrades = new Trade[markerCount];
+        markerInstruments = new Instrument[markerCount];
+        for (int i = 0, found = 0; found < markerCount; i++) {
+            Instrument marker = new Instrument("MARKER" + i);
+            Symbol symbol = new Symbol(marker.instrumentName() + RefData.USD.instrumentName(), marker, RefData.USD);
+            Trade trade = new Trade(symbol, idGenerator.nextId(), 1, -1);
+            int partition = partitions == 0 ? 0 : TradePartition.partitionOf(trade, partitions);
+            if (markerTrades[partition] == null) {
+                markerTrades[partition] = trade;
+                markerInstruments[partition] = marker;
+                found++;
+            }
+        }
+    }
+
+    /**
+     * Trade ids increase through the events, so every invocation needs a server with empty read pointers.
+     */
+    @Setup(Level.Iteration)
+    public void bootServer() throws IOException {
+        dataDir = Files.createTempDirectory("pnl-benchmark");
+        var mongooseConfigBuilder = MongooseServerConfig.builder();
+        tradesFeed = new BlockingPipe("trades");
+        pricesFeed = new BlockingPipe("prices");
+        EventFeedConfig.Builder<Object> pricesFeedBuilder = EventFeedConfig.builder()
+                .instance(pricesFeed);
+        if (partitions == 0) {
+            buildSingleProcessor(mongooseConfigBuilder);
+            pricesFeedBuilder.valueMapper(new MidPriceConflator());
+        } else {
+            PartitionedPnlDeployment deployment = new PartitionedPnlDeployment();
+            deployment.setPartitionCount(partitions);
+            deployment.setPointerFileDirectory(dataDir.toString());
+            deployment.setReportingInstruments(REPORTING_INSTRUMENTS);
+            deployment.build(mongooseConfigBuilder);
+        }
+        mongooseConfigBuilder.addEventFeed(pricesFeedBuilder
+                .broadcast(true)
+                .name("prices")
+                .agent("feeds-agent", new SleepingMillisIdleStrategy())
+                .build());
+        mongooseConfigBuilder.addEventFeed(EventFeedConfig.builder()
+                .instance(tradesFeed)
+                .broadcast(partitions == 0)
+                .name("trades")
+                .agent("feeds-agent", new SleepingMillisIdleStrategy())
+                .build());
+        mongooseConfigBuilder.addEventSink(EventSinkConfig.<MessageSink<?>>builder()
+                .instance(completionSink)
+                .name("pnl-sink")
+                .build());
+        server = MongooseServer.bootServer(mongooseConfigBuilder.build());
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopServer() throws IOException {
+        server.stop();
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRADE_COUNT)
+    public PnlSummary partitionedTrades() throws InterruptedException {
+        CountDownLatch doneLatch = completionSink.expect(markerInstruments);
+        for (Object event : events) {
+            if (event instanceof Trade) {
+                tradesFeed.offer(event);
+            } else {
+                pricesFeed.offer(event);
+            }
+        }
+        for (Trade markerTrade : markerTrades) {
+            tradesFeed.offer(markerTrade);
+        }
+        if (!doneLatch.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("pnl sink did not see the marker trades of " + partitions + " partitions");
+        }
+        return completionSink.completed;
+    }
+
+    /**
+     * The pnl-processor as {@code PnlCalculationServer} builds it, checkpointing and committing its read pointer.
+     */
+    private void buildSingleProcessor(MongooseServerConfig.Builder mongooseConfigBuilder) {
+        PnlCalculationProcessor pnlCalculationProcessor = new PnlCalculationProcessor();
+        pnlCalculationProcessor.setSnapshotFileName(dataDir.resolve("pnl.snapshot").toString());
+        pnlCalculationProcessor.setPointerFileName(dataDir.resolve("tradesIn.readPointer").toString());
+        pnlCalculationProcessor.setReportingInstruments(REPORTING_INSTRUMENTS);
+
+        EventProcessorConfig<DataFlow> eventProcessorConfig = EventProcessorConfig.builder()
+                .name("pnl-processor")
+                .handlerBuilder(pnlCalculationProcessor)
+                .build();
+
+        var threadConfig = ThreadConfig.builder()
+                .agentName("pnl-agent")
+                .idleStrategy(new SleepingMillisIdleStrategy(1))
+                .build();
+
+        mongooseConfigBuilder.addProcessor("pnl-agent", eventProcessorConfig);
+        mongooseConfigBuilder.addThread(threadConfig);
+    }
+
+    private static List<Object> events(RateUniverse universe, SnowflakeIdGenerator idGenerator) {
+        List<Symbol> symbols = universe.symbols();
+        List<Object> events = new ArrayList<>();
+        symbols.forEach(symbol -> events.add(universe.midPrice(symbol)));
+        Random random = new Random(42);
+        for (int i = 0; i < TRADE_COUNT; i++) {
+            Symbol symbol = symbols.get(random.nextInt(symbols.size()));
+            double dealtVolume = random.nextDouble(-1000, 1000);
+            events.add(new Trade(symbol, idGenerator.nextId(), dealtVolume, -dealtVolume * 1.1));
+            if (i % TRADES_PER_PRICE == 0) {
+                events.add(universe.randomMidPrice());
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Counts down once a summary holds every marker instrument, each marker is the last trade of its partition.
+     */
+    private static class CompletionSink extends AbstractMessageSink<Object> {
+
+        private volatile Instrument[] markers = new Instrument[0];
+        private volatile CountDownLatch doneLatch = new CountDownLatch(0);
+        private volatile PnlSummary completed;
+
+        CountDownLatch expect(Instrument[] markers) {
+            this.markers = markers;
+            completed = null;
+            doneLatch = new CountDownLatch(1);
+            return doneLatch;
+        }
+
+        @Override
+        protected void sendToSink(Object value) {
+            if (!(value instanceof PnlSummary pnlSummary) || doneLatch.getCount() == 0) {
+                return;
+            }
+            for (Instrument marker : markers) {
+                if (!pnlSummary.getMtmAssetMap().containsKey(marker)) {
+                    return;
+                }
+            }
+            completed = pnlSummary;
+            doneLatch.countDown();
+        }
+    }
+}
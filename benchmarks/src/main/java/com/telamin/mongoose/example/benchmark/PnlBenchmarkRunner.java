@@ -0,0 +1,32 @@
+package com.telamin.mongoose.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the pnl benchmarks with the gc profiler attached, so every result reports ops/s, sample time percentiles and
+ * the allocation rate per operation. Standard JMH command line options are accepted, e.g. a benchmark regex or
+ * {@code -rf json -rff results.json} to keep results for comparison.
+ * <p>
+ * Build and run from the repository root with:
+ * <pre>
+ * mvn -pl benchmarks -am package -DskipTests
+ * java -jar benchmarks/target/benchmarks.jar
+ * </pre>
+ */
+public class PnlBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("--add-opens", "java.base/jdk.internal.misc=ALL-UNNAMED")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The {@link PnlCalculationProcessor} graph end to end, from a trade or mid price event to the summary published on
+ * the pnl sink. Every trade carries a new id so none are dropped by the duplicate filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PnlCalculationProcessorBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 16;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_SHIFT = 22;
+
+    @Param("42")
+    long seed;
+    @Param("0")
+    long pnlPublishIntervalMillis;
+
+    private final Trade[] trades = new Trade[EVENT_COUNT];
+    private final MidPrice[] midPrices = new MidPrice[EVENT_COUNT];
+    private Path pointerDir;
+    private DataFlow pnlProcessor;
+    private long publishCount;
+    private long tradeCounter;
+    private long baseMillis;
+    private int tradeIndex;
+    private int midPriceIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        RandomTradeGenerator generator = new RandomTradeGenerator(seed);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            trades[i] = generator.generateRandomTrade();
+            midPrices[i] = generator.generateRandomMidPrice();
+        }
+        pointerDir = Files.createTempDirectory("pnl-benchmark");
+        PnlCalculationProcessor processor = new PnlCalculationProcessor();
+        processor.setPointerFileName(pointerDir.resolve("tradesIn.readPointer").toString());
+        processor.setPnlPublishIntervalMillis(pnlPublishIntervalMillis);
+        pnlProcessor = processor.get();
+        pnlProcessor.addSink(processor.getSinkId(), summary -> publishCount++);
+        for (MidPrice midPrice : midPrices) {
+            pnlProcessor.onEvent(midPrice);
+        }
+        baseMillis = System.currentTimeMillis();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pnlProcessor.tearDown();
+        try (Stream<Path> files = Files.walk(pointerDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long trade() {
+        Trade template = trades[tradeIndex++ & (EVENT_COUNT - 1)];
+        pnlProcessor.onEvent(new Trade(template.symbol(), nextTradeId(), template.dealtVolume(), template.contraVolume()));
+        return publishCount;
+    }
+
+    @Benchmark
+    public long midPrice() {
+        pnlProcessor.onEvent(midPrices[midPriceIndex++ & (EVENT_COUNT - 1)]);
+        return publishCount;
+    }
+
+    /**
+     * Snowflake layout of generator node 0, the sequence rolls into the next millisecond every 4096 trades.
+     */
+    private long nextTradeId() {
+        long counter = tradeCounter++;
+        return (baseMillis + (counter >>> SEQUENCE_BITS)) << TIMESTAMP_SHIFT | counter & ((1 << SEQUENCE_BITS) - 1);
+    }
+}
@@ -0,0 +1,118 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import com.telamin.mongoose.example.pnl.helper.SyntheticUniverse;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The {@link PnlCalculationProcessor} graph end to end over a {@link SyntheticUniverse}, JMH tabulates the results per
+ * instrumentCount. Every symbol is priced and traded once in setup, so the rate graph and position book hold the whole
+ * universe before measuring. Symbols are chosen with a Zipf skew as in a real book, a few symbols take most trades.
+ * <p>
+ * The asset map is not published by default, copying a position per instrument into every summary would measure the
+ * copy rather than the calculation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PnlUniverseScalingBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 16;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int TIMESTAMP_SHIFT = 22;
+
+    @Param("42")
+    long seed;
+    @Param({"100", "1000", "10000", "100000"})
+    int instrumentCount;
+    @Param("2")
+    double symbolsPerInstrument;
+    @Param("1.0")
+    double symbolSkew;
+    @Param("false")
+    boolean offHeapPositions;
+    @Param("false")
+    boolean publishAssetMap;
+
+    private final Trade[] trades = new Trade[EVENT_COUNT];
+    private final MidPrice[] midPrices = new MidPrice[EVENT_COUNT];
+    private Path pointerDir;
+    private DataFlow pnlProcessor;
+    private long publishCount;
+    private long tradeCounter;
+    private long baseMillis;
+    private int tradeIndex;
+    private int midPriceIndex;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SyntheticUniverse universe = SyntheticUniverse.withDensity(instrumentCount, symbolsPerInstrument, seed);
+        RandomTradeGenerator generator = new RandomTradeGenerator(universe, seed);
+        generator.setSymbolSkew(symbolSkew);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            trades[i] = generator.generateRandomTrade();
+            midPrices[i] = generator.generateRandomMidPrice();
+        }
+        pointerDir = Files.createTempDirectory("pnl-scaling-benchmark");
+        PnlCalculationProcessor processor = new PnlCalculationProcessor();
+        processor.setPointerFileName(pointerDir.resolve("tradesIn.readPointer").toString());
+        processor.setOffHeapPositions(offHeapPositions);
+        processor.setPublishAssetMap(publishAssetMap);
+        pnlProcessor = processor.get();
+        pnlProcessor.addSink(processor.getSinkId(), summary -> publishCount++);
+        baseMillis = System.currentTimeMillis();
+
+        List<Symbol> symbols = universe.symbols();
+        for (int i = 0; i < symbols.size(); i++) {
+            pnlProcessor.onEvent(new MidPrice(symbols.get(i), universe.midRate(i)));
+        }
+        for (int i = 0; i < symbols.size(); i++) {
+            pnlProcessor.onEvent(new Trade(symbols.get(i), nextTradeId(), 100, -100 * universe.midRate(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pnlProcessor.tearDown();
+        try (Stream<Path> files = Files.walk(pointerDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long trade() {
+        Trade template = trades[tradeIndex++ & (EVENT_COUNT - 1)];
+        pnlProcessor.onEvent(new Trade(template.symbol(), nextTradeId(), template.dealtVolume(), template.contraVolume()));
+        return publishCount;
+    }
+
+    @Benchmark
+    public long midPrice() {
+        pnlProcessor.onEvent(midPrices[midPriceIndex++ & (EVENT_COUNT - 1)]);
+        return publishCount;
+    }
+
+    /**
+     * Snowflake layout of generator node 0, the sequence rolls into the next millisecond every 4096 trades.
+     */
+    private long nextTradeId() {
+        long counter = tradeCounter++;
+        return (baseMillis + (counter >>> SEQUENCE_BITS)) << TIMESTAMP_SHIFT | counter & ((1 << SEQUENCE_BITS) - 1);
+    }
+}
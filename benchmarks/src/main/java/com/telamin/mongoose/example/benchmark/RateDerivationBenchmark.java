@@ -0,0 +1,75 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.pnl.calculator.BellmanFordRateCalculator;
+import com.telamin.mongoose.example.pnl.calculator.CrossRateEngine;
+import com.telamin.mongoose.example.pnl.calculator.MtMRateCalculator;
+import com.telamin.mongoose.example.pnl.calculator.RateUniverse;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the incremental {@link CrossRateEngine} backed {@link MtMRateCalculator} with the jgrapht Bellman-Ford
+ * derivation it replaced, over a {@link RateUniverse} of instrumentCount instruments. Each operation is one mid price
+ * tick followed by re-marking every instrument, the work the pnl-agent does per price update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateDerivationBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 12;
+
+    @Param("42")
+    long seed;
+    @Param({"10", "100", "1000"})
+    int instrumentCount;
+
+    private final MidPrice[] midPrices = new MidPrice[EVENT_COUNT];
+    private Instrument[] instruments;
+    private MtMRateCalculator incrementalCalculator;
+    private BellmanFordRateCalculator bellmanFordCalculator;
+    private int incrementalIndex;
+    private int bellmanFordIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RateUniverse universe = new RateUniverse(instrumentCount, 2, seed);
+        instruments = universe.instruments().toArray(Instrument[]::new);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            midPrices[i] = universe.randomMidPrice();
+        }
+        incrementalCalculator = new MtMRateCalculator();
+        bellmanFordCalculator = new BellmanFordRateCalculator(RefData.USD);
+        universe.symbols().forEach(symbol -> {
+            incrementalCalculator.midRate(universe.midPrice(symbol));
+            bellmanFordCalculator.midRate(universe.midPrice(symbol));
+        });
+    }
+
+    @Benchmark
+    public double incremental() {
+        incrementalCalculator.midRate(midPrices[incrementalIndex++ & (EVENT_COUNT - 1)]);
+        double rateSum = 0;
+        for (Instrument instrument : instruments) {
+            rateSum += incrementalCalculator.getRateForInstrument(instrument);
+        }
+        return rateSum;
+    }
+
+    @Benchmark
+    public double bellmanFord() {
+        bellmanFordCalculator.midRate(midPrices[bellmanFordIndex++ & (EVENT_COUNT - 1)]);
+        double rateSum = 0;
+        for (Instrument instrument : instruments) {
+            rateSum += bellmanFordCalculator.getRateForInstrument(instrument);
+        }
+        return rateSum;
+    }
+}
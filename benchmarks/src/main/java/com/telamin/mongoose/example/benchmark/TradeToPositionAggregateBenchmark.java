@@ -0,0 +1,44 @@
+package com.telamin.mongoose.example.benchmark;
+
+import com.telamin.mongoose.example.pnl.calculator.PositionBook;
+import com.telamin.mongoose.example.pnl.calculator.TradeToPositionAggregate;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregation of both legs of a trade into a {@link PositionBook} by {@link TradeToPositionAggregate}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeToPositionAggregateBenchmark {
+
+    private static final int EVENT_COUNT = 1 << 12;
+
+    @Param("42")
+    long seed;
+
+    private final Trade[] trades = new Trade[EVENT_COUNT];
+    private TradeToPositionAggregate aggregate;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(seed);
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            trades[i] = generator.generateRandomTrade();
+        }
+        aggregate = new TradeToPositionAggregate();
+    }
+
+    @Benchmark
+    public PositionBook aggregate() {
+        return aggregate.aggregate(trades[index++ & (EVENT_COUNT - 1)]);
+    }
+}
@@ -22,5 +22,8 @@ if [ ! -d "data-in" ]; then
     mkdir data-in
 fi
 
-# Run the fat jar with the system property mongooseServer.config.file set to appConfig.yml
-java -DmongooseServer.config.file=app-config/filePnlCalculator_config.yml --add-opens java.base/jdk.internal.misc=ALL-UNNAMED -Djava.util.logging.config.file=app-config/logging.properties -jar ../target/app-integration-tutorial.jar
+# Optional first argument selects the config, e.g. app-config/filePnlCalculator_binary_config.yml for the binary feeds
+CONFIG_FILE=${1:-app-config/filePnlCalculator_config.yml}
+
+# Run the fat jar with the system property mongooseServer.config.file set to the selected config
+java -DmongooseServer.config.file=$CONFIG_FILE --add-opens java.base/jdk.internal.misc=ALL-UNNAMED -Djava.util.logging.config.file=app-config/logging.properties -jar ../target/app-integration-tutorial.jar
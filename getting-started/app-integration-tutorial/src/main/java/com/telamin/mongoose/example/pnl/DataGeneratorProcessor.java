@@ -1,19 +1,35 @@
 package com.telamin.mongoose.example.pnl;
 
 
+import com.fluxtion.agrona.concurrent.EpochNanoClock;
+import com.fluxtion.agrona.concurrent.SystemEpochNanoClock;
 import com.telamin.fluxtion.runtime.annotations.Start;
 import com.telamin.fluxtion.runtime.annotations.runtime.ServiceRegistered;
 import com.telamin.fluxtion.runtime.node.ObjectEventHandlerNode;
 import com.telamin.fluxtion.runtime.output.MessageSink;
 import com.telamin.mongoose.example.pnl.events.MidPrice;
 import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.OpenLoopSchedule;
 import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import com.telamin.mongoose.example.pnl.helper.SyntheticUniverse;
 import com.telamin.mongoose.service.scheduler.SchedulerService;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * Publishes random trades and mid prices to the trades-sink and midPrice-sink.
+ * <p>
+ * By default one trade and one price are published per publish sleep. Setting loadTradesPerSecond or
+ * loadPricesPerSecond switches that feed to an open loop load generator, every millisecond tick publishes all the
+ * events that are due by an {@link OpenLoopSchedule}, each stamped with its intended send time in epoch nanos.
+ * <p>
+ * Events are generated over six FX symbols unless universeInstrumentCount is set, which generates them over a seeded
+ * {@link SyntheticUniverse} of that many instruments and universeSymbolsPerInstrument symbols per instrument.
+ */
 public class DataGeneratorProcessor extends ObjectEventHandlerNode {
 
+    private static final long LOAD_TICK_MILLIS = 1;
+
     private SchedulerService schedulerService;
     private RandomTradeGenerator randomTradeGenerator = new RandomTradeGenerator();
     private MessageSink<Trade> tradeSink;
@@ -24,6 +40,30 @@ public class DataGeneratorProcessor extends ObjectEventHandlerNode {
     @Getter
     @Setter
     private long tradePublishSleep = 1_000;
+    @Getter
+    @Setter
+    private double loadTradesPerSecond = 0;
+    @Getter
+    @Setter
+    private double loadPricesPerSecond = 0;
+    @Getter
+    @Setter
+    private int loadBurstSize = 1;
+    @Getter
+    @Setter
+    private double symbolSkew = 0;
+    @Getter
+    @Setter
+    private int universeInstrumentCount = 0;
+    @Getter
+    @Setter
+    private double universeSymbolsPerInstrument = 2;
+    @Getter
+    @Setter
+    private long universeSeed = 42;
+    private final EpochNanoClock clock = new SystemEpochNanoClock();
+    private OpenLoopSchedule tradeSchedule;
+    private OpenLoopSchedule priceSchedule;
 
     @ServiceRegistered
     public void sink(MessageSink<?> sink, String name) {
@@ -43,8 +83,39 @@ public class DataGeneratorProcessor extends ObjectEventHandlerNode {
     @Start
     public void start() {
         System.out.println("DataGeneratorProcessor: starting");
-        schedulerService.scheduleAfterDelay(1000, this::generateTradeData);
-        schedulerService.scheduleAfterDelay(1000, this::generateMidPriceData);
+        if (universeInstrumentCount > 0) {
+            SyntheticUniverse universe = SyntheticUniverse.withDensity(
+                    universeInstrumentCount, universeSymbolsPerInstrument, universeSeed);
+            randomTradeGenerator = new RandomTradeGenerator(universe, universeSeed);
+            System.out.println("DataGeneratorProcessor: synthetic universe instruments:" + universe.instruments().size()
+                    + " symbols:" + universe.symbols().size());
+        }
+        randomTradeGenerator.setSymbolSkew(symbolSkew);
+        if (loadTradesPerSecond > 0 || loadPricesPerSecond > 0) {
+            System.out.println("DataGeneratorProcessor: open loop load trades/s:" + loadTradesPerSecond
+                    + " prices/s:" + loadPricesPerSecond + " burstSize:" + loadBurstSize);
+            long startNanos = clock.nanoTime() + 1_000_000_000L;
+            tradeSchedule = loadSchedule(loadTradesPerSecond, startNanos);
+            priceSchedule = loadSchedule(loadPricesPerSecond, startNanos);
+            schedulerService.scheduleAfterDelay(1000, this::generateLoad);
+        }
+        if (tradeSchedule == null) {
+            schedulerService.scheduleAfterDelay(1000, this::generateTradeData);
+        }
+        if (priceSchedule == null) {
+            schedulerService.scheduleAfterDelay(1000, this::generateMidPriceData);
+        }
+    }
+
+    public void generateLoad() {
+        long nowNanos = clock.nanoTime();
+        while (tradeSchedule != null && tradeSink != null && tradeSchedule.isDue(nowNanos)) {
+            tradeSink.accept(randomTradeGenerator.generateRandomTrade(tradeSchedule.next()));
+        }
+        while (priceSchedule != null && midPriceSink != null && priceSchedule.isDue(nowNanos)) {
+            midPriceSink.accept(randomTradeGenerator.generateRandomMidPrice(priceSchedule.next()));
+        }
+        schedulerService.scheduleAfterDelay(LOAD_TICK_MILLIS, this::generateLoad);
     }
 
     public void generateTradeData() {
@@ -62,4 +133,13 @@ public class DataGeneratorProcessor extends ObjectEventHandlerNode {
             schedulerService.scheduleAfterDelay(pricePublishSleep, this::generateMidPriceData);
         }
     }
+
+    private OpenLoopSchedule loadSchedule(double eventsPerSecond, long startNanos) {
+        if (eventsPerSecond <= 0) {
+            return null;
+        }
+        OpenLoopSchedule schedule = new OpenLoopSchedule(eventsPerSecond, loadBurstSize);
+        schedule.start(startNanos);
+        return schedule;
+    }
 }
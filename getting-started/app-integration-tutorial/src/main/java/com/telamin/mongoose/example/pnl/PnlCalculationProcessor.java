@@ -2,38 +2,149 @@ package com.telamin.mongoose.example.pnl;
 
 import com.telamin.fluxtion.builder.DataFlowBuilder;
 import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.fluxtion.builder.flowfunction.FlowBuilder;
+import com.telamin.mongoose.example.pnl.calculator.MidPriceDrain;
+import com.telamin.mongoose.example.pnl.calculator.OffHeapTradeToPositionAggregate;
+import com.telamin.mongoose.example.pnl.calculator.PnlCheckpointer;
+import com.telamin.mongoose.example.pnl.calculator.PnlConflator;
 import com.telamin.mongoose.example.pnl.calculator.PnlSummaryCalc;
+import com.telamin.mongoose.example.pnl.calculator.SendLatencyRecorder;
 import com.telamin.mongoose.example.pnl.calculator.TradeFilter;
-import com.telamin.mongoose.example.pnl.calculator.TradeLegToPositionAggregate;
+import com.telamin.mongoose.example.pnl.calculator.TradePartition;
+import com.telamin.mongoose.example.pnl.calculator.TradeToPositionAggregate;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
 import com.telamin.mongoose.example.pnl.events.Trade;
-import com.telamin.mongoose.example.pnl.events.TradeLeg;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.service.scheduler.ScheduledTriggerNode;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Supplier;
 
-import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.EOB_TRADE_KEY;
-
 public class PnlCalculationProcessor implements Supplier<DataFlow> {
 
     @Getter
     @Setter
     private String sinkId = "pnl-sink";
+    @Getter
+    @Setter
+    private String pointerFileName = "./data-in/tradesIn.readPointer";
+    @Getter
+    @Setter
+    private int commitEveryTrades = 1024;
+    @Getter
+    @Setter
+    private long commitIntervalMicros = 1_000;
+    @Getter
+    @Setter
+    private boolean forceOnCommit = false;
+    @Getter
+    @Setter
+    private int dedupWindowMillis = 64;
+    @Getter
+    @Setter
+    private boolean incrementalPnl = true;
+    @Getter
+    @Setter
+    private int pnlFullRecomputeInterval = 10_000;
+    @Getter
+    @Setter
+    private long pnlPublishIntervalMillis = 0;
+    @Getter
+    @Setter
+    private double pnlChangeThreshold = 0;
+    @Getter
+    @Setter
+    private int partitionCount = 1;
+    @Getter
+    @Setter
+    private int partitionIndex = 0;
+    @Getter
+    @Setter
+    private String tradeFeedName;
+    @Getter
+    @Setter
+    private long latencyReportIntervalMillis = 0;
+    @Getter
+    @Setter
+    private String snapshotFileName;
+    @Getter
+    @Setter
+    private long checkpointEveryEvents = 100_000;
+    @Getter
+    @Setter
+    private long checkpointIntervalMillis = 1_000;
+    @Getter
+    @Setter
+    private List<String> reportingInstruments = new ArrayList<>();
+    @Getter
+    @Setter
+    private boolean offHeapPositions = false;
+    @Getter
+    @Setter
+    private boolean publishAssetMap = true;
 
     @Override
     public DataFlow get() {
+        TradePartition tradePartition = new TradePartition();
+        tradePartition.setPartitionCount(partitionCount);
+        tradePartition.setPartitionIndex(partitionIndex);
         PnlSummaryCalc pnlSummaryCalc = new PnlSummaryCalc();
+        pnlSummaryCalc.setIncremental(incrementalPnl);
+        pnlSummaryCalc.setFullRecomputeInterval(pnlFullRecomputeInterval);
+        pnlSummaryCalc.setTradePartition(tradePartition);
+        pnlSummaryCalc.setReportingInstruments(reportingInstruments.stream().map(Instrument::new).toList());
+        //a partition publishes the re-marked instruments of its position book, not an asset map
+        pnlSummaryCalc.setPublishAssetMap(publishAssetMap && partitionCount <= 1);
         TradeFilter tradeFilter = new TradeFilter();
+        tradeFilter.setTradePartition(tradePartition);
+        tradeFilter.setPointerFileName(pointerFileName);
+        tradeFilter.setCommitEveryTrades(commitEveryTrades);
+        tradeFilter.setCommitIntervalMicros(commitIntervalMicros);
+        tradeFilter.setForceOnCommit(forceOnCommit);
+        tradeFilter.setDedupWindowMillis(dedupWindowMillis);
 
-        DataFlow processor = DataFlowBuilder.subscribe(Trade.class)
-                .flatMapFromArray(Trade::tradeLegs, EOB_TRADE_KEY)
-                .groupBy(TradeLeg::instrument, TradeLegToPositionAggregate::new)
+        if (tradeFeedName != null) {
+            //subscribe to a feed that does not broadcast, e.g. the trades routed to this partition
+            DataFlowBuilder.subscribeToFeed(tradeFeedName);
+        }
+        //dispatches the latest price of a conflated prices feed, idle if the feed is not conflated
+        MidPriceDrain midPriceDrain = new MidPriceDrain();
+        DataFlowBuilder.subscribeToNode(midPriceDrain);
+        if (latencyReportIntervalMillis > 0) {
+            SendLatencyRecorder sendLatencyRecorder = new SendLatencyRecorder();
+            sendLatencyRecorder.setReportIntervalMillis(latencyReportIntervalMillis);
+            DataFlowBuilder.subscribeToNode(sendLatencyRecorder);
+        }
+        if (snapshotFileName != null && partitionCount <= 1) {
+            //a partition only sees its routed trades, its event counts do not match an offset in the trades file
+            PnlCheckpointer pnlCheckpointer = new PnlCheckpointer(pnlSummaryCalc, tradeFilter);
+            pnlCheckpointer.setSnapshotFileName(snapshotFileName);
+            pnlCheckpointer.setCheckpointEveryEvents(checkpointEveryEvents);
+            pnlCheckpointer.setCheckpointIntervalMillis(checkpointIntervalMillis);
+            pnlCheckpointer.setMidPriceDrain(midPriceDrain);
+            DataFlowBuilder.subscribeToNode(pnlCheckpointer);
+        }
+        FlowBuilder<PnlSummary> pnlSummaries = DataFlowBuilder.subscribe(Trade.class)
+                .filter(tradePartition::inPartition)
+                .aggregate(offHeapPositions ? OffHeapTradeToPositionAggregate::new : TradeToPositionAggregate::new)
                 .publishTriggerOverride(pnlSummaryCalc)
                 .map(pnlSummaryCalc::calcMtmAndUpdateSummary)
-                .filter(tradeFilter::publishPnlResult)
-                .sink(sinkId)
-                .build();
+                .filter(tradeFilter::publishPnlResult);
+
+        PnlConflator pnlConflator = new PnlConflator(pnlSummaries.flowSupplier(), new ScheduledTriggerNode());
+        pnlConflator.setPublishIntervalMillis(pnlPublishIntervalMillis);
+        pnlConflator.setPnlChangeThreshold(pnlChangeThreshold);
+
+        FlowBuilder<PnlSummary> published = DataFlowBuilder.subscribeToNode(pnlConflator)
+                .map(PnlConflator::getLatest);
+        //a partition publishes an immutable snapshot for the merge processor on another agent
+        FlowBuilder<?> sink = partitionCount > 1
+                ? published.map(tradePartition::snapshot).sink(sinkId)
+                : published.sink(sinkId);
 
-        return processor;
+        return sink.build();
     }
 }
@@ -0,0 +1,38 @@
+package com.telamin.mongoose.example.pnl;
+
+import com.telamin.fluxtion.builder.DataFlowBuilder;
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.mongoose.example.pnl.calculator.PnlSummaryMerger;
+import com.telamin.mongoose.example.pnl.events.PartitionPnl;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Merges the partial summaries published by partitioned {@link PnlCalculationProcessor}s into one pnl summary.
+ */
+public class PnlMergeProcessor implements Supplier<DataFlow> {
+
+    @Getter
+    @Setter
+    private String sinkId = "pnl-sink";
+    @Getter
+    @Setter
+    private int partitionCount = 1;
+
+    @Override
+    public DataFlow get() {
+        PnlSummaryMerger pnlSummaryMerger = new PnlSummaryMerger();
+        pnlSummaryMerger.setPartitionCount(partitionCount);
+
+        DataFlow processor = DataFlowBuilder.subscribe(PartitionPnl.class)
+                .map(pnlSummaryMerger::merge)
+                .filter(Objects::nonNull)
+                .sink(sinkId)
+                .build();
+
+        return processor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.telamin.mongoose.example.pnl;
+
+import com.telamin.fluxtion.runtime.node.ObjectEventHandlerNode;
+import com.telamin.mongoose.example.pnl.calculator.TradePartition;
+import com.telamin.mongoose.example.pnl.connector.BlockingPipe;
+import com.telamin.mongoose.example.pnl.events.Trade;
+
+import java.util.List;
+
+/**
+ * Routes each trade of the subscribed trade feed to the pipe of its pnl partition, so a partition processor only
+ * dispatches its own trades. The pipes hold the trades a partition is not ready for, none are dropped.
+ */
+public class TradeRouterProcessor extends ObjectEventHandlerNode {
+
+    private final String tradeFeedName;
+    private final List<BlockingPipe> partitionPipes;
+
+    public TradeRouterProcessor(String tradeFeedName, List<BlockingPipe> partitionPipes) {
+        this.tradeFeedName = tradeFeedName;
+        this.partitionPipes = partitionPipes;
+    }
+
+    @Override
+    public void start() {
+        getContext().subscribeToNamedFeed(tradeFeedName);
+    }
+
+    @Override
+    protected boolean handleEvent(Object event) {
+        if (event instanceof Trade trade) {
+            partitionPipes.get(TradePartition.partitionOf(trade, partitionPipes.size())).offer(trade);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Incrementally maintained conversion tree rooted at the mark to market instrument.
+ * <p>
+ * Every instrument is a node and every quoted symbol a pair of edges between two nodes. Each node reachable from the
+ * root keeps a parent edge on its fewest-hop path to the root, so a directly quoted instrument always converts with
+ * its direct rate. A rate update only re-derives the nodes downstream of the changed edge, a quote that is not part
+ * of the tree costs nothing beyond storing the new rate.
+ * <p>
+ * Instruments whose rate was re-derived are recorded until {@link #clearChangedInstruments()}, so consumers can
+ * re-mark only the affected positions.
+ */
+public class CrossRateEngine {
+
+    private RateNode[] nodesById = new RateNode[64];
+    private final List<RateNode> nodes = new ArrayList<>();
+    private final ArrayDeque<RateNode> dirtyNodes = new ArrayDeque<>();
+    private int[] changedInstrumentIds = new int[64];
+    private int changedInstrumentCount;
+    @Getter
+    private Instrument rootInstrument;
+
+    public CrossRateEngine(Instrument rootInstrument) {
+        setRootInstrument(rootInstrument);
+    }
+
+    /**
+     * Re-roots the conversion tree, all derived rates are rebuilt from the existing quotes.
+     */
+    public void setRootInstrument(Instrument rootInstrument) {
+        this.rootInstrument = rootInstrument;
+        nodes.forEach(RateNode::detach);
+        nodes.forEach(this::rateChanged);
+        RateNode root = node(rootInstrument);
+        rateChanged(root);
+        root.depth = 0;
+        root.rate = 1.0;
+        dirtyNodes.add(root);
+        propagate();
+    }
+
+    /**
+     * Applies a quote of 1 dealt = rate contra, re-deriving only the rates that depend on it.
+     */
+    public void updateRate(Instrument dealtInstrument, Instrument contraInstrument, double rate) {
+        RateNode dealtNode = node(dealtInstrument);
+        RateNode contraNode = node(contraInstrument);
+        RateEdge dealtToContra = dealtNode.edgeTo(contraNode);
+        if (dealtToContra == null) {
+            dealtToContra = new RateEdge(contraNode);
+            RateEdge contraToDealt = new RateEdge(dealtNode);
+            dealtToContra.reverse = contraToDealt;
+            contraToDealt.reverse = dealtToContra;
+            dealtNode.edges.add(dealtToContra);
+            contraNode.edges.add(contraToDealt);
+        }
+        dealtToContra.setQuote(rate);
+
+        if (contraNode.parentEdge == dealtToContra.reverse || dealtNode.isReachable() && dealtNode.depth + 1 < contraNode.depth) {
+            contraNode.attach(dealtToContra.reverse);
+            rateChanged(contraNode);
+            dirtyNodes.add(contraNode);
+        } else if (dealtNode.parentEdge == dealtToContra || contraNode.isReachable() && contraNode.depth + 1 < dealtNode.depth) {
+            dealtNode.attach(dealtToContra);
+            rateChanged(dealtNode);
+            dirtyNodes.add(dealtNode);
+        }
+        propagate();
+    }
+
+    /**
+     * @return the number of root instrument units for one unit of the instrument, NaN if no conversion exists
+     */
+    public double getRate(Instrument instrument) {
+        int id = instrument.id();
+        RateNode node = id < nodesById.length ? nodesById[id] : null;
+        return node == null ? Double.NaN : node.rate;
+    }
+
+    public int instrumentCount() {
+        return nodes.size();
+    }
+
+    public int changedInstrumentCount() {
+        return changedInstrumentCount;
+    }
+
+    /**
+     * @return the id of an instrument whose rate changed since the last clear, index 0 to
+     * {@link #changedInstrumentCount()} - 1
+     */
+    public int changedInstrumentId(int index) {
+        return changedInstrumentIds[index];
+    }
+
+    public void clearChangedInstruments() {
+        for (int i = 0; i < changedInstrumentCount; i++) {
+            nodesById[changedInstrumentIds[i]].changed = false;
+        }
+        changedInstrumentCount = 0;
+    }
+
+    private RateNode node(Instrument instrument) {
+        int id = instrument.id();
+        if (id >= nodesById.length) {
+            nodesById = Arrays.copyOf(nodesById, Math.max(nodesById.length * 2, id + 1));
+        }
+        RateNode node = nodesById[id];
+        if (node == null) {
+            node = new RateNode(instrument);
+            nodesById[id] = node;
+            nodes.add(node);
+        }
+        return node;
+    }
+
+    private void rateChanged(RateNode node) {
+        if (!node.changed) {
+            node.changed = true;
+            if (changedInstrumentCount == changedInstrumentIds.length) {
+                changedInstrumentIds = Arrays.copyOf(changedInstrumentIds, changedInstrumentCount * 2);
+            }
+            changedInstrumentIds[changedInstrumentCount++] = node.instrument.id();
+        }
+    }
+
+    private void propagate() {
+        RateNode parent;
+        while ((parent = dirtyNodes.poll()) != null) {
+            for (int i = 0, edgeCount = parent.edges.size(); i < edgeCount; i++) {
+                RateEdge edge = parent.edges.get(i);
+                RateNode child = edge.target;
+                if (child.parentEdge == edge.reverse || parent.depth + 1 < child.depth) {
+                    child.attach(edge.reverse);
+                    rateChanged(child);
+                    dirtyNodes.add(child);
+                }
+            }
+        }
+    }
+
+    private static final class RateNode {
+        private final Instrument instrument;
+        private final List<RateEdge> edges = new ArrayList<>();
+        private RateEdge parentEdge;
+        private int depth = Integer.MAX_VALUE;
+        private double rate = Double.NaN;
+        private boolean changed;
+
+        private RateNode(Instrument instrument) {
+            this.instrument = instrument;
+        }
+
+        private boolean isReachable() {
+            return depth != Integer.MAX_VALUE;
+        }
+
+        private void attach(RateEdge toParent) {
+            RateNode parent = toParent.target;
+            parentEdge = toParent;
+            depth = parent.depth + 1;
+            rate = toParent.conversionRate * parent.rate;
+        }
+
+        private void detach() {
+            parentEdge = null;
+            depth = Integer.MAX_VALUE;
+            rate = Double.NaN;
+        }
+
+        private RateEdge edgeTo(RateNode target) {
+            for (int i = 0, edgeCount = edges.size(); i < edgeCount; i++) {
+                RateEdge edge = edges.get(i);
+                if (edge.target == target) {
+                    return edge;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return "RateNode{" + instrument.instrumentName() + " depth:" + depth + " rate:" + rate + '}';
+        }
+    }
+
+    private static final class RateEdge {
+        private final RateNode target;
+        private RateEdge reverse;
+        private double conversionRate = Double.NaN;
+
+        private RateEdge(RateNode target) {
+            this.target = target;
+        }
+
+        /**
+         * Quotes are applied to the edge in the direction of the quoted symbol, a pair may be quoted both ways.
+         */
+        private void setQuote(double sourceToTargetRate) {
+            conversionRate = sourceToTargetRate;
+            reverse.conversionRate = 1 / sourceToTargetRate;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import java.util.Arrays;
+
+/**
+ * {@link PositionStore} backed by a double array per column, grown by copying.
+ */
+public class HeapPositionStore implements PositionStore {
+
+    private double[] positions = new double[64];
+    private double[] mtmPositions = new double[64];
+
+    @Override
+    public void ensureCapacity(int maxId) {
+        if (maxId >= positions.length) {
+            int capacity = Math.max(positions.length * 2, maxId + 1);
+            positions = Arrays.copyOf(positions, capacity);
+            mtmPositions = Arrays.copyOf(mtmPositions, capacity);
+        }
+    }
+
+    @Override
+    public double position(int id) {
+        return positions[id];
+    }
+
+    @Override
+    public void addPosition(int id, double volume) {
+        positions[id] += volume;
+    }
+
+    @Override
+    public double mtmPosition(int id) {
+        return mtmPositions[id];
+    }
+
+    @Override
+    public void setMtmPosition(int id, double mtmPosition) {
+        mtmPositions[id] = mtmPosition;
+    }
+}
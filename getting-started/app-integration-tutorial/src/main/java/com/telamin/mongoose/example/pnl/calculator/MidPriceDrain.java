@@ -0,0 +1,70 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.annotations.OnEventHandler;
+import com.telamin.fluxtion.runtime.annotations.TearDown;
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.fluxtion.runtime.annotations.builder.Inject;
+import com.telamin.fluxtion.runtime.callback.EventDispatcher;
+import com.telamin.mongoose.example.pnl.connector.MidPriceConflator;
+import com.telamin.mongoose.example.pnl.events.ConflatedMidPrice;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+/**
+ * Takes the latest price of a {@link ConflatedMidPrice} slot published by a {@link MidPriceConflator} and dispatches
+ * it as a {@link MidPrice} event, so the rest of the graph is unaware of the conflation.
+ * <p>
+ * The price is dispatched after the current event cycle, until it has been processed its sequence is held back from
+ * the resume count a checkpoint records.
+ */
+@Log
+public class MidPriceDrain {
+
+    @Inject
+    public EventDispatcher eventDispatcher;
+    @FluxtionIgnore
+    @Getter
+    private MidPriceConflator conflator;
+    @FluxtionIgnore
+    private long inFlightSequence;
+    @FluxtionIgnore
+    @Getter
+    private long deliveredCount;
+
+    @OnEventHandler(propagate = false)
+    public void conflatedMidPrice(ConflatedMidPrice conflatedMidPrice) {
+        conflator = conflatedMidPrice.getConflator();
+        long firstPendingSequence = conflatedMidPrice.firstPendingSequence();
+        MidPrice midPrice = conflatedMidPrice.take();
+        if (midPrice != null) {
+            inFlightSequence = firstPendingSequence;
+            deliveredCount++;
+            eventDispatcher.processReentrantEvent(midPrice);
+        }
+    }
+
+    @OnEventHandler(propagate = false)
+    public void midPrice(MidPrice midPrice) {
+        inFlightSequence = 0;
+    }
+
+    /**
+     * @param processedCount the number of prices processed, used if no conflated price has been received
+     * @return the number of leading feed prices a checkpoint can skip on restart
+     */
+    public long resumePriceEventCount(long processedCount) {
+        if (conflator == null) {
+            return processedCount;
+        }
+        long resumeCount = conflator.resumeEventCount();
+        return inFlightSequence > 0 ? Math.min(resumeCount, inFlightSequence - 1) : resumeCount;
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (conflator != null) {
+            log.info("price conflation " + conflator + " delivered:" + deliveredCount);
+        }
+    }
+}
@@ -11,29 +11,19 @@ import com.telamin.mongoose.example.pnl.events.MtmInstrument;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import com.telamin.mongoose.example.pnl.refdata.RefData;
 import lombok.Getter;
-import org.jgrapht.alg.shortestpath.BellmanFordShortestPath;
-import org.jgrapht.graph.DefaultDirectedWeightedGraph;
-import org.jgrapht.graph.DefaultWeightedEdge;
-
-import java.util.HashMap;
-import java.util.Map;
 
 public class MtMRateCalculator {
 
     @Getter
     private Instrument mtmInstrument = RefData.USD;
-    private transient final Map<Instrument, Double> directMtmRatesByInstrument = new HashMap<>();
-    private transient final Map<Instrument, Double> derivedMtmRatesByInstrument = new HashMap<>();
-    private transient final DefaultDirectedWeightedGraph<Instrument, DefaultWeightedEdge> graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
-    private BellmanFordShortestPath<Instrument, DefaultWeightedEdge> shortestPath;
+    private transient final CrossRateEngine crossRateEngine = new CrossRateEngine(mtmInstrument);
 
     @OnEventHandler
     public boolean updateMtmInstrument(MtmInstrument mtmInstrumentUpdate) {
         boolean change = mtmInstrument != mtmInstrumentUpdate.instrument();
         if (change) {
             mtmInstrument = mtmInstrumentUpdate.instrument();
-            directMtmRatesByInstrument.clear();
-            derivedMtmRatesByInstrument.clear();
+            crossRateEngine.setRootInstrument(mtmInstrument);
         }
         return change;
     }
@@ -47,32 +37,7 @@ public class MtMRateCalculator {
         if (dealtInstrument == contraInstrument | dealtInstrument == null | contraInstrument == null) {
             return false;
         }
-        derivedMtmRatesByInstrument.clear();
-        //add to directMtmRatesByInstrument
-        if (midPrice.getOppositeInstrument(mtmInstrument) != null) {
-            directMtmRatesByInstrument.put(midPrice.getOppositeInstrument(mtmInstrument), midPrice.getRateForInstrument(mtmInstrument));
-        }
-
-        double rate = midPrice.rate();
-        double logRate = Math.log10(rate);
-        double logInverseRate = Math.log10(1 / rate);
-        int vertexCount = graph.vertexSet().size();
-
-
-        graph.addVertex(dealtInstrument);
-        graph.addVertex(contraInstrument);
-
-        if (shortestPath == null || graph.vertexSet().size() > vertexCount) {
-            shortestPath = new BellmanFordShortestPath<>(graph, 0.000001, graph.vertexSet().size() - 1);
-        }
-
-        if (graph.containsEdge(dealtInstrument, contraInstrument)) {
-            graph.setEdgeWeight(dealtInstrument, contraInstrument, logRate);
-            graph.setEdgeWeight(contraInstrument, dealtInstrument, logInverseRate);
-        } else {
-            graph.setEdgeWeight(graph.addEdge(dealtInstrument, contraInstrument), logRate);
-            graph.setEdgeWeight(graph.addEdge(contraInstrument, dealtInstrument), logInverseRate);
-        }
+        crossRateEngine.updateRate(dealtInstrument, contraInstrument, midPrice.rate());
         return true;
     }
 
@@ -83,22 +48,25 @@ public class MtMRateCalculator {
         return instrumentPosMtm;
     }
 
-    public Double getRateForInstrument(Instrument instrument) {
+    /**
+     * @return the number of instruments whose rate changed since the last {@link #clearChangedInstruments()}
+     */
+    public int changedInstrumentCount() {
+        return crossRateEngine.changedInstrumentCount();
+    }
+
+    public int changedInstrumentId(int index) {
+        return crossRateEngine.changedInstrumentId(index);
+    }
+
+    public void clearChangedInstruments() {
+        crossRateEngine.clearChangedInstruments();
+    }
+
+    public double getRateForInstrument(Instrument instrument) {
         if (instrument.equals(mtmInstrument)) {
             return 1.0;
         }
-        Double rate = directMtmRatesByInstrument.get(instrument);
-        if (rate == null) {
-            rate = derivedMtmRatesByInstrument.computeIfAbsent(
-                    instrument,
-                    positionInstrument -> {
-                        if (graph.containsVertex(positionInstrument) & graph.containsVertex(mtmInstrument)) {
-                            double log10Rate = shortestPath.getPathWeight(positionInstrument, mtmInstrument);
-                            return Double.isInfinite(log10Rate) ? Double.NaN : Math.pow(10, log10Rate);
-                        }
-                        return Double.NaN;
-                    });
-        }
-        return rate;
+        return crossRateEngine.getRate(instrument);
     }
 }
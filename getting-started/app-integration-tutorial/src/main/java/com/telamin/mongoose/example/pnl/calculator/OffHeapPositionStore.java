@@ -0,0 +1,103 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.BitUtil;
+import com.fluxtion.agrona.DirectBuffer;
+import com.fluxtion.agrona.concurrent.UnsafeBuffer;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * {@link PositionStore} holding each column in direct memory slabs of slabInstruments little endian doubles, so the
+ * position columns of a universe of millions of instruments add no objects for the collector to trace and growing
+ * allocates a new slab instead of copying the columns. The per instrument bookkeeping of {@link PositionBook} is
+ * still on heap.
+ * <p>
+ * The slabs are exposed read only for sinks to serialise without copying, the position of instrument id is the
+ * double at byte {@link #slabOffset(int)} of slab {@link #slabIndex(int)}. Slab memory is released when the store
+ * is collected.
+ */
+public class OffHeapPositionStore implements PositionStore {
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    @Getter
+    private final int slabInstruments;
+    private final int slabShift;
+    private final int slabMask;
+    private UnsafeBuffer[] positionSlabs = new UnsafeBuffer[0];
+    private UnsafeBuffer[] mtmPositionSlabs = new UnsafeBuffer[0];
+
+    public OffHeapPositionStore(int slabInstruments) {
+        this.slabInstruments = BitUtil.findNextPositivePowerOfTwo(Math.max(slabInstruments, 64));
+        this.slabShift = Integer.numberOfTrailingZeros(this.slabInstruments);
+        this.slabMask = this.slabInstruments - 1;
+    }
+
+    @Override
+    public void ensureCapacity(int maxId) {
+        int slabCount = slabIndex(maxId) + 1;
+        if (slabCount > positionSlabs.length) {
+            int oldCount = positionSlabs.length;
+            positionSlabs = Arrays.copyOf(positionSlabs, slabCount);
+            mtmPositionSlabs = Arrays.copyOf(mtmPositionSlabs, slabCount);
+            for (int slab = oldCount; slab < slabCount; slab++) {
+                positionSlabs[slab] = newSlab();
+                mtmPositionSlabs[slab] = newSlab();
+            }
+        }
+    }
+
+    @Override
+    public double position(int id) {
+        return positionSlabs[id >>> slabShift].getDouble(slabOffset(id), ORDER);
+    }
+
+    @Override
+    public void addPosition(int id, double volume) {
+        UnsafeBuffer slab = positionSlabs[id >>> slabShift];
+        int offset = slabOffset(id);
+        slab.putDouble(offset, slab.getDouble(offset, ORDER) + volume, ORDER);
+    }
+
+    @Override
+    public double mtmPosition(int id) {
+        return mtmPositionSlabs[id >>> slabShift].getDouble(slabOffset(id), ORDER);
+    }
+
+    @Override
+    public void setMtmPosition(int id, double mtmPosition) {
+        mtmPositionSlabs[id >>> slabShift].putDouble(slabOffset(id), mtmPosition, ORDER);
+    }
+
+    public int slabCount() {
+        return positionSlabs.length;
+    }
+
+    public int slabIndex(int id) {
+        return id >>> slabShift;
+    }
+
+    public int slabOffset(int id) {
+        return (id & slabMask) << 3;
+    }
+
+    /**
+     * @return a zero copy view of a position slab
+     */
+    public DirectBuffer positionSlab(int slab) {
+        return positionSlabs[slab];
+    }
+
+    /**
+     * @return a zero copy view of an mtm position slab
+     */
+    public DirectBuffer mtmPositionSlab(int slab) {
+        return mtmPositionSlabs[slab];
+    }
+
+    private UnsafeBuffer newSlab() {
+        return new UnsafeBuffer(ByteBuffer.allocateDirect(slabInstruments * Double.BYTES));
+    }
+}
@@ -0,0 +1,14 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+/**
+ * {@link TradeToPositionAggregate} into a {@link PositionBook} backed by an {@link OffHeapPositionStore}.
+ */
+public class OffHeapTradeToPositionAggregate extends TradeToPositionAggregate {
+
+    public static final int SLAB_INSTRUMENTS = 1 << 16;
+
+    @Override
+    protected PositionBook newPositionBook() {
+        return new PositionBook(PositionStore.offHeap(SLAB_INSTRUMENTS));
+    }
+}
@@ -0,0 +1,164 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.annotations.AfterEvent;
+import com.telamin.fluxtion.runtime.annotations.Initialise;
+import com.telamin.fluxtion.runtime.annotations.OnEventHandler;
+import com.telamin.fluxtion.runtime.annotations.TearDown;
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.MtmInstrument;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.util.Arrays;
+
+/**
+ * Periodically checkpoints the pnl state to a {@link PnlSnapshotFile} and restores it when the processor starts.
+ * <p>
+ * Every trade and mid price received is counted, a snapshot records the counts with the state after those events so
+ * the feeds can resume at the matching file offsets instead of replaying from the start. A checkpoint is written after
+ * the event that makes checkpointEveryEvents pending or that arrives checkpointIntervalMillis after the last
+ * checkpoint, and at teardown. With a {@link MidPriceDrain} the recorded price count is the conflated feed position
+ * it reports rather than the number of prices received.
+ */
+@Log
+public class PnlCheckpointer {
+
+    private final PnlSummaryCalc pnlSummaryCalc;
+    private final TradeFilter tradeFilter;
+    @Getter
+    @Setter
+    private String snapshotFileName = "./data-in/pnl.snapshot";
+    @Getter
+    @Setter
+    private int snapshotSlotSize = 1 << 20;
+    @Getter
+    @Setter
+    private long checkpointEveryEvents = 100_000;
+    @Getter
+    @Setter
+    private long checkpointIntervalMillis = 1_000;
+    @Getter
+    @Setter
+    private boolean forceOnCheckpoint = false;
+    @Getter
+    @Setter
+    private MidPriceDrain midPriceDrain;
+    @FluxtionIgnore
+    private final PnlSnapshot snapshot = new PnlSnapshot();
+    @FluxtionIgnore
+    private MidPrice[] latestPrices = new MidPrice[64];
+    @FluxtionIgnore
+    private PnlSnapshotFile snapshotFile;
+    @FluxtionIgnore
+    @Getter
+    private long tradeEventCount;
+    @FluxtionIgnore
+    @Getter
+    private long priceEventCount;
+    @FluxtionIgnore
+    private long pendingEvents;
+    @FluxtionIgnore
+    private long lastCheckpointNanos;
+    @FluxtionIgnore
+    @Getter
+    private long checkpointCount;
+
+    public PnlCheckpointer(PnlSummaryCalc pnlSummaryCalc, TradeFilter tradeFilter) {
+        this.pnlSummaryCalc = pnlSummaryCalc;
+        this.tradeFilter = tradeFilter;
+    }
+
+    @Initialise
+    public void initialise() {
+        if (snapshotFile != null) {
+            snapshotFile.close();
+        }
+        snapshotFile = new PnlSnapshotFile(snapshotFileName, snapshotSlotSize);
+        PnlSnapshot restored = snapshotFile.open();
+        if (restored != null) {
+            restore(restored);
+        }
+        lastCheckpointNanos = System.nanoTime();
+    }
+
+    @OnEventHandler(propagate = false)
+    public void trade(Trade trade) {
+        tradeEventCount++;
+        pendingEvents++;
+    }
+
+    @OnEventHandler(propagate = false)
+    public void midPrice(MidPrice midPrice) {
+        priceEventCount++;
+        pendingEvents++;
+        storeLatestPrice(midPrice);
+    }
+
+    @AfterEvent
+    public void checkpointIfDue() {
+        long nowNanos = System.nanoTime();
+        if (pendingEvents > 0 && (pendingEvents >= checkpointEveryEvents
+                || nowNanos - lastCheckpointNanos >= checkpointIntervalMillis * 1_000_000)) {
+            checkpoint(nowNanos);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (snapshotFile != null) {
+            if (pendingEvents > 0) {
+                checkpoint(System.nanoTime());
+            }
+            snapshotFile.close();
+            snapshotFile = null;
+        }
+    }
+
+    public void checkpoint(long nowNanos) {
+        snapshot.clear();
+        snapshot.setTradeEventCount(tradeEventCount);
+        snapshot.setPriceEventCount(midPriceDrain == null
+                ? priceEventCount : midPriceDrain.resumePriceEventCount(priceEventCount));
+        snapshot.setMtmInstrument(pnlSummaryCalc.getMtMRateCalculator().getMtmInstrument());
+        for (MidPrice midPrice : latestPrices) {
+            if (midPrice != null) {
+                snapshot.getMidPrices().add(midPrice);
+            }
+        }
+        snapshot.setPositions(pnlSummaryCalc.checkpointPositions());
+        tradeFilter.highWaterIds(snapshot.getHighWaterIds());
+        if (snapshotFile.write(snapshot, forceOnCheckpoint)) {
+            checkpointCount++;
+        } else {
+            log.warning("pnl snapshot larger than slot size:" + snapshotFile.getSlotSize() + " checkpoint skipped");
+        }
+        pendingEvents = 0;
+        lastCheckpointNanos = nowNanos;
+    }
+
+    private void restore(PnlSnapshot restored) {
+        tradeEventCount = restored.getTradeEventCount();
+        priceEventCount = restored.getPriceEventCount();
+        MtMRateCalculator mtMRateCalculator = pnlSummaryCalc.getMtMRateCalculator();
+        mtMRateCalculator.updateMtmInstrument(new MtmInstrument(restored.getMtmInstrument()));
+        for (MidPrice midPrice : restored.getMidPrices()) {
+            mtMRateCalculator.midRate(midPrice);
+            storeLatestPrice(midPrice);
+        }
+        pnlSummaryCalc.restorePositions(restored.getPositions());
+        tradeFilter.restoreHighWaterIds(restored.getHighWaterIds());
+        log.info("restored pnl snapshot:" + snapshotFileName + " trades:" + tradeEventCount + " prices:" + priceEventCount
+                + " positions:" + restored.getPositions().instrumentCount() + " rates:" + restored.getMidPrices().size());
+    }
+
+    private void storeLatestPrice(MidPrice midPrice) {
+        int id = midPrice.symbol().id();
+        if (id >= latestPrices.length) {
+            latestPrices = Arrays.copyOf(latestPrices, Math.max(latestPrices.length * 2, id + 1));
+        }
+        latestPrices[id] = midPrice;
+    }
+}
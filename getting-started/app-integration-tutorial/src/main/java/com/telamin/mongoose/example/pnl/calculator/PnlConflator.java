@@ -0,0 +1,104 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.annotations.OnParentUpdate;
+import com.telamin.fluxtion.runtime.annotations.OnTrigger;
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.fluxtion.runtime.annotations.runtime.ServiceRegistered;
+import com.telamin.fluxtion.runtime.flowfunction.FlowSupplier;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.service.scheduler.ScheduledTriggerNode;
+import com.telamin.mongoose.service.scheduler.SchedulerService;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Conflates pnl summary updates, triggering at most once every publishIntervalMillis unless the pnl has moved by
+ * more than pnlChangeThreshold since the last publish. The published summary is always the latest state.
+ * <p>
+ * An update held back by the interval is flushed by a scheduled trigger when the interval expires, without a
+ * scheduler service it is flushed by the next update. A publishIntervalMillis of 0 publishes every update, a
+ * pnlChangeThreshold of 0 or less disables the threshold.
+ */
+public class PnlConflator {
+
+    private final FlowSupplier<PnlSummary> pnlSummaries;
+    private final ScheduledTriggerNode flushTrigger;
+    @Getter
+    @Setter
+    private long publishIntervalMillis = 0;
+    @Getter
+    @Setter
+    private double pnlChangeThreshold = 0;
+    @FluxtionIgnore
+    private SchedulerService schedulerService;
+    @FluxtionIgnore
+    @Getter
+    private PnlSummary latest;
+    @FluxtionIgnore
+    private boolean pending;
+    @FluxtionIgnore
+    private boolean flushScheduled;
+    @FluxtionIgnore
+    private double lastPublishedPnl = Double.NaN;
+    @FluxtionIgnore
+    private long lastPublishMillis = Long.MIN_VALUE;
+    @FluxtionIgnore
+    @Getter
+    private long conflatedCount;
+
+    public PnlConflator(FlowSupplier<PnlSummary> pnlSummaries, ScheduledTriggerNode flushTrigger) {
+        this.pnlSummaries = pnlSummaries;
+        this.flushTrigger = flushTrigger;
+    }
+
+    @ServiceRegistered
+    public void scheduler(SchedulerService schedulerService) {
+        this.schedulerService = schedulerService;
+    }
+
+    @OnParentUpdate("pnlSummaries")
+    public void pnlSummaryUpdated(FlowSupplier<PnlSummary> pnlSummaries) {
+        latest = pnlSummaries.get();
+        pending = latest != null;
+    }
+
+    @OnParentUpdate("flushTrigger")
+    public void flushTriggered(ScheduledTriggerNode flushTrigger) {
+        flushScheduled = false;
+    }
+
+    @OnTrigger
+    public boolean publish() {
+        return publish(schedulerService == null ? System.currentTimeMillis() : schedulerService.milliTime());
+    }
+
+    boolean publish(long nowMillis) {
+        if (!pending) {
+            return false;
+        }
+        long elapsedMillis = nowMillis - lastPublishMillis;
+        if (lastPublishMillis == Long.MIN_VALUE || elapsedMillis >= publishIntervalMillis || thresholdExceeded()) {
+            pending = false;
+            lastPublishedPnl = latest.getPnl();
+            lastPublishMillis = nowMillis;
+            return true;
+        }
+        conflatedCount++;
+        if (!flushScheduled && schedulerService != null) {
+            flushScheduled = true;
+            flushTrigger.triggerAfterDelay(publishIntervalMillis - elapsedMillis);
+        }
+        return false;
+    }
+
+    private boolean thresholdExceeded() {
+        if (pnlChangeThreshold <= 0) {
+            return false;
+        }
+        double pnl = latest.getPnl();
+        if (Double.isNaN(pnl) || Double.isNaN(lastPublishedPnl)) {
+            return Double.isNaN(pnl) != Double.isNaN(lastPublishedPnl);
+        }
+        return Math.abs(pnl - lastPublishedPnl) > pnlChangeThreshold;
+    }
+}
@@ -0,0 +1,124 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The pnl state needed to resume without replaying the feeds: positions, the latest mid price of every symbol, the
+ * mtm instrument, the trade id high water of every generator node and the number of events consumed from each feed.
+ * <p>
+ * Encoded little endian, names as a short length and UTF-8 bytes:
+ * <pre>
+ * long tradeEventCount | long priceEventCount | mtmInstrument
+ * int priceCount    | priceCount x (symbolName | dealtName | contraName | double rate)
+ * int positionCount | positionCount x (instrumentName | double position)
+ * int nodeCount     | nodeCount x (int nodeId | long highWaterId)
+ * </pre>
+ */
+public class PnlSnapshot {
+
+    @Getter
+    @Setter
+    private long tradeEventCount;
+    @Getter
+    @Setter
+    private long priceEventCount;
+    @Getter
+    @Setter
+    private Instrument mtmInstrument;
+    @Getter
+    private final List<MidPrice> midPrices = new ArrayList<>();
+    @Getter
+    private PositionBook positions = new PositionBook();
+    @Getter
+    private final long[] highWaterIds = new long[TradeIdWindow.NODE_COUNT];
+
+    public void clear() {
+        tradeEventCount = 0;
+        priceEventCount = 0;
+        mtmInstrument = null;
+        midPrices.clear();
+        positions = new PositionBook();
+        Arrays.fill(highWaterIds, 0);
+    }
+
+    public void setPositions(PositionBook positions) {
+        this.positions = positions == null ? new PositionBook() : positions;
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void encode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(tradeEventCount);
+        buffer.putLong(priceEventCount);
+        putName(buffer, mtmInstrument.instrumentName());
+        buffer.putInt(midPrices.size());
+        for (MidPrice midPrice : midPrices) {
+            putName(buffer, midPrice.symbol().symbolName());
+            putName(buffer, midPrice.dealtInstrument().instrumentName());
+            putName(buffer, midPrice.contraInstrument().instrumentName());
+            buffer.putDouble(midPrice.rate());
+        }
+        buffer.putInt(positions.instrumentCount());
+        for (int i = 0; i < positions.instrumentCount(); i++) {
+            int id = positions.instrumentId(i);
+            putName(buffer, positions.instrument(id).instrumentName());
+            buffer.putDouble(positions.position(id));
+        }
+        int nodeCountPosition = buffer.position();
+        int nodeCount = 0;
+        buffer.putInt(0);
+        for (int node = 0; node < highWaterIds.length; node++) {
+            if (highWaterIds[node] != 0) {
+                buffer.putInt(node);
+                buffer.putLong(highWaterIds[node]);
+                nodeCount++;
+            }
+        }
+        buffer.putInt(nodeCountPosition, nodeCount);
+    }
+
+    public static PnlSnapshot decode(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        PnlSnapshot snapshot = new PnlSnapshot();
+        snapshot.tradeEventCount = buffer.getLong();
+        snapshot.priceEventCount = buffer.getLong();
+        snapshot.mtmInstrument = new Instrument(getName(buffer));
+        for (int i = 0, count = buffer.getInt(); i < count; i++) {
+            Symbol symbol = new Symbol(getName(buffer), new Instrument(getName(buffer)), new Instrument(getName(buffer)));
+            snapshot.midPrices.add(new MidPrice(symbol, buffer.getDouble()));
+        }
+        for (int i = 0, count = buffer.getInt(); i < count; i++) {
+            snapshot.positions.add(new Instrument(getName(buffer)), buffer.getDouble());
+        }
+        snapshot.positions.clearChangedInstruments();
+        for (int i = 0, count = buffer.getInt(); i < count; i++) {
+            snapshot.highWaterIds[buffer.getInt()] = buffer.getLong();
+        }
+        return snapshot;
+    }
+
+    private static void putName(ByteBuffer buffer, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getName(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,182 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.IoUtil;
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Memory mapped file holding the latest {@link PnlSnapshot}, written alternately into two slots so a crash while
+ * writing one leaves the previous snapshot readable.
+ * <p>
+ * File layout: an int magic and int slot size header padded to {@link #HEADER_LENGTH}, followed by two slots of
+ * | long sequence | int payloadLength | int crc32 | payload |. The sequence is written last, a reader takes the valid
+ * slot with the highest sequence.
+ */
+public class PnlSnapshotFile {
+
+    public static final int HEADER_LENGTH = 64;
+    private static final int MAGIC = 0x504E4C53;
+    private static final int SLOT_HEADER_LENGTH = 16;
+
+    @Getter
+    private final String fileName;
+    @Getter
+    private final int slotSize;
+    private MappedByteBuffer buffer;
+    @Getter
+    private long sequence;
+
+    /**
+     * @param slotSize the bytes per slot, ignored if the file exists
+     */
+    public PnlSnapshotFile(String fileName, int slotSize) {
+        this.fileName = fileName;
+        this.slotSize = slotSize;
+    }
+
+    /**
+     * @return the latest valid snapshot, null if the file does not exist or holds no valid snapshot
+     */
+    public static PnlSnapshot readLatest(String fileName) {
+        File file = new File(fileName);
+        if (!file.exists() || file.length() < HEADER_LENGTH) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return decodeLatest(mapped.order(ByteOrder.LITTLE_ENDIAN));
+            } finally {
+                IoUtil.unmap(mapped);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read pnl snapshot:" + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Maps the file, creating it if required.
+     *
+     * @return the latest valid snapshot, null if there is none
+     */
+    public PnlSnapshot open() {
+        File file = new File(fileName);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int fileSlotSize = slotSize;
+            if (channel.size() >= HEADER_LENGTH) {
+                ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header, 0);
+                if (header.getInt(0) == MAGIC) {
+                    fileSlotSize = header.getInt(4);
+                }
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH + 2L * fileSlotSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                buffer.putInt(4, fileSlotSize);
+                buffer.putInt(0, MAGIC);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open pnl snapshot:" + file.getAbsolutePath(), e);
+        }
+        PnlSnapshot snapshot = decodeLatest(buffer);
+        sequence = snapshot == null ? 0 : latestSequence(buffer);
+        return snapshot;
+    }
+
+    /**
+     * Writes the snapshot into the older slot.
+     *
+     * @return false if the snapshot does not fit in a slot, the previous snapshot is kept
+     */
+    public boolean write(PnlSnapshot snapshot, boolean force) {
+        int slotOffset = slotOffset(buffer, (int) ((sequence + 1) & 1));
+        ByteBuffer payload = buffer.slice(slotOffset + SLOT_HEADER_LENGTH, buffer.getInt(4) - SLOT_HEADER_LENGTH);
+        try {
+            snapshot.encode(payload);
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+        int payloadLength = payload.position();
+        CRC32 crc = new CRC32();
+        crc.update(payload.flip());
+        buffer.putInt(slotOffset + 8, payloadLength);
+        buffer.putInt(slotOffset + 12, (int) crc.getValue());
+        buffer.putLong(slotOffset, ++sequence);
+        if (force) {
+            buffer.force();
+        }
+        return true;
+    }
+
+    public void close() {
+        if (buffer != null) {
+            buffer.force();
+            IoUtil.unmap(buffer);
+            buffer = null;
+        }
+    }
+
+    private static PnlSnapshot decodeLatest(ByteBuffer buffer) {
+        int slot = latestSlot(buffer);
+        if (slot < 0) {
+            return null;
+        }
+        int slotOffset = slotOffset(buffer, slot);
+        return PnlSnapshot.decode(buffer.slice(slotOffset + SLOT_HEADER_LENGTH, buffer.getInt(slotOffset + 8)));
+    }
+
+    private static long latestSequence(ByteBuffer buffer) {
+        int slot = latestSlot(buffer);
+        return slot < 0 ? 0 : buffer.getLong(slotOffset(buffer, slot));
+    }
+
+    private static int latestSlot(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC) {
+            return -1;
+        }
+        int latestSlot = -1;
+        long latestSequence = 0;
+        for (int slot = 0; slot < 2; slot++) {
+            int slotOffset = slotOffset(buffer, slot);
+            if (slotOffset + SLOT_HEADER_LENGTH > buffer.limit()) {
+                continue;
+            }
+            long slotSequence = buffer.getLong(slotOffset);
+            if (slotSequence > latestSequence && isValid(buffer, slotOffset)) {
+                latestSlot = slot;
+                latestSequence = slotSequence;
+            }
+        }
+        return latestSlot;
+    }
+
+    private static boolean isValid(ByteBuffer buffer, int slotOffset) {
+        int payloadLength = buffer.getInt(slotOffset + 8);
+        if (payloadLength <= 0 || slotOffset + SLOT_HEADER_LENGTH + payloadLength > buffer.limit()
+                || payloadLength > buffer.getInt(4) - SLOT_HEADER_LENGTH) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(slotOffset + SLOT_HEADER_LENGTH, payloadLength));
+        return (int) crc.getValue() == buffer.getInt(slotOffset + 12);
+    }
+
+    private static int slotOffset(ByteBuffer buffer, int slot) {
+        return HEADER_LENGTH + slot * buffer.getInt(4);
+    }
+}
@@ -3,19 +3,69 @@ package com.telamin.mongoose.example.pnl.calculator;
 import com.telamin.fluxtion.runtime.annotations.OnEventHandler;
 import com.telamin.fluxtion.runtime.annotations.OnTrigger;
 import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
-import com.telamin.fluxtion.runtime.event.Signal;
-import com.telamin.fluxtion.runtime.flowfunction.groupby.GroupBy;
 import com.telamin.mongoose.example.pnl.events.PnlSummary;
-import com.telamin.mongoose.example.pnl.server.PnlExampleMain;
+import com.telamin.mongoose.example.pnl.events.ReportingPnl;
+import com.telamin.mongoose.example.pnl.events.Trade;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
 
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Marks the position book to market and maintains the {@link PnlSummary}.
+ * <p>
+ * In incremental mode only instruments whose position or rate changed since the last update are re-marked, the
+ * running pnl is adjusted by the change in their mtm position. Every fullRecomputeInterval updates all instruments
+ * are re-marked and the pnl re-summed, a drift of the running pnl beyond the relative driftTolerance is logged.
+ * <p>
+ * The pnl is also published in each reporting instrument, converted with the rate of the reporting instrument in the
+ * mtm conversion tree. One pass over the rate graph serves every reporting instrument, instead of a pnl processor
+ * per instrument each rooting its own tree.
+ * <p>
+ * With publishAssetMap false the summary carries no per instrument map, sinks read the positions from
+ * {@link PnlSummary#getPositionBook()} instead. Used with an {@link OffHeapPositionStore} a universe of millions of
+ * instruments then creates no per instrument objects.
+ */
+@Log
 public class PnlSummaryCalc {
 
     @Getter
     private final MtMRateCalculator mtMRateCalculator;
+    @Getter
+    @Setter
+    private boolean incremental = true;
+    @Getter
+    @Setter
+    private int fullRecomputeInterval = 10_000;
+    @Getter
+    @Setter
+    private double driftTolerance = 1e-6;
+    @Getter
+    @Setter
+    private boolean publishAssetMap = true;
+    @Getter
+    @Setter
+    private TradePartition tradePartition = new TradePartition();
     @FluxtionIgnore
     private final PnlSummary pnlSummary = new PnlSummary();
+    @FluxtionIgnore
+    private PositionBook lastPositionBook;
+    @FluxtionIgnore
+    private int publishedInstrumentCount;
+    @FluxtionIgnore
+    private double pricedMtmSum;
+    @FluxtionIgnore
+    private int unpricedCount;
+    @FluxtionIgnore
+    private int updatesSinceFullRecompute;
+    @FluxtionIgnore
+    @Getter
+    private double lastDrift;
+    @FluxtionIgnore
+    private PositionBook restoredPositions;
 
     public PnlSummaryCalc(MtMRateCalculator mtMRateCalculator) {
         this.mtMRateCalculator = mtMRateCalculator;
@@ -25,30 +75,181 @@ public class PnlSummaryCalc {
         this.mtMRateCalculator = new MtMRateCalculator();
     }
 
-    @OnEventHandler(filterString = PnlExampleMain.EOB_TRADE_KEY)
-    public boolean eobTrigger(Signal<String> eobSignal) {
-        return true;
+    @OnEventHandler
+    public boolean tradeTrigger(Trade trade) {
+        return tradePartition.inPartition(trade);
+    }
+
+    /**
+     * Replaces the instruments the pnl is reported in alongside the mtm instrument.
+     */
+    public void setReportingInstruments(List<Instrument> reportingInstruments) {
+        List<ReportingPnl> reportingPnls = pnlSummary.getReportingPnls();
+        reportingPnls.clear();
+        reportingInstruments.forEach(instrument -> reportingPnls.add(new ReportingPnl(instrument)));
     }
 
-    public PnlSummary updateSummary(GroupBy<Instrument, InstrumentPosMtm> instrumentMtmGroupBy) {
+    public PnlSummary updateSummary(PositionBook positionBook) {
         pnlSummary.setMtmInstrument(mtMRateCalculator.getMtmInstrument());
-        pnlSummary.getMtmAssetMap().clear();
-        pnlSummary.getMtmAssetMap().putAll(instrumentMtmGroupBy.toMap());
-        if (pnlSummary.calcPnl()) {
+        addNewAssets(positionBook);
+        boolean pnlChanged = publishAssetMap
+                ? pnlSummary.calcPnl() : pnlSummary.updatePnl(positionBook.mtmPositionSum());
+        if (pnlChanged | updateReportingPnl()) {
             return pnlSummary;
         }
         return null;
     }
 
-    public PnlSummary calcMtmAndUpdateSummary(GroupBy<Instrument, InstrumentPosMtm> instrumentMtmGroupBy) {
-        instrumentMtmGroupBy.toMap().values().forEach(mtMRateCalculator::calculateInstrumentPosMtm);
+    /**
+     * Seeds the first position book aggregated with positions restored from a snapshot.
+     */
+    public void restorePositions(PositionBook positions) {
+        restoredPositions = positions;
+    }
+
+    /**
+     * @return the current positions, the restored positions until the first trade is aggregated
+     */
+    public PositionBook checkpointPositions() {
+        return restoredPositions != null ? restoredPositions : lastPositionBook;
+    }
+
+    public PnlSummary calcMtmAndUpdateSummary(PositionBook positionBook) {
+        if (restoredPositions != null && positionBook != lastPositionBook) {
+            positionBook.combine(restoredPositions);
+            restoredPositions = null;
+        }
+        if (!incremental) {
+            return recalculateAndUpdateSummary(positionBook);
+        }
+        if (positionBook != lastPositionBook) {
+            return fullRecompute(positionBook, false);
+        }
+        for (int i = 0, count = positionBook.changedInstrumentCount(); i < count; i++) {
+            remark(positionBook, positionBook.changedInstrumentId(i));
+        }
+        for (int i = 0, count = mtMRateCalculator.changedInstrumentCount(); i < count; i++) {
+            int id = mtMRateCalculator.changedInstrumentId(i);
+            if (positionBook.hasInstrument(id)) {
+                remark(positionBook, id);
+            }
+        }
+        positionBook.clearChangedInstruments();
+        mtMRateCalculator.clearChangedInstruments();
+        if (++updatesSinceFullRecompute >= fullRecomputeInterval) {
+            return fullRecompute(positionBook, true);
+        }
+
         pnlSummary.setMtmInstrument(mtMRateCalculator.getMtmInstrument());
-        pnlSummary.getMtmAssetMap().clear();
-        pnlSummary.getMtmAssetMap().putAll(instrumentMtmGroupBy.toMap());
-        if (pnlSummary.calcPnl()) {
-            return pnlSummary;
+        if (publishAssetMap) {
+            publishNewAssets(positionBook);
+        }
+        return publishPnl();
+    }
+
+    private PnlSummary fullRecompute(PositionBook positionBook, boolean checkDrift) {
+        double runningPnl = runningPnl();
+        pricedMtmSum = 0;
+        unpricedCount = 0;
+        for (int i = 0, count = positionBook.instrumentCount(); i < count; i++) {
+            int id = positionBook.instrumentId(i);
+            double mtmPosition = positionBook.position(id) * mtMRateCalculator.getRateForInstrument(positionBook.instrument(id));
+            positionBook.setMtmPosition(id, mtmPosition);
+            addMtm(mtmPosition);
+        }
+        positionBook.clearChangedInstruments();
+        mtMRateCalculator.clearChangedInstruments();
+        updatesSinceFullRecompute = 0;
+
+        lastDrift = checkDrift && !Double.isNaN(runningPnl) ? runningPnl() - runningPnl : 0;
+        if (Math.abs(lastDrift) > driftTolerance * Math.max(1, Math.abs(runningPnl()))) {
+            log.warning("running pnl drift:" + lastDrift + " corrected to full recompute pnl:" + runningPnl());
+        }
+        pnlSummary.setMtmInstrument(mtMRateCalculator.getMtmInstrument());
+        addNewAssets(positionBook);
+        return publishPnl();
+    }
+
+    private PnlSummary publishPnl() {
+        return pnlSummary.updatePnl(runningPnl()) | updateReportingPnl() ? pnlSummary : null;
+    }
+
+    private boolean updateReportingPnl() {
+        boolean changed = false;
+        List<ReportingPnl> reportingPnls = pnlSummary.getReportingPnls();
+        for (int i = 0, count = reportingPnls.size(); i < count; i++) {
+            ReportingPnl reportingPnl = reportingPnls.get(i);
+            changed |= reportingPnl.update(pnlSummary.getPnl(), mtMRateCalculator.getRateForInstrument(reportingPnl.getInstrument()));
+        }
+        return changed;
+    }
+
+    private void remark(PositionBook positionBook, int id) {
+        double mtmPosition = positionBook.position(id) * mtMRateCalculator.getRateForInstrument(positionBook.instrument(id));
+        removeMtm(positionBook.mtmPosition(id));
+        addMtm(mtmPosition);
+        positionBook.setMtmPosition(id, mtmPosition);
+        if (publishAssetMap) {
+            positionBook.instrumentPosMtm(id);
+        }
+    }
+
+    private void addMtm(double mtmPosition) {
+        if (Double.isNaN(mtmPosition)) {
+            unpricedCount++;
+        } else {
+            pricedMtmSum += mtmPosition;
+        }
+    }
+
+    private void removeMtm(double mtmPosition) {
+        if (Double.isNaN(mtmPosition)) {
+            unpricedCount--;
+        } else {
+            pricedMtmSum -= mtmPosition;
+        }
+    }
+
+    private double runningPnl() {
+        return unpricedCount > 0 ? Double.NaN : pricedMtmSum;
+    }
+
+    private PnlSummary recalculateAndUpdateSummary(PositionBook positionBook) {
+        for (int i = 0, count = positionBook.instrumentCount(); i < count; i++) {
+            int id = positionBook.instrumentId(i);
+            double rate = mtMRateCalculator.getRateForInstrument(positionBook.instrument(id));
+            positionBook.setMtmPosition(id, positionBook.position(id) * rate);
+        }
+        return updateSummary(positionBook);
+    }
+
+    private void addNewAssets(PositionBook positionBook) {
+        if (positionBook != lastPositionBook) {
+            lastPositionBook = positionBook;
+            pnlSummary.setPositionBook(positionBook);
+            pnlSummary.getMtmAssetMap().clear();
+            publishedInstrumentCount = 0;
+        }
+        if (!publishAssetMap) {
+            return;
+        }
+        //refresh the views already in the map, then add the instruments traded since the last publish
+        for (int i = 0; i < publishedInstrumentCount; i++) {
+            positionBook.instrumentPosMtm(positionBook.instrumentId(i));
+        }
+        publishNewAssets(positionBook);
+    }
+
+    /**
+     * Adds the instruments of the position book not yet in the asset map. The book only appends to its first traded
+     * order, so the instruments from publishedInstrumentCount on are exactly the new ones.
+     */
+    private void publishNewAssets(PositionBook positionBook) {
+        Map<Instrument, InstrumentPosMtm> mtmAssetMap = pnlSummary.getMtmAssetMap();
+        for (int count = positionBook.instrumentCount(); publishedInstrumentCount < count; publishedInstrumentCount++) {
+            InstrumentPosMtm instrumentPosMtm = positionBook.instrumentPosMtm(positionBook.instrumentId(publishedInstrumentCount));
+            mtmAssetMap.put(instrumentPosMtm.getInstrument(), instrumentPosMtm);
         }
-        return null;
     }
 
     @OnTrigger
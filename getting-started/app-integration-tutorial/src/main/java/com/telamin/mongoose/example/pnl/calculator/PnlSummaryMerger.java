@@ -0,0 +1,138 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.mongoose.example.pnl.events.PartitionPnl;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.ReportingPnl;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Combines the {@link PartitionPnl} updates of every partition into one {@link PnlSummary}. The latest position of
+ * each partition is kept per instrument id, an update re-sums only the instruments it carries across the partitions,
+ * so the work per merge is the changed instruments times the partition count, not the whole universe.
+ * <p>
+ * Partitions that have not published yet are left out. No summary is produced while the partitions disagree on the
+ * mtm instrument, which happens briefly after the mtm instrument is changed. The merged pnl is converted to the
+ * reporting instruments with the rates of the latest partition, every partition sees every price.
+ */
+public class PnlSummaryMerger {
+
+    private static final int INITIAL_CAPACITY = 64;
+    @Getter
+    @Setter
+    private int partitionCount = 1;
+    @FluxtionIgnore
+    private Instrument[] partitionMtmInstruments;
+    @FluxtionIgnore
+    private double[] partitionPnls;
+    @FluxtionIgnore
+    private double[][] partitionPositions;
+    @FluxtionIgnore
+    private double[][] partitionMtmPositions;
+    @FluxtionIgnore
+    private InstrumentPosMtm[] mergedPositions = new InstrumentPosMtm[INITIAL_CAPACITY];
+    @FluxtionIgnore
+    private final PnlSummary pnlSummary = new PnlSummary();
+
+    public PnlSummary merge(PartitionPnl partitionPnl) {
+        if (partitionMtmInstruments == null) {
+            partitionMtmInstruments = new Instrument[partitionCount];
+            partitionPnls = new double[partitionCount];
+            partitionPositions = new double[partitionCount][INITIAL_CAPACITY];
+            partitionMtmPositions = new double[partitionCount][INITIAL_CAPACITY];
+        }
+        int partition = partitionPnl.partition();
+        if (partitionPnl.full() && partitionMtmInstruments[partition] != null) {
+            clearPartition(partition);
+        }
+        partitionMtmInstruments[partition] = partitionPnl.mtmInstrument();
+        partitionPnls[partition] = partitionPnl.pnl();
+        for (InstrumentPosMtm posMtm : partitionPnl.positions()) {
+            int id = posMtm.getInstrument().id();
+            ensureCapacity(partition, id);
+            partitionPositions[partition][id] = posMtm.getPosition();
+            partitionMtmPositions[partition][id] = posMtm.getMtmPosition();
+            mergeInstrument(posMtm.getInstrument());
+        }
+
+        Instrument mtmInstrument = partitionPnl.mtmInstrument();
+        double pnl = 0;
+        for (int i = 0; i < partitionCount; i++) {
+            if (partitionMtmInstruments[i] == null) {
+                continue;
+            }
+            if (!partitionMtmInstruments[i].equals(mtmInstrument)) {
+                return null;
+            }
+            pnl += partitionPnls[i];
+        }
+        pnlSummary.setMtmInstrument(mtmInstrument);
+        pnlSummary.updatePnl(pnl);
+        mergeReportingPnl(partitionPnl);
+        return pnlSummary;
+    }
+
+    private void mergeInstrument(Instrument instrument) {
+        int id = instrument.id();
+        double position = 0;
+        double mtmPosition = 0;
+        for (int i = 0; i < partitionCount; i++) {
+            if (id < partitionPositions[i].length) {
+                position += partitionPositions[i][id];
+                mtmPosition += partitionMtmPositions[i][id];
+            }
+        }
+        InstrumentPosMtm merged = mergedPositions[id];
+        if (merged == null) {
+            merged = new InstrumentPosMtm();
+            merged.setInstrument(instrument);
+            mergedPositions[id] = merged;
+            pnlSummary.getMtmAssetMap().put(instrument, merged);
+        }
+        merged.setPosition(position);
+        merged.setMtmPosition(mtmPosition);
+    }
+
+    /**
+     * Drops everything the partition published before, it sends all its positions again.
+     */
+    private void clearPartition(int partition) {
+        Arrays.fill(partitionPositions[partition], 0);
+        Arrays.fill(partitionMtmPositions[partition], 0);
+        for (InstrumentPosMtm merged : mergedPositions) {
+            if (merged != null) {
+                mergeInstrument(merged.getInstrument());
+            }
+        }
+    }
+
+    private void ensureCapacity(int partition, int id) {
+        if (id >= partitionPositions[partition].length) {
+            int capacity = Math.max(partitionPositions[partition].length * 2, id + 1);
+            partitionPositions[partition] = Arrays.copyOf(partitionPositions[partition], capacity);
+            partitionMtmPositions[partition] = Arrays.copyOf(partitionMtmPositions[partition], capacity);
+        }
+        if (id >= mergedPositions.length) {
+            mergedPositions = Arrays.copyOf(mergedPositions, Math.max(mergedPositions.length * 2, id + 1));
+        }
+    }
+
+    private void mergeReportingPnl(PartitionPnl partitionPnl) {
+        List<ReportingPnl> reportingPnls = pnlSummary.getReportingPnls();
+        if (reportingPnls.size() != partitionPnl.reportingPnls().length) {
+            reportingPnls.clear();
+            for (ReportingPnl reportingPnl : partitionPnl.reportingPnls()) {
+                reportingPnls.add(new ReportingPnl(reportingPnl.getInstrument()));
+            }
+        }
+        for (int i = 0; i < reportingPnls.size(); i++) {
+            double rate = partitionPnl.reportingPnls()[i].getRate();
+            reportingPnls.get(i).update(pnlSummary.getPnl(), rate);
+        }
+    }
+}
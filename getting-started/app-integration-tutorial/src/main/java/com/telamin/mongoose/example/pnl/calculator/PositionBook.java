@@ -0,0 +1,197 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+
+import java.util.Arrays;
+
+/**
+ * Position and mark to market state for every traded instrument, held in a {@link PositionStore} indexed by
+ * {@link Instrument#id()}. Aggregating a trade leg is an array add, no hashing or boxing. The store is on heap by
+ * default, an {@link OffHeapPositionStore} keeps the columns in direct memory for very large universes.
+ * <p>
+ * Instruments are also kept in a dense list in first traded order, iterate with {@link #instrumentCount()} and
+ * {@link #instrumentId(int)}. {@link InstrumentPosMtm} views are available for reporting.
+ * <p>
+ * Instruments whose position changed are recorded until {@link #clearChangedInstruments()}, for incremental
+ * re-marking. Instruments whose mtm position was set are recorded separately until
+ * {@link #clearUnpublishedInstruments()}, so a publisher that conflates updates sends only the instruments re-marked
+ * since its last publish.
+ * <p>
+ * Only the position and mtm position columns live in the store. The instrument and view arrays, the changed flags
+ * and the id lists stay on heap, sized by the highest instrument id and grown by array copy, so an off heap store
+ * still leaves a few heap references and bytes per instrument for the collector.
+ */
+public class PositionBook {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private final PositionStore positionStore;
+    private Instrument[] instruments = new Instrument[INITIAL_CAPACITY];
+    private InstrumentPosMtm[] views = new InstrumentPosMtm[INITIAL_CAPACITY];
+    private int[] instrumentIds = new int[INITIAL_CAPACITY];
+    private int instrumentCount;
+    private boolean[] changed = new boolean[INITIAL_CAPACITY];
+    private int[] changedInstrumentIds = new int[INITIAL_CAPACITY];
+    private int changedInstrumentCount;
+    private boolean[] unpublished = new boolean[INITIAL_CAPACITY];
+    private int[] unpublishedInstrumentIds = new int[INITIAL_CAPACITY];
+    private int unpublishedInstrumentCount;
+
+    public PositionBook() {
+        this(PositionStore.heap());
+    }
+
+    public PositionBook(PositionStore positionStore) {
+        this.positionStore = positionStore;
+        positionStore.ensureCapacity(INITIAL_CAPACITY - 1);
+    }
+
+    public PositionBook add(Instrument instrument, double volume) {
+        int id = instrument.id();
+        if (id >= instruments.length || instruments[id] == null) {
+            addInstrument(instrument);
+        }
+        positionStore.addPosition(id, volume);
+        if (!changed[id]) {
+            changed[id] = true;
+            changedInstrumentIds[changedInstrumentCount++] = id;
+        }
+        return this;
+    }
+
+    public PositionBook combine(PositionBook from) {
+        if (from != null) {
+            for (int i = 0; i < from.instrumentCount; i++) {
+                int id = from.instrumentIds[i];
+                add(from.instruments[id], from.position(id));
+                positionStore.setMtmPosition(id, positionStore.mtmPosition(id) + from.mtmPosition(id));
+            }
+        }
+        return this;
+    }
+
+    public int instrumentCount() {
+        return instrumentCount;
+    }
+
+    /**
+     * @param index position in first traded order, 0 to {@link #instrumentCount()} - 1
+     * @return the instrument id at that index
+     */
+    public int instrumentId(int index) {
+        return instrumentIds[index];
+    }
+
+    public boolean hasInstrument(int id) {
+        return id < instruments.length && instruments[id] != null;
+    }
+
+    public int changedInstrumentCount() {
+        return changedInstrumentCount;
+    }
+
+    /**
+     * @return the id of an instrument whose position changed since the last clear, index 0 to
+     * {@link #changedInstrumentCount()} - 1
+     */
+    public int changedInstrumentId(int index) {
+        return changedInstrumentIds[index];
+    }
+
+    public void clearChangedInstruments() {
+        for (int i = 0; i < changedInstrumentCount; i++) {
+            changed[changedInstrumentIds[i]] = false;
+        }
+        changedInstrumentCount = 0;
+    }
+
+    public int unpublishedInstrumentCount() {
+        return unpublishedInstrumentCount;
+    }
+
+    /**
+     * @return the id of an instrument whose mtm position was set since the last clear, index 0 to
+     * {@link #unpublishedInstrumentCount()} - 1
+     */
+    public int unpublishedInstrumentId(int index) {
+        return unpublishedInstrumentIds[index];
+    }
+
+    public void clearUnpublishedInstruments() {
+        for (int i = 0; i < unpublishedInstrumentCount; i++) {
+            unpublished[unpublishedInstrumentIds[i]] = false;
+        }
+        unpublishedInstrumentCount = 0;
+    }
+
+    public Instrument instrument(int id) {
+        return instruments[id];
+    }
+
+    public double position(int id) {
+        return positionStore.position(id);
+    }
+
+    public double mtmPosition(int id) {
+        return positionStore.mtmPosition(id);
+    }
+
+    public void setMtmPosition(int id, double mtmPosition) {
+        positionStore.setMtmPosition(id, mtmPosition);
+        if (!unpublished[id]) {
+            unpublished[id] = true;
+            unpublishedInstrumentIds[unpublishedInstrumentCount++] = id;
+        }
+    }
+
+    /**
+     * @return the store holding the position columns, for sinks that serialise it directly
+     */
+    public PositionStore positionStore() {
+        return positionStore;
+    }
+
+    /**
+     * @return the sum of the mtm positions, NaN if any instrument is unpriced
+     */
+    public double mtmPositionSum() {
+        double sum = 0;
+        for (int i = 0; i < instrumentCount; i++) {
+            sum += positionStore.mtmPosition(instrumentIds[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * @return a reusable view of the instrument's current position and mtm position, created on first use
+     */
+    public InstrumentPosMtm instrumentPosMtm(int id) {
+        InstrumentPosMtm view = views[id];
+        if (view == null) {
+            view = new InstrumentPosMtm();
+            view.setInstrument(instruments[id]);
+            views[id] = view;
+        }
+        view.setPosition(positionStore.position(id));
+        view.setMtmPosition(positionStore.mtmPosition(id));
+        return view;
+    }
+
+    private void addInstrument(Instrument instrument) {
+        int id = instrument.id();
+        if (id >= instruments.length) {
+            int capacity = Math.max(instruments.length * 2, id + 1);
+            instruments = Arrays.copyOf(instruments, capacity);
+            positionStore.ensureCapacity(capacity - 1);
+            views = Arrays.copyOf(views, capacity);
+            changed = Arrays.copyOf(changed, capacity);
+            unpublished = Arrays.copyOf(unpublished, capacity);
+        }
+        if (instrumentCount == instrumentIds.length) {
+            instrumentIds = Arrays.copyOf(instrumentIds, instrumentCount * 2);
+            changedInstrumentIds = Arrays.copyOf(changedInstrumentIds, instrumentCount * 2);
+            unpublishedInstrumentIds = Arrays.copyOf(unpublishedInstrumentIds, instrumentCount * 2);
+        }
+        instruments[id] = instrument;
+        instrumentIds[instrumentCount++] = id;
+    }
+}
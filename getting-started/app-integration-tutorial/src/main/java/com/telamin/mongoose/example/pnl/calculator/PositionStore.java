@@ -0,0 +1,31 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+/**
+ * Storage of the position and mtm position columns of a {@link PositionBook}, indexed by instrument id.
+ */
+public interface PositionStore {
+
+    static PositionStore heap() {
+        return new HeapPositionStore();
+    }
+
+    /**
+     * @param slabInstruments instruments per off-heap slab, rounded up to a power of two
+     */
+    static PositionStore offHeap(int slabInstruments) {
+        return new OffHeapPositionStore(slabInstruments);
+    }
+
+    /**
+     * Makes ids up to and including maxId addressable, new entries are 0.
+     */
+    void ensureCapacity(int maxId);
+
+    double position(int id);
+
+    void addPosition(int id, double volume);
+
+    double mtmPosition(int id);
+
+    void setMtmPosition(int id, double mtmPosition);
+}
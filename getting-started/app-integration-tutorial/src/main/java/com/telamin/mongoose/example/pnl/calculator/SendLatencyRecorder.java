@@ -0,0 +1,149 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.concurrent.EpochNanoClock;
+import com.fluxtion.agrona.concurrent.SystemEpochNanoClock;
+import com.telamin.fluxtion.runtime.annotations.OnEventHandler;
+import com.telamin.fluxtion.runtime.annotations.TearDown;
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.util.Arrays;
+
+/**
+ * Records the latency from the intended send time of load generated trades and prices to their arrival in the pnl
+ * processor, events without an intended send time are ignored.
+ * <p>
+ * Measuring from the intended rather than the actual send time charges any delay of the generator or the feed to the
+ * events that waited, so the percentiles are free of coordinated omission. Both clocks are epoch nanos, a generator
+ * in another process needs a synchronised clock. Percentiles are logged every reportIntervalMillis and at teardown.
+ */
+@Log
+public class SendLatencyRecorder {
+
+    @Getter
+    @Setter
+    private long reportIntervalMillis = 5_000;
+    @FluxtionIgnore
+    private final EpochNanoClock clock = new SystemEpochNanoClock();
+    @FluxtionIgnore
+    @Getter
+    private final LatencyHistogram tradeLatency = new LatencyHistogram();
+    @FluxtionIgnore
+    @Getter
+    private final LatencyHistogram priceLatency = new LatencyHistogram();
+    @FluxtionIgnore
+    private long nextReportNanos;
+
+    @OnEventHandler(propagate = false)
+    public void trade(Trade trade) {
+        record(tradeLatency, trade.intendedSendNanos());
+    }
+
+    @OnEventHandler(propagate = false)
+    public void midPrice(MidPrice midPrice) {
+        record(priceLatency, midPrice.intendedSendNanos());
+    }
+
+    @TearDown
+    public void tearDown() {
+        report();
+    }
+
+    private void record(LatencyHistogram histogram, long intendedSendNanos) {
+        if (intendedSendNanos == 0) {
+            return;
+        }
+        long nowNanos = clock.nanoTime();
+        histogram.record(nowNanos - intendedSendNanos);
+        if (nextReportNanos == 0) {
+            nextReportNanos = nowNanos + reportIntervalMillis * 1_000_000;
+        } else if (nowNanos >= nextReportNanos) {
+            report();
+            nextReportNanos = nowNanos + reportIntervalMillis * 1_000_000;
+        }
+    }
+
+    private void report() {
+        if (tradeLatency.getCount() > 0) {
+            log.info("trade send latency micros " + tradeLatency.summaryMicros());
+        }
+        if (priceLatency.getCount() > 0) {
+            log.info("price send latency micros " + priceLatency.summaryMicros());
+        }
+        tradeLatency.reset();
+        priceLatency.reset();
+    }
+
+    /**
+     * A log linear histogram of non-negative longs, eight sub buckets per power of two giving a relative error under
+     * 12.5%. Negative values, from clock skew, are recorded as 0.
+     */
+    public static class LatencyHistogram {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[(Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS];
+        @Getter
+        private long count;
+        @Getter
+        private long max;
+
+        public void record(long value) {
+            value = Math.max(0, value);
+            counts[index(value)]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        /**
+         * @return the upper bound of the bucket holding the percentile, capped at the max recorded value
+         */
+        public long percentile(double percentile) {
+            long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        public void reset() {
+            Arrays.fill(counts, 0);
+            count = 0;
+            max = 0;
+        }
+
+        public String summaryMicros() {
+            return "count:" + count
+                    + " p50:" + percentile(50) / 1_000
+                    + " p99:" + percentile(99) / 1_000
+                    + " p99.9:" + percentile(99.9) / 1_000
+                    + " max:" + max / 1_000;
+        }
+
+        static int index(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+            return (shift + 1) << SUB_BUCKET_BITS | subBucket;
+        }
+
+        static long upperBound(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = (index >>> SUB_BUCKET_BITS) - 1;
+            return ((SUB_BUCKET_COUNT | (index & (SUB_BUCKET_COUNT - 1))) + 1L << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.IoUtil;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory mapped read pointer holding the highest processed trade id of every Snowflake generator node, written with
+ * group commit.
+ * <p>
+ * Updates are held in memory and stored to the mapped file once commitEveryTrades trades are pending or
+ * commitIntervalMicros has passed since the last commit, optionally forcing the pages to disk. After a crash at most
+ * one uncommitted group of trades is replayed.
+ * <p>
+ * File layout: the long read pointer of the single pointer format at offset 0, followed by a long high water id per
+ * node. A file in the old format is extended in place, its pointer is kept as a floor for every node.
+ */
+public class TradeCommitPointer {
+
+    private static final int NODE_OFFSET = Long.BYTES;
+    private static final int FILE_LENGTH = NODE_OFFSET + TradeIdWindow.NODE_COUNT * Long.BYTES;
+
+    @Getter
+    private final String fileName;
+    @Getter
+    @Setter
+    private int commitEveryTrades = 1024;
+    @Getter
+    @Setter
+    private long commitIntervalMicros = 1_000;
+    @Getter
+    @Setter
+    private boolean forceOnCommit = false;
+
+    private final long[] highWaterIds = new long[TradeIdWindow.NODE_COUNT];
+    private final boolean[] dirty = new boolean[TradeIdWindow.NODE_COUNT];
+    private final int[] dirtyNodes = new int[TradeIdWindow.NODE_COUNT];
+    private int dirtyCount;
+    private int pendingTrades;
+    private long lastCommitNanos;
+    @Getter
+    private long globalFloorId;
+    @Getter
+    private long commitCount;
+    private MappedByteBuffer commitPointer;
+
+    public TradeCommitPointer(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public void open() {
+        File pointerFile = new File(fileName);
+        if (pointerFile.getParentFile() != null) {
+            pointerFile.getParentFile().mkdirs();
+        }
+        try (FileChannel channel = FileChannel.open(pointerFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            commitPointer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_LENGTH);
+            globalFloorId = commitPointer.getLong(0);
+            for (int node = 0; node < highWaterIds.length; node++) {
+                highWaterIds[node] = commitPointer.getLong(NODE_OFFSET + node * Long.BYTES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open commit pointer:" + pointerFile.getAbsolutePath(), e);
+        }
+        lastCommitNanos = System.nanoTime();
+    }
+
+    /**
+     * @return the committed high water id of the node, 0 if nothing has been committed
+     */
+    public long highWaterId(int nodeId) {
+        return highWaterIds[nodeId];
+    }
+
+    /**
+     * Records a processed trade id, the store is deferred until the group is committed.
+     */
+    public void update(long tradeId) {
+        int node = TradeIdWindow.nodeId(tradeId);
+        if (tradeId > highWaterIds[node]) {
+            highWaterIds[node] = tradeId;
+            if (!dirty[node]) {
+                dirty[node] = true;
+                dirtyNodes[dirtyCount++] = node;
+            }
+        }
+        pendingTrades++;
+    }
+
+    /**
+     * Commits if the group size or interval has been reached.
+     *
+     * @return true if a commit was made
+     */
+    public boolean commitIfDue(long nowNanos) {
+        if (pendingTrades == 0
+                || pendingTrades < commitEveryTrades && nowNanos - lastCommitNanos < commitIntervalMicros * 1_000) {
+            return false;
+        }
+        commit(nowNanos);
+        return true;
+    }
+
+    public void commit(long nowNanos) {
+        for (int i = 0; i < dirtyCount; i++) {
+            int node = dirtyNodes[i];
+            commitPointer.putLong(NODE_OFFSET + node * Long.BYTES, highWaterIds[node]);
+            dirty[node] = false;
+        }
+        if (forceOnCommit && dirtyCount > 0) {
+            commitPointer.force();
+        }
+        dirtyCount = 0;
+        pendingTrades = 0;
+        lastCommitNanos = nowNanos;
+        commitCount++;
+    }
+
+    /**
+     * Replaces the committed state with the high water ids of a pnl snapshot, ids processed after the snapshot are
+     * forgotten so they are accepted again when the feed is replayed from the snapshot.
+     */
+    public void restore(long[] snapshotHighWaterIds) {
+        globalFloorId = 0;
+        commitPointer.putLong(0, 0);
+        for (int node = 0; node < highWaterIds.length; node++) {
+            highWaterIds[node] = snapshotHighWaterIds[node];
+            commitPointer.putLong(NODE_OFFSET + node * Long.BYTES, highWaterIds[node]);
+            dirty[node] = false;
+        }
+        commitPointer.force();
+        dirtyCount = 0;
+        pendingTrades = 0;
+    }
+
+    public void close() {
+        if (commitPointer != null) {
+            commit(System.nanoTime());
+            commitPointer.force();
+            IoUtil.unmap(commitPointer);
+            commitPointer = null;
+        }
+    }
+}
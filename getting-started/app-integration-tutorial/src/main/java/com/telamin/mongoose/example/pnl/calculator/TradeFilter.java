@@ -1,44 +1,102 @@
 package com.telamin.mongoose.example.pnl.calculator;
 
-import com.fluxtion.agrona.IoUtil;
+import com.telamin.fluxtion.runtime.annotations.AfterEvent;
 import com.telamin.fluxtion.runtime.annotations.Initialise;
 import com.telamin.fluxtion.runtime.annotations.OnEventHandler;
+import com.telamin.fluxtion.runtime.annotations.TearDown;
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
 import com.telamin.mongoose.example.pnl.events.Trade;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.io.File;
-import java.nio.MappedByteBuffer;
-
 public class TradeFilter {
 
     private boolean newTrade = false;
-    private MappedByteBuffer commitPointer;
-    private long lastTradeId;
     @Setter
     @Getter
     private String pointerFileName = "./data-in/tradesIn.readPointer";
+    @Setter
+    @Getter
+    private int commitEveryTrades = 1024;
+    @Setter
+    @Getter
+    private long commitIntervalMicros = 1_000;
+    @Setter
+    @Getter
+    private boolean forceOnCommit = false;
+    @Setter
+    @Getter
+    private int dedupWindowMillis = 64;
+    @Setter
+    @Getter
+    private TradePartition tradePartition = new TradePartition();
+    @FluxtionIgnore
+    private TradeCommitPointer commitPointer;
+    @FluxtionIgnore
+    private TradeIdWindow tradeIdWindow;
 
     @Initialise
     public void initialise() {
-        File committedReadFile = new File(pointerFileName);
-        lastTradeId = 0;
-        if (committedReadFile.exists()) {
-            commitPointer = IoUtil.mapExistingFile(committedReadFile, "committedReadFile_TradesIn");
-            lastTradeId = commitPointer.getLong(0);
-        } else {
-            commitPointer = IoUtil.mapNewFile(committedReadFile, 1024);
-        }
+        commitPointer = new TradeCommitPointer(pointerFileName);
+        commitPointer.setCommitEveryTrades(commitEveryTrades);
+        commitPointer.setCommitIntervalMicros(commitIntervalMicros);
+        commitPointer.setForceOnCommit(forceOnCommit);
+        commitPointer.open();
+
+        long lastTradeId = resetTradeIdWindow();
         System.out.println("starting trade filter with lastTradeId: " + lastTradeId);
     }
 
+    /**
+     * @return the id at or below which trades of each generator node are duplicates
+     */
+    public long[] highWaterIds(long[] highWaterIds) {
+        for (int node = 0; node < TradeIdWindow.NODE_COUNT; node++) {
+            highWaterIds[node] = Math.max(commitPointer.getGlobalFloorId(), commitPointer.highWaterId(node));
+        }
+        return highWaterIds;
+    }
+
+    /**
+     * Resumes from the high water ids of a pnl snapshot in place of the read pointer.
+     */
+    public void restoreHighWaterIds(long[] highWaterIds) {
+        commitPointer.restore(highWaterIds);
+        long lastTradeId = resetTradeIdWindow();
+        System.out.println("restored trade filter with lastTradeId: " + lastTradeId);
+    }
+
     @OnEventHandler(propagate = false)
     public void isTrade(Trade trade) {
-        newTrade = trade.id() > lastTradeId;
+        newTrade = tradePartition.inPartition(trade) && tradeIdWindow.markSeen(trade.id());
         if (newTrade) {
-            lastTradeId = trade.id();
-            commitPointer.putLong(0, lastTradeId);
+            commitPointer.update(trade.id());
+        }
+    }
+
+    @AfterEvent
+    public void commitIfDue() {
+        commitPointer.commitIfDue(System.nanoTime());
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (commitPointer != null) {
+            commitPointer.close();
+        }
+    }
+
+    private long resetTradeIdWindow() {
+        tradeIdWindow = new TradeIdWindow(dedupWindowMillis);
+        long lastTradeId = commitPointer.getGlobalFloorId();
+        for (int node = 0; node < TradeIdWindow.NODE_COUNT; node++) {
+            long floorId = Math.max(commitPointer.getGlobalFloorId(), commitPointer.highWaterId(node));
+            if (floorId > 0) {
+                tradeIdWindow.setFloor(node, floorId);
+                lastTradeId = Math.max(lastTradeId, floorId);
+            }
         }
+        return lastTradeId;
     }
 
     public boolean publishPnlResult() {
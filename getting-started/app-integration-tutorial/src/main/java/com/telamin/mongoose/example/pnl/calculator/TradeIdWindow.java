@@ -0,0 +1,106 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.concurrent.SnowflakeIdGenerator;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Exact duplicate detection for Snowflake trade ids that may arrive out of order and interleaved from several
+ * generators.
+ * <p>
+ * Each generator node keeps a ring of bitmaps, one slot per millisecond of the id timestamp with a bit per sequence
+ * number. An id is new if its bit is clear, slots are recycled as the newest timestamp of the node advances. Ids more
+ * than windowMillis behind the newest id of their node, or at or below the node floor restored from a commit
+ * pointer, are treated as duplicates.
+ */
+public class TradeIdWindow {
+
+    private static final int SEQUENCE_BITS = SnowflakeIdGenerator.SEQUENCE_BITS_DEFAULT;
+    private static final int NODE_ID_BITS = SnowflakeIdGenerator.NODE_ID_BITS_DEFAULT;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + NODE_ID_BITS;
+    private static final int WORDS_PER_SLOT = (1 << SEQUENCE_BITS) / Long.SIZE;
+    public static final int NODE_COUNT = 1 << NODE_ID_BITS;
+
+    private final NodeWindow[] nodeWindows = new NodeWindow[NODE_COUNT];
+    private final int windowMillis;
+    @Getter
+    private long lateIdCount;
+
+    /**
+     * @param windowMillis the out of order tolerance per generator, rounded up to a power of two
+     */
+    public TradeIdWindow(int windowMillis) {
+        this.windowMillis = Integer.highestOneBit(Math.max(1, windowMillis - 1) << 1);
+    }
+
+    public static int nodeId(long id) {
+        return (int) (id >>> SEQUENCE_BITS) & (NODE_COUNT - 1);
+    }
+
+    /**
+     * Ids of the node at or below floorId are duplicates, used to resume from a committed read pointer.
+     */
+    public void setFloor(int nodeId, long floorId) {
+        nodeWindow(nodeId).floorId = floorId;
+    }
+
+    /**
+     * @return true the first time an id is seen, false for a duplicate or an id older than the window
+     */
+    public boolean markSeen(long id) {
+        NodeWindow window = nodeWindow(nodeId(id));
+        if (id <= window.floorId) {
+            return false;
+        }
+        long timestamp = id >>> TIMESTAMP_SHIFT;
+        if (timestamp > window.newestTimestamp) {
+            window.advanceTo(timestamp);
+        } else if (timestamp <= window.newestTimestamp - windowMillis) {
+            lateIdCount++;
+            return false;
+        }
+        int sequence = (int) id & ((1 << SEQUENCE_BITS) - 1);
+        int wordIndex = (int) (timestamp & (windowMillis - 1)) * WORDS_PER_SLOT + (sequence >>> 6);
+        long mask = 1L << sequence;
+        long word = window.bits[wordIndex];
+        if ((word & mask) != 0) {
+            return false;
+        }
+        window.bits[wordIndex] = word | mask;
+        return true;
+    }
+
+    private NodeWindow nodeWindow(int nodeId) {
+        NodeWindow window = nodeWindows[nodeId];
+        if (window == null) {
+            window = new NodeWindow(windowMillis);
+            nodeWindows[nodeId] = window;
+        }
+        return window;
+    }
+
+    private static final class NodeWindow {
+        private final long[] bits;
+        private final int windowMillis;
+        private long floorId = Long.MIN_VALUE;
+        private long newestTimestamp = Long.MIN_VALUE;
+
+        private NodeWindow(int windowMillis) {
+            this.windowMillis = windowMillis;
+            this.bits = new long[windowMillis * WORDS_PER_SLOT];
+        }
+
+        private void advanceTo(long timestamp) {
+            if (newestTimestamp == Long.MIN_VALUE || timestamp - newestTimestamp >= windowMillis) {
+                Arrays.fill(bits, 0);
+            } else {
+                for (long t = newestTimestamp + 1; t <= timestamp; t++) {
+                    int slotStart = (int) (t & (windowMillis - 1)) * WORDS_PER_SLOT;
+                    Arrays.fill(bits, slotStart, slotStart + WORDS_PER_SLOT, 0);
+                }
+            }
+            newestTimestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.annotations.builder.FluxtionIgnore;
+import com.telamin.mongoose.example.pnl.events.PartitionPnl;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Selects the trades of one pnl partition, trades are hashed by symbol so duplicates of a trade always land in the
+ * same partition. The partial summary of the partition is published as a {@link PartitionPnl} of the instruments
+ * re-marked since the previous publish.
+ */
+public class TradePartition {
+
+    @Getter
+    @Setter
+    private int partitionCount = 1;
+    @Getter
+    @Setter
+    private int partitionIndex = 0;
+    @FluxtionIgnore
+    private PositionBook publishedPositionBook;
+
+    public static int partitionOf(Trade trade, int partitionCount) {
+        return Math.floorMod(trade.symbol().id(), partitionCount);
+    }
+
+    public boolean inPartition(Trade trade) {
+        return partitionCount <= 1 || partitionOf(trade, partitionCount) == partitionIndex;
+    }
+
+    public PartitionPnl snapshot(PnlSummary pnlSummary) {
+        boolean full = pnlSummary.getPositionBook() != publishedPositionBook;
+        publishedPositionBook = pnlSummary.getPositionBook();
+        return PartitionPnl.of(partitionIndex, full, pnlSummary);
+    }
+}
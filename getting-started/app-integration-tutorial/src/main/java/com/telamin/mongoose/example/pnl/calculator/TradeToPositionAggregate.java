@@ -0,0 +1,28 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.flowfunction.aggregate.function.AbstractAggregateFlowFunction;
+import com.telamin.mongoose.example.pnl.events.Trade;
+
+/**
+ * Aggregates both legs of a trade straight into the {@link PositionBook}, no {@link Trade#tradeLegs()} array or
+ * TradeLeg records are created so steady state aggregation is allocation free.
+ */
+public class TradeToPositionAggregate extends AbstractAggregateFlowFunction<Trade, PositionBook> {
+
+    @Override
+    protected PositionBook calculateAggregate(Trade trade, PositionBook positionBook) {
+        positionBook = positionBook == null ? newPositionBook() : positionBook;
+        positionBook.add(trade.dealtInstrument(), trade.dealtVolume());
+        positionBook.add(trade.contraInstrument(), trade.contraVolume());
+        return positionBook;
+    }
+
+    @Override
+    protected PositionBook resetAction(PositionBook positionBook) {
+        return newPositionBook();
+    }
+
+    protected PositionBook newPositionBook() {
+        return new PositionBook();
+    }
+}
@@ -0,0 +1,25 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+/**
+ * What a feed does with events it reads while a processor queue it publishes to is full, see {@link FeedQueueMonitor}.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Holds the events and stops reading until the queue has room, nothing is lost.
+     */
+    BLOCK,
+    /**
+     * Holds up to the backlog capacity of events and keeps reading, dropping the oldest held event when the backlog
+     * is full.
+     */
+    DROP_OLDEST,
+    /**
+     * Replaces a held event with a newer one of the same conflation key, e.g. the latest price of a symbol. Events
+     * without a key are held as with BLOCK, reading stops when the backlog is full.
+     */
+    CONFLATE,
+    /**
+     * Fails the feed with an exception.
+     */
+    FAIL
+}
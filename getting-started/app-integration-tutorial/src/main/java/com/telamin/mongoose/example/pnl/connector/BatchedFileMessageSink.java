@@ -0,0 +1,180 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.concurrent.Agent;
+import com.telamin.fluxtion.runtime.lifecycle.Lifecycle;
+import com.telamin.fluxtion.runtime.output.AbstractMessageSink;
+import com.telamin.mongoose.example.pnl.helper.JsonCodecs;
+import com.telamin.mongoose.example.pnl.helper.JsonWriter;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends events to a json lines file, a drop in for a FileMessageSink with a JSON value mapper that encodes each
+ * event straight into one reused buffer with {@link JsonCodecs#encode(Object, JsonWriter)} instead of creating a
+ * String per event. A value already mapped to a String is appended as it is.
+ * <p>
+ * Lines are batched and written with one channel write when the batch holds flushBytes bytes, flushCount lines or
+ * its first line is flushLatencyMillis old, a policy of 0 or less is not applied. The batch is always written on stop.
+ * The latency is checked as lines are added, so an idle sink holds its last lines until stop unless the sink is hosted
+ * on an agent, see EventSinkConfig.Builder#agent, which also checks it between lines.
+ * <p>
+ * Lines, channel writes, bytes per line and writes per second are logged on stop.
+ */
+@Log
+public class BatchedFileMessageSink extends AbstractMessageSink<Object> implements Lifecycle, Agent {
+
+    @Getter
+    @Setter
+    private String filename;
+    @Getter
+    @Setter
+    private int flushBytes = 64 * 1024;
+    @Getter
+    @Setter
+    private int flushCount = 1024;
+    @Getter
+    @Setter
+    private long flushLatencyMillis = 100;
+
+    @Getter
+    private long lineCount;
+    @Getter
+    private long writeCount;
+    @Getter
+    private long byteCount;
+    private final JsonWriter batch = new JsonWriter();
+    private int batchCount;
+    private volatile long batchStartNanos;
+    private long flushLatencyNanos;
+    private long startNanos;
+    private FileChannel channel;
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public synchronized void start() {
+        File file = new File(filename);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open file:" + file.getAbsolutePath(), e);
+        }
+        flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+        startNanos = System.nanoTime();
+        batch.reset();
+        log.info("started batched file sink file:" + file.getAbsolutePath() + " flushBytes:" + flushBytes
+                + " flushCount:" + flushCount + " flushLatencyMillis:" + flushLatencyMillis);
+    }
+
+    @Override
+    protected synchronized void sendToSink(Object value) {
+        if (channel == null) {
+            log.warning("batched file sink not started, dropping:" + value);
+            return;
+        }
+        if (value instanceof CharSequence line) {
+            batch.writeUtf8(line.toString());
+        } else {
+            JsonCodecs.encode(value, batch);
+        }
+        batch.writeByte('\n');
+        long nowNanos = System.nanoTime();
+        if (batchCount++ == 0) {
+            batchStartNanos = nowNanos;
+        }
+        if ((flushBytes > 0 && batch.length() >= flushBytes)
+                || (flushCount > 0 && batchCount >= flushCount)
+                || latencyExpired(nowNanos)) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes a batch whose latency has expired, when hosted on an agent.
+     */
+    @Override
+    public int doWork() {
+        if (batchStartNanos == 0 || !latencyExpired(System.nanoTime())) {
+            return 0;
+        }
+        synchronized (this) {
+            return latencyExpired(System.nanoTime()) ? flush() : 0;
+        }
+    }
+
+    @Override
+    public String roleName() {
+        return "batchedFileSink:" + filename;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (channel == null) {
+            return;
+        }
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warning("failed to close file:" + filename + " " + e);
+        }
+        channel = null;
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        log.info("stopped batched file sink file:" + filename
+                + " lines:" + lineCount
+                + " writes:" + writeCount
+                + " bytes:" + byteCount
+                + " bytesPerLine:" + (lineCount == 0 ? 0 : byteCount / lineCount)
+                + " linesPerWrite:" + (writeCount == 0 ? 0 : lineCount / writeCount)
+                + " linesPerSecond:" + (long) (lineCount / seconds)
+                + " writesPerSecond:" + (long) (writeCount / seconds));
+    }
+
+    @Override
+    public void tearDown() {
+        stop();
+    }
+
+    private boolean latencyExpired(long nowNanos) {
+        return flushLatencyNanos > 0 && batchCount > 0 && nowNanos - batchStartNanos >= flushLatencyNanos;
+    }
+
+    /**
+     * @return the number of lines written
+     */
+    private int flush() {
+        int lines = batchCount;
+        if (lines == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = batch.byteBuffer();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write file:" + filename, e);
+        }
+        lineCount += lines;
+        byteCount += batch.length();
+        writeCount++;
+        batch.reset();
+        batchCount = 0;
+        batchStartNanos = 0;
+        return lines;
+    }
+}
@@ -0,0 +1,282 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.IoUtil;
+import com.telamin.fluxtion.runtime.event.NamedFeedEvent;
+import com.telamin.mongoose.config.ReadStrategy;
+import com.telamin.mongoose.example.pnl.helper.BinaryRecordCodec;
+import com.telamin.mongoose.service.extension.AbstractAgentHostedEventSourceService;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tails a file written by {@link BinaryFileMessageSink}, decoding records straight from a read only memory mapping
+ * and publishing the events without any intermediate text or value mapping.
+ * <p>
+ * Supports the EARLIEST and LATEST read strategies, the file need not exist when the source starts. With EARLIEST
+ * the source can start at a logical position, skipping without decoding:
+ * <ul>
+ *     <li>skipEventCount - the first events, to resume after the events in a pnl snapshot</li>
+ *     <li>seekTradeId - the records before the first trade with a higher id</li>
+ *     <li>seekEpochNanos - the records written before the time, to the resolution of the index interval</li>
+ * </ul>
+ * The {@link SparseRecordIndex} written by the sink is searched to jump to the nearest indexed record before the
+ * position, only the records after it are scanned. Without an index the file is scanned from the start.
+ * <p>
+ * Events are published through a {@link FeedQueueMonitor}, which applies the backpressurePolicy while a processor queue
+ * is full and logs queue metrics every queueReportIntervalMillis, 0 for no report.
+ */
+@Log
+public class BinaryFileEventSource extends AbstractAgentHostedEventSourceService<Object> {
+
+    @Getter
+    @Setter
+    private String filename;
+    @Getter
+    @Setter
+    private ReadStrategy readStrategy = ReadStrategy.EARLIEST;
+    @Getter
+    @Setter
+    private boolean cacheEventLog = false;
+    @Getter
+    @Setter
+    private int maxRecordsPerCycle = 1024;
+    @Getter
+    @Setter
+    private long skipEventCount = 0;
+    @Getter
+    @Setter
+    private long seekTradeId = 0;
+    @Getter
+    @Setter
+    private long seekEpochNanos = 0;
+    @Getter
+    @Setter
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+    @Getter
+    @Setter
+    private int backlogCapacity = 4096;
+    @Getter
+    @Setter
+    private long queueReportIntervalMillis = 0;
+
+    private final BinaryRecordCodec codec = new BinaryRecordCodec();
+    private FileChannel channel;
+    private MappedByteBuffer chunk;
+    private int chunkSize;
+    private int chunkIndex;
+    private int position;
+    private boolean publishToQueue = false;
+    private long eventsToSkip;
+    private long skipToTradeId;
+    private boolean seekPending;
+    private FeedQueueMonitor queueMonitor;
+
+    public BinaryFileEventSource() {
+        super("binaryFileEventFeed");
+    }
+
+    @Override
+    public void start() {
+        log.info("starting binary file source:" + serviceName + " file:" + filename + " readStrategy:" + readStrategy);
+        if (readStrategy != ReadStrategy.EARLIEST && readStrategy != ReadStrategy.LATEST) {
+            log.warning("unsupported readStrategy:" + readStrategy + " for binary file source, reading EARLIEST");
+        }
+        if (readStrategy == ReadStrategy.LATEST && connect()) {
+            skipToEnd();
+        } else {
+            eventsToSkip = skipEventCount;
+            skipToTradeId = seekTradeId;
+            seekPending = skipEventCount > 0 || seekTradeId > 0 || seekEpochNanos > 0;
+        }
+        queueMonitor = new FeedQueueMonitor(serviceName, output);
+        queueMonitor.setPolicy(backpressurePolicy);
+        queueMonitor.setBacklogCapacity(backlogCapacity);
+        queueMonitor.setReportIntervalMillis(queueReportIntervalMillis);
+        output.setCacheEventLog(cacheEventLog);
+        if (cacheEventLog) {
+            publishToQueue = false;
+            doWork();
+        }
+    }
+
+    @Override
+    public void startComplete() {
+        publishToQueue = true;
+        output.dispatchCachedEventLog();
+    }
+
+    @SuppressWarnings("unchecked")
+    public NamedFeedEvent<Object>[] eventLog() {
+        return output.getEventLog().toArray(new NamedFeedEvent[0]);
+    }
+
+    @Override
+    public int doWork() {
+        int published = queueMonitor.doWork();
+        if (!queueMonitor.acceptingEvents() || (chunk == null && !connect())) {
+            return published;
+        }
+        while (published < maxRecordsPerCycle && queueMonitor.acceptingEvents()) {
+            if (position >= chunkSize && !nextChunk()) {
+                break;
+            }
+            int length = BinaryRecordCodec.recordLength(chunk, position);
+            if (length == 0) {
+                break;
+            }
+            if ((eventsToSkip > 0 || skipToTradeId > 0) && BinaryRecordCodec.isEvent(chunk, position)) {
+                if (eventsToSkip > 0) {
+                    eventsToSkip--;
+                    position += length;
+                    continue;
+                }
+                if (BinaryRecordCodec.tradeId(chunk, position) <= skipToTradeId) {
+                    position += length;
+                    continue;
+                }
+                skipToTradeId = 0;
+            }
+            Object event = codec.decode(chunk, position);
+            position += length;
+            if (event != null) {
+                publish(event);
+                published++;
+            }
+        }
+        return published;
+    }
+
+    @Override
+    public void stop() {
+        log.info("stopping binary file source:" + serviceName);
+        if (queueMonitor != null) {
+            queueMonitor.close();
+        }
+        if (chunk != null) {
+            IoUtil.unmap(chunk);
+            chunk = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warning("failed to close binary file:" + filename + " " + e);
+            }
+            channel = null;
+        }
+    }
+
+    private void publish(Object event) {
+        if (publishToQueue) {
+            queueMonitor.publish(event);
+        } else {
+            output.cache(event);
+        }
+    }
+
+    private void skipToEnd() {
+        int length;
+        while ((position < chunkSize || nextChunk())
+                && (length = BinaryRecordCodec.recordLength(chunk, position)) > 0) {
+            codec.decode(chunk, position);
+            position += length;
+        }
+    }
+
+    private boolean connect() {
+        File file = new File(filename);
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+            chunkSize = BinaryFileMessageSink.readChunkSize(channel);
+            if (chunkSize == 0 || channel.size() < chunkSize) {
+                return false;
+            }
+            mapChunk(0);
+            position = 0;
+            log.info("connected binary file source:" + serviceName + " file:" + file.getAbsolutePath() + " chunkSize:" + chunkSize);
+            if (seekPending) {
+                seekPending = false;
+                seekFromIndex();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open binary file:" + file.getAbsolutePath(), e);
+        }
+    }
+
+    private void seekFromIndex() throws IOException {
+        SparseRecordIndex index = SparseRecordIndex.load(filename);
+        int entry = -1;
+        if (eventsToSkip > 0) {
+            entry = Math.max(entry, index.floorByEventCount(eventsToSkip));
+        }
+        if (skipToTradeId > 0) {
+            entry = Math.max(entry, index.floorByTradeId(skipToTradeId));
+        }
+        if (seekEpochNanos > 0) {
+            entry = Math.max(entry, index.floorByEpochNanos(seekEpochNanos));
+        }
+        long fileSize = channel.size();
+        while (entry >= 0 && index.fileOffset(entry) >= fileSize) {
+            entry--;
+        }
+        if (entry < 0) {
+            log.info("no index entry for binary file source:" + serviceName + " scanning from the start");
+            return;
+        }
+        long fileOffset = index.fileOffset(entry);
+        for (int i = 0; i < index.getSymbolDefinitionCount() && index.symbolDefinitionOffset(i) < fileOffset; i++) {
+            long definitionOffset = index.symbolDefinitionOffset(i);
+            int definitionChunk = (int) (definitionOffset / chunkSize);
+            if (definitionChunk != chunkIndex) {
+                mapChunk(definitionChunk);
+            }
+            codec.decode(chunk, (int) (definitionOffset % chunkSize));
+        }
+        if (fileOffset / chunkSize != chunkIndex) {
+            mapChunk((int) (fileOffset / chunkSize));
+        }
+        position = (int) (fileOffset % chunkSize);
+        eventsToSkip = Math.max(0, eventsToSkip - index.eventCount(entry));
+        log.info("seek binary file source:" + serviceName + " to offset:" + fileOffset
+                + " skipped events:" + index.eventCount(entry) + " lastTradeId:" + index.lastTradeId(entry));
+    }
+
+    private boolean nextChunk() {
+        try {
+            if (channel.size() < (long) (chunkIndex + 2) * chunkSize) {
+                return false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read size of binary file:" + filename, e);
+        }
+        mapChunk(chunkIndex + 1);
+        position = 0;
+        return true;
+    }
+
+    private void mapChunk(int index) {
+        if (chunk != null) {
+            IoUtil.unmap(chunk);
+        }
+        try {
+            chunk = channel.map(FileChannel.MapMode.READ_ONLY, (long) index * chunkSize, chunkSize);
+            chunkIndex = index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to map chunk:" + index + " of binary file:" + filename, e);
+        }
+    }
+}
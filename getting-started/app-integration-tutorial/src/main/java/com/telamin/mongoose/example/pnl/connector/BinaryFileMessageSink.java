@@ -0,0 +1,222 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.IoUtil;
+import com.fluxtion.agrona.concurrent.EpochNanoClock;
+import com.fluxtion.agrona.concurrent.SystemEpochNanoClock;
+import com.telamin.fluxtion.runtime.lifecycle.Lifecycle;
+import com.telamin.fluxtion.runtime.output.AbstractMessageSink;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.BinaryRecordCodec;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends {@link com.telamin.mongoose.example.pnl.events.Trade} and
+ * {@link com.telamin.mongoose.example.pnl.events.MidPrice} events to a memory mapped file as
+ * {@link BinaryRecordCodec} records, the binary alternative to a FileMessageSink with a JSON value mapper.
+ * <p>
+ * The file grows in chunks of chunkSize bytes, only the chunk being written is mapped. Restarting the sink on an
+ * existing file appends after the last written record.
+ * <p>
+ * A {@link SparseRecordIndex} entry is written every indexInterval events, 0 disables the index. Restarting on an
+ * existing file rebuilds the index while finding the append position, keeping the write times of matching entries.
+ */
+@Log
+public class BinaryFileMessageSink extends AbstractMessageSink<Object> implements Lifecycle {
+
+    @Getter
+    @Setter
+    private String filename;
+    @Getter
+    @Setter
+    private int chunkSize = 16 * 1024 * 1024;
+    @Getter
+    @Setter
+    private int indexInterval = 4096;
+
+    private final BinaryRecordCodec codec = new BinaryRecordCodec();
+    private FileChannel channel;
+    private MappedByteBuffer chunk;
+    private int chunkIndex;
+    private int position;
+    private final EpochNanoClock clock = new SystemEpochNanoClock();
+    private SparseRecordIndexWriter indexWriter;
+    private long eventCount;
+    private long lastTradeId;
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public void start() {
+        File file = new File(filename);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                validateChunkSize();
+                openIndex();
+                mapChunk(0);
+                BinaryRecordCodec.encodeFileHeader(chunk, chunkSize);
+                position = BinaryRecordCodec.RECORD_ALIGNMENT;
+            } else {
+                chunkSize = readChunkSize(channel);
+                validateChunkSize();
+                seekToEnd();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open binary file:" + file.getAbsolutePath(), e);
+        }
+        log.info("started binary sink file:" + file.getAbsolutePath() + " chunkSize:" + chunkSize
+                + " appending at:" + fileOffset() + " events:" + eventCount + " indexInterval:" + indexInterval);
+    }
+
+    @Override
+    protected void sendToSink(Object value) {
+        int length = codec.encodedLength(value);
+        if (length == 0) {
+            log.warning("ignoring unsupported binary record type:" + value);
+            return;
+        }
+        if (position + length > chunkSize) {
+            if (position < chunkSize) {
+                BinaryRecordCodec.encodePadding(chunk, position, chunkSize - position);
+            }
+            mapChunk(chunkIndex + 1);
+            position = 0;
+        }
+        long fileOffset = fileOffset();
+        if (indexWriter != null && eventCount % indexInterval == 0) {
+            indexWriter.event(fileOffset, eventCount, lastTradeId, clock.nanoTime());
+        }
+        int recordOffset = position;
+        position += codec.encode(value, chunk, position);
+        if (indexWriter != null && BinaryRecordCodec.recordType(chunk, recordOffset) == BinaryRecordCodec.SYMBOL_DEFINITION) {
+            indexWriter.symbolDefinition(fileOffset);
+        }
+        recordEvent(value);
+    }
+
+    @Override
+    public void stop() {
+        if (chunk != null) {
+            chunk.force();
+            IoUtil.unmap(chunk);
+            chunk = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warning("failed to close binary file:" + filename + " " + e);
+            }
+            channel = null;
+        }
+        if (indexWriter != null) {
+            indexWriter.close();
+            indexWriter = null;
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        stop();
+    }
+
+    private void seekToEnd() {
+        SparseRecordIndex previousIndex = SparseRecordIndex.load(filename);
+        openIndex();
+        long restartNanos = clock.nanoTime();
+        long lastIndexNanos = 0;
+        eventCount = 0;
+        lastTradeId = 0;
+        mapChunk(0);
+        position = 0;
+        int length;
+        while ((length = BinaryRecordCodec.recordLength(chunk, position)) > 0) {
+            long fileOffset = fileOffset();
+            if (indexWriter != null && BinaryRecordCodec.recordType(chunk, position) == BinaryRecordCodec.SYMBOL_DEFINITION) {
+                indexWriter.symbolDefinition(fileOffset);
+            }
+            Object event = codec.decode(chunk, position);
+            if (event != null) {
+                if (indexWriter != null && eventCount % indexInterval == 0) {
+                    //an event written without an index is given the restart time, later than its true write time
+                    int previous = previousIndex.floorByEventCount(eventCount);
+                    long epochNanos = previous >= 0 && previousIndex.eventCount(previous) == eventCount
+                            && previousIndex.fileOffset(previous) == fileOffset ? previousIndex.epochNanos(previous) : restartNanos;
+                    lastIndexNanos = Math.max(lastIndexNanos, epochNanos);
+                    indexWriter.event(fileOffset, eventCount, lastTradeId, lastIndexNanos);
+                }
+                recordEvent(event);
+            }
+            position += length;
+            if (position >= chunkSize) {
+                mapChunk(chunkIndex + 1);
+                position = 0;
+            }
+        }
+    }
+
+    private void openIndex() {
+        if (indexInterval > 0) {
+            indexWriter = new SparseRecordIndexWriter(filename, indexInterval);
+        }
+    }
+
+    private void recordEvent(Object event) {
+        eventCount++;
+        if (event instanceof Trade trade && trade.id() > lastTradeId) {
+            lastTradeId = trade.id();
+        }
+    }
+
+    private long fileOffset() {
+        return (long) chunkIndex * chunkSize + position;
+    }
+
+    private void mapChunk(int index) {
+        if (chunk != null) {
+            IoUtil.unmap(chunk);
+        }
+        try {
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * chunkSize, chunkSize);
+            chunkIndex = index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to map chunk:" + index + " of binary file:" + filename, e);
+        }
+    }
+
+    /**
+     * @return the chunk size from the header of an existing file, 0 if the header is not written yet
+     */
+    static int readChunkSize(FileChannel channel) throws IOException {
+        if (channel.size() < BinaryRecordCodec.RECORD_ALIGNMENT) {
+            return 0;
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryRecordCodec.RECORD_ALIGNMENT);
+        try {
+            return BinaryRecordCodec.fileChunkSize(header);
+        } finally {
+            IoUtil.unmap(header);
+        }
+    }
+
+    private void validateChunkSize() {
+        if (chunkSize <= 0 || chunkSize % BinaryRecordCodec.RECORD_ALIGNMENT != 0) {
+            throw new IllegalStateException("chunkSize must be a positive multiple of "
+                    + BinaryRecordCodec.RECORD_ALIGNMENT + " chunkSize:" + chunkSize + " file:" + filename);
+        }
+    }
+}
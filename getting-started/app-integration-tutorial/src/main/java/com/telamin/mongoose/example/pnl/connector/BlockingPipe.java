@@ -0,0 +1,96 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.fluxtion.runtime.output.AbstractMessageSink;
+import com.telamin.mongoose.service.extension.AbstractAgentHostedEventSourceService;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * An in memory pipe from a processor, or any other thread, to the subscribers of the feed, that never drops an event.
+ * <p>
+ * A {@code HandlerPipe} or {@code InMemoryEventSource} publishes straight into the processor queues, the publisher
+ * spins while a queue is full and drops the event after a few millis, so a burst faster than the subscriber loses
+ * events. Events offered here are held in an unbounded pending queue and published through a {@link FeedQueueMonitor}
+ * with the BLOCK policy, the feed agent only takes pending events while every processor queue has room. Events
+ * offered before the server completes start are published once it has.
+ */
+@Log
+public class BlockingPipe extends AbstractAgentHostedEventSourceService<Object> {
+
+    @Getter
+    @Setter
+    private int maxEventsPerCycle = 1024;
+    @Getter
+    @Setter
+    private long queueReportIntervalMillis = 0;
+
+    private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<>();
+    private final PipeSink sink = new PipeSink();
+    private volatile boolean publishToQueue = false;
+    private FeedQueueMonitor queueMonitor;
+
+    public BlockingPipe(String name) {
+        super(name);
+    }
+
+    public void offer(Object event) {
+        pending.offer(event);
+    }
+
+    /**
+     * @return a sink offering every value it is sent to this pipe, for a processor to publish to
+     */
+    public AbstractMessageSink<Object> sink() {
+        return sink;
+    }
+
+    public int pendingSize() {
+        return pending.size() + (queueMonitor == null ? 0 : queueMonitor.backlogSize());
+    }
+
+    @Override
+    public void start() {
+        log.info("starting blocking pipe:" + serviceName);
+        queueMonitor = new FeedQueueMonitor(serviceName, output);
+        queueMonitor.setPolicy(BackpressurePolicy.BLOCK);
+        queueMonitor.setReportIntervalMillis(queueReportIntervalMillis);
+    }
+
+    @Override
+    public void startComplete() {
+        publishToQueue = true;
+    }
+
+    @Override
+    public int doWork() {
+        int published = queueMonitor.doWork();
+        if (!publishToQueue) {
+            return published;
+        }
+        Object event;
+        while (published < maxEventsPerCycle && queueMonitor.acceptingEvents() && (event = pending.poll()) != null) {
+            queueMonitor.publish(event);
+            published++;
+        }
+        return published;
+    }
+
+    @Override
+    public void stop() {
+        log.info("stopping blocking pipe:" + serviceName + " pending:" + pendingSize());
+        if (queueMonitor != null) {
+            queueMonitor.close();
+        }
+    }
+
+    private class PipeSink extends AbstractMessageSink<Object> {
+
+        @Override
+        protected void sendToSink(Object value) {
+            offer(value);
+        }
+    }
+}
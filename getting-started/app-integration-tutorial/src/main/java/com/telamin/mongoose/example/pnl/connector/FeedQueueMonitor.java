@@ -0,0 +1,328 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.concurrent.OneToOneConcurrentArrayQueue;
+import com.telamin.mongoose.dispatch.EventToQueuePublisher;
+import com.telamin.mongoose.example.pnl.calculator.SendLatencyRecorder.LatencyHistogram;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Publishes the events of a feed into its processor queues, measuring each queue and applying a
+ * {@link BackpressurePolicy} when one is full.
+ * <p>
+ * For every queue the depth, high watermark, enqueue and dequeue rates and a histogram of the time events spend in the
+ * queue are logged every reportIntervalMillis. A queue that stays deep shows the processor agent is the bottleneck, an
+ * empty queue behind a lagging feed shows the feed agent is. The queue counters are sampled once per feed cycle, so the
+ * time in queue is accurate to the feed duty cycle. The depth is also read whenever the free slots counted by the
+ * monitor run out, so a full queue always reaches the high watermark.
+ * <p>
+ * Events read while a queue is full are held in a backlog and published in order as the queue drains, instead of the
+ * feed agent spinning inside the publisher. The feed calls {@link #doWork()} every cycle and stops reading while
+ * {@link #acceptingEvents()} is false. Only the feed agent thread may use a monitor.
+ */
+@Log
+public class FeedQueueMonitor {
+
+    private final String name;
+    private final EventToQueuePublisher<Object> output;
+    @Getter
+    @Setter
+    private BackpressurePolicy policy = BackpressurePolicy.BLOCK;
+    @Getter
+    @Setter
+    private int backlogCapacity = 4096;
+    @Getter
+    @Setter
+    private long reportIntervalMillis = 0;
+    @Getter
+    @Setter
+    private Function<Object, Object> conflationKey = event -> event instanceof MidPrice midPrice ? midPrice.symbol() : null;
+
+    @Getter
+    private final Map<String, QueueMetrics> queueMetrics = new LinkedHashMap<>();
+    @Getter
+    private long droppedCount;
+    @Getter
+    private long conflatedCount;
+    private final ArrayDeque<Object> backlog = new ArrayDeque<>();
+    private final Map<Object, Conflated> conflatedByKey = new HashMap<>();
+    private int freeSlots;
+    private long nextReportNanos;
+
+    public FeedQueueMonitor(String name, EventToQueuePublisher<Object> output) {
+        this.name = name;
+        this.output = output;
+    }
+
+    public void publish(Object event) {
+        if (!backlog.isEmpty()) {
+            drainBacklog();
+        }
+        if (backlog.isEmpty() && hasSpace()) {
+            enqueue(event);
+            return;
+        }
+        switch (policy) {
+            case FAIL -> throw new IllegalStateException("processor queue full for feed:" + name + " " + depthSummary());
+            case DROP_OLDEST -> {
+                if (backlog.size() >= backlogCapacity) {
+                    Object dropped = backlog.pollFirst();
+                    if (dropped instanceof Conflated conflated) {
+                        conflatedByKey.remove(conflated.key);
+                    }
+                    droppedCount++;
+                }
+                backlog.addLast(event);
+            }
+            case CONFLATE -> {
+                Object key = conflationKey.apply(event);
+                Conflated held = key == null ? null : conflatedByKey.get(key);
+                if (held != null) {
+                    held.event = event;
+                    conflatedCount++;
+                } else if (key != null) {
+                    Conflated conflated = new Conflated(key, event);
+                    conflatedByKey.put(key, conflated);
+                    backlog.addLast(conflated);
+                } else {
+                    backlog.addLast(event);
+                }
+            }
+            case BLOCK -> backlog.addLast(event);
+        }
+    }
+
+    /**
+     * @return false while the feed should stop reading to let the processor queues drain
+     */
+    public boolean acceptingEvents() {
+        return switch (policy) {
+            case BLOCK -> backlog.isEmpty();
+            case CONFLATE -> backlog.size() < backlogCapacity;
+            case DROP_OLDEST, FAIL -> true;
+        };
+    }
+
+    public int backlogSize() {
+        return backlog.size();
+    }
+
+    /**
+     * Publishes held events the queues have room for, samples the queues and logs a report when due.
+     *
+     * @return the number of held events published
+     */
+    public int doWork() {
+        int work = backlog.isEmpty() ? 0 : drainBacklog();
+        long nowNanos = System.nanoTime();
+        for (QueueMetrics metrics : targetQueueMetrics()) {
+            metrics.sample(nowNanos);
+        }
+        if (reportIntervalMillis > 0) {
+            if (nextReportNanos == 0) {
+                nextReportNanos = nowNanos + reportIntervalMillis * 1_000_000;
+            } else if (nowNanos >= nextReportNanos) {
+                report(nowNanos);
+                nextReportNanos = nowNanos + reportIntervalMillis * 1_000_000;
+            }
+        }
+        return work;
+    }
+
+    public void close() {
+        if (reportIntervalMillis > 0) {
+            report(System.nanoTime());
+        }
+        if (!backlog.isEmpty()) {
+            log.warning("feed:" + name + " closed with " + backlog.size() + " events held for full processor queues");
+        }
+    }
+
+    private int drainBacklog() {
+        int drained = 0;
+        while (!backlog.isEmpty() && hasSpace()) {
+            Object event = backlog.pollFirst();
+            if (event instanceof Conflated conflated) {
+                conflatedByKey.remove(conflated.key);
+                event = conflated.event;
+            }
+            enqueue(event);
+            drained++;
+        }
+        return drained;
+    }
+
+    private void enqueue(Object event) {
+        output.publish(event);
+        freeSlots--;
+        long nowNanos = System.nanoTime();
+        for (QueueMetrics metrics : targetQueueMetrics()) {
+            metrics.enqueued(nowNanos);
+        }
+    }
+
+    /**
+     * Free slots are counted down as events are published and only read from the queues when they run out, a mapper
+     * that drops an event leaves the count low which is safe.
+     */
+    private boolean hasSpace() {
+        if (freeSlots > 0) {
+            return true;
+        }
+        int minRemaining = Integer.MAX_VALUE;
+        for (QueueMetrics metrics : targetQueueMetrics()) {
+            int remaining = metrics.queue.remainingCapacity();
+            metrics.highWatermark = Math.max(metrics.highWatermark, metrics.queue.capacity() - remaining);
+            minRemaining = Math.min(minRemaining, remaining);
+        }
+        freeSlots = minRemaining;
+        return freeSlots > 0;
+    }
+
+    private Iterable<QueueMetrics> targetQueueMetrics() {
+        List<EventToQueuePublisher.NamedQueue> targetQueues = output.getTargetQueues();
+        if (targetQueues.size() != queueMetrics.size()) {
+            queueMetrics.keySet().retainAll(targetQueues.stream().map(EventToQueuePublisher.NamedQueue::name).toList());
+            for (EventToQueuePublisher.NamedQueue namedQueue : targetQueues) {
+                queueMetrics.computeIfAbsent(namedQueue.name(), n -> new QueueMetrics(n, namedQueue.targetQueue()));
+            }
+            freeSlots = 0;
+        }
+        return queueMetrics.values();
+    }
+
+    private void report(long nowNanos) {
+        for (QueueMetrics metrics : targetQueueMetrics()) {
+            metrics.sample(nowNanos);
+            log.info("feed:" + name + " " + metrics.report(nowNanos)
+                    + " backlog:" + backlog.size() + " dropped:" + droppedCount + " conflated:" + conflatedCount);
+        }
+    }
+
+    private String depthSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (QueueMetrics metrics : targetQueueMetrics()) {
+            summary.append(metrics.name).append(" depth:").append(metrics.queue.size())
+                    .append('/').append(metrics.queue.capacity()).append(' ');
+        }
+        return summary.toString().trim();
+    }
+
+    private static class Conflated {
+        private final Object key;
+        private Object event;
+
+        private Conflated(Object key, Object event) {
+            this.key = key;
+            this.event = event;
+        }
+    }
+
+    /**
+     * The measurements of one processor queue of a feed. Rates and the time in queue histogram cover the last report
+     * interval, the high watermark the life of the feed.
+     */
+    public static class QueueMetrics {
+
+        @Getter
+        private final String name;
+        private final OneToOneConcurrentArrayQueue<Object> queue;
+        private final long[] enqueueNanos;
+        private final int mask;
+        @Getter
+        private final LatencyHistogram timeInQueue = new LatencyHistogram();
+        @Getter
+        private long depth;
+        @Getter
+        private long highWatermark;
+        @Getter
+        private double enqueueRate;
+        @Getter
+        private double dequeueRate;
+        private long added;
+        private long removed;
+        private final long firstTimed;
+        private long reportNanos;
+        private long reportAdded;
+        private long reportRemoved;
+
+        QueueMetrics(String name, OneToOneConcurrentArrayQueue<Object> queue) {
+            this.name = name;
+            this.queue = queue;
+            int ringSize = Integer.highestOneBit(Math.max(queue.capacity(), 2) - 1) << 1;
+            enqueueNanos = new long[ringSize];
+            mask = ringSize - 1;
+            added = queue.addedCount();
+            removed = queue.removedCount();
+            firstTimed = added;
+            reportAdded = added;
+            reportRemoved = removed;
+            reportNanos = System.nanoTime();
+        }
+
+        public int capacity() {
+            return queue.capacity();
+        }
+
+        public long enqueuedCount() {
+            return added;
+        }
+
+        public long dequeuedCount() {
+            return removed;
+        }
+
+        private void enqueued(long nowNanos) {
+            long nowAdded = queue.addedCount();
+            while (added < nowAdded) {
+                if (added - removed > mask) {
+                    //the slot may still time an event, the queue has taken it if it holds no more than its capacity
+                    dequeued(nowNanos);
+                }
+                enqueueNanos[(int) added++ & mask] = nowNanos;
+            }
+        }
+
+        private void sample(long nowNanos) {
+            enqueued(nowNanos);
+            dequeued(nowNanos);
+            depth = added - removed;
+            highWatermark = Math.max(highWatermark, depth);
+        }
+
+        private void dequeued(long nowNanos) {
+            long nowRemoved = Math.min(queue.removedCount(), added);
+            for (; removed < nowRemoved; removed++) {
+                if (removed >= firstTimed) {
+                    timeInQueue.record(nowNanos - enqueueNanos[(int) removed & mask]);
+                }
+            }
+        }
+
+        private String report(long nowNanos) {
+            double seconds = Math.max(nowNanos - reportNanos, 1) / 1e9;
+            enqueueRate = (added - reportAdded) / seconds;
+            dequeueRate = (removed - reportRemoved) / seconds;
+            String report = "queue:" + name
+                    + " depth:" + depth + "/" + queue.capacity()
+                    + " highWatermark:" + highWatermark
+                    + " enqueuedPerSecond:" + Math.round(enqueueRate * 10) / 10.0
+                    + " dequeuedPerSecond:" + Math.round(dequeueRate * 10) / 10.0
+                    + " timeInQueueMicros " + timeInQueue.summaryMicros();
+            timeInQueue.reset();
+            reportNanos = nowNanos;
+            reportAdded = added;
+            reportRemoved = removed;
+            return report;
+        }
+    }
+}
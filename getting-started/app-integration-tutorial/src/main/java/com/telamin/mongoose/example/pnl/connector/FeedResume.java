@@ -0,0 +1,48 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Positions a jsonl feed after the events already consumed, so a restart resumes the feed from a pnl snapshot rather
+ * than replaying the file.
+ * <p>
+ * The returned byte offset is the startOffset of a {@link ParallelDecodeFileEventSource}, the offset is
+ * found by counting lines, which is far cheaper than parsing and processing them.
+ */
+public interface FeedResume {
+
+    /**
+     * @return the byte offset after the first lineCount lines of the file
+     * @throws IllegalStateException if the file holds fewer complete lines
+     */
+    static long jsonlOffset(String filename, long lineCount) {
+        if (lineCount == 0) {
+            return 0;
+        }
+        File file = new File(filename);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            long offset = 0;
+            long lines = 0;
+            while (channel.read(buffer, offset) > 0) {
+                buffer.flip();
+                for (int i = 0, limit = buffer.limit(); i < limit; i++) {
+                    if (buffer.get(i) == '\n' && ++lines == lineCount) {
+                        return offset + i + 1;
+                    }
+                }
+                offset += buffer.limit();
+                buffer.clear();
+            }
+            throw new IllegalStateException("feed file:" + file.getAbsolutePath() + " has " + lines
+                    + " lines, fewer than the " + lineCount + " events in the pnl snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read feed file:" + file.getAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.mongoose.example.pnl.events.ConflatedMidPrice;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Latest value conflation of a prices feed, used as the feed value mapper so a slow processor only sees the latest
+ * unconsumed {@link MidPrice} of each symbol instead of a backlog.
+ * <p>
+ * A price is stored in the {@link ConflatedMidPrice} slot of its symbol, the slot is returned for publishing only when
+ * it was clean, otherwise null is returned and the feed publishes nothing. The queue therefore holds at most one entry
+ * per symbol, in the order the symbols became dirty, and the processor takes the latest price when the entry is
+ * dispatched. Other events pass through unchanged so trades keep their FIFO order. The slots are read by a single
+ * processor, the feed must not be broadcast to more than one.
+ * <p>
+ * Prices are numbered from startSequence as the feed reads them, {@link #resumeEventCount()} is the number of prices
+ * read before the oldest pending price, a checkpoint resumes the feed there. Prices after that count that were already
+ * taken are read again, replaying a latest value is idempotent.
+ */
+public class MidPriceConflator implements Function<Object, Object> {
+
+    @Getter
+    @Setter
+    private Function<Object, ?> decoder;
+    private volatile ConflatedMidPrice[] slots = new ConflatedMidPrice[64];
+    private volatile long sequence;
+    @Getter
+    private volatile long publishedCount;
+    @Getter
+    private volatile long conflatedCount;
+
+    public MidPriceConflator() {
+        this(0);
+    }
+
+    /**
+     * @param startSequence the number of prices the feed skips when it starts
+     */
+    public MidPriceConflator(long startSequence) {
+        this.sequence = startSequence;
+    }
+
+    @Override
+    public Object apply(Object input) {
+        Object event = decoder == null ? input : decoder.apply(input);
+        return event instanceof MidPrice midPrice ? conflate(midPrice) : event;
+    }
+
+    /**
+     * Called by the feed thread only.
+     *
+     * @return the slot to publish, null if the slot is already queued
+     */
+    public ConflatedMidPrice conflate(MidPrice midPrice) {
+        long priceSequence = sequence + 1;
+        ConflatedMidPrice slot = slot(midPrice);
+        boolean publish = slot.offer(midPrice, priceSequence);
+        if (publish) {
+            publishedCount++;
+        } else {
+            conflatedCount++;
+        }
+        //written after the slot so a reader of the sequence sees every earlier price pending or taken
+        sequence = priceSequence;
+        return publish ? slot : null;
+    }
+
+    /**
+     * @return the sequence number of the last price read, including the start sequence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return the number of prices offered since the conflator was created
+     */
+    public long getOfferedCount() {
+        return publishedCount + conflatedCount;
+    }
+
+    /**
+     * Safe to call from the processor thread, a price offered concurrently is either pending or not counted.
+     *
+     * @return the number of leading prices that are no longer pending
+     */
+    public long resumeEventCount() {
+        long resumeCount = sequence;
+        for (ConflatedMidPrice slot : slots) {
+            if (slot != null && slot.isPending()) {
+                resumeCount = Math.min(resumeCount, slot.firstPendingSequence() - 1);
+            }
+        }
+        return Math.max(0, resumeCount);
+    }
+
+    @Override
+    public String toString() {
+        return "MidPriceConflator[offered=" + getOfferedCount() + ", published=" + publishedCount
+                + ", conflated=" + conflatedCount + ']';
+    }
+
+    private ConflatedMidPrice slot(MidPrice midPrice) {
+        int id = midPrice.symbol().id();
+        ConflatedMidPrice[] currentSlots = slots;
+        if (id >= currentSlots.length) {
+            currentSlots = Arrays.copyOf(currentSlots, Math.max(currentSlots.length * 2, id + 1));
+            slots = currentSlots;
+        }
+        ConflatedMidPrice slot = currentSlots[id];
+        if (slot == null) {
+            slot = new ConflatedMidPrice(midPrice.symbol(), this);
+            currentSlots[id] = slot;
+        }
+        return slot;
+    }
+}
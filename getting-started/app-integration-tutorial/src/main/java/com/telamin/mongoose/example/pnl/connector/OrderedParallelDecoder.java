@@ -0,0 +1,149 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.concurrent.BackoffIdleStrategy;
+import com.fluxtion.agrona.concurrent.IdleStrategy;
+import lombok.Getter;
+import lombok.extern.java.Log;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Decodes lines on parallelism worker threads and hands the results back in submission order.
+ * <p>
+ * The submitting thread numbers each line and stores it in a ring slot, worker w decodes the lines whose sequence
+ * modulo parallelism is w, so no two workers contend for a line. {@link #drain(Consumer)} publishes decoded results
+ * from the oldest line until it reaches one still being decoded, a slow line holds back the lines after it but never
+ * reorders them. The ring holds capacity lines, {@link #offer(String)} fails when it is full.
+ * <p>
+ * A decoder exception is rethrown by drain when its line is reached, as if the line were decoded inline. Null results
+ * are not published. Only one thread may offer and drain.
+ */
+@Log
+public class OrderedParallelDecoder<T> implements AutoCloseable {
+
+    private static final long EMPTY = -1;
+    @Getter
+    private final int parallelism;
+    private final int mask;
+    private final Function<String, T> decoder;
+    private final String[] lines;
+    private final Object[] results;
+    private final AtomicLongArray submitted;
+    private final AtomicLongArray decoded;
+    private final Thread[] workers;
+    private volatile boolean running = true;
+    private long submitSequence;
+    private long drainSequence;
+
+    /**
+     * @param capacity lines held in flight, rounded up to a power of two
+     */
+    public OrderedParallelDecoder(String name, Function<String, T> decoder, int parallelism, int capacity) {
+        this.parallelism = parallelism;
+        this.decoder = decoder;
+        int ringSize = Integer.highestOneBit(Math.max(capacity, parallelism * 2) - 1) << 1;
+        mask = ringSize - 1;
+        lines = new String[ringSize];
+        results = new Object[ringSize];
+        submitted = new AtomicLongArray(ringSize);
+        decoded = new AtomicLongArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            submitted.set(i, EMPTY);
+            decoded.set(i, EMPTY);
+        }
+        workers = new Thread[parallelism];
+        for (int w = 0; w < parallelism; w++) {
+            int workerIndex = w;
+            workers[w] = new Thread(() -> decodeLoop(workerIndex), name + "-decoder-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+
+    /**
+     * @return false if the ring is full, drain and offer again
+     */
+    public boolean offer(String line) {
+        if (submitSequence - drainSequence > mask) {
+            return false;
+        }
+        int slot = (int) submitSequence & mask;
+        lines[slot] = line;
+        submitted.lazySet(slot, submitSequence++);
+        return true;
+    }
+
+    /**
+     * Publishes the decoded results of the oldest lines in order.
+     *
+     * @return the number of lines drained
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super T> consumer) {
+        int drained = 0;
+        while (drainSequence < submitSequence) {
+            int slot = (int) drainSequence & mask;
+            if (decoded.get(slot) != drainSequence) {
+                break;
+            }
+            Object result = results[slot];
+            results[slot] = null;
+            drainSequence++;
+            drained++;
+            if (result instanceof DecodeFailure failure) {
+                throw failure.exception;
+            }
+            if (result != null) {
+                consumer.accept((T) result);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * @return lines offered and not yet drained
+     */
+    public int inFlight() {
+        return (int) (submitSequence - drainSequence);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void decodeLoop(int workerIndex) {
+        IdleStrategy idleStrategy = new BackoffIdleStrategy();
+        long sequence = workerIndex;
+        while (running) {
+            int slot = (int) sequence & mask;
+            if (submitted.get(slot) != sequence) {
+                idleStrategy.idle(0);
+                continue;
+            }
+            idleStrategy.reset();
+            String line = lines[slot];
+            lines[slot] = null;
+            try {
+                results[slot] = decoder.apply(line);
+            } catch (RuntimeException e) {
+                results[slot] = new DecodeFailure(e);
+            }
+            decoded.lazySet(slot, sequence);
+            sequence += parallelism;
+        }
+    }
+
+    private record DecodeFailure(RuntimeException exception) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.fluxtion.runtime.event.NamedFeedEvent;
+import com.telamin.mongoose.config.ReadStrategy;
+import com.telamin.mongoose.service.extension.AbstractAgentHostedEventSourceService;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Function;
+
+/**
+ * Tails a line per event text file, decoding the lines with the decoder on parallelism worker threads so parsing is
+ * not capped by the feed agent thread that reads the file. Events are published in file order, see
+ * {@link OrderedParallelDecoder}. A parallelism of 1 decodes on the feed agent thread.
+ * <p>
+ * The decoder takes the place of the feed value mapper, e.g. a {@link com.telamin.mongoose.example.pnl.helper.MapFromJson},
+ * a value mapper set on the feed config is applied to the decoded events on the feed agent thread.
+ * <p>
+ * Supports the EARLIEST and LATEST read strategies, the file need not exist when the source starts. With EARLIEST
+ * reading starts at startOffset, e.g. a {@link FeedResume#jsonlOffset(String, long)} to resume from a pnl snapshot.
+ * <p>
+ * Events are published through a {@link FeedQueueMonitor}, which applies the backpressurePolicy while a processor queue
+ * is full and logs queue metrics every queueReportIntervalMillis, 0 for no report.
+ */
+@Log
+public class ParallelDecodeFileEventSource extends AbstractAgentHostedEventSourceService<Object> {
+
+    @Getter
+    @Setter
+    private String filename;
+    @Getter
+    @Setter
+    private ReadStrategy readStrategy = ReadStrategy.EARLIEST;
+    @Getter
+    @Setter
+    private boolean cacheEventLog = false;
+    @Getter
+    @Setter
+    private Function<String, ?> decoder;
+    @Getter
+    @Setter
+    private int parallelism = 1;
+    @Getter
+    @Setter
+    private int decodeCapacity = 4096;
+    @Getter
+    @Setter
+    private int maxLinesPerCycle = 1024;
+    @Getter
+    @Setter
+    private long startOffset = 0;
+    @Getter
+    @Setter
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+    @Getter
+    @Setter
+    private int backlogCapacity = 4096;
+    @Getter
+    @Setter
+    private long queueReportIntervalMillis = 0;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(1 << 16);
+    private FileChannel channel;
+    private long readOffset;
+    private OrderedParallelDecoder<Object> parallelDecoder;
+    private String pendingLine;
+    private boolean publishToQueue = false;
+    private FeedQueueMonitor queueMonitor;
+
+    public ParallelDecodeFileEventSource() {
+        super("parallelDecodeFileEventFeed");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void start() {
+        log.info("starting parallel decode file source:" + serviceName + " file:" + filename
+                + " readStrategy:" + readStrategy + " parallelism:" + parallelism);
+        if (readStrategy != ReadStrategy.EARLIEST && readStrategy != ReadStrategy.LATEST) {
+            log.warning("unsupported readStrategy:" + readStrategy + " for parallel decode file source, reading EARLIEST");
+        }
+        readOffset = startOffset;
+        if (readStrategy == ReadStrategy.LATEST) {
+            File file = new File(filename);
+            readOffset = file.exists() ? file.length() : 0;
+        }
+        if (parallelism > 1) {
+            parallelDecoder = new OrderedParallelDecoder<>(serviceName, (Function<String, Object>) decoder,
+                    parallelism, decodeCapacity);
+        }
+        queueMonitor = new FeedQueueMonitor(serviceName, output);
+        queueMonitor.setPolicy(backpressurePolicy);
+        queueMonitor.setBacklogCapacity(backlogCapacity);
+        queueMonitor.setReportIntervalMillis(queueReportIntervalMillis);
+        output.setCacheEventLog(cacheEventLog);
+        if (cacheEventLog) {
+            publishToQueue = false;
+            int work;
+            do {
+                work = doWork();
+            } while (work > 0);
+        }
+    }
+
+    @Override
+    public void startComplete() {
+        publishToQueue = true;
+        output.dispatchCachedEventLog();
+    }
+
+    @SuppressWarnings("unchecked")
+    public NamedFeedEvent<Object>[] eventLog() {
+        return output.getEventLog().toArray(new NamedFeedEvent[0]);
+    }
+
+    @Override
+    public int doWork() {
+        int work = queueMonitor.doWork();
+        if (!queueMonitor.acceptingEvents() || (channel == null && !connect())) {
+            return work;
+        }
+        for (int lines = 0; lines < maxLinesPerCycle && queueMonitor.acceptingEvents(); lines++) {
+            String line = pendingLine != null ? pendingLine : nextLine();
+            pendingLine = null;
+            if (line == null) {
+                break;
+            }
+            if (parallelDecoder == null) {
+                publish(decoder.apply(line));
+            } else if (!parallelDecoder.offer(line)) {
+                pendingLine = line;
+                break;
+            }
+            work++;
+        }
+        if (parallelDecoder != null && queueMonitor.acceptingEvents()) {
+            work += parallelDecoder.drain(this::publish);
+        }
+        return work;
+    }
+
+    @Override
+    public void stop() {
+        log.info("stopping parallel decode file source:" + serviceName);
+        if (queueMonitor != null) {
+            queueMonitor.close();
+        }
+        if (parallelDecoder != null) {
+            parallelDecoder.close();
+            parallelDecoder = null;
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warning("failed to close file:" + filename + " " + e);
+            }
+            channel = null;
+        }
+    }
+
+    private void publish(Object event) {
+        if (event == null) {
+            return;
+        }
+        if (publishToQueue) {
+            queueMonitor.publish(event);
+        } else {
+            output.cache(event);
+        }
+    }
+
+    /**
+     * @return the next complete line, null if the file ends before the next line feed
+     */
+    private String nextLine() {
+        while (true) {
+            byte[] bytes = readBuffer.array();
+            for (int i = readBuffer.position(), limit = readBuffer.limit(); i < limit; i++) {
+                if (bytes[i] == '\n') {
+                    int start = readBuffer.position();
+                    int end = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+                    readBuffer.position(i + 1);
+                    if (end > start) {
+                        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                    }
+                }
+            }
+            if (!fill()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Keeps the partial line at the end of the buffer and reads after it.
+     *
+     * @return true if bytes were read
+     */
+    private boolean fill() {
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            throw new IllegalStateException("line longer than " + readBuffer.capacity() + " bytes in file:" + filename);
+        }
+        try {
+            int read = channel.read(readBuffer, readOffset);
+            readBuffer.flip();
+            if (read <= 0) {
+                return false;
+            }
+            readOffset += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read file:" + filename, e);
+        }
+    }
+
+    private boolean connect() {
+        File file = new File(filename);
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            readBuffer.clear().flip();
+            log.info("connected parallel decode file source:" + serviceName + " file:" + file.getAbsolutePath()
+                    + " offset:" + readOffset);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open file:" + file.getAbsolutePath(), e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import lombok.Getter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Sparse sidecar index of a binary record file, written by {@link BinaryFileMessageSink} so a
+ * {@link BinaryFileEventSource} can start at a logical position without reading the records before it.
+ * <p>
+ * Every indexInterval events an entry maps the position before an event record to its file offset, the position is
+ * the number of events before the record, the highest trade id before it and the wall clock time it was written.
+ * The keys never decrease so a lookup is a binary search, the reader then scans at most one interval of records.
+ * Symbol definition records are indexed too, a reader seeking past them decodes just those records to rebuild the
+ * file symbol dictionary.
+ * <p>
+ * The index file is filename.index, an int magic and int indexInterval header padded to {@link #ENTRY_LENGTH}
+ * followed by little endian entries | long fileOffset | long eventCount | long lastTradeId | long epochNanos |. A
+ * symbol definition entry has an eventCount of -1 and only the file offset set.
+ */
+public class SparseRecordIndex {
+
+    public static final String INDEX_SUFFIX = ".index";
+    public static final int ENTRY_LENGTH = 32;
+    static final int MAGIC = 0x53524958;
+    static final long SYMBOL_DEFINITION_ENTRY = -1;
+
+    @Getter
+    private final int indexInterval;
+    private long[] fileOffsets = new long[64];
+    private long[] eventCounts = new long[64];
+    private long[] lastTradeIds = new long[64];
+    private long[] epochNanos = new long[64];
+    @Getter
+    private int entryCount;
+    private long[] symbolDefinitionOffsets = new long[64];
+    @Getter
+    private int symbolDefinitionCount;
+
+    private SparseRecordIndex(int indexInterval) {
+        this.indexInterval = indexInterval;
+    }
+
+    public static String indexFileName(String filename) {
+        return filename + INDEX_SUFFIX;
+    }
+
+    /**
+     * Reads the index of a binary record file, a trailing partially written entry is ignored.
+     *
+     * @return the index, empty if the file has no index
+     */
+    public static SparseRecordIndex load(String filename) {
+        File file = new File(indexFileName(filename));
+        if (!file.exists() || file.length() < ENTRY_LENGTH) {
+            return new SparseRecordIndex(0);
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - channel.size() % ENTRY_LENGTH))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            int read;
+            do {
+                read = channel.read(buffer, buffer.position());
+            } while (read > 0 && buffer.hasRemaining());
+            if (buffer.getInt(0) != MAGIC) {
+                return new SparseRecordIndex(0);
+            }
+            SparseRecordIndex index = new SparseRecordIndex(buffer.getInt(4));
+            for (int offset = ENTRY_LENGTH; offset + ENTRY_LENGTH <= buffer.position(); offset += ENTRY_LENGTH) {
+                index.add(buffer.getLong(offset), buffer.getLong(offset + 8), buffer.getLong(offset + 16),
+                        buffer.getLong(offset + 24));
+            }
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read record index:" + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * @return the last entry with fewer than or exactly eventCount events before it, -1 if there is none
+     */
+    public int floorByEventCount(long eventCount) {
+        return floor(eventCounts, eventCount);
+    }
+
+    /**
+     * @return the last entry with no trade id above tradeId before it, -1 if there is none
+     */
+    public int floorByTradeId(long tradeId) {
+        return floor(lastTradeIds, tradeId);
+    }
+
+    /**
+     * @return the last entry written at or before epochNanos, -1 if there is none
+     */
+    public int floorByEpochNanos(long epochNanos) {
+        return floor(this.epochNanos, epochNanos);
+    }
+
+    public long fileOffset(int entry) {
+        return fileOffsets[entry];
+    }
+
+    public long eventCount(int entry) {
+        return eventCounts[entry];
+    }
+
+    public long lastTradeId(int entry) {
+        return lastTradeIds[entry];
+    }
+
+    public long epochNanos(int entry) {
+        return epochNanos[entry];
+    }
+
+    public long symbolDefinitionOffset(int index) {
+        return symbolDefinitionOffsets[index];
+    }
+
+    private void add(long fileOffset, long eventCount, long lastTradeId, long epochNanos) {
+        if (eventCount == SYMBOL_DEFINITION_ENTRY) {
+            if (symbolDefinitionCount == symbolDefinitionOffsets.length) {
+                symbolDefinitionOffsets = Arrays.copyOf(symbolDefinitionOffsets, symbolDefinitionCount * 2);
+            }
+            symbolDefinitionOffsets[symbolDefinitionCount++] = fileOffset;
+            return;
+        }
+        if (entryCount == fileOffsets.length) {
+            fileOffsets = Arrays.copyOf(fileOffsets, entryCount * 2);
+            eventCounts = Arrays.copyOf(eventCounts, entryCount * 2);
+            lastTradeIds = Arrays.copyOf(lastTradeIds, entryCount * 2);
+            this.epochNanos = Arrays.copyOf(this.epochNanos, entryCount * 2);
+        }
+        fileOffsets[entryCount] = fileOffset;
+        eventCounts[entryCount] = eventCount;
+        lastTradeIds[entryCount] = lastTradeId;
+        this.epochNanos[entryCount] = epochNanos;
+        entryCount++;
+    }
+
+    private int floor(long[] keys, long key) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,70 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends entries to the {@link SparseRecordIndex} of a binary record file. Entries are written before the record
+ * they point to, so a reader never finds an entry past the records it can see other than the one being written.
+ */
+public class SparseRecordIndexWriter {
+
+    private final String indexFileName;
+    private final ByteBuffer entry = ByteBuffer.allocate(SparseRecordIndex.ENTRY_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    private FileChannel channel;
+
+    /**
+     * Creates the index of filename, replacing any existing index.
+     */
+    public SparseRecordIndexWriter(String filename, int indexInterval) {
+        indexFileName = SparseRecordIndex.indexFileName(filename);
+        try {
+            channel = FileChannel.open(new File(indexFileName).toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            entry.clear();
+            entry.putInt(SparseRecordIndex.MAGIC).putInt(indexInterval).position(SparseRecordIndex.ENTRY_LENGTH);
+            write();
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to create record index:" + indexFileName, e);
+        }
+    }
+
+    public void event(long fileOffset, long eventCount, long lastTradeId, long epochNanos) {
+        entry.clear();
+        entry.putLong(fileOffset).putLong(eventCount).putLong(lastTradeId).putLong(epochNanos);
+        write();
+    }
+
+    public void symbolDefinition(long fileOffset) {
+        entry.clear();
+        entry.putLong(fileOffset).putLong(SparseRecordIndex.SYMBOL_DEFINITION_ENTRY).putLong(0).putLong(0);
+        write();
+    }
+
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("unable to close record index:" + indexFileName, e);
+            }
+            channel = null;
+        }
+    }
+
+    private void write() {
+        entry.flip();
+        try {
+            while (entry.hasRemaining()) {
+                channel.write(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to write record index:" + indexFileName, e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.telamin.mongoose.example.pnl.events;
+
+import com.telamin.mongoose.example.pnl.connector.MidPriceConflator;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The latest value slot of a symbol in a {@link MidPriceConflator}, published to the processor queue when the slot
+ * turns from clean to dirty. The processor takes the latest price when the slot reaches the head of the queue, prices
+ * offered while the slot is dirty overwrite the pending price without being queued.
+ */
+public final class ConflatedMidPrice {
+
+    @Getter
+    private final Symbol symbol;
+    @Getter
+    private final MidPriceConflator conflator;
+    private final AtomicReference<MidPrice> latest = new AtomicReference<>();
+    private volatile long firstPendingSequence;
+
+    public ConflatedMidPrice(Symbol symbol, MidPriceConflator conflator) {
+        this.symbol = symbol;
+        this.conflator = conflator;
+    }
+
+    /**
+     * Called by the feed thread only.
+     *
+     * @param sequence the feed sequence number of the price
+     * @return true if the slot was clean and must be published
+     */
+    public boolean offer(MidPrice midPrice, long sequence) {
+        if (latest.getAndSet(midPrice) == null) {
+            firstPendingSequence = sequence;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Called by the processor thread when the published slot is received, cleans the slot.
+     *
+     * @return the latest price offered since the slot was published
+     */
+    public MidPrice take() {
+        return latest.getAndSet(null);
+    }
+
+    public boolean isPending() {
+        return latest.get() != null;
+    }
+
+    /**
+     * @return the feed sequence number of the oldest price replaced by the pending price, only valid while pending
+     */
+    public long firstPendingSequence() {
+        return firstPendingSequence;
+    }
+
+    @Override
+    public String toString() {
+        return "ConflatedMidPrice[symbol=" + symbol.symbolName() + ", latest=" + latest.get() + ']';
+    }
+}
@@ -9,7 +9,15 @@ package com.telamin.mongoose.example.pnl.events;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import com.telamin.mongoose.example.pnl.refdata.Symbol;
 
-public record MidPrice(Symbol symbol, double rate) {
+/**
+ * @param intendedSendNanos epoch nanos the generator scheduled the price to be sent at, 0 if not load generated
+ */
+public record MidPrice(Symbol symbol, double rate, long intendedSendNanos) {
+
+    public MidPrice(Symbol symbol, double rate) {
+        this(symbol, rate, 0);
+    }
+
     public Instrument dealtInstrument() {
         return symbol().dealtInstrument();
     }
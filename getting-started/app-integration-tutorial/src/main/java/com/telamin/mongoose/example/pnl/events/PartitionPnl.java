@@ -0,0 +1,37 @@
+package com.telamin.mongoose.example.pnl.events;
+
+import com.telamin.mongoose.example.pnl.calculator.InstrumentPosMtm;
+import com.telamin.mongoose.example.pnl.calculator.PositionBook;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+
+/**
+ * An immutable copy of the changes to the {@link PnlSummary} of one pnl partition since its previous PartitionPnl,
+ * safe to hand to the merge processor on another agent thread. positions holds only the instruments re-marked since
+ * the previous publish. full is true when they replace every position the partition published before, on its first
+ * publish or after its position book was replaced.
+ */
+public record PartitionPnl(int partition, boolean full, Instrument mtmInstrument, double pnl,
+                           InstrumentPosMtm[] positions, ReportingPnl[] reportingPnls) {
+
+    /**
+     * Copies the instruments of the summary's position book re-marked since the last publish and clears them, called
+     * on the thread of the partition.
+     */
+    public static PartitionPnl of(int partition, boolean full, PnlSummary pnlSummary) {
+        PositionBook positionBook = pnlSummary.getPositionBook();
+        InstrumentPosMtm[] positions = new InstrumentPosMtm[positionBook.unpublishedInstrumentCount()];
+        for (int i = 0; i < positions.length; i++) {
+            int id = positionBook.unpublishedInstrumentId(i);
+            InstrumentPosMtm posMtm = new InstrumentPosMtm();
+            posMtm.setInstrument(positionBook.instrument(id));
+            posMtm.setPosition(positionBook.position(id));
+            posMtm.setMtmPosition(positionBook.mtmPosition(id));
+            positions[i] = posMtm;
+        }
+        positionBook.clearUnpublishedInstruments();
+        ReportingPnl[] reportingPnls = pnlSummary.getReportingPnls().stream()
+                .map(ReportingPnl::new)
+                .toArray(ReportingPnl[]::new);
+        return new PartitionPnl(partition, full, pnlSummary.getMtmInstrument(), pnlSummary.getPnl(), positions, reportingPnls);
+    }
+}
@@ -1,11 +1,16 @@
 package com.telamin.mongoose.example.pnl.events;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.telamin.mongoose.example.pnl.calculator.InstrumentPosMtm;
+import com.telamin.mongoose.example.pnl.calculator.PositionBook;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import com.telamin.mongoose.example.pnl.refdata.RefData;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -14,10 +19,27 @@ public class PnlSummary {
     private Instrument mtmInstrument = RefData.USD;
     private double pnl;
     private Map<Instrument, InstrumentPosMtm> mtmAssetMap = new HashMap<>();
+    private List<ReportingPnl> reportingPnls = new ArrayList<>();
+    /**
+     * The live positions behind the summary, read without copying by sinks of a summary published without a
+     * mtmAssetMap. Not serialised.
+     */
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private PositionBook positionBook;
 
     public boolean calcPnl() {
+        return updatePnl(mtmAssetMap.values().stream().mapToDouble(InstrumentPosMtm::getMtmPosition).sum());
+    }
+
+    /**
+     * Sets a pnl calculated outside the summary, as calcPnl does.
+     *
+     * @return true if the pnl changed or was NaN
+     */
+    public boolean updatePnl(double newPnl) {
         double oldVal = this.pnl;
-        this.pnl = mtmAssetMap.values().stream().mapToDouble(InstrumentPosMtm::getMtmPosition).sum();
+        this.pnl = newPnl;
         return Double.isNaN(oldVal) | oldVal != pnl;
     }
 
@@ -29,6 +51,9 @@ public class PnlSummary {
                 "\n\t" + mtmAssetMap.values().stream()
                 .map(i -> i.getInstrument().instrumentName() + " pos:" + i.getPosition() + " mtmPos:" + i.getMtmPosition())
                 .collect(Collectors.joining("\n\t")) +
+                reportingPnls.stream()
+                        .map(r -> "\n\t" + r.getInstrument().instrumentName() + " pnl:" + r.getPnl())
+                        .collect(Collectors.joining()) +
                 '}';
     }
 }
@@ -0,0 +1,40 @@
+package com.telamin.mongoose.example.pnl.events;
+
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The pnl of a {@link PnlSummary} expressed in an additional reporting instrument.
+ * <p>
+ * The rate is the number of mtm instrument units for one reporting instrument unit, taken from the same conversion
+ * tree that marks the positions, so the reporting pnl is the mtm pnl divided by the rate and NaN while the reporting
+ * instrument has no conversion.
+ */
+@Data
+@NoArgsConstructor
+public class ReportingPnl {
+    private Instrument instrument;
+    private double rate = Double.NaN;
+    private double pnl = Double.NaN;
+
+    public ReportingPnl(Instrument instrument) {
+        this.instrument = instrument;
+    }
+
+    public ReportingPnl(ReportingPnl from) {
+        this.instrument = from.instrument;
+        this.rate = from.rate;
+        this.pnl = from.pnl;
+    }
+
+    /**
+     * @return true if the reporting pnl changed or is NaN
+     */
+    public boolean update(double mtmPnl, double newRate) {
+        double oldPnl = pnl;
+        rate = newRate;
+        pnl = mtmPnl / newRate;
+        return Double.isNaN(oldPnl) | oldPnl != pnl;
+    }
+}
@@ -9,7 +9,14 @@ package com.telamin.mongoose.example.pnl.events;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import com.telamin.mongoose.example.pnl.refdata.Symbol;
 
-public record Trade(Symbol symbol, long id, double dealtVolume, double contraVolume) {
+/**
+ * @param intendedSendNanos epoch nanos the generator scheduled the trade to be sent at, 0 if not load generated
+ */
+public record Trade(Symbol symbol, long id, double dealtVolume, double contraVolume, long intendedSendNanos) {
+
+    public Trade(Symbol symbol, long id, double dealtVolume, double contraVolume) {
+        this(symbol, id, dealtVolume, contraVolume, 0);
+    }
 
     public Instrument dealtInstrument() {
         return symbol.dealtInstrument();
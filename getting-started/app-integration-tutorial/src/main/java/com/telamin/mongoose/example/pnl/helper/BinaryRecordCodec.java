@@ -0,0 +1,293 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Fixed width little endian binary records for {@link Trade} and {@link MidPrice}, an alternative to the JSON
+ * mappers in {@link DataMappers}.
+ * <p>
+ * Every record starts with an int type word and is aligned to {@link #RECORD_ALIGNMENT} bytes:
+ * <pre>
+ * TRADE             | type | fileSymbolId | long id   | double dealtVolume | double contraVolume |
+ * TIMED_TRADE       | TRADE layout | long intendedSendNanos | unused 24 bytes                      |
+ * MID_PRICE         | type | fileSymbolId | double rate | long intendedSendNanos | unused 8 bytes  |
+ * SYMBOL_DEFINITION | type | fileSymbolId | short name lengths x3 | pad | ascii names, padded   |
+ * PADDING           | type | length to skip                                                   |
+ * FILE_HEADER       | type | chunkSize                                                        |
+ * </pre>
+ * A load generated trade carrying an intended send time is a two slot TIMED_TRADE record, other trades keep the
+ * single slot layout.
+ * <p>
+ * Symbols are written as small ids local to the file, a definition record precedes the first use of a symbol so a
+ * reader in another process can rebuild the symbols without any shared state. The type word is written last with
+ * release semantics and a zero type means the record is not written yet, so a reader can safely tail a memory
+ * mapped file that a writer is appending to.
+ * <p>
+ * A codec instance holds the symbol dictionary of one file and is not thread safe.
+ */
+public class BinaryRecordCodec {
+
+    public static final int RECORD_ALIGNMENT = 32;
+    public static final int TRADE = 1;
+    public static final int MID_PRICE = 2;
+    public static final int SYMBOL_DEFINITION = 3;
+    public static final int PADDING = 4;
+    public static final int FILE_HEADER = 5;
+    public static final int TIMED_TRADE = 6;
+
+    private static final VarHandle TYPE_WORD = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final int SYMBOL_DEFINITION_HEADER_LENGTH = 16;
+
+    private int[] fileIdBySymbolId = new int[64];
+    private Symbol[] symbolsByFileId = new Symbol[64];
+    private int fileSymbolCount;
+
+    public BinaryRecordCodec() {
+        Arrays.fill(fileIdBySymbolId, -1);
+    }
+
+    /**
+     * @return the bytes needed to encode the event including a symbol definition if required, 0 if the event type
+     * is not supported
+     */
+    public int encodedLength(Object event) {
+        Symbol symbol;
+        int recordLength = RECORD_ALIGNMENT;
+        if (event instanceof Trade trade) {
+            symbol = trade.symbol();
+            recordLength = tradeRecordLength(trade);
+        } else if (event instanceof MidPrice midPrice) {
+            symbol = midPrice.symbol();
+        } else {
+            return 0;
+        }
+        return fileSymbolId(symbol) < 0 ? symbolDefinitionLength(symbol) + recordLength : recordLength;
+    }
+
+    /**
+     * Encodes the event at offset, which must be aligned, the buffer must have {@link #encodedLength(Object)} bytes
+     * remaining.
+     *
+     * @return the number of bytes written
+     */
+    public int encode(Object event, ByteBuffer buffer, int offset) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (event instanceof Trade trade) {
+            int length = defineSymbolIfAbsent(trade.symbol(), buffer, offset);
+            int recordOffset = offset + length;
+            buffer.putInt(recordOffset + 4, fileSymbolId(trade.symbol()));
+            buffer.putLong(recordOffset + 8, trade.id());
+            buffer.putDouble(recordOffset + 16, trade.dealtVolume());
+            buffer.putDouble(recordOffset + 24, trade.contraVolume());
+            if (trade.intendedSendNanos() == 0) {
+                TYPE_WORD.setRelease(buffer, recordOffset, TRADE);
+                return length + RECORD_ALIGNMENT;
+            }
+            buffer.putLong(recordOffset + 32, trade.intendedSendNanos());
+            TYPE_WORD.setRelease(buffer, recordOffset, TIMED_TRADE);
+            return length + 2 * RECORD_ALIGNMENT;
+        } else if (event instanceof MidPrice midPrice) {
+            int length = defineSymbolIfAbsent(midPrice.symbol(), buffer, offset);
+            int recordOffset = offset + length;
+            buffer.putInt(recordOffset + 4, fileSymbolId(midPrice.symbol()));
+            buffer.putDouble(recordOffset + 8, midPrice.rate());
+            buffer.putLong(recordOffset + 16, midPrice.intendedSendNanos());
+            TYPE_WORD.setRelease(buffer, recordOffset, MID_PRICE);
+            return length + RECORD_ALIGNMENT;
+        }
+        throw new IllegalArgumentException("unsupported binary record type:" + event.getClass().getName());
+    }
+
+    /**
+     * Marks the bytes from offset to offset + length as skipped, used to fill the unusable tail of a mapped region.
+     */
+    public static void encodePadding(ByteBuffer buffer, int offset, int length) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(offset + 4, length);
+        TYPE_WORD.setRelease(buffer, offset, PADDING);
+    }
+
+    /**
+     * Writes the header record that starts every binary file, recording the size of the regions the file is mapped
+     * in so a reader can follow the writer across region boundaries.
+     */
+    public static void encodeFileHeader(ByteBuffer buffer, int chunkSize) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(4, chunkSize);
+        TYPE_WORD.setRelease(buffer, 0, FILE_HEADER);
+    }
+
+    /**
+     * @return the chunk size recorded in the file header, 0 if the header is not written yet
+     */
+    public static int fileChunkSize(ByteBuffer buffer) {
+        int type = (int) TYPE_WORD.getAcquire(buffer, 0);
+        if (type == 0) {
+            return 0;
+        }
+        if (type != FILE_HEADER) {
+            throw new IllegalStateException("not a binary record file, header type:" + type);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer.getInt(4);
+    }
+
+    /**
+     * @return the length of the record at offset, 0 if no record has been written there yet
+     */
+    public static int recordLength(ByteBuffer buffer, int offset) {
+        int type = (int) TYPE_WORD.getAcquire(buffer, offset);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return switch (type) {
+            case 0 -> 0;
+            case TRADE, MID_PRICE, FILE_HEADER -> RECORD_ALIGNMENT;
+            case TIMED_TRADE -> 2 * RECORD_ALIGNMENT;
+            case SYMBOL_DEFINITION -> align(SYMBOL_DEFINITION_HEADER_LENGTH
+                    + buffer.getShort(offset + 8) + buffer.getShort(offset + 10) + buffer.getShort(offset + 12));
+            case PADDING -> buffer.getInt(offset + 4);
+            default -> throw new IllegalStateException("corrupt binary record type:" + type + " at offset:" + offset);
+        };
+    }
+
+    /**
+     * @return the type of the record at offset, 0 if no record has been written there yet
+     */
+    public static int recordType(ByteBuffer buffer, int offset) {
+        return (int) TYPE_WORD.getAcquire(buffer, offset);
+    }
+
+    /**
+     * @return the id of the trade record at offset without decoding it, 0 if the record is not a trade
+     */
+    public static long tradeId(ByteBuffer buffer, int offset) {
+        int type = (int) TYPE_WORD.getAcquire(buffer, offset);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return type == TRADE || type == TIMED_TRADE ? buffer.getLong(offset + 8) : 0;
+    }
+
+    /**
+     * @return true if the record at offset is a {@link Trade} or {@link MidPrice}
+     */
+    public static boolean isEvent(ByteBuffer buffer, int offset) {
+        int type = (int) TYPE_WORD.getAcquire(buffer, offset);
+        return type == TRADE || type == TIMED_TRADE || type == MID_PRICE;
+    }
+
+    /**
+     * Decodes the record at offset, symbol definitions are absorbed into this codec's dictionary.
+     *
+     * @return a {@link Trade} or {@link MidPrice}, null for control records or if no record is written yet
+     */
+    public Object decode(ByteBuffer buffer, int offset) {
+        int type = (int) TYPE_WORD.getAcquire(buffer, offset);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return switch (type) {
+            case TRADE, TIMED_TRADE -> new Trade(
+                    symbolsByFileId[buffer.getInt(offset + 4)],
+                    buffer.getLong(offset + 8),
+                    buffer.getDouble(offset + 16),
+                    buffer.getDouble(offset + 24),
+                    type == TIMED_TRADE ? buffer.getLong(offset + 32) : 0);
+            case MID_PRICE -> new MidPrice(
+                    symbolsByFileId[buffer.getInt(offset + 4)],
+                    buffer.getDouble(offset + 8),
+                    buffer.getLong(offset + 16));
+            case SYMBOL_DEFINITION -> {
+                decodeSymbolDefinition(buffer, offset);
+                yield null;
+            }
+            default -> null;
+        };
+    }
+
+    private static int tradeRecordLength(Trade trade) {
+        return trade.intendedSendNanos() == 0 ? RECORD_ALIGNMENT : 2 * RECORD_ALIGNMENT;
+    }
+
+    private int fileSymbolId(Symbol symbol) {
+        int id = symbol.id();
+        return id < fileIdBySymbolId.length ? fileIdBySymbolId[id] : -1;
+    }
+
+    private int defineSymbolIfAbsent(Symbol symbol, ByteBuffer buffer, int offset) {
+        if (fileSymbolId(symbol) >= 0) {
+            return 0;
+        }
+        int fileId = registerSymbol(symbol);
+        byte[] symbolName = ascii(symbol.symbolName());
+        byte[] dealtName = ascii(symbol.dealtInstrument().instrumentName());
+        byte[] contraName = ascii(symbol.contraInstrument().instrumentName());
+        buffer.putInt(offset + 4, fileId);
+        buffer.putShort(offset + 8, (short) symbolName.length);
+        buffer.putShort(offset + 10, (short) dealtName.length);
+        buffer.putShort(offset + 12, (short) contraName.length);
+        buffer.put(offset + SYMBOL_DEFINITION_HEADER_LENGTH, symbolName);
+        buffer.put(offset + SYMBOL_DEFINITION_HEADER_LENGTH + symbolName.length, dealtName);
+        buffer.put(offset + SYMBOL_DEFINITION_HEADER_LENGTH + symbolName.length + dealtName.length, contraName);
+        TYPE_WORD.setRelease(buffer, offset, SYMBOL_DEFINITION);
+        return symbolDefinitionLength(symbol);
+    }
+
+    private void decodeSymbolDefinition(ByteBuffer buffer, int offset) {
+        int fileId = buffer.getInt(offset + 4);
+        int symbolNameLength = buffer.getShort(offset + 8);
+        int dealtNameLength = buffer.getShort(offset + 10);
+        int contraNameLength = buffer.getShort(offset + 12);
+        int nameOffset = offset + SYMBOL_DEFINITION_HEADER_LENGTH;
+        String symbolName = ascii(buffer, nameOffset, symbolNameLength);
+        String dealtName = ascii(buffer, nameOffset + symbolNameLength, dealtNameLength);
+        String contraName = ascii(buffer, nameOffset + symbolNameLength + dealtNameLength, contraNameLength);
+        Symbol symbol = new Symbol(symbolName, new Instrument(dealtName), new Instrument(contraName));
+        if (fileId != fileSymbolCount) {
+            throw new IllegalStateException("out of sequence symbol definition fileId:" + fileId + " expected:" + fileSymbolCount);
+        }
+        registerSymbol(symbol);
+    }
+
+    private int registerSymbol(Symbol symbol) {
+        int fileId = fileSymbolCount++;
+        if (fileId == symbolsByFileId.length) {
+            symbolsByFileId = Arrays.copyOf(symbolsByFileId, fileId * 2);
+        }
+        symbolsByFileId[fileId] = symbol;
+        int id = symbol.id();
+        if (id >= fileIdBySymbolId.length) {
+            int oldLength = fileIdBySymbolId.length;
+            fileIdBySymbolId = Arrays.copyOf(fileIdBySymbolId, Math.max(oldLength * 2, id + 1));
+            Arrays.fill(fileIdBySymbolId, oldLength, fileIdBySymbolId.length, -1);
+        }
+        fileIdBySymbolId[id] = fileId;
+        return fileId;
+    }
+
+    private static int symbolDefinitionLength(Symbol symbol) {
+        return align(SYMBOL_DEFINITION_HEADER_LENGTH
+                + symbol.symbolName().length()
+                + symbol.dealtInstrument().instrumentName().length()
+                + symbol.contraInstrument().instrumentName().length());
+    }
+
+    private static int align(int length) {
+        return (length + RECORD_ALIGNMENT - 1) & -RECORD_ALIGNMENT;
+    }
+
+    private static byte[] ascii(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String ascii(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,13 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+/**
+ * Reflection free json encoding of one event type, registered in {@link JsonCodecs}.
+ */
+public interface JsonCodec<T> {
+
+    Class<T> type();
+
+    T decode(JsonReader reader);
+
+    void encode(T value, JsonWriter writer);
+}
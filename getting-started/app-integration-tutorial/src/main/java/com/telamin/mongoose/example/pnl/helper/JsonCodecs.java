@@ -0,0 +1,134 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Json mapping that uses a hand written {@link JsonCodec} for the feed and sink types and falls back to
+ * {@link DataMappers} for any other type, the output is the same either way.
+ * <p>
+ * Readers and writers are reused per thread, so the mappers are safe to share between decode workers.
+ */
+public interface JsonCodecs {
+
+    Map<Class<?>, JsonCodec<?>> CODECS = Map.of(
+            Trade.class, new TradeJsonCodec(),
+            MidPrice.class, new MidPriceJsonCodec(),
+            PnlSummary.class, new PnlSummaryJsonCodec());
+    ThreadLocal<JsonReader> READERS = ThreadLocal.withInitial(JsonReader::new);
+    ThreadLocal<JsonWriter> WRITERS = ThreadLocal.withInitial(JsonWriter::new);
+    Map<Symbol, byte[]> SYMBOL_JSON = new ConcurrentHashMap<>();
+
+    /**
+     * @return the codec of the type, null if it has none
+     */
+    @SuppressWarnings("unchecked")
+    static <T> JsonCodec<T> codecFor(Class<T> type) {
+        return (JsonCodec<T>) CODECS.get(type);
+    }
+
+    static JsonReader reader() {
+        return READERS.get();
+    }
+
+    static JsonWriter writer() {
+        return WRITERS.get();
+    }
+
+    static <T> T toObject(String json, Class<T> type) {
+        JsonCodec<T> codec = codecFor(type);
+        return codec == null ? DataMappers.toObject(json, type) : codec.decode(reader().reset(json));
+    }
+
+    static String toJson(Object value) {
+        JsonCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            return DataMappers.toJson(value);
+        }
+        JsonWriter writer = writer().reset();
+        codec.encode(value, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Appends the json of the value to the writer without resetting it, e.g. to batch records in one buffer.
+     */
+    static void encode(Object value, JsonWriter writer) {
+        JsonCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            writer.writeUtf8(DataMappers.toJson(value));
+        } else {
+            codec.encode(value, writer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JsonCodec<Object> codecOf(Object value) {
+        return value == null ? null : (JsonCodec<Object>) CODECS.get(value.getClass());
+    }
+
+    static Instrument readInstrument(JsonReader reader) {
+        String instrumentName = null;
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("instrumentName")) {
+                instrumentName = reader.readString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new Instrument(instrumentName);
+    }
+
+    static void writeInstrument(Instrument instrument, JsonWriter writer) {
+        writer.beginObject().field("instrumentName", instrument.instrumentName()).endObject();
+    }
+
+    /**
+     * Reads a symbol, decoded once per reader for each distinct json text.
+     */
+    static Symbol readSymbol(JsonReader reader) {
+        return reader.readCached(JsonCodecs::decodeSymbol);
+    }
+
+    private static Symbol decodeSymbol(JsonReader reader) {
+        String symbolName = null;
+        Instrument dealtInstrument = null;
+        Instrument contraInstrument = null;
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("symbolName")) {
+                symbolName = reader.readString();
+            } else if (reader.isField("dealtInstrument")) {
+                dealtInstrument = readInstrument(reader);
+            } else if (reader.isField("contraInstrument")) {
+                contraInstrument = readInstrument(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new Symbol(symbolName, dealtInstrument, contraInstrument);
+    }
+
+    /**
+     * Writes the symbol from its json encoded once per symbol, the universe of symbols is small and fixed.
+     */
+    static void writeSymbol(Symbol symbol, JsonWriter writer) {
+        writer.writeBytes(SYMBOL_JSON.computeIfAbsent(symbol, JsonCodecs::encodeSymbol));
+    }
+
+    private static byte[] encodeSymbol(Symbol symbol) {
+        JsonWriter writer = new JsonWriter().beginObject().field("symbolName", symbol.symbolName());
+        writeInstrument(symbol.dealtInstrument(), writer.name("dealtInstrument"));
+        writeInstrument(symbol.contraInstrument(), writer.name("contraInstrument"));
+        writer.endObject();
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
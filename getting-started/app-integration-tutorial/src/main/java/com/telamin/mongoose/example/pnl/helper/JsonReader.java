@@ -0,0 +1,374 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Reusable pull parser for the flat json objects of the feeds, read by the {@link JsonCodec}s.
+ * <p>
+ * The input is copied into a reused char array, field names are matched in place without creating strings. Doubles
+ * with up to 15 significant digits and a small exponent are converted exactly without parsing a string, others fall
+ * back to {@link Double#parseDouble(String)}. The quoted "NaN", "Infinity" and "-Infinity" written by Jackson are
+ * accepted as doubles. Values repeated on many lines, such as symbols, can be decoded once per reader with
+ * {@link #readCached(Function)}. A reader is not thread safe, see {@link JsonCodecs#reader()}.
+ */
+public class JsonReader {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final long MAX_EXACT_MANTISSA = (1L << 53) - 1;
+    private static final int CACHE_SIZE = 1024;
+
+    private char[] chars = new char[512];
+    private int length;
+    private int position;
+    private int nameStart;
+    private int nameLength;
+    private final StringBuilder escaped = new StringBuilder();
+    private final char[][] cachedText = new char[CACHE_SIZE][];
+    private final Object[] cachedValues = new Object[CACHE_SIZE];
+
+    public JsonReader reset(String json) {
+        length = json.length();
+        ensureCapacity(length);
+        json.getChars(0, length, chars, 0);
+        position = 0;
+        return this;
+    }
+
+    /**
+     * Resets to utf-8 encoded json, e.g. a line of a reused read buffer.
+     */
+    public JsonReader reset(byte[] bytes, int offset, int byteLength) {
+        ensureCapacity(byteLength);
+        length = 0;
+        for (int i = offset, end = offset + byteLength; i < end; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                return reset(new String(bytes, offset, byteLength, StandardCharsets.UTF_8));
+            }
+            chars[length++] = (char) b;
+        }
+        position = 0;
+        return this;
+    }
+
+    public void beginObject() {
+        expect('{');
+    }
+
+    /**
+     * Reads the next field name of the current object.
+     *
+     * @return false at the end of the object, the closing brace is consumed
+     */
+    public boolean nextField() {
+        char c = nextToken();
+        if (c == ',') {
+            c = nextToken();
+        }
+        if (c == '}') {
+            return false;
+        }
+        if (c != '"') {
+            throw error("expected field name");
+        }
+        nameStart = position;
+        while (chars[position] != '"') {
+            if (chars[position] == '\\') {
+                throw error("escaped field names are not supported");
+            }
+            position++;
+        }
+        nameLength = position - nameStart;
+        position++;
+        expect(':');
+        return true;
+    }
+
+    public void beginArray() {
+        expect('[');
+    }
+
+    /**
+     * Moves to the next element of the current array.
+     *
+     * @return false at the end of the array, the closing bracket is consumed
+     */
+    public boolean nextElement() {
+        char c = nextToken();
+        if (c == ']') {
+            return false;
+        }
+        if (c != ',') {
+            position--;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the last field name read is name
+     */
+    public boolean isField(String name) {
+        if (name.length() != nameLength) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (chars[nameStart + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the string value, null for a json null
+     */
+    public String readString() {
+        char c = nextToken();
+        if (c == 'n') {
+            expectLiteral("ull");
+            return null;
+        }
+        if (c != '"') {
+            throw error("expected string");
+        }
+        int start = position;
+        while (chars[position] != '"') {
+            if (chars[position] == '\\') {
+                return readEscapedString(start);
+            }
+            position++;
+        }
+        return new String(chars, start, position++ - start);
+    }
+
+    public long readLong() {
+        char c = nextToken();
+        boolean negative = c == '-';
+        if (negative) {
+            c = chars[position++];
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            c = next();
+        }
+        position--;
+        return negative ? -value : value;
+    }
+
+    public double readDouble() {
+        char c = nextToken();
+        if (c == '"') {
+            return readQuotedDouble();
+        }
+        int start = position - 1;
+        boolean negative = c == '-';
+        if (negative) {
+            c = chars[position++];
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        while (c >= '0' && c <= '9') {
+            mantissa = mantissa * 10 + (c - '0');
+            digits += mantissa == 0 ? 0 : 1;
+            c = next();
+        }
+        if (c == '.') {
+            c = next();
+            while (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits += mantissa == 0 ? 0 : 1;
+                scale--;
+                c = next();
+            }
+        }
+        if (c == 'e' || c == 'E') {
+            c = next();
+            boolean negativeExponent = c == '-';
+            if (c == '-' || c == '+') {
+                c = next();
+            }
+            int exponent = 0;
+            while (c >= '0' && c <= '9') {
+                exponent = exponent * 10 + (c - '0');
+                c = next();
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        position--;
+        if (digits <= 15 && mantissa <= MAX_EXACT_MANTISSA && scale >= -22 && scale <= 22) {
+            double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(chars, start, position - start));
+    }
+
+    /**
+     * Returns the value decoded earlier by this reader from the same json text, decoding and caching it if the text is
+     * new. Only for immutable values, a text whose cache slot is taken by another text is decoded again.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T readCached(Function<JsonReader, T> decoder) {
+        nextToken();
+        int start = --position;
+        int hash = 0;
+        int depth = 0;
+        boolean inString = false;
+        do {
+            char c = chars[position++];
+            hash = 31 * hash + c;
+            if (inString) {
+                if (c == '\\') {
+                    hash = 31 * hash + chars[position++];
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        } while (depth > 0 || inString);
+        int end = position;
+        int slot = (hash ^ hash >>> 16) & (CACHE_SIZE - 1);
+        char[] text = cachedText[slot];
+        if (text != null && Arrays.equals(text, 0, text.length, chars, start, end)) {
+            return (T) cachedValues[slot];
+        }
+        position = start;
+        T value = decoder.apply(this);
+        cachedText[slot] = Arrays.copyOfRange(chars, start, end);
+        cachedValues[slot] = value;
+        return value;
+    }
+
+    /**
+     * Skips the value of the current field, of any type.
+     */
+    public void skipValue() {
+        char c = nextToken();
+        switch (c) {
+            case '"' -> skipString();
+            case '{', '[' -> {
+                int depth = 1;
+                while (depth > 0) {
+                    char next = chars[position++];
+                    if (next == '"') {
+                        skipString();
+                    } else if (next == '{' || next == '[') {
+                        depth++;
+                    } else if (next == '}' || next == ']') {
+                        depth--;
+                    }
+                }
+            }
+            default -> {
+                while (position < length && ",}] \t\r\n".indexOf(chars[position]) < 0) {
+                    position++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves past the closing quote of a string whose opening quote has been read.
+     */
+    private void skipString() {
+        char c;
+        while ((c = chars[position++]) != '"') {
+            if (c == '\\') {
+                position++;
+            }
+        }
+    }
+
+    private double readQuotedDouble() {
+        position--;
+        String text = readString();
+        return switch (text) {
+            case "NaN" -> Double.NaN;
+            case "Infinity" -> Double.POSITIVE_INFINITY;
+            case "-Infinity" -> Double.NEGATIVE_INFINITY;
+            default -> Double.parseDouble(text);
+        };
+    }
+
+    private String readEscapedString(int start) {
+        escaped.setLength(0);
+        escaped.append(chars, start, position - start);
+        while (true) {
+            char c = chars[position++];
+            if (c == '"') {
+                return escaped.toString();
+            }
+            if (c != '\\') {
+                escaped.append(c);
+                continue;
+            }
+            c = chars[position++];
+            switch (c) {
+                case 'b' -> escaped.append('\b');
+                case 'f' -> escaped.append('\f');
+                case 'n' -> escaped.append('\n');
+                case 'r' -> escaped.append('\r');
+                case 't' -> escaped.append('\t');
+                case 'u' -> {
+                    escaped.append((char) Integer.parseInt(new String(chars, position, 4), 16));
+                    position += 4;
+                }
+                default -> escaped.append(c);
+            }
+        }
+    }
+
+    /**
+     * @return the next char, a space past the end of the input so a trailing number terminates
+     */
+    private char next() {
+        char c = position < length ? chars[position] : ' ';
+        position++;
+        return c;
+    }
+
+    private char nextToken() {
+        while (position < length) {
+            char c = chars[position++];
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                return c;
+            }
+        }
+        throw error("unexpected end of input");
+    }
+
+    private void expect(char expected) {
+        if (nextToken() != expected) {
+            throw error("expected '" + expected + "'");
+        }
+    }
+
+    private void expectLiteral(String rest) {
+        for (int i = 0; i < rest.length(); i++) {
+            if (position >= length || chars[position++] != rest.charAt(i)) {
+                throw error("invalid literal");
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, capacity));
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at " + (position - 1) + " in:"
+                + new String(chars, 0, Math.min(length, 256)));
+    }
+}
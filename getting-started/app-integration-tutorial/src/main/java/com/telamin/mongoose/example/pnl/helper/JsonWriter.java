@@ -0,0 +1,302 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable utf-8 json output buffer written by the {@link JsonCodec}s, the output matches Jackson's default
+ * formatting so files written with either can be read by both.
+ * <p>
+ * Doubles are written as {@link Double#toString(double)}, NaN and infinities quoted. Plain notation values with few
+ * decimal places, such as prices and volumes, are written without creating the string. Commas between fields are added
+ * by the writer. Codecs encode their field names once with {@link #encodeName(String)}. A writer is not thread safe,
+ * see {@link JsonCodecs#writer()}.
+ */
+public class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11};
+    private static final long[] LONG_POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L};
+    //keeps the scaled value well inside the exact range of a double, so only one decimal at a scale can match
+    private static final long MAX_SCALED = 1_000_000_000_000_000L;
+    private byte[] bytes = new byte[512];
+    private ByteBuffer wrapped;
+    private int length;
+    private boolean firstField;
+
+    /**
+     * @return the quoted name and colon, to write with {@link #name(byte[])}
+     */
+    public static byte[] encodeName(String name) {
+        JsonWriter writer = new JsonWriter();
+        writer.writeString(name);
+        writer.writeByte(':');
+        return Arrays.copyOf(writer.bytes, writer.length);
+    }
+
+    public JsonWriter reset() {
+        length = 0;
+        firstField = true;
+        return this;
+    }
+
+    public byte[] buffer() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Copies the output into a buffer, e.g. to write it to a channel.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(bytes, 0, length);
+    }
+
+    /**
+     * @return the output wrapped without copying, from 0 to the length, valid until the next write
+     */
+    public ByteBuffer byteBuffer() {
+        if (wrapped == null || wrapped.array() != bytes) {
+            wrapped = ByteBuffer.wrap(bytes);
+        }
+        return wrapped.limit(length).position(0);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public JsonWriter beginObject() {
+        writeByte('{');
+        firstField = true;
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        writeByte('}');
+        firstField = false;
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        writeByte('[');
+        firstField = true;
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        writeByte(']');
+        firstField = false;
+        return this;
+    }
+
+    /**
+     * Separates an array element from the previous one.
+     */
+    public JsonWriter element() {
+        if (!firstField) {
+            writeByte(',');
+        }
+        firstField = false;
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        element();
+        writeString(name);
+        writeByte(':');
+        return this;
+    }
+
+    public JsonWriter name(byte[] encodedName) {
+        element();
+        writeBytes(encodedName);
+        return this;
+    }
+
+    public JsonWriter field(byte[] encodedName, long value) {
+        name(encodedName);
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter field(byte[] encodedName, double value) {
+        name(encodedName);
+        writeDouble(value);
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) {
+        name(name);
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter field(String name, long value) {
+        name(name);
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter field(String name, double value) {
+        name(name);
+        writeDouble(value);
+        return this;
+    }
+
+    public void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    public void writeDouble(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeByte('"');
+            writeAscii(Double.toString(value));
+            writeByte('"');
+        } else if (!writeShortDecimal(value)) {
+            writeAscii(Double.toString(value));
+        }
+    }
+
+    public void writeBytes(byte[] source) {
+        ensureCapacity(source.length);
+        System.arraycopy(source, 0, bytes, length, source.length);
+        length += source.length;
+    }
+
+    public void writeString(String value) {
+        writeByte('"');
+        ensureCapacity(value.length());
+        for (int i = 0, count = value.length(); i < count; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                bytes[length++] = (byte) c;
+            } else {
+                writeEscaped(value, i);
+                i += Character.isHighSurrogate(c) && i + 1 < count ? 1 : 0;
+                ensureCapacity(count - i);
+            }
+        }
+        writeByte('"');
+    }
+
+    /**
+     * Writes text as utf-8 without escaping, e.g. json encoded elsewhere.
+     */
+    public void writeUtf8(String text) {
+        writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes ascii text without escaping.
+     */
+    public void writeAscii(String text) {
+        int count = text.length();
+        ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            bytes[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    public void writeByte(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+    }
+
+    /**
+     * Writes the value with the fewest decimal places that parses back to it, which is what
+     * {@link Double#toString(double)} writes in its plain notation range of 10^-3 to 10^7.
+     *
+     * @return false if the value needs more decimal places than the fast path handles
+     */
+    private boolean writeShortDecimal(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude < 1e-3 || magnitude >= 1e7) {
+            return false;
+        }
+        for (int scale = 1; scale < POWERS_OF_TEN.length; scale++) {
+            double scaled = magnitude * POWERS_OF_TEN[scale];
+            if (scaled >= MAX_SCALED) {
+                return false;
+            }
+            long decimal = Math.round(scaled);
+            if (decimal / POWERS_OF_TEN[scale] == magnitude) {
+                if (value < 0) {
+                    writeByte('-');
+                }
+                long integerPart = decimal / LONG_POWERS_OF_TEN[scale];
+                writeLong(integerPart);
+                writeByte('.');
+                long fraction = decimal - integerPart * LONG_POWERS_OF_TEN[scale];
+                ensureCapacity(scale);
+                for (int i = length + scale - 1; i >= length; i--) {
+                    bytes[i] = (byte) ('0' + fraction % 10);
+                    fraction /= 10;
+                }
+                length += scale;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeEscaped(String value, int index) {
+        char c = value.charAt(index);
+        switch (c) {
+            case '"' -> writeAscii("\\\"");
+            case '\\' -> writeAscii("\\\\");
+            case '\b' -> writeAscii("\\b");
+            case '\f' -> writeAscii("\\f");
+            case '\n' -> writeAscii("\\n");
+            case '\r' -> writeAscii("\\r");
+            case '\t' -> writeAscii("\\t");
+            default -> {
+                if (c < 0x20) {
+                    writeAscii("\\u00");
+                    writeByte((char) HEX[c >> 4]);
+                    writeByte((char) HEX[c & 0xF]);
+                } else {
+                    int end = Character.isHighSurrogate(c) && index + 1 < value.length() ? index + 2 : index + 1;
+                    byte[] utf8 = value.substring(index, end).getBytes(StandardCharsets.UTF_8);
+                    ensureCapacity(utf8.length);
+                    System.arraycopy(utf8, 0, bytes, length, utf8.length);
+                    length += utf8.length;
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
@@ -5,22 +5,28 @@ import lombok.Setter;
 
 import java.util.function.Function;
 
+/**
+ * Maps a json line to targetType, with the {@link JsonCodec} of the type if it has one.
+ */
 public class MapFromJson implements Function<String, Object> {
 
     @Getter
     @Setter
     private String targetType;
     private Class<?> targetClass;
+    private JsonCodec<?> codec;
 
     @Override
     public Object apply(String o) {
         if (targetClass == null) {
             try {
-                targetClass = Class.forName(targetType);
+                Class<?> resolvedClass = Class.forName(targetType);
+                codec = JsonCodecs.codecFor(resolvedClass);
+                targetClass = resolvedClass;
             } catch (ClassNotFoundException e) {
                 throw new RuntimeException("Failed to load class " + targetType, e);
             }
         }
-        return DataMappers.toObject(o, targetClass);
+        return codec == null ? DataMappers.toObject(o, targetClass) : codec.decode(JsonCodecs.reader().reset(o));
     }
 }
@@ -2,10 +2,13 @@ package com.telamin.mongoose.example.pnl.helper;
 
 import java.util.function.Function;
 
+/**
+ * Maps an event to a json line, with the {@link JsonCodec} of its type if it has one.
+ */
 public class MapToJson implements Function<Object, String> {
 
     @Override
     public String apply(Object o) {
-        return DataMappers.toJson(o);
+        return JsonCodecs.toJson(o);
     }
 }
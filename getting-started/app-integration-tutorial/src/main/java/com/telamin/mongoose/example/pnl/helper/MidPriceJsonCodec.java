@@ -0,0 +1,45 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+public class MidPriceJsonCodec implements JsonCodec<MidPrice> {
+
+    private static final byte[] SYMBOL = JsonWriter.encodeName("symbol");
+    private static final byte[] RATE = JsonWriter.encodeName("rate");
+    private static final byte[] INTENDED_SEND_NANOS = JsonWriter.encodeName("intendedSendNanos");
+
+    @Override
+    public Class<MidPrice> type() {
+        return MidPrice.class;
+    }
+
+    @Override
+    public MidPrice decode(JsonReader reader) {
+        Symbol symbol = null;
+        double rate = 0;
+        long intendedSendNanos = 0;
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("symbol")) {
+                symbol = JsonCodecs.readSymbol(reader);
+            } else if (reader.isField("rate")) {
+                rate = reader.readDouble();
+            } else if (reader.isField("intendedSendNanos")) {
+                intendedSendNanos = reader.readLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new MidPrice(symbol, rate, intendedSendNanos);
+    }
+
+    @Override
+    public void encode(MidPrice midPrice, JsonWriter writer) {
+        writer.beginObject();
+        JsonCodecs.writeSymbol(midPrice.symbol(), writer.name(SYMBOL));
+        writer.field(RATE, midPrice.rate())
+                .field(INTENDED_SEND_NANOS, midPrice.intendedSendNanos())
+                .endObject();
+    }
+}
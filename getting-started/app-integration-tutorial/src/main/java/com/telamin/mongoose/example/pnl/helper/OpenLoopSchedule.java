@@ -0,0 +1,54 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import lombok.Getter;
+
+/**
+ * Intended send times of an open loop load generator at a fixed rate, in bursts of burstSize events.
+ * <p>
+ * Send times are derived from the start time and the event count, never from when the previous event was actually
+ * sent, so a stalled sender falls behind the schedule rather than slowing it. Latency measured from the intended send
+ * time therefore includes the time an event waited to be sent and is free of coordinated omission.
+ */
+public class OpenLoopSchedule {
+
+    private final int burstSize;
+    private final double burstPeriodNanos;
+    private long startNanos;
+    @Getter
+    private long sentCount;
+
+    /**
+     * @param eventsPerSecond the target rate averaged over bursts
+     * @param burstSize       events sent back to back with the same intended time, 1 for a smooth rate
+     */
+    public OpenLoopSchedule(double eventsPerSecond, int burstSize) {
+        if (eventsPerSecond <= 0 || burstSize < 1) {
+            throw new IllegalArgumentException("eventsPerSecond must be positive and burstSize at least 1, eventsPerSecond:"
+                    + eventsPerSecond + " burstSize:" + burstSize);
+        }
+        this.burstSize = burstSize;
+        this.burstPeriodNanos = burstSize * 1_000_000_000d / eventsPerSecond;
+    }
+
+    public void start(long startNanos) {
+        this.startNanos = startNanos;
+        this.sentCount = 0;
+    }
+
+    public long nextIntendedNanos() {
+        return startNanos + (long) ((sentCount / burstSize) * burstPeriodNanos);
+    }
+
+    public boolean isDue(long nowNanos) {
+        return nextIntendedNanos() <= nowNanos;
+    }
+
+    /**
+     * @return the intended send time of the next event, advancing the schedule
+     */
+    public long next() {
+        long intendedNanos = nextIntendedNanos();
+        sentCount++;
+        return intendedNanos;
+    }
+}
@@ -0,0 +1,119 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.calculator.InstrumentPosMtm;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.ReportingPnl;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asset map keys are written as {@link Instrument#toString()}, as Jackson writes them. When reading the keys are
+ * ignored and the map is keyed by the instrument of each position.
+ */
+public class PnlSummaryJsonCodec implements JsonCodec<PnlSummary> {
+
+    private static final byte[] MTM_INSTRUMENT = JsonWriter.encodeName("mtmInstrument");
+    private static final byte[] PNL = JsonWriter.encodeName("pnl");
+    private static final byte[] MTM_ASSET_MAP = JsonWriter.encodeName("mtmAssetMap");
+    private static final byte[] REPORTING_PNLS = JsonWriter.encodeName("reportingPnls");
+    private static final byte[] INSTRUMENT = JsonWriter.encodeName("instrument");
+    private static final byte[] POSITION = JsonWriter.encodeName("position");
+    private static final byte[] MTM_POSITION = JsonWriter.encodeName("mtmPosition");
+    private static final byte[] RATE = JsonWriter.encodeName("rate");
+
+    @Override
+    public Class<PnlSummary> type() {
+        return PnlSummary.class;
+    }
+
+    @Override
+    public PnlSummary decode(JsonReader reader) {
+        PnlSummary pnlSummary = new PnlSummary();
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("mtmInstrument")) {
+                pnlSummary.setMtmInstrument(JsonCodecs.readInstrument(reader));
+            } else if (reader.isField("pnl")) {
+                pnlSummary.setPnl(reader.readDouble());
+            } else if (reader.isField("mtmAssetMap")) {
+                reader.beginObject();
+                while (reader.nextField()) {
+                    InstrumentPosMtm posMtm = readPosMtm(reader);
+                    pnlSummary.getMtmAssetMap().put(posMtm.getInstrument(), posMtm);
+                }
+            } else if (reader.isField("reportingPnls")) {
+                reader.beginArray();
+                while (reader.nextElement()) {
+                    pnlSummary.getReportingPnls().add(readReportingPnl(reader));
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        return pnlSummary;
+    }
+
+    @Override
+    public void encode(PnlSummary pnlSummary, JsonWriter writer) {
+        writer.beginObject();
+        JsonCodecs.writeInstrument(pnlSummary.getMtmInstrument(), writer.name(MTM_INSTRUMENT));
+        writer.field(PNL, pnlSummary.getPnl());
+        writer.name(MTM_ASSET_MAP).beginObject();
+        for (Map.Entry<Instrument, InstrumentPosMtm> entry : pnlSummary.getMtmAssetMap().entrySet()) {
+            InstrumentPosMtm posMtm = entry.getValue();
+            writer.name(entry.getKey().toString()).beginObject();
+            JsonCodecs.writeInstrument(posMtm.getInstrument(), writer.name(INSTRUMENT));
+            writer.field(POSITION, posMtm.getPosition())
+                    .field(MTM_POSITION, posMtm.getMtmPosition())
+                    .endObject();
+        }
+        writer.endObject();
+        writer.name(REPORTING_PNLS).beginArray();
+        List<ReportingPnl> reportingPnls = pnlSummary.getReportingPnls();
+        for (int i = 0, count = reportingPnls.size(); i < count; i++) {
+            ReportingPnl reportingPnl = reportingPnls.get(i);
+            writer.element().beginObject();
+            JsonCodecs.writeInstrument(reportingPnl.getInstrument(), writer.name(INSTRUMENT));
+            writer.field(RATE, reportingPnl.getRate())
+                    .field(PNL, reportingPnl.getPnl())
+                    .endObject();
+        }
+        writer.endArray().endObject();
+    }
+
+    private static InstrumentPosMtm readPosMtm(JsonReader reader) {
+        InstrumentPosMtm posMtm = new InstrumentPosMtm();
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("instrument")) {
+                posMtm.setInstrument(JsonCodecs.readInstrument(reader));
+            } else if (reader.isField("position")) {
+                posMtm.setPosition(reader.readDouble());
+            } else if (reader.isField("mtmPosition")) {
+                posMtm.setMtmPosition(reader.readDouble());
+            } else {
+                reader.skipValue();
+            }
+        }
+        return posMtm;
+    }
+
+    private static ReportingPnl readReportingPnl(JsonReader reader) {
+        ReportingPnl reportingPnl = new ReportingPnl();
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("instrument")) {
+                reportingPnl.setInstrument(JsonCodecs.readInstrument(reader));
+            } else if (reader.isField("rate")) {
+                reportingPnl.setRate(reader.readDouble());
+            } else if (reader.isField("pnl")) {
+                reportingPnl.setPnl(reader.readDouble());
+            } else {
+                reader.skipValue();
+            }
+        }
+        return reportingPnl;
+    }
+}
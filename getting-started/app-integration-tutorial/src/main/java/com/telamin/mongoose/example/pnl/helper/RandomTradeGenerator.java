@@ -5,16 +5,17 @@ import com.telamin.mongoose.example.pnl.events.Trade;
 import com.telamin.mongoose.example.pnl.events.MidPrice;
 import com.telamin.mongoose.example.pnl.refdata.Instrument;
 import com.telamin.mongoose.example.pnl.refdata.Symbol;
-import lombok.RequiredArgsConstructor;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
 
-@RequiredArgsConstructor
+/**
+ * Generates random trades and mid prices over six FX symbols, or over the symbols of a {@link SyntheticUniverse}.
+ * A generator is not thread safe.
+ */
 public class RandomTradeGenerator {
-    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(0);
-    private final Random random = new Random();
-    private final List<Symbol> symbols = List.of(
+    private static final List<Symbol> FX_SYMBOLS = List.of(
             new Symbol("EURJPY", new Instrument("EUR"), new Instrument("JPY")),
             new Symbol("USDJPY", new Instrument("USD"), new Instrument("JPY")),
             new Symbol("EURUSD", new Instrument("EUR"), new Instrument("USD")),
@@ -23,19 +24,99 @@ public class RandomTradeGenerator {
             new Symbol("GBPUSD", new Instrument("GBP"), new Instrument("USD"))
     );
 
+    private final SnowflakeIdGenerator idGenerator = new SnowflakeIdGenerator(0);
+    private final SplittableRandom random;
+    private final List<Symbol> symbols;
+    private final SyntheticUniverse universe;
+
+    private double[] cumulativeSymbolWeights;
+
+    public RandomTradeGenerator() {
+        this(new SplittableRandom(), null);
+    }
+
+    /**
+     * A generator producing the same sequence of symbols, volumes and rates for a seed, trade ids remain unique.
+     */
+    public RandomTradeGenerator(long seed) {
+        this(new SplittableRandom(seed), null);
+    }
+
+    /**
+     * A seeded generator over the symbols of a universe, trade and mid rates are the universe mid rates moved by up to
+     * half a percent.
+     */
+    public RandomTradeGenerator(SyntheticUniverse universe, long seed) {
+        this(new SplittableRandom(seed), universe);
+    }
+
+    private RandomTradeGenerator(SplittableRandom random, SyntheticUniverse universe) {
+        this.random = random;
+        this.universe = universe;
+        this.symbols = universe == null ? FX_SYMBOLS : universe.symbols();
+    }
+
+    public List<Symbol> symbols() {
+        return symbols;
+    }
+
+    /**
+     * Skews symbol selection to a Zipf distribution over the symbol list, the first symbol is the most traded.
+     *
+     * @param exponent the Zipf exponent, 0 for a uniform choice
+     */
+    public void setSymbolSkew(double exponent) {
+        if (exponent <= 0) {
+            cumulativeSymbolWeights = null;
+            return;
+        }
+        cumulativeSymbolWeights = new double[symbols.size()];
+        double total = 0;
+        for (int i = 0; i < cumulativeSymbolWeights.length; i++) {
+            total += 1 / Math.pow(i + 1, exponent);
+            cumulativeSymbolWeights[i] = total;
+        }
+        for (int i = 0; i < cumulativeSymbolWeights.length; i++) {
+            cumulativeSymbolWeights[i] /= total;
+        }
+    }
+
     public Trade generateRandomTrade() {
-        Symbol randomSymbol = symbols.get(random.nextInt(symbols.size()));
+        return generateRandomTrade(0);
+    }
+
+    public Trade generateRandomTrade(long intendedSendNanos) {
+        int symbolIndex = randomSymbolIndex();
 
         double dealtVolume = Math.round(random.nextDouble(-2000, 2000) * 100.0) / 100.0;
-        double rate = random.nextDouble(0.5, 2.0);
+        double rate = randomRate(symbolIndex);
         double contraVolume = Math.round(-dealtVolume * rate * 100.0) / 100.0;
 
-        return new Trade(randomSymbol, idGenerator.nextId(), dealtVolume, contraVolume);
+        return new Trade(symbols.get(symbolIndex), idGenerator.nextId(), dealtVolume, contraVolume, intendedSendNanos);
     }
 
     public MidPrice generateRandomMidPrice() {
-        Symbol randomSymbol = symbols.get(random.nextInt(symbols.size()));
-        double midRate = Math.round(random.nextDouble(0.5, 2.0) * 10000.0) / 10000.0;
-        return new MidPrice(randomSymbol, midRate);
+        return generateRandomMidPrice(0);
+    }
+
+    public MidPrice generateRandomMidPrice(long intendedSendNanos) {
+        int symbolIndex = randomSymbolIndex();
+        double midRate = Math.round(randomRate(symbolIndex) * 10000.0) / 10000.0;
+        return new MidPrice(symbols.get(symbolIndex), midRate, intendedSendNanos);
+    }
+
+    private double randomRate(int symbolIndex) {
+        if (universe == null) {
+            return random.nextDouble(0.5, 2.0);
+        }
+        return universe.midRate(symbolIndex) * random.nextDouble(0.995, 1.005);
+    }
+
+    private int randomSymbolIndex() {
+        if (cumulativeSymbolWeights == null) {
+            return random.nextInt(symbols.size());
+        }
+        int index = Arrays.binarySearch(cumulativeSymbolWeights, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, symbols.size() - 1);
     }
 }
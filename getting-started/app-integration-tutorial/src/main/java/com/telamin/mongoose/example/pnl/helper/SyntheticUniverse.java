@@ -0,0 +1,113 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * A seeded universe of instruments and the symbols quoting them, for tests and scaling benchmarks that need more than
+ * the six FX symbols of {@link RandomTradeGenerator}. Instrument 0 is {@link RefData#USD}, the others are named CCY1,
+ * CCY2 and so on. The same arguments always build the same universe.
+ * <p>
+ * The symbols form a connected rate graph. A random spanning tree of instrumentCount - 1 symbols joins every
+ * instrument, the remaining symbols join random distinct pairs and add alternative conversion paths, so symbolCount
+ * sets the density of the graph. Symbols are listed in creation order, the first join instruments close to USD and
+ * are the most traded when the generator skews its symbol choice.
+ * <p>
+ * Every instrument has a hidden USD value between 0.5 and 2 and a symbol's mid rate is the ratio of its instrument
+ * values rounded to four decimal places, so every conversion path gives the same cross rate within that rounding.
+ */
+public class SyntheticUniverse {
+
+    private final List<Instrument> instruments;
+    private final List<Symbol> symbols;
+    private final double[] usdValues;
+    private final double[] midRates;
+
+    /**
+     * @param instrumentCount the number of instruments, at least 2
+     * @param symbolCount     the number of symbols, from instrumentCount - 1 for a tree up to one symbol per pair
+     * @param seed            the seed of the instrument values and graph
+     */
+    public SyntheticUniverse(int instrumentCount, int symbolCount, long seed) {
+        long maxSymbols = (long) instrumentCount * (instrumentCount - 1) / 2;
+        if (instrumentCount < 2 || symbolCount < instrumentCount - 1 || symbolCount > maxSymbols) {
+            throw new IllegalArgumentException("symbolCount must be between " + (instrumentCount - 1) + " and "
+                    + maxSymbols + " for " + instrumentCount + " instruments, was:" + symbolCount);
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Instrument> instrumentList = new ArrayList<>(instrumentCount);
+        usdValues = new double[instrumentCount];
+        for (int i = 0; i < instrumentCount; i++) {
+            instrumentList.add(i == 0 ? RefData.USD : new Instrument("CCY" + i));
+            usdValues[i] = i == 0 ? 1.0 : random.nextDouble(0.5, 2.0);
+        }
+        instruments = Collections.unmodifiableList(instrumentList);
+
+        List<Symbol> symbolList = new ArrayList<>(symbolCount);
+        midRates = new double[symbolCount];
+        Set<Long> pairs = new HashSet<>();
+        for (int i = 1; i < instrumentCount; i++) {
+            addSymbol(symbolList, pairs, i, random.nextInt(i), random);
+        }
+        while (symbolList.size() < symbolCount) {
+            int dealt = random.nextInt(instrumentCount);
+            int contra = random.nextInt(instrumentCount);
+            if (dealt != contra && !pairs.contains(pairKey(dealt, contra))) {
+                addSymbol(symbolList, pairs, dealt, contra, random);
+            }
+        }
+        symbols = Collections.unmodifiableList(symbolList);
+    }
+
+    /**
+     * A universe with about symbolsPerInstrument symbols for every instrument, 1 is a tree with a single path between
+     * any two instruments.
+     */
+    public static SyntheticUniverse withDensity(int instrumentCount, double symbolsPerInstrument, long seed) {
+        long maxSymbols = (long) instrumentCount * (instrumentCount - 1) / 2;
+        long symbolCount = Math.round(instrumentCount * symbolsPerInstrument);
+        symbolCount = Math.min(Math.max(symbolCount, instrumentCount - 1), maxSymbols);
+        return new SyntheticUniverse(instrumentCount, (int) symbolCount, seed);
+    }
+
+    public List<Instrument> instruments() {
+        return instruments;
+    }
+
+    public List<Symbol> symbols() {
+        return symbols;
+    }
+
+    public double usdValue(int instrumentIndex) {
+        return usdValues[instrumentIndex];
+    }
+
+    /**
+     * @return the mid rate of the symbol at symbolIndex in {@link #symbols()}
+     */
+    public double midRate(int symbolIndex) {
+        return midRates[symbolIndex];
+    }
+
+    private void addSymbol(List<Symbol> symbolList, Set<Long> pairs, int first, int second, SplittableRandom random) {
+        int dealt = random.nextBoolean() ? first : second;
+        int contra = dealt == first ? second : first;
+        Instrument dealtInstrument = instruments.get(dealt);
+        Instrument contraInstrument = instruments.get(contra);
+        pairs.add(pairKey(dealt, contra));
+        midRates[symbolList.size()] = Math.round(usdValues[dealt] / usdValues[contra] * 10000.0) / 10000.0;
+        symbolList.add(new Symbol(dealtInstrument.instrumentName() + contraInstrument.instrumentName(), dealtInstrument, contraInstrument));
+    }
+
+    private static long pairKey(int first, int second) {
+        return (long) Math.min(first, second) << 32 | Math.max(first, second);
+    }
+}
@@ -0,0 +1,55 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+public class TradeJsonCodec implements JsonCodec<Trade> {
+
+    private static final byte[] SYMBOL = JsonWriter.encodeName("symbol");
+    private static final byte[] ID = JsonWriter.encodeName("id");
+    private static final byte[] DEALT_VOLUME = JsonWriter.encodeName("dealtVolume");
+    private static final byte[] CONTRA_VOLUME = JsonWriter.encodeName("contraVolume");
+    private static final byte[] INTENDED_SEND_NANOS = JsonWriter.encodeName("intendedSendNanos");
+
+    @Override
+    public Class<Trade> type() {
+        return Trade.class;
+    }
+
+    @Override
+    public Trade decode(JsonReader reader) {
+        Symbol symbol = null;
+        long id = 0;
+        double dealtVolume = 0;
+        double contraVolume = 0;
+        long intendedSendNanos = 0;
+        reader.beginObject();
+        while (reader.nextField()) {
+            if (reader.isField("symbol")) {
+                symbol = JsonCodecs.readSymbol(reader);
+            } else if (reader.isField("id")) {
+                id = reader.readLong();
+            } else if (reader.isField("dealtVolume")) {
+                dealtVolume = reader.readDouble();
+            } else if (reader.isField("contraVolume")) {
+                contraVolume = reader.readDouble();
+            } else if (reader.isField("intendedSendNanos")) {
+                intendedSendNanos = reader.readLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        return new Trade(symbol, id, dealtVolume, contraVolume, intendedSendNanos);
+    }
+
+    @Override
+    public void encode(Trade trade, JsonWriter writer) {
+        writer.beginObject();
+        JsonCodecs.writeSymbol(trade.symbol(), writer.name(SYMBOL));
+        writer.field(ID, trade.id())
+                .field(DEALT_VOLUME, trade.dealtVolume())
+                .field(CONTRA_VOLUME, trade.contraVolume())
+                .field(INTENDED_SEND_NANOS, trade.intendedSendNanos())
+                .endObject();
+    }
+}
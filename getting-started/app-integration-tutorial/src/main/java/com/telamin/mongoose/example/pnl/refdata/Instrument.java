@@ -5,5 +5,39 @@
 
 package com.telamin.mongoose.example.pnl.refdata;
 
-public record Instrument(String instrumentName) {
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * An instrument identified by name, the dense id is interned by {@link RefDataRegistry} and is not serialised.
+ * Equality is by name, an id that is not the interned id of the name is rejected.
+ */
+public record Instrument(String instrumentName, @JsonIgnore int id) {
+
+    public Instrument {
+        if (!instrumentName.equals(RefDataRegistry.instrumentName(id))) {
+            throw new IllegalArgumentException("id:" + id + " is not the interned id of instrument:" + instrumentName);
+        }
+    }
+
+    @JsonCreator
+    public Instrument(@JsonProperty("instrumentName") String instrumentName) {
+        this(instrumentName, RefDataRegistry.instrumentId(instrumentName));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Instrument other && instrumentName.equals(other.instrumentName);
+    }
+
+    @Override
+    public int hashCode() {
+        return instrumentName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Instrument[instrumentName=" + instrumentName + ']';
+    }
 }
@@ -0,0 +1,81 @@
+package com.telamin.mongoose.example.pnl.refdata;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns instrument and symbol names to dense int ids, starting at 0 in registration order. The {@link RefData}
+ * constants register as RefData loads, any other name is assigned the next id the first time it is seen.
+ * <p>
+ * The id is carried on the {@link Instrument} and {@link Symbol} records, so hot paths index arrays by id instead of
+ * hashing names. Ids are stable for the lifetime of the JVM and safe to read from any thread.
+ */
+public final class RefDataRegistry {
+
+    private static final NameIds INSTRUMENTS = new NameIds();
+    private static final NameIds SYMBOLS = new NameIds();
+
+    private RefDataRegistry() {
+    }
+
+    public static int instrumentId(String instrumentName) {
+        return INSTRUMENTS.id(instrumentName);
+    }
+
+    public static String instrumentName(int id) {
+        return INSTRUMENTS.name(id);
+    }
+
+    public static int instrumentCount() {
+        return INSTRUMENTS.count();
+    }
+
+    public static int symbolId(String symbolName) {
+        return SYMBOLS.id(symbolName);
+    }
+
+    public static String symbolName(int id) {
+        return SYMBOLS.name(id);
+    }
+
+    public static int symbolCount() {
+        return SYMBOLS.count();
+    }
+
+    private static final class NameIds {
+        private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+        private volatile String[] namesById = new String[64];
+        private volatile int count;
+
+        private int id(String name) {
+            Integer id = idsByName.get(name);
+            return id == null ? register(name) : id;
+        }
+
+        private synchronized int register(String name) {
+            Integer id = idsByName.get(name);
+            if (id != null) {
+                return id;
+            }
+            int newId = count;
+            String[] names = namesById;
+            if (newId == names.length) {
+                names = Arrays.copyOf(names, names.length * 2);
+            }
+            names[newId] = name;
+            namesById = names;
+            count = newId + 1;
+            idsByName.put(name, newId);
+            return newId;
+        }
+
+        private String name(int id) {
+            return id >= 0 && id < count ? namesById[id] : null;
+        }
+
+        private int count() {
+            return count;
+        }
+    }
+}
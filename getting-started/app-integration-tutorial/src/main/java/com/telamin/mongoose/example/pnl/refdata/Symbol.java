@@ -5,5 +5,41 @@
 
 package com.telamin.mongoose.example.pnl.refdata;
 
-public record Symbol(String symbolName, Instrument dealtInstrument, Instrument contraInstrument) {
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A tradable pair of instruments, the dense id is interned by {@link RefDataRegistry} and is not serialised.
+ * Equality is by name, an id that is not the interned id of the name is rejected.
+ */
+public record Symbol(String symbolName, Instrument dealtInstrument, Instrument contraInstrument, @JsonIgnore int id) {
+
+    public Symbol {
+        if (!symbolName.equals(RefDataRegistry.symbolName(id))) {
+            throw new IllegalArgumentException("id:" + id + " is not the interned id of symbol:" + symbolName);
+        }
+    }
+
+    @JsonCreator
+    public Symbol(@JsonProperty("symbolName") String symbolName,
+                  @JsonProperty("dealtInstrument") Instrument dealtInstrument,
+                  @JsonProperty("contraInstrument") Instrument contraInstrument) {
+        this(symbolName, dealtInstrument, contraInstrument, RefDataRegistry.symbolId(symbolName));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof Symbol other && symbolName.equals(other.symbolName);
+    }
+
+    @Override
+    public int hashCode() {
+        return symbolName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Symbol[symbolName=" + symbolName + ", dealtInstrument=" + dealtInstrument + ", contraInstrument=" + contraInstrument + ']';
+    }
 }
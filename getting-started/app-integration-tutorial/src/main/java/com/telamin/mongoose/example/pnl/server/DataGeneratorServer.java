@@ -1,21 +1,26 @@
 package com.telamin.mongoose.example.pnl.server;
 
 import com.fluxtion.agrona.concurrent.BackoffIdleStrategy;
+import com.fluxtion.agrona.concurrent.SleepingMillisIdleStrategy;
+import com.telamin.fluxtion.runtime.output.MessageSink;
 import com.telamin.mongoose.MongooseServer;
 import com.telamin.mongoose.config.EventProcessorConfig;
 import com.telamin.mongoose.config.EventSinkConfig;
 import com.telamin.mongoose.config.MongooseServerConfig;
 import com.telamin.mongoose.config.ThreadConfig;
-import com.telamin.mongoose.connector.file.FileMessageSink;
 import com.telamin.mongoose.example.pnl.DataGeneratorProcessor;
-import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.connector.BatchedFileMessageSink;
+import com.telamin.mongoose.example.pnl.connector.BinaryFileMessageSink;
 
-import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.INPUT_MID_RATE_JSONL;
-import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.INPUT_TRADES_JSONL;
+import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.*;
 
 public class DataGeneratorServer {
 
     public void startFilePublish() {
+        startFilePublish(FeedFormat.JSONL);
+    }
+
+    public void startFilePublish(FeedFormat feedFormat) {
         MongooseServerConfig.Builder mongooseServerConfig = MongooseServerConfig.builder();
 
         // logic
@@ -24,20 +29,12 @@ public class DataGeneratorServer {
         cfg.setName("data-gen");
 
         // trade sink
-        FileMessageSink fileSinkTrades = new FileMessageSink();
-        fileSinkTrades.setFilename(INPUT_TRADES_JSONL);
-        var sinkConfigTrades = EventSinkConfig.builder()
-                .instance(fileSinkTrades)
-                .valueMapper(DataMappers::toJson)
+        var sinkConfigTrades = feedSinkConfig(feedFormat, INPUT_TRADES_JSONL, INPUT_TRADES_BINARY)
                 .name("trades-sink")
                 .build();
 
         // mid price sink
-        FileMessageSink fileSinkMidPrice = new FileMessageSink();
-        fileSinkMidPrice.setFilename(INPUT_MID_RATE_JSONL);
-        var sinkConfigMidPrice = EventSinkConfig.builder()
-                .instance(fileSinkMidPrice)
-                .valueMapper(DataMappers::toJson)
+        var sinkConfigMidPrice = feedSinkConfig(feedFormat, INPUT_MID_RATE_JSONL, INPUT_MID_RATE_BINARY)
                 .name("midPrice-sink")
                 .build();
 
@@ -54,4 +51,18 @@ public class DataGeneratorServer {
         mongooseServerConfig.addThread(threadConfig);
         MongooseServer.bootServer(mongooseServerConfig.build());
     }
+
+    private static EventSinkConfig.Builder<MessageSink<?>> feedSinkConfig(FeedFormat feedFormat, String jsonFile, String binaryFile) {
+        if (feedFormat == FeedFormat.BINARY) {
+            BinaryFileMessageSink binarySink = new BinaryFileMessageSink();
+            binarySink.setFilename(binaryFile);
+            return EventSinkConfig.<MessageSink<?>>builder()
+                    .instance(binarySink);
+        }
+        BatchedFileMessageSink fileSink = new BatchedFileMessageSink();
+        fileSink.setFilename(jsonFile);
+        return EventSinkConfig.<MessageSink<?>>builder()
+                .instance(fileSink)
+                .agent(jsonFile + "-sink-agent", new SleepingMillisIdleStrategy());
+    }
 }
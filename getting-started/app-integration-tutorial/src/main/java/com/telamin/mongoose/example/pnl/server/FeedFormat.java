@@ -0,0 +1,15 @@
+package com.telamin.mongoose.example.pnl.server;
+
+/**
+ * Encoding of the trade and mid price feeds exchanged between the data generator and the pnl calculation server.
+ */
+public enum FeedFormat {
+    /**
+     * one JSON object per line, mapped with {@link com.telamin.mongoose.example.pnl.helper.DataMappers}
+     */
+    JSONL,
+    /**
+     * fixed width records in a memory mapped file, see {@link com.telamin.mongoose.example.pnl.helper.BinaryRecordCodec}
+     */
+    BINARY
+}
@@ -0,0 +1,145 @@
+package com.telamin.mongoose.example.pnl.server;
+
+import com.fluxtion.agrona.concurrent.SleepingMillisIdleStrategy;
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.fluxtion.runtime.output.MessageSink;
+import com.telamin.mongoose.config.EventFeedConfig;
+import com.telamin.mongoose.config.EventProcessorConfig;
+import com.telamin.mongoose.config.EventSinkConfig;
+import com.telamin.mongoose.config.MongooseServerConfig;
+import com.telamin.mongoose.config.ThreadConfig;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.PnlMergeProcessor;
+import com.telamin.mongoose.example.pnl.TradeRouterProcessor;
+import com.telamin.mongoose.example.pnl.connector.BlockingPipe;
+import com.telamin.mongoose.example.pnl.events.PartitionPnl;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pnl calculation partitioned across agents. A trade router on its own agent hashes the trades feed over
+ * {@link BlockingPipe}s to partitionCount {@link PnlCalculationProcessor}s, each on its own agent and handling every
+ * price of the broadcast prices feed. A merge agent combines the {@link PartitionPnl} updates of the partitions into
+ * the pnl sink. A partition publishes at most every pnlPublishIntervalMillis so the single merge agent is not flooded.
+ * <p>
+ * {@link PnlCalculationServer} does not use this deployment. The only measurement, PartitionedPnlBenchmark on a single
+ * core host, has 2 and 4 partitions at 6.4 us/trade against 4.5 for the single pnl-processor, so the single
+ * pnl-processor stays the deployment until a speedup is measured on a host with a core per agent.
+ */
+public class PartitionedPnlDeployment {
+
+    @Getter
+    @Setter
+    private int partitionCount = 2;
+    @Getter
+    @Setter
+    private String tradeFeedName = "trades";
+    @Getter
+    @Setter
+    private String sinkId = "pnl-sink";
+    @Getter
+    @Setter
+    private String pointerFileDirectory = "./data-in";
+    @Getter
+    @Setter
+    private long pnlPublishIntervalMillis = 100;
+    @Getter
+    @Setter
+    private List<String> reportingInstruments = new ArrayList<>();
+
+    /**
+     * Adds the router, partition and merge processors and their pipes to the server config. The trades feed named
+     * tradeFeedName must not broadcast, only the router subscribes to it. A single partition is not a partition, it
+     * publishes a plain {@code PnlSummary}, at least two are required.
+     */
+    public void build(MongooseServerConfig.Builder mongooseConfigBuilder) {
+        if (partitionCount < 2) {
+            throw new IllegalArgumentException("partitionCount must be at least 2, partitionCount:" + partitionCount);
+        }
+        List<BlockingPipe> tradePipes = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            String tradesName = "pnl-trades-" + i;
+            String partialPnlName = "pnl-partial-" + i;
+            String partialPnlSinkName = partialPnlName + "-sink";
+            PnlCalculationProcessor pnlCalculationProcessor = new PnlCalculationProcessor();
+            pnlCalculationProcessor.setPartitionCount(partitionCount);
+            pnlCalculationProcessor.setPartitionIndex(i);
+            pnlCalculationProcessor.setSinkId(partialPnlSinkName);
+            pnlCalculationProcessor.setPointerFileName(pointerFileDirectory + "/tradesIn-" + i + ".readPointer");
+            pnlCalculationProcessor.setTradeFeedName(tradesName);
+            pnlCalculationProcessor.setPnlPublishIntervalMillis(pnlPublishIntervalMillis);
+            pnlCalculationProcessor.setReportingInstruments(reportingInstruments);
+
+            //graphs are built here, building on the agent threads concurrently is not safe
+            EventProcessorConfig<DataFlow> eventProcessorConfig = EventProcessorConfig.builder()
+                    .name("pnl-processor-" + i)
+                    .handler(pnlCalculationProcessor.get())
+                    .build();
+
+            var threadConfig = ThreadConfig.builder()
+                    .agentName("pnl-agent-" + i)
+                    .idleStrategy(new SleepingMillisIdleStrategy(1))
+                    .build();
+
+            //pipes per partition, each pipe has a single publishing agent. The merge applies partition updates
+            //incrementally, so neither pipe may drop an event
+            BlockingPipe tradePipe = new BlockingPipe(tradesName);
+            tradePipes.add(tradePipe);
+            EventFeedConfig<?> tradeFeed = EventFeedConfig.builder()
+                    .instance(tradePipe)
+                    .broadcast(false)
+                    .name(tradesName)
+                    .agent("pnl-trades-feeds-agent", new SleepingMillisIdleStrategy())
+                    .build();
+            BlockingPipe partialPnlPipe = new BlockingPipe(partialPnlName);
+            EventSinkConfig<MessageSink<?>> partialPnlSink = EventSinkConfig.<MessageSink<?>>builder()
+                    .instance(partialPnlPipe.sink())
+                    .name(partialPnlSinkName)
+                    .build();
+            EventFeedConfig<?> partialPnlFeed = EventFeedConfig.builder()
+                    .instance(partialPnlPipe)
+                    .broadcast(true)
+                    .name(partialPnlName)
+                    .agent("pnl-merge-feeds-agent", new SleepingMillisIdleStrategy())
+                    .build();
+
+            mongooseConfigBuilder.addProcessor("pnl-agent-" + i, eventProcessorConfig);
+            mongooseConfigBuilder.addThread(threadConfig);
+            mongooseConfigBuilder.addEventSink(partialPnlSink);
+            mongooseConfigBuilder.addEventFeed(partialPnlFeed);
+            mongooseConfigBuilder.addEventFeed(tradeFeed);
+        }
+
+        EventProcessorConfig<DataFlow> routerProcessorConfig = EventProcessorConfig.builder()
+                .name("trade-router-processor")
+                .customHandler(new TradeRouterProcessor(tradeFeedName, tradePipes))
+                .build();
+
+        var routerThreadConfig = ThreadConfig.builder()
+                .agentName("trade-router-agent")
+                .idleStrategy(new SleepingMillisIdleStrategy(1))
+                .build();
+
+        mongooseConfigBuilder.addProcessor("trade-router-agent", routerProcessorConfig);
+        mongooseConfigBuilder.addThread(routerThreadConfig);
+
+        PnlMergeProcessor pnlMergeProcessor = new PnlMergeProcessor();
+        pnlMergeProcessor.setPartitionCount(partitionCount);
+        pnlMergeProcessor.setSinkId(sinkId);
+        EventProcessorConfig<DataFlow> mergeProcessorConfig = EventProcessorConfig.builder()
+                .name("pnl-merge-processor")
+                .handler(pnlMergeProcessor.get())
+                .build();
+
+        var mergeThreadConfig = ThreadConfig.builder()
+                .agentName("pnl-merge-agent")
+                .idleStrategy(new SleepingMillisIdleStrategy(1))
+                .build();
+
+        mongooseConfigBuilder.addProcessor("pnl-merge-agent", mergeProcessorConfig);
+        mongooseConfigBuilder.addThread(mergeThreadConfig);
+    }
+}
@@ -10,47 +10,55 @@ import com.telamin.fluxtion.runtime.DataFlow;
 import com.telamin.fluxtion.runtime.output.MessageSink;
 import com.telamin.mongoose.MongooseServer;
 import com.telamin.mongoose.config.*;
-import com.telamin.mongoose.connector.file.FileEventSource;
-import com.telamin.mongoose.connector.file.FileMessageSink;
 import com.telamin.mongoose.connector.memory.InMemoryEventSource;
 import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.calculator.PnlSnapshot;
+import com.telamin.mongoose.example.pnl.calculator.PnlSnapshotFile;
+import com.telamin.mongoose.example.pnl.connector.BatchedFileMessageSink;
+import com.telamin.mongoose.example.pnl.connector.BinaryFileEventSource;
+import com.telamin.mongoose.example.pnl.connector.FeedResume;
+import com.telamin.mongoose.example.pnl.connector.MidPriceConflator;
+import com.telamin.mongoose.example.pnl.connector.ParallelDecodeFileEventSource;
 import com.telamin.mongoose.example.pnl.events.MidPrice;
 import com.telamin.mongoose.example.pnl.events.MtmInstrument;
 import com.telamin.mongoose.example.pnl.events.Trade;
-import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.helper.JsonCodecs;
+import lombok.extern.java.Log;
 
-import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.*;
 
+import static com.telamin.mongoose.example.pnl.server.PnlExampleMain.*;
 
+@Log
 public class PnlCalculationServer {
     private static InMemoryEventSource<MtmInstrument> mtmFeed;
 
     public void startPnlCalculationServer() {
+        startPnlCalculationServer(FeedFormat.JSONL);
+    }
+
+    /**
+     * Runs the single pnl-processor, which checkpoints to {@link PnlExampleMain#PNL_SNAPSHOT} and resumes the feeds
+     * from it on restart. Partitioning is not wired in, see {@link PartitionedPnlDeployment}.
+     */
+    public void startPnlCalculationServer(FeedFormat feedFormat) {
         var mongooseConfigBuilder = MongooseServerConfig.builder();
 
         buildHandlerLogic(mongooseConfigBuilder);
-        buildFeeds(mongooseConfigBuilder);
+        PnlSnapshot snapshot = PnlSnapshotFile.readLatest(PNL_SNAPSHOT);
+        buildFeeds(mongooseConfigBuilder, feedFormat, snapshot);
         buildSinks(mongooseConfigBuilder);
         MongooseServer.bootServer(mongooseConfigBuilder.build());
     }
 
     private static void buildHandlerLogic(MongooseServerConfig.Builder mongooseConfigBuilder) {
-//        PnlSummaryCalc pnlSummaryCalc = new PnlSummaryCalc();
-//        TradeFilter tradeFilter = new TradeFilter();
-//
-//        EventProcessor<?> processor = (EventProcessor) DataFlow.subscribe(Trade.class)
-//                .flatMapFromArray(Trade::tradeLegs, EOB_TRADE_KEY)
-//                .groupBy(TradeLeg::instrument, TradeLegToPositionAggregate::new)
-//                .publishTriggerOverride(pnlSummaryCalc)
-//                .map(pnlSummaryCalc::calcMtmAndUpdateSummary)
-//                .filter(tradeFilter::publishPnlResult)
-//                .sink("pnl-sink")
-//                .build();
+        PnlCalculationProcessor pnlCalculationProcessor = new PnlCalculationProcessor();
+        pnlCalculationProcessor.setSnapshotFileName(PNL_SNAPSHOT);
+        pnlCalculationProcessor.setPointerFileName(TRADES_READ_POINTER);
+        pnlCalculationProcessor.setReportingInstruments(REPORTING_INSTRUMENTS);
 
         EventProcessorConfig<DataFlow> eventProcessorConfig = EventProcessorConfig.builder()
                 .name("pnl-processor")
-                .handlerBuilder(new PnlCalculationProcessor())
-//                .handler(processor)
+                .handlerBuilder(pnlCalculationProcessor)
                 .build();
 
         var threadConfig = ThreadConfig.builder()
@@ -62,25 +70,26 @@ public class PnlCalculationServer {
         mongooseConfigBuilder.addThread(threadConfig);
     }
 
-    private static void buildFeeds(MongooseServerConfig.Builder mongooseServerConfig) {
-        FileEventSource priceFeed = new FileEventSource();
-        priceFeed.setFilename(INPUT_MID_RATE_JSONL);
-        priceFeed.setReadStrategy(ReadStrategy.EARLIEST);
-        EventFeedConfig<?> pricesFeedConfig = EventFeedConfig.<String>builder()
-                .instance(priceFeed)
-                .valueMapper(row -> DataMappers.toObject(row, MidPrice.class))
+    /**
+     * @param snapshot the checkpoint the pnl processor restores, the feeds resume after the events it has consumed.
+     *                 null replays the feeds from the start to rebuild positions, the trade filter suppresses pnl
+     *                 publishing for the trades committed to its read pointer
+     */
+    private static void buildFeeds(MongooseServerConfig.Builder mongooseServerConfig, FeedFormat feedFormat,
+                                   PnlSnapshot snapshot) {
+        long priceEventCount = snapshot == null ? 0 : snapshot.getPriceEventCount();
+        long tradeEventCount = snapshot == null ? 0 : snapshot.getTradeEventCount();
+        if (snapshot != null) {
+            log.info("resuming feeds from pnl snapshot prices:" + priceEventCount + " trades:" + tradeEventCount);
+        }
+        MidPriceConflator priceConflator = new MidPriceConflator(priceEventCount);
+        EventFeedConfig<?> pricesFeedConfig = fileFeedConfig(feedFormat, INPUT_MID_RATE_JSONL, INPUT_MID_RATE_BINARY, MidPrice.class, priceEventCount, priceConflator)
                 .broadcast(true)
                 .name("prices")
                 .agent("feeds-agent", new SleepingMillisIdleStrategy())
                 .build();
 
-        FileEventSource tradesFeed = new FileEventSource();
-        tradesFeed.setFilename(INPUT_TRADES_JSONL);
-        tradesFeed.setReadStrategy(ReadStrategy.EARLIEST);
-
-        EventFeedConfig<?> tradesFeedConfig = EventFeedConfig.<String>builder()
-                .instance(tradesFeed)
-                .valueMapper(row -> DataMappers.toObject(row, Trade.class))
+        EventFeedConfig<?> tradesFeedConfig = fileFeedConfig(feedFormat, INPUT_TRADES_JSONL, INPUT_TRADES_BINARY, Trade.class, tradeEventCount, null)
                 .broadcast(true)
                 .name("trades")
                 .agent("feeds-agent", new SleepingMillisIdleStrategy())
@@ -100,14 +109,41 @@ public class PnlCalculationServer {
                 .addEventFeed(mtmFeedConfig);
     }
 
+    private static EventFeedConfig.Builder<?> fileFeedConfig(FeedFormat feedFormat, String jsonFile, String binaryFile,
+                                                             Class<?> eventClass, long resumeEventCount,
+                                                             MidPriceConflator conflator) {
+        if (feedFormat == FeedFormat.BINARY) {
+            BinaryFileEventSource binaryFeed = new BinaryFileEventSource();
+            binaryFeed.setFilename(binaryFile);
+            binaryFeed.setReadStrategy(ReadStrategy.EARLIEST);
+            binaryFeed.setSkipEventCount(resumeEventCount);
+            binaryFeed.setQueueReportIntervalMillis(QUEUE_REPORT_INTERVAL_MILLIS);
+            EventFeedConfig.Builder<Object> builder = EventFeedConfig.builder()
+                    .instance(binaryFeed);
+            return conflator == null ? builder : builder.valueMapper(conflator);
+        }
+        //json is decoded in parallel off the feeds agent, the conflator sees the decoded prices in file order
+        ParallelDecodeFileEventSource fileFeed = new ParallelDecodeFileEventSource();
+        fileFeed.setFilename(jsonFile);
+        fileFeed.setReadStrategy(ReadStrategy.EARLIEST);
+        fileFeed.setStartOffset(FeedResume.jsonlOffset(jsonFile, resumeEventCount));
+        fileFeed.setDecoder(row -> JsonCodecs.toObject(row, eventClass));
+        fileFeed.setParallelism(JSON_DECODE_PARALLELISM);
+        fileFeed.setQueueReportIntervalMillis(QUEUE_REPORT_INTERVAL_MILLIS);
+        EventFeedConfig.Builder<Object> builder = EventFeedConfig.builder()
+                .instance(fileFeed);
+        return conflator == null ? builder : builder.valueMapper(conflator);
+    }
+
     private static void buildSinks(MongooseServerConfig.Builder mongooseServerConfig) {
-        FileMessageSink fileSink = new FileMessageSink();
+        //summaries are encoded straight into the batch buffer, the agent writes a batch left idle past its latency
+        BatchedFileMessageSink fileSink = new BatchedFileMessageSink();
         fileSink.setFilename(OUTPUT_PNL_SUMMARY_JSONL);
 
         EventSinkConfig<MessageSink<?>> sinkConfig = EventSinkConfig.<MessageSink<?>>builder()
                 .instance(fileSink)
-                .valueMapper(DataMappers::toJson)
                 .name("pnl-sink")
+                .agent("pnl-sink-agent", new SleepingMillisIdleStrategy())
                 .build();
 
         mongooseServerConfig.addEventSink(sinkConfig);
@@ -8,22 +8,32 @@ package com.telamin.mongoose.example.pnl.server;
 import com.telamin.mongoose.connector.memory.InMemoryEventSource;
 import com.telamin.mongoose.example.pnl.events.MtmInstrument;
 
+import java.util.List;
+
 
 public class PnlExampleMain {
 
-    public static final String EOB_TRADE_KEY = "eob";
     public static final String INPUT_TRADES_JSONL = "./data-in/trades.jsonl";
     public static final String INPUT_MID_RATE_JSONL = "./data-in/midRate.jsonl";
+    public static final String INPUT_TRADES_BINARY = "./data-in/trades.bin";
+    public static final String INPUT_MID_RATE_BINARY = "./data-in/midRate.bin";
     public static final String OUTPUT_PNL_SUMMARY_JSONL = "./data-out/pnl-summary.jsonl";
+    public static final String PNL_SNAPSHOT = "./data-in/pnl.snapshot";
+    public static final String TRADES_READ_POINTER = "./data-in/tradesIn.readPointer";
+    public static final List<String> REPORTING_INSTRUMENTS = List.of("USD", "EUR", "JPY");
+    public static final int JSON_DECODE_PARALLELISM = 2;
+    public static final long QUEUE_REPORT_INTERVAL_MILLIS = 10_000;
 
     private static InMemoryEventSource<MtmInstrument> mtmFeed;
 
 
     public static void main(String[] args) throws InterruptedException {
+        FeedFormat feedFormat = args.length > 0 ? FeedFormat.valueOf(args[0].toUpperCase()) : FeedFormat.JSONL;
+
         PnlCalculationServer pnlCalculationServer = new PnlCalculationServer();
-        pnlCalculationServer.startPnlCalculationServer();
+        pnlCalculationServer.startPnlCalculationServer(feedFormat);
 
         DataGeneratorServer dataGeneratorServer = new DataGeneratorServer();
-        dataGeneratorServer.startFilePublish();
+        dataGeneratorServer.startFilePublish(feedFormat);
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import org.jgrapht.alg.shortestpath.BellmanFordShortestPath;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The jgrapht Bellman-Ford rate derivation that {@link CrossRateEngine} replaced, kept as a reference for
+ * correctness checks and benchmarks.
+ */
+public class BellmanFordRateCalculator {
+
+    private final Instrument mtmInstrument;
+    private final Map<Instrument, Double> directMtmRatesByInstrument = new HashMap<>();
+    private final Map<Instrument, Double> derivedMtmRatesByInstrument = new HashMap<>();
+    private final DefaultDirectedWeightedGraph<Instrument, DefaultWeightedEdge> graph = new DefaultDirectedWeightedGraph<>(DefaultWeightedEdge.class);
+    private BellmanFordShortestPath<Instrument, DefaultWeightedEdge> shortestPath;
+
+    public BellmanFordRateCalculator(Instrument mtmInstrument) {
+        this.mtmInstrument = mtmInstrument;
+    }
+
+    public void midRate(MidPrice midPrice) {
+        Instrument dealtInstrument = midPrice.dealtInstrument();
+        Instrument contraInstrument = midPrice.contraInstrument();
+        derivedMtmRatesByInstrument.clear();
+        if (midPrice.getOppositeInstrument(mtmInstrument) != null) {
+            directMtmRatesByInstrument.put(midPrice.getOppositeInstrument(mtmInstrument), midPrice.getRateForInstrument(mtmInstrument));
+        }
+
+        double rate = midPrice.rate();
+        double logRate = Math.log10(rate);
+        double logInverseRate = Math.log10(1 / rate);
+        int vertexCount = graph.vertexSet().size();
+
+        graph.addVertex(dealtInstrument);
+        graph.addVertex(contraInstrument);
+
+        if (shortestPath == null || graph.vertexSet().size() > vertexCount) {
+            shortestPath = new BellmanFordShortestPath<>(graph, 0.000001, graph.vertexSet().size() - 1);
+        }
+
+        if (graph.containsEdge(dealtInstrument, contraInstrument)) {
+            graph.setEdgeWeight(dealtInstrument, contraInstrument, logRate);
+            graph.setEdgeWeight(contraInstrument, dealtInstrument, logInverseRate);
+        } else {
+            graph.setEdgeWeight(graph.addEdge(dealtInstrument, contraInstrument), logRate);
+            graph.setEdgeWeight(graph.addEdge(contraInstrument, dealtInstrument), logInverseRate);
+        }
+    }
+
+    public double getRateForInstrument(Instrument instrument) {
+        if (instrument.equals(mtmInstrument)) {
+            return 1.0;
+        }
+        Double rate = directMtmRatesByInstrument.get(instrument);
+        if (rate == null) {
+            rate = derivedMtmRatesByInstrument.computeIfAbsent(
+                    instrument,
+                    positionInstrument -> {
+                        if (graph.containsVertex(positionInstrument) & graph.containsVertex(mtmInstrument)) {
+                            double log10Rate = shortestPath.getPathWeight(positionInstrument, mtmInstrument);
+                            return Double.isInfinite(log10Rate) ? Double.NaN : Math.pow(10, log10Rate);
+                        }
+                        return Double.NaN;
+                    });
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,88 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.MtmInstrument;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MtMRateCalculatorTest {
+
+    @Test
+    public void testDirectAndCrossRates() {
+        MtMRateCalculator calculator = new MtMRateCalculator();
+        calculator.midRate(new MidPrice(RefData.symbolEURUSD, 1.1));
+        calculator.midRate(new MidPrice(RefData.symbolUSDJPY, 150));
+        calculator.midRate(new MidPrice(RefData.symbolEURGBP, 0.8));
+
+        Assertions.assertEquals(1.0, calculator.getRateForInstrument(RefData.USD));
+        Assertions.assertEquals(1.1, calculator.getRateForInstrument(RefData.EUR), 1e-12);
+        Assertions.assertEquals(1 / 150.0, calculator.getRateForInstrument(RefData.JPY), 1e-12);
+        Assertions.assertEquals(1.1 / 0.8, calculator.getRateForInstrument(RefData.GBP), 1e-12);
+        Assertions.assertTrue(Double.isNaN(calculator.getRateForInstrument(RefData.CHF)));
+
+        //a tick on the root side of the tree re-derives the downstream cross rate
+        calculator.midRate(new MidPrice(RefData.symbolEURUSD, 1.2));
+        Assertions.assertEquals(1.2 / 0.8, calculator.getRateForInstrument(RefData.GBP), 1e-12);
+
+        //a direct quote replaces the cross rate path
+        calculator.midRate(new MidPrice(RefData.symbolGBPUSD, 1.3));
+        Assertions.assertEquals(1.3, calculator.getRateForInstrument(RefData.GBP), 1e-12);
+        calculator.midRate(new MidPrice(RefData.symbolEURGBP, 0.5));
+        Assertions.assertEquals(1.3, calculator.getRateForInstrument(RefData.GBP), 1e-12);
+
+        //a pair quoted in the opposite direction to its first quote
+        calculator.midRate(new MidPrice(new Symbol("USDEUR", RefData.USD, RefData.EUR), 0.5));
+        Assertions.assertEquals(2.0, calculator.getRateForInstrument(RefData.EUR), 1e-12);
+    }
+
+    @Test
+    public void testReverseDirectionQuote() {
+        MtMRateCalculator calculator = new MtMRateCalculator();
+        calculator.midRate(new MidPrice(new Symbol("CHFUSD", RefData.CHF, RefData.USD), 1.25));
+        Assertions.assertEquals(1.25, calculator.getRateForInstrument(RefData.CHF), 1e-12);
+
+        //USDCHF is the same pair quoted the other way, 1 USD = 0.5 CHF so 1 CHF = 2 USD
+        calculator.midRate(new MidPrice(new Symbol("USDCHF", RefData.USD, RefData.CHF), 0.5));
+        Assertions.assertEquals(2.0, calculator.getRateForInstrument(RefData.CHF), 1e-12);
+        calculator.midRate(new MidPrice(new Symbol("CHFUSD", RefData.CHF, RefData.USD), 0.8));
+        Assertions.assertEquals(0.8, calculator.getRateForInstrument(RefData.CHF), 1e-12);
+    }
+
+    @Test
+    public void testSwitchMtmInstrument() {
+        MtMRateCalculator calculator = new MtMRateCalculator();
+        calculator.midRate(new MidPrice(RefData.symbolEURUSD, 1.25));
+        calculator.midRate(new MidPrice(RefData.symbolUSDJPY, 100));
+
+        calculator.updateMtmInstrument(new MtmInstrument(RefData.EUR));
+        Assertions.assertEquals(0.8, calculator.getRateForInstrument(RefData.USD), 1e-12);
+        Assertions.assertEquals(0.008, calculator.getRateForInstrument(RefData.JPY), 1e-12);
+    }
+
+    @Test
+    public void testMatchesBellmanFordReference() {
+        RateUniverse universe = new RateUniverse(60, 2, 42);
+        MtMRateCalculator calculator = new MtMRateCalculator();
+        BellmanFordRateCalculator reference = new BellmanFordRateCalculator(RefData.USD);
+
+        for (int i = 0; i < 400; i++) {
+            MidPrice midPrice = universe.randomMidPrice();
+            calculator.midRate(midPrice);
+            reference.midRate(midPrice);
+            if (i % 20 == 0) {
+                for (Instrument instrument : universe.instruments()) {
+                    double expected = reference.getRateForInstrument(instrument);
+                    double actual = calculator.getRateForInstrument(instrument);
+                    if (Double.isNaN(expected)) {
+                        Assertions.assertTrue(Double.isNaN(actual), instrument.instrumentName());
+                    } else {
+                        Assertions.assertEquals(expected, actual, Math.abs(expected) * 1e-9, instrument.instrumentName());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class PnlCheckpointerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRestartFromSnapshotMatchesFullReplay() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(42);
+        List<Object> events = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            events.add(i % 3 == 0 ? generator.generateRandomMidPrice() : generator.generateRandomTrade());
+        }
+
+        double[] fullReplayPnl = new double[1];
+        DataFlow fullReplay = pnlProcessor("full", null, fullReplayPnl);
+        events.forEach(fullReplay::onEvent);
+        fullReplay.tearDown();
+
+        String snapshotFile = tempDir.resolve("pnl.snapshot").toString();
+        double[] restartPnl = new double[1];
+        DataFlow beforeRestart = pnlProcessor("restart", snapshotFile, restartPnl);
+        events.subList(0, 1_200).forEach(beforeRestart::onEvent);
+        beforeRestart.tearDown();
+
+        PnlSnapshot snapshot = PnlSnapshotFile.readLatest(snapshotFile);
+        Assertions.assertNotNull(snapshot);
+        Assertions.assertEquals(1_200, snapshot.getTradeEventCount() + snapshot.getPriceEventCount());
+
+        DataFlow afterRestart = pnlProcessor("restart", snapshotFile, restartPnl);
+        events.subList(1_200, events.size()).forEach(afterRestart::onEvent);
+        afterRestart.tearDown();
+
+        Assertions.assertEquals(fullReplayPnl[0], restartPnl[0], 1e-6 * Math.abs(fullReplayPnl[0]));
+        snapshot = PnlSnapshotFile.readLatest(snapshotFile);
+        Assertions.assertEquals(events.size(), snapshot.getTradeEventCount() + snapshot.getPriceEventCount());
+    }
+
+    @Test
+    public void testRestartWithoutSnapshotReplaysCommittedTrades() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(7);
+        List<Object> events = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            events.add(i % 3 == 0 ? generator.generateRandomMidPrice() : generator.generateRandomTrade());
+        }
+
+        PnlSummary[] fullReplaySummary = new PnlSummary[1];
+        DataFlow fullReplay = pnlProcessor("full", null, fullReplaySummary);
+        events.forEach(fullReplay::onEvent);
+        fullReplay.tearDown();
+
+        //the first run commits its trades to the read pointer, the restart replays the feeds from the start
+        PnlSummary[] restartSummary = new PnlSummary[1];
+        DataFlow beforeRestart = pnlProcessor("restart", null, restartSummary);
+        events.subList(0, 1_200).forEach(beforeRestart::onEvent);
+        beforeRestart.tearDown();
+
+        restartSummary[0] = null;
+        DataFlow afterRestart = pnlProcessor("restart", null, restartSummary);
+        events.forEach(afterRestart::onEvent);
+        afterRestart.tearDown();
+
+        Assertions.assertNotNull(restartSummary[0]);
+        Assertions.assertEquals(fullReplaySummary[0].getMtmAssetMap().keySet(), restartSummary[0].getMtmAssetMap().keySet());
+        fullReplaySummary[0].getMtmAssetMap().forEach((instrument, posMtm) -> Assertions.assertEquals(
+                posMtm.getPosition(), restartSummary[0].getMtmAssetMap().get(instrument).getPosition(), 1e-9,
+                "position of " + instrument));
+        Assertions.assertEquals(fullReplaySummary[0].getPnl(), restartSummary[0].getPnl(), 1e-6 * Math.abs(fullReplaySummary[0].getPnl()));
+    }
+
+    @Test
+    public void testTornSlotFallsBackToPreviousSnapshot() throws IOException {
+        String fileName = tempDir.resolve("torn.snapshot").toString();
+        PnlSnapshotFile snapshotFile = new PnlSnapshotFile(fileName, 4096);
+        Assertions.assertNull(snapshotFile.open());
+        PnlSnapshot snapshot = new PnlSnapshot();
+        snapshot.setMtmInstrument(new RandomTradeGenerator(1).generateRandomTrade().dealtInstrument());
+        for (int i = 1; i <= 3; i++) {
+            snapshot.setTradeEventCount(i);
+            Assertions.assertTrue(snapshotFile.write(snapshot, false));
+        }
+        snapshotFile.close();
+        Assertions.assertEquals(3, PnlSnapshotFile.readLatest(fileName).getTradeEventCount());
+
+        //odd sequences are written to slot 1, corrupt the payload of sequence 3
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "rw")) {
+            file.seek(PnlSnapshotFile.HEADER_LENGTH + 4096 + 16);
+            file.writeLong(-1);
+        }
+        Assertions.assertEquals(2, PnlSnapshotFile.readLatest(fileName).getTradeEventCount());
+    }
+
+    private DataFlow pnlProcessor(String name, String snapshotFile, double[] lastPnl) {
+        return pnlProcessor(name, snapshotFile, summary -> lastPnl[0] = summary.getPnl());
+    }
+
+    private DataFlow pnlProcessor(String name, String snapshotFile, PnlSummary[] lastSummary) {
+        return pnlProcessor(name, snapshotFile, summary -> lastSummary[0] = summary);
+    }
+
+    private DataFlow pnlProcessor(String name, String snapshotFile, Consumer<PnlSummary> summarySink) {
+        PnlCalculationProcessor processor = new PnlCalculationProcessor();
+        processor.setPointerFileName(tempDir.resolve(name + ".readPointer").toString());
+        processor.setSnapshotFileName(snapshotFile);
+        processor.setCheckpointEveryEvents(100);
+        DataFlow dataFlow = processor.get();
+        dataFlow.addSink(processor.getSinkId(), summarySink);
+        return dataFlow;
+    }
+}
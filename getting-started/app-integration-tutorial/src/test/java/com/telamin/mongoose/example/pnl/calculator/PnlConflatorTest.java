@@ -0,0 +1,55 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.fluxtion.runtime.flowfunction.FlowSupplier;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.service.scheduler.ScheduledTriggerNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PnlConflatorTest {
+
+    private final PnlSummary pnlSummary = new PnlSummary();
+    private final FlowSupplier<PnlSummary> pnlSummaries = new FlowSupplier<>() {
+        @Override
+        public boolean hasChanged() {
+            return true;
+        }
+
+        @Override
+        public PnlSummary get() {
+            return pnlSummary;
+        }
+    };
+
+    @Test
+    public void testPublishOnIntervalOrThreshold() {
+        PnlConflator conflator = new PnlConflator(pnlSummaries, new ScheduledTriggerNode());
+        conflator.setPublishIntervalMillis(100);
+        conflator.setPnlChangeThreshold(50);
+
+        Assertions.assertFalse(conflator.publish(0), "nothing to publish");
+        Assertions.assertTrue(update(conflator, 10, 0), "first update publishes");
+        Assertions.assertFalse(update(conflator, 20, 10));
+        Assertions.assertFalse(update(conflator, 40, 50));
+        Assertions.assertTrue(update(conflator, 70, 60), "threshold exceeded");
+        Assertions.assertFalse(update(conflator, 80, 90));
+        Assertions.assertTrue(conflator.publish(160), "interval expired with a pending update");
+        Assertions.assertEquals(80, conflator.getLatest().getPnl());
+        Assertions.assertFalse(conflator.publish(300), "pending update already published");
+        Assertions.assertEquals(3, conflator.getConflatedCount());
+    }
+
+    @Test
+    public void testZeroIntervalPublishesEveryUpdate() {
+        PnlConflator conflator = new PnlConflator(pnlSummaries, new ScheduledTriggerNode());
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(update(conflator, i, 0));
+        }
+    }
+
+    private boolean update(PnlConflator conflator, double pnl, long nowMillis) {
+        pnlSummary.updatePnl(pnl);
+        conflator.pnlSummaryUpdated(pnlSummaries);
+        return conflator.publish(nowMillis);
+    }
+}
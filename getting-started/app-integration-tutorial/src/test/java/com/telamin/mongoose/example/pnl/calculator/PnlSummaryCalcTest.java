@@ -0,0 +1,204 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.MtmInstrument;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class PnlSummaryCalcTest {
+
+    @Test
+    public void testIncrementalMatchesFullRecalculation() {
+        RateUniverse universe = new RateUniverse(50, 2, 7);
+        List<Symbol> symbols = universe.symbols();
+        Random random = new Random(7);
+
+        PnlSummaryCalc incremental = new PnlSummaryCalc();
+        incremental.setFullRecomputeInterval(Integer.MAX_VALUE);
+        PositionBook incrementalBook = new PositionBook();
+        PnlSummaryCalc full = new PnlSummaryCalc();
+        full.setIncremental(false);
+        PositionBook fullBook = new PositionBook();
+        PnlSummary lastIncrementalSummary = null;
+
+        for (int i = 0; i < 20_000; i++) {
+            if (i == 10_000) {
+                Instrument newMtmInstrument = universe.instruments().get(3);
+                incremental.getMtMRateCalculator().updateMtmInstrument(new MtmInstrument(newMtmInstrument));
+                full.getMtMRateCalculator().updateMtmInstrument(new MtmInstrument(newMtmInstrument));
+            } else if (random.nextBoolean()) {
+                Symbol symbol = symbols.get(random.nextInt(symbols.size()));
+                double dealtVolume = random.nextDouble(-1000, 1000);
+                double contraVolume = -dealtVolume * random.nextDouble(0.5, 2);
+                incrementalBook.add(symbol.dealtInstrument(), dealtVolume).add(symbol.contraInstrument(), contraVolume);
+                fullBook.add(symbol.dealtInstrument(), dealtVolume).add(symbol.contraInstrument(), contraVolume);
+            } else {
+                MidPrice midPrice = universe.randomMidPrice();
+                incremental.getMtMRateCalculator().midRate(midPrice);
+                full.getMtMRateCalculator().midRate(midPrice);
+            }
+            PnlSummary incrementalSummary = incremental.calcMtmAndUpdateSummary(incrementalBook);
+            PnlSummary fullSummary = full.calcMtmAndUpdateSummary(fullBook);
+            if (incrementalSummary != null) {
+                lastIncrementalSummary = incrementalSummary;
+            }
+            if (fullSummary != null) {
+                //a pair quoted in both directions re-derives a rate to within an ulp, the running sum may absorb it
+                PnlSummary incrementalLatest = lastIncrementalSummary;
+                Assertions.assertNotNull(incrementalLatest);
+                assertPnlEquals(fullSummary.getPnl(), incrementalLatest.getPnl());
+                fullSummary.getMtmAssetMap().forEach((instrument, posMtm) -> {
+                    InstrumentPosMtm incrementalPosMtm = incrementalLatest.getMtmAssetMap().get(instrument);
+                    Assertions.assertEquals(posMtm.getPosition(), incrementalPosMtm.getPosition(), 1e-9);
+                    assertPnlEquals(posMtm.getMtmPosition(), incrementalPosMtm.getMtmPosition());
+                });
+            }
+        }
+    }
+
+    @Test
+    public void testOffHeapPositionStoreMatchesHeap() {
+        RateUniverse universe = new RateUniverse(200, 2, 13);
+        List<Symbol> symbols = universe.symbols();
+        Random random = new Random(13);
+
+        PnlSummaryCalc heap = new PnlSummaryCalc();
+        heap.setIncremental(false);
+        PositionBook heapBook = new PositionBook();
+        PnlSummaryCalc offHeap = new PnlSummaryCalc();
+        offHeap.setPublishAssetMap(false);
+        OffHeapPositionStore store = new OffHeapPositionStore(64);
+        PositionBook offHeapBook = new PositionBook(store);
+        universe.symbols().forEach(symbol -> {
+            heap.getMtMRateCalculator().midRate(universe.midPrice(symbol));
+            offHeap.getMtMRateCalculator().midRate(universe.midPrice(symbol));
+        });
+
+        for (int i = 0; i < 5_000; i++) {
+            Symbol symbol = symbols.get(random.nextInt(symbols.size()));
+            double dealtVolume = random.nextDouble(-1000, 1000);
+            heapBook.add(symbol.dealtInstrument(), dealtVolume).add(symbol.contraInstrument(), -dealtVolume);
+            offHeapBook.add(symbol.dealtInstrument(), dealtVolume).add(symbol.contraInstrument(), -dealtVolume);
+            PnlSummary heapSummary = heap.calcMtmAndUpdateSummary(heapBook);
+            PnlSummary offHeapSummary = offHeap.calcMtmAndUpdateSummary(offHeapBook);
+            if (heapSummary != null) {
+                Assertions.assertNotNull(offHeapSummary);
+                assertPnlEquals(heapSummary.getPnl(), offHeapSummary.getPnl());
+                Assertions.assertTrue(offHeapSummary.getMtmAssetMap().isEmpty());
+                Assertions.assertSame(offHeapBook, offHeapSummary.getPositionBook());
+            }
+        }
+
+        Assertions.assertTrue(store.slabCount() > 1);
+        Assertions.assertEquals(heapBook.instrumentCount(), offHeapBook.instrumentCount());
+        Assertions.assertEquals(heapBook.mtmPositionSum(), offHeapBook.mtmPositionSum(), 1e-6 * Math.abs(heapBook.mtmPositionSum()));
+        for (int i = 0; i < heapBook.instrumentCount(); i++) {
+            int id = heapBook.instrumentId(i);
+            //sinks read the slabs in place
+            double position = store.positionSlab(store.slabIndex(id)).getDouble(store.slabOffset(id), ByteOrder.LITTLE_ENDIAN);
+            Assertions.assertEquals(heapBook.position(id), position, 1e-9);
+            assertPnlEquals(heapBook.mtmPosition(id), offHeapBook.mtmPosition(id));
+        }
+    }
+
+    @Test
+    public void testPeriodicFullRecomputeChecksDrift() {
+        RateUniverse universe = new RateUniverse(10, 1, 11);
+        PnlSummaryCalc pnlSummaryCalc = new PnlSummaryCalc();
+        pnlSummaryCalc.setFullRecomputeInterval(100);
+        universe.symbols().forEach(symbol -> pnlSummaryCalc.getMtMRateCalculator().midRate(universe.midPrice(symbol)));
+        PositionBook positionBook = new PositionBook();
+        Random random = new Random(11);
+        for (int i = 0; i < 1_000; i++) {
+            Symbol symbol = universe.symbols().get(random.nextInt(universe.symbols().size()));
+            positionBook.add(symbol.dealtInstrument(), random.nextDouble(-1e6, 1e6));
+            pnlSummaryCalc.getMtMRateCalculator().midRate(universe.randomMidPrice());
+            PnlSummary pnlSummary = pnlSummaryCalc.calcMtmAndUpdateSummary(positionBook);
+            if (i % 100 == 99) {
+                Assertions.assertEquals(0, pnlSummaryCalc.getLastDrift(), 1e-9 * Math.abs(pnlSummary.getPnl()));
+            }
+        }
+    }
+
+    @Test
+    public void testReportingInstrumentsMatchSeparateMtmCalculations() {
+        RateUniverse universe = new RateUniverse(30, 2, 13);
+        List<Instrument> reportingInstruments = List.of(universe.instruments().get(4), universe.instruments().get(9));
+        PnlSummaryCalc multiCurrency = new PnlSummaryCalc();
+        multiCurrency.setReportingInstruments(reportingInstruments);
+        PnlSummaryCalc[] separate = new PnlSummaryCalc[reportingInstruments.size()];
+        for (int i = 0; i < separate.length; i++) {
+            separate[i] = new PnlSummaryCalc();
+            separate[i].getMtMRateCalculator().updateMtmInstrument(new MtmInstrument(reportingInstruments.get(i)));
+        }
+        PositionBook positionBook = new PositionBook();
+        Random random = new Random(13);
+        for (int i = 0; i < 2_000; i++) {
+            MidPrice midPrice = universe.randomMidPrice();
+            multiCurrency.getMtMRateCalculator().midRate(midPrice);
+            for (PnlSummaryCalc pnlSummaryCalc : separate) {
+                pnlSummaryCalc.getMtMRateCalculator().midRate(midPrice);
+            }
+            Symbol symbol = universe.symbols().get(random.nextInt(universe.symbols().size()));
+            positionBook.add(symbol.dealtInstrument(), random.nextDouble(-1000, 1000));
+        }
+
+        PnlSummary pnlSummary = multiCurrency.calcMtmAndUpdateSummary(positionBook);
+        Assertions.assertEquals(reportingInstruments.size(), pnlSummary.getReportingPnls().size());
+        for (int i = 0; i < separate.length; i++) {
+            double reportingPnl = pnlSummary.getReportingPnls().get(i).getPnl();
+            double expectedPnl = separate[i].calcMtmAndUpdateSummary(positionBook).getPnl();
+            Assertions.assertEquals(expectedPnl, reportingPnl, 1e-9 * Math.max(1, Math.abs(expectedPnl)));
+        }
+    }
+
+    @Test
+    public void testAssetMapHoldsEveryInstrumentOfTheBook() {
+        RateUniverse universe = new RateUniverse(40, 2, 17);
+        List<Symbol> symbols = universe.symbols();
+        Random random = new Random(17);
+        PnlSummaryCalc pnlSummaryCalc = new PnlSummaryCalc();
+        pnlSummaryCalc.setFullRecomputeInterval(50);
+        symbols.forEach(symbol -> pnlSummaryCalc.getMtMRateCalculator().midRate(universe.midPrice(symbol)));
+
+        PositionBook restored = new PositionBook();
+        for (int i = 0; i < 5; i++) {
+            Symbol symbol = symbols.get(symbols.size() - 1 - i);
+            restored.add(symbol.contraInstrument(), 100).add(symbol.dealtInstrument(), -100);
+        }
+        pnlSummaryCalc.restorePositions(restored);
+
+        PositionBook positionBook = new PositionBook();
+        PnlSummary pnlSummary = null;
+        for (int i = 0; i < 1_000; i++) {
+            Symbol symbol = symbols.get(random.nextInt(symbols.size()));
+            positionBook.add(symbol.dealtInstrument(), random.nextDouble(-1000, 1000));
+            PnlSummary updated = pnlSummaryCalc.calcMtmAndUpdateSummary(positionBook);
+            pnlSummary = updated != null ? updated : pnlSummary;
+            Assertions.assertNotNull(pnlSummary);
+            //restored instruments are combined into the book after its first trade, out of the symbol order
+            Map<Instrument, InstrumentPosMtm> mtmAssetMap = pnlSummary.getMtmAssetMap();
+            Assertions.assertEquals(positionBook.instrumentCount(), mtmAssetMap.size());
+            for (int j = 0; j < positionBook.instrumentCount(); j++) {
+                int id = positionBook.instrumentId(j);
+                Assertions.assertEquals(positionBook.position(id), mtmAssetMap.get(positionBook.instrument(id)).getPosition(), 1e-9);
+            }
+        }
+    }
+
+    private static void assertPnlEquals(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            Assertions.assertTrue(Double.isNaN(actual), "expected NaN but was " + actual);
+        } else {
+            Assertions.assertEquals(expected, actual, 1e-6 * Math.max(1, Math.abs(expected)));
+        }
+    }
+}
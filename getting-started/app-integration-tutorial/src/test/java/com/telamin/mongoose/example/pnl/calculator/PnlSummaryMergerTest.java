@@ -0,0 +1,88 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class PnlSummaryMergerTest {
+
+    @Test
+    public void testMergedPartitionsMatchSingleBook() {
+        int partitionCount = 4;
+        RateUniverse universe = new RateUniverse(20, 2, 5);
+        List<Symbol> symbols = universe.symbols();
+        Random random = new Random(5);
+
+        PnlSummaryCalc single = new PnlSummaryCalc();
+        PositionBook singleBook = new PositionBook();
+        PnlSummaryCalc[] partitionCalcs = new PnlSummaryCalc[partitionCount];
+        PositionBook[] partitionBooks = new PositionBook[partitionCount];
+        TradePartition[] tradePartitions = new TradePartition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitionCalcs[i] = new PnlSummaryCalc();
+            partitionCalcs[i].setPublishAssetMap(false);
+            partitionBooks[i] = new PositionBook();
+            tradePartitions[i] = new TradePartition();
+            tradePartitions[i].setPartitionCount(partitionCount);
+            tradePartitions[i].setPartitionIndex(i);
+        }
+        symbols.forEach(symbol -> {
+            single.getMtMRateCalculator().midRate(universe.midPrice(symbol));
+            for (PnlSummaryCalc partitionCalc : partitionCalcs) {
+                partitionCalc.getMtMRateCalculator().midRate(universe.midPrice(symbol));
+            }
+        });
+
+        PnlSummaryMerger merger = new PnlSummaryMerger();
+        merger.setPartitionCount(partitionCount);
+        PnlSummary merged = null;
+        PnlSummary[] latestSummaries = new PnlSummary[partitionCount];
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 10 == 0) {
+                MidPrice midPrice = universe.randomMidPrice();
+                single.getMtMRateCalculator().midRate(midPrice);
+                for (PnlSummaryCalc partitionCalc : partitionCalcs) {
+                    partitionCalc.getMtMRateCalculator().midRate(midPrice);
+                }
+            }
+            if (i == 500) {
+                //a partition replacing its position book publishes all its positions again
+                PositionBook replacement = new PositionBook();
+                partitionBooks[1] = replacement.combine(partitionBooks[1]);
+            }
+            Symbol symbol = symbols.get(random.nextInt(symbols.size()));
+            Trade trade = new Trade(symbol, i, random.nextDouble(-1000, 1000), random.nextDouble(-1000, 1000));
+            singleBook.add(trade.dealtInstrument(), trade.dealtVolume()).add(trade.contraInstrument(), trade.contraVolume());
+            int partition = TradePartition.partitionOf(trade, partitionCount);
+            partitionBooks[partition].add(trade.dealtInstrument(), trade.dealtVolume()).add(trade.contraInstrument(), trade.contraVolume());
+            PnlSummary partitionSummary = partitionCalcs[partition].calcMtmAndUpdateSummary(partitionBooks[partition]);
+            latestSummaries[partition] = partitionSummary != null ? partitionSummary : latestSummaries[partition];
+            //publishing is conflated, the instruments re-marked meanwhile are carried by the next publish
+            if (partitionSummary != null && random.nextInt(4) == 0) {
+                merged = merger.merge(tradePartitions[partition].snapshot(partitionSummary));
+            }
+        }
+        //re-mark for the latest prices and flush the conflated summaries
+        for (int i = 0; i < partitionCount; i++) {
+            PnlSummary partitionSummary = partitionCalcs[i].calcMtmAndUpdateSummary(partitionBooks[i]);
+            latestSummaries[i] = partitionSummary != null ? partitionSummary : latestSummaries[i];
+            merged = merger.merge(tradePartitions[i].snapshot(latestSummaries[i]));
+        }
+
+        PnlSummary expected = single.calcMtmAndUpdateSummary(singleBook);
+        PnlSummary mergedSummary = merged;
+        Assertions.assertEquals(expected.getPnl(), mergedSummary.getPnl(), 1e-6 * Math.abs(expected.getPnl()));
+        Assertions.assertEquals(expected.getMtmAssetMap().size(), mergedSummary.getMtmAssetMap().size());
+        expected.getMtmAssetMap().forEach((instrument, posMtm) -> {
+            InstrumentPosMtm mergedPosMtm = mergedSummary.getMtmAssetMap().get(instrument);
+            Assertions.assertEquals(posMtm.getPosition(), mergedPosMtm.getPosition(), 1e-6);
+            Assertions.assertEquals(posMtm.getMtmPosition(), mergedPosMtm.getMtmPosition(), 1e-6 * Math.max(1, Math.abs(posMtm.getMtmPosition())));
+        });
+    }
+}
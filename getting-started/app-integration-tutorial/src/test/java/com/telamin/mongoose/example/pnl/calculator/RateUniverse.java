@@ -0,0 +1,71 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.Instrument;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A seeded, arbitrage free universe of instruments quoted against each other. Every instrument has a hidden USD
+ * value, so any conversion path yields the same cross rate and different rate engines can be compared exactly.
+ */
+public class RateUniverse {
+
+    private final Random random;
+    private final List<Instrument> instruments = new ArrayList<>();
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final double[] usdValues;
+
+    public RateUniverse(int instrumentCount, int extraSymbolsPerInstrument, long seed) {
+        random = new Random(seed);
+        usdValues = new double[instrumentCount];
+        for (int i = 0; i < instrumentCount; i++) {
+            instruments.add(i == 0 ? RefData.USD : new Instrument("CCY" + i));
+            usdValues[i] = i == 0 ? 1.0 : random.nextDouble(0.001, 1000);
+        }
+        //spanning tree keeps the universe connected, extra symbols add alternative paths
+        for (int i = 1; i < instrumentCount; i++) {
+            addSymbol(i, random.nextInt(i));
+        }
+        for (int i = 1; i < instrumentCount; i++) {
+            for (int j = 0; j < extraSymbolsPerInstrument; j++) {
+                int other = random.nextInt(instrumentCount);
+                if (other != i) {
+                    addSymbol(i, other);
+                }
+            }
+        }
+    }
+
+    public List<Instrument> instruments() {
+        return instruments;
+    }
+
+    public List<Symbol> symbols() {
+        return symbols;
+    }
+
+    public MidPrice midPrice(Symbol symbol) {
+        int dealt = instruments.indexOf(symbol.dealtInstrument());
+        int contra = instruments.indexOf(symbol.contraInstrument());
+        return new MidPrice(symbol, usdValues[dealt] / usdValues[contra]);
+    }
+
+    public MidPrice randomMidPrice() {
+        return midPrice(symbols.get(random.nextInt(symbols.size())));
+    }
+
+    public double usdValue(Instrument instrument) {
+        return usdValues[instruments.indexOf(instrument)];
+    }
+
+    private void addSymbol(int dealt, int contra) {
+        Instrument dealtInstrument = instruments.get(dealt);
+        Instrument contraInstrument = instruments.get(contra);
+        symbols.add(new Symbol(dealtInstrument.instrumentName() + contraInstrument.instrumentName(), dealtInstrument, contraInstrument));
+    }
+}
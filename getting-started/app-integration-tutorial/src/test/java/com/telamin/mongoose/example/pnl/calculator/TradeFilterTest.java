@@ -0,0 +1,93 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.fluxtion.agrona.concurrent.SnowflakeIdGenerator;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TradeFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testInterleavedGeneratorsOutOfOrder() {
+        List<Long> ids = new ArrayList<>();
+        SnowflakeIdGenerator generatorA = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator generatorB = new SnowflakeIdGenerator(2);
+        for (int i = 0; i < 5_000; i++) {
+            ids.add(generatorA.nextId());
+            ids.add(generatorB.nextId());
+        }
+        //local reordering within a few positions, as merged feeds deliver them
+        Random random = new Random(42);
+        for (int i = 0; i < ids.size() - 8; i++) {
+            Collections.swap(ids, i, i + random.nextInt(8));
+        }
+
+        TradeFilter tradeFilter = newTradeFilter(1_000_000);
+        int published = 0;
+        for (long id : ids) {
+            tradeFilter.isTrade(new Trade(RefData.symbolEURUSD, id, 1, -1));
+            published += tradeFilter.publishPnlResult() ? 1 : 0;
+        }
+        Assertions.assertEquals(ids.size(), published);
+
+        for (long id : ids.subList(0, 100)) {
+            tradeFilter.isTrade(new Trade(RefData.symbolEURUSD, id, 1, -1));
+            Assertions.assertFalse(tradeFilter.publishPnlResult());
+        }
+        tradeFilter.tearDown();
+    }
+
+    @Test
+    public void testGroupCommitAndRestart() throws IOException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        TradeFilter tradeFilter = newTradeFilter(10);
+        long[] ids = new long[25];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId();
+            tradeFilter.isTrade(new Trade(RefData.symbolEURUSD, ids[i], 1, -1));
+            tradeFilter.commitIfDue();
+        }
+        //two groups of 10 committed, the last 5 are pending
+        Assertions.assertEquals(ids[19], committedHighWater(3));
+        tradeFilter.tearDown();
+        Assertions.assertEquals(ids[24], committedHighWater(3));
+
+        TradeFilter restarted = newTradeFilter(10);
+        restarted.isTrade(new Trade(RefData.symbolEURUSD, ids[24], 1, -1));
+        Assertions.assertFalse(restarted.publishPnlResult());
+        restarted.isTrade(new Trade(RefData.symbolEURUSD, generator.nextId(), 1, -1));
+        Assertions.assertTrue(restarted.publishPnlResult());
+        //another generator is not blocked by the high water mark of node 3
+        restarted.isTrade(new Trade(RefData.symbolEURUSD, ids[0] & ~(0x3FFL << 12) | (4L << 12), 1, -1));
+        Assertions.assertTrue(restarted.publishPnlResult());
+        restarted.tearDown();
+    }
+
+    private TradeFilter newTradeFilter(int commitEveryTrades) {
+        TradeFilter tradeFilter = new TradeFilter();
+        tradeFilter.setPointerFileName(tempDir.resolve("tradesIn.readPointer").toString());
+        tradeFilter.setCommitEveryTrades(commitEveryTrades);
+        tradeFilter.setCommitIntervalMicros(60_000_000);
+        tradeFilter.initialise();
+        return tradeFilter;
+    }
+
+    private long committedHighWater(int node) throws IOException {
+        byte[] pointer = Files.readAllBytes(tempDir.resolve("tradesIn.readPointer"));
+        return ByteBuffer.wrap(pointer).getLong(Long.BYTES + node * Long.BYTES);
+    }
+}
@@ -0,0 +1,58 @@
+package com.telamin.mongoose.example.pnl.calculator;
+
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+public class TradeToPositionAggregateTest {
+
+    private static final int TRADE_COUNT = 4096;
+    private static final int MEASURED_TRADES = 1_000_000;
+
+    @Test
+    public void testAggregatesBothLegs() {
+        TradeToPositionAggregate aggregate = new TradeToPositionAggregate();
+        aggregate.aggregate(new Trade(RefData.symbolEURUSD, 1, 100, -110));
+        PositionBook positionBook = aggregate.aggregate(new Trade(RefData.symbolUSDJPY, 2, 50, -7500));
+
+        Assertions.assertEquals(3, positionBook.instrumentCount());
+        Assertions.assertEquals(100, positionBook.position(RefData.EUR.id()));
+        Assertions.assertEquals(-60, positionBook.position(RefData.USD.id()));
+        Assertions.assertEquals(-7500, positionBook.position(RefData.JPY.id()));
+    }
+
+    @Test
+    public void testSteadyStateTradeAggregationIsAllocationFree() {
+        Trade[] trades = new Trade[TRADE_COUNT];
+        RandomTradeGenerator tradeGenerator = new RandomTradeGenerator();
+        for (int i = 0; i < TRADE_COUNT; i++) {
+            trades[i] = tradeGenerator.generateRandomTrade();
+        }
+
+        TradeToPositionAggregate tradeAggregate = new TradeToPositionAggregate();
+        double bytesPerTrade = allocatedBytesPerTrade(trades, tradeAggregate::aggregate);
+        Assertions.assertEquals(0, bytesPerTrade, 0.01);
+    }
+
+    private static double allocatedBytesPerTrade(Trade[] trades, Consumer<Trade> tradeConsumer) {
+        //warm up so the position arrays are sized and the aggregation path is compiled
+        publish(trades, tradeConsumer);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        publish(trades, tradeConsumer);
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        return (double) allocated / MEASURED_TRADES;
+    }
+
+    private static void publish(Trade[] trades, Consumer<Trade> tradeConsumer) {
+        for (int i = 0; i < MEASURED_TRADES; i++) {
+            tradeConsumer.accept(trades[i & (TRADE_COUNT - 1)]);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchedFileMessageSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testFlushOnCountAndBytesAndAppendOnRestart() throws IOException {
+        Path file = tempDir.resolve("data-out/trades.jsonl");
+        List<String> expected = new ArrayList<>();
+
+        BatchedFileMessageSink sink = newSink(file, 0, 10, 0);
+        for (int i = 0; i < 25; i++) {
+            Trade trade = new Trade(RefData.symbolEURUSD, i, i * 10.5, -i * 11.25);
+            sink.accept(trade);
+            expected.add(DataMappers.toJson(trade));
+        }
+        //two full batches written, five lines held until stop
+        Assertions.assertEquals(2, sink.getWriteCount());
+        Assertions.assertEquals(20, Files.readAllLines(file).size());
+        sink.stop();
+        Assertions.assertEquals(25, sink.getLineCount());
+        Assertions.assertEquals(3, sink.getWriteCount());
+
+        //restart appends, a line over flushBytes is written at once, mapped strings are written as they are
+        sink = newSink(file, 64, 0, 0);
+        MidPrice midPrice = new MidPrice(RefData.symbolGBPUSD, 1.2525);
+        sink.accept(midPrice);
+        expected.add(DataMappers.toJson(midPrice));
+        Assertions.assertEquals(1, sink.getWriteCount());
+        sink.accept("{\"mapped\":true}");
+        expected.add("{\"mapped\":true}");
+        sink.stop();
+
+        Assertions.assertEquals(expected, Files.readAllLines(file));
+    }
+
+    @Test
+    public void testLatencyFlushFromAgent() throws Exception {
+        Path file = tempDir.resolve("trades.jsonl");
+        BatchedFileMessageSink sink = newSink(file, 0, 0, 5);
+        sink.accept(new Trade(RefData.symbolEURUSD, 1, 100, -110.5));
+        Assertions.assertEquals(0, sink.doWork());
+        Thread.sleep(10);
+        Assertions.assertEquals(1, sink.doWork());
+        Assertions.assertEquals(1, Files.readAllLines(file).size());
+        Assertions.assertEquals(0, sink.doWork());
+        sink.stop();
+        Assertions.assertEquals(1, sink.getWriteCount());
+    }
+
+    private static BatchedFileMessageSink newSink(Path file, int flushBytes, int flushCount, long flushLatencyMillis) {
+        BatchedFileMessageSink sink = new BatchedFileMessageSink();
+        sink.setFilename(file.toString());
+        sink.setFlushBytes(flushBytes);
+        sink.setFlushCount(flushCount);
+        sink.setFlushLatencyMillis(flushLatencyMillis);
+        sink.init();
+        sink.start();
+        return sink;
+    }
+}
@@ -0,0 +1,134 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.BinaryRecordCodec;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BinaryFileMessageSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testAppendAcrossChunksAndRestart() throws IOException {
+        Path file = tempDir.resolve("data-in/trades.bin");
+        List<Object> expected = new ArrayList<>();
+
+        BinaryFileMessageSink sink = newSink(file);
+        for (int i = 0; i < 40; i++) {
+            Trade trade = new Trade(i % 2 == 0 ? RefData.symbolEURUSD : RefData.symbolGBPUSD, i, i, -i * 1.2);
+            sink.accept(trade);
+            expected.add(trade);
+        }
+        sink.stop();
+
+        //restart appends after the last record and reuses the file symbol ids
+        sink = newSink(file);
+        MidPrice midPrice = new MidPrice(RefData.symbolGBPUSD, 1.25);
+        sink.accept(midPrice);
+        expected.add(midPrice);
+        sink.stop();
+
+        Assertions.assertEquals(expected, readAll(file, 512));
+    }
+
+    @Test
+    public void testSparseIndexSeekAfterRestart() throws IOException {
+        Path file = tempDir.resolve("data-in/trades.bin");
+        List<Object> expected = new ArrayList<>();
+        BinaryFileMessageSink sink = newSink(file);
+        for (int i = 1; i <= 300; i++) {
+            if (i == 150) {
+                //restart rebuilds the index, later events are appended to it
+                sink.stop();
+                sink = newSink(file);
+            }
+            //a symbol first used mid file is only decodable after seeking if its definition is indexed
+            Trade trade = new Trade(i < 200 ? RefData.symbolEURUSD : RefData.symbolUSDJPY, i, i, -i * 1.2);
+            sink.accept(trade);
+            expected.add(trade);
+        }
+        sink.stop();
+
+        SparseRecordIndex index = SparseRecordIndex.load(file.toString());
+        Assertions.assertEquals(16, index.getIndexInterval());
+        Assertions.assertEquals(300 / 16 + 1, index.getEntryCount());
+        Assertions.assertEquals(2, index.getSymbolDefinitionCount());
+
+        int entry = index.floorByTradeId(250);
+        Assertions.assertTrue(index.lastTradeId(entry) <= 250 && 250 - index.lastTradeId(entry) < 16);
+        List<Object> tail = readFrom(file, 512, index, entry);
+        Assertions.assertEquals(expected.subList((int) index.eventCount(entry), expected.size()), tail);
+
+        entry = index.floorByEventCount(100);
+        Assertions.assertEquals(96, index.eventCount(entry));
+        Assertions.assertEquals(expected.subList(96, expected.size()), readFrom(file, 512, index, entry));
+        Assertions.assertEquals(-1, index.floorByEpochNanos(index.epochNanos(0) - 1));
+    }
+
+    private static BinaryFileMessageSink newSink(Path file) {
+        BinaryFileMessageSink sink = new BinaryFileMessageSink();
+        sink.setFilename(file.toString());
+        sink.setChunkSize(512);
+        sink.setIndexInterval(16);
+        sink.init();
+        sink.start();
+        return sink;
+    }
+
+    private static List<Object> readFrom(Path file, int chunkSize, SparseRecordIndex index, int entry) throws IOException {
+        List<Object> events = new ArrayList<>();
+        BinaryRecordCodec codec = new BinaryRecordCodec();
+        long seekOffset = index.fileOffset(entry);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < index.getSymbolDefinitionCount() && index.symbolDefinitionOffset(i) < seekOffset; i++) {
+                long offset = index.symbolDefinitionOffset(i);
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, offset - offset % chunkSize, chunkSize);
+                codec.decode(chunk, (int) (offset % chunkSize));
+            }
+            int offset = (int) (seekOffset % chunkSize);
+            for (long chunkStart = seekOffset - offset; chunkStart < channel.size(); chunkStart += chunkSize, offset = 0) {
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkSize);
+                int length;
+                for (; offset < chunkSize && (length = BinaryRecordCodec.recordLength(chunk, offset)) > 0; offset += length) {
+                    Object event = codec.decode(chunk, offset);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+
+    private static List<Object> readAll(Path file, int chunkSize) throws IOException {
+        List<Object> events = new ArrayList<>();
+        BinaryRecordCodec codec = new BinaryRecordCodec();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Assertions.assertEquals(chunkSize, BinaryFileMessageSink.readChunkSize(channel));
+            for (long chunkStart = 0; chunkStart < channel.size(); chunkStart += chunkSize) {
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkSize);
+                int length;
+                for (int offset = 0; offset < chunkSize && (length = BinaryRecordCodec.recordLength(chunk, offset)) > 0; offset += length) {
+                    Object event = codec.decode(chunk, offset);
+                    if (event != null) {
+                        events.add(event);
+                    }
+                }
+            }
+        }
+        return events;
+    }
+}
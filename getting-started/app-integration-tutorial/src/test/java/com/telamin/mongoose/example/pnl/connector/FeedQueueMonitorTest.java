@@ -0,0 +1,100 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.fluxtion.agrona.concurrent.OneToOneConcurrentArrayQueue;
+import com.telamin.mongoose.dispatch.EventToQueuePublisher;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FeedQueueMonitorTest {
+
+    private final OneToOneConcurrentArrayQueue<Object> queue = new OneToOneConcurrentArrayQueue<>(4);
+
+    @Test
+    public void testBlockHoldsEventsInOrderUntilQueueDrains() {
+        FeedQueueMonitor monitor = newMonitor(BackpressurePolicy.BLOCK);
+        for (int i = 0; i < 6; i++) {
+            monitor.publish("event-" + i);
+        }
+        Assertions.assertEquals(4, queue.size());
+        Assertions.assertEquals(2, monitor.backlogSize());
+        Assertions.assertFalse(monitor.acceptingEvents());
+
+        List<Object> received = poll(3);
+        Assertions.assertEquals(2, monitor.doWork());
+        Assertions.assertTrue(monitor.acceptingEvents());
+        received.addAll(poll(3));
+        Assertions.assertEquals(List.of("event-0", "event-1", "event-2", "event-3", "event-4", "event-5"), received);
+
+        monitor.doWork();
+        FeedQueueMonitor.QueueMetrics metrics = monitor.getQueueMetrics().get("q");
+        Assertions.assertEquals(6, metrics.enqueuedCount());
+        Assertions.assertEquals(6, metrics.dequeuedCount());
+        Assertions.assertEquals(0, metrics.getDepth());
+        Assertions.assertEquals(4, metrics.getHighWatermark());
+        Assertions.assertEquals(6, metrics.getTimeInQueue().getCount());
+    }
+
+    @Test
+    public void testDropOldestKeepsNewestBacklog() {
+        FeedQueueMonitor monitor = newMonitor(BackpressurePolicy.DROP_OLDEST);
+        monitor.setBacklogCapacity(2);
+        for (int i = 0; i < 8; i++) {
+            monitor.publish("event-" + i);
+            Assertions.assertTrue(monitor.acceptingEvents());
+        }
+        Assertions.assertEquals(2, monitor.getDroppedCount());
+        poll(4);
+        monitor.doWork();
+        Assertions.assertEquals(List.of("event-6", "event-7"), poll(4));
+    }
+
+    @Test
+    public void testConflateKeepsLatestPricePerSymbolInPlace() {
+        FeedQueueMonitor monitor = newMonitor(BackpressurePolicy.CONFLATE);
+        for (int i = 0; i < 4; i++) {
+            monitor.publish("fill-" + i);
+        }
+        monitor.publish(new MidPrice(RefData.symbolEURUSD, 1.1));
+        monitor.publish("trade");
+        monitor.publish(new MidPrice(RefData.symbolEURUSD, 1.2));
+        monitor.publish(new MidPrice(RefData.symbolGBPUSD, 1.3));
+        Assertions.assertEquals(1, monitor.getConflatedCount());
+        Assertions.assertEquals(3, monitor.backlogSize());
+
+        poll(4);
+        monitor.doWork();
+        Assertions.assertEquals(List.of(new MidPrice(RefData.symbolEURUSD, 1.2), "trade",
+                new MidPrice(RefData.symbolGBPUSD, 1.3)), poll(4));
+    }
+
+    @Test
+    public void testFailThrowsWhenQueueFull() {
+        FeedQueueMonitor monitor = newMonitor(BackpressurePolicy.FAIL);
+        for (int i = 0; i < 4; i++) {
+            monitor.publish("event-" + i);
+        }
+        Assertions.assertThrows(IllegalStateException.class, () -> monitor.publish("overflow"));
+    }
+
+    private FeedQueueMonitor newMonitor(BackpressurePolicy policy) {
+        EventToQueuePublisher<Object> output = new EventToQueuePublisher<>("test");
+        output.addTargetQueue(queue, "q");
+        FeedQueueMonitor monitor = new FeedQueueMonitor("test", output);
+        monitor.setPolicy(policy);
+        return monitor;
+    }
+
+    private List<Object> poll(int count) {
+        List<Object> events = new ArrayList<>();
+        Object event;
+        while (events.size() < count && (event = queue.poll()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,90 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.fluxtion.runtime.DataFlow;
+import com.telamin.mongoose.example.pnl.PnlCalculationProcessor;
+import com.telamin.mongoose.example.pnl.events.ConflatedMidPrice;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MidPriceConflatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testLatestValuePerSymbolInDirtyOrder() {
+        MidPriceConflator conflator = new MidPriceConflator();
+        ConflatedMidPrice eurUsd = conflator.conflate(new MidPrice(RefData.symbolEURUSD, 1.1));
+        ConflatedMidPrice gbpUsd = conflator.conflate(new MidPrice(RefData.symbolGBPUSD, 1.3));
+        Assertions.assertNull(conflator.conflate(new MidPrice(RefData.symbolEURUSD, 1.2)));
+        Assertions.assertEquals(0, conflator.resumeEventCount());
+
+        Assertions.assertEquals(new MidPrice(RefData.symbolEURUSD, 1.2), eurUsd.take());
+        //gbp, the second price read, is still pending
+        Assertions.assertEquals(1, conflator.resumeEventCount());
+        Assertions.assertEquals(new MidPrice(RefData.symbolGBPUSD, 1.3), gbpUsd.take());
+        Assertions.assertEquals(3, conflator.resumeEventCount());
+
+        //a taken slot is published again by the next price
+        Assertions.assertSame(eurUsd, conflator.conflate(new MidPrice(RefData.symbolEURUSD, 1.15)));
+        Assertions.assertEquals(3, conflator.resumeEventCount());
+        Assertions.assertEquals(4, conflator.getOfferedCount());
+        Assertions.assertEquals(3, conflator.getPublishedCount());
+        Assertions.assertEquals(1, conflator.getConflatedCount());
+
+        Trade trade = new Trade(RefData.symbolEURUSD, 1, -1.1, 1);
+        Assertions.assertSame(trade, conflator.apply(trade));
+    }
+
+    @Test
+    public void testSlowProcessorSeesLatestPrices() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(7);
+        List<Object> events = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            events.add(i % 2 == 0 ? generator.generateRandomMidPrice() : generator.generateRandomTrade());
+        }
+        double[] fullReplayPnl = new double[1];
+        DataFlow fullReplay = pnlProcessor("full", fullReplayPnl);
+        events.forEach(fullReplay::onEvent);
+
+        //the processor drains the queue every 100 feed events, trades keep their order between the prices
+        MidPriceConflator conflator = new MidPriceConflator();
+        double[] conflatedPnl = new double[1];
+        DataFlow conflated = pnlProcessor("conflated", conflatedPnl);
+        List<Object> queue = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            Object published = conflator.apply(events.get(i));
+            if (published != null) {
+                queue.add(published);
+            }
+            if (i % 100 == 99) {
+                queue.forEach(conflated::onEvent);
+                queue.clear();
+            }
+        }
+        queue.forEach(conflated::onEvent);
+
+        Assertions.assertEquals(1_000, conflator.getOfferedCount());
+        Assertions.assertTrue(conflator.getConflatedCount() > 0);
+        Assertions.assertEquals(1_000, conflator.resumeEventCount());
+        Assertions.assertEquals(fullReplayPnl[0], conflatedPnl[0], 1e-6 * Math.abs(fullReplayPnl[0]));
+    }
+
+    private DataFlow pnlProcessor(String name, double[] lastPnl) {
+        PnlCalculationProcessor processor = new PnlCalculationProcessor();
+        processor.setPointerFileName(tempDir.resolve(name + ".readPointer").toString());
+        DataFlow dataFlow = processor.get();
+        dataFlow.addSink(processor.getSinkId(), (PnlSummary summary) -> lastPnl[0] = summary.getPnl());
+        return dataFlow;
+    }
+}
@@ -0,0 +1,60 @@
+package com.telamin.mongoose.example.pnl.connector;
+
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import com.telamin.mongoose.example.pnl.helper.RandomTradeGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class OrderedParallelDecoderTest {
+
+    @Test
+    public void testResultsPublishedInLineOrder() {
+        RandomTradeGenerator generator = new RandomTradeGenerator(5);
+        List<Trade> expected = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Trade trade = generator.generateRandomTrade();
+            expected.add(trade);
+            lines.add(DataMappers.toJson(trade));
+        }
+
+        List<Trade> decoded = new ArrayList<>();
+        //a small ring forces the reader to drain while lines are still being decoded
+        try (OrderedParallelDecoder<Trade> decoder = new OrderedParallelDecoder<>(
+                "test", line -> DataMappers.toObject(line, Trade.class), 4, 64)) {
+            for (String line : lines) {
+                while (!decoder.offer(line)) {
+                    decoder.drain(decoded::add);
+                }
+            }
+            while (decoder.inFlight() > 0) {
+                decoder.drain(decoded::add);
+            }
+        }
+        Assertions.assertEquals(expected, decoded);
+    }
+
+    @Test
+    public void testDecodeFailureRethrownInOrder() {
+        List<Integer> decoded = new ArrayList<>();
+        try (OrderedParallelDecoder<Integer> decoder = new OrderedParallelDecoder<>("test", Integer::valueOf, 2, 16)) {
+            decoder.offer("1");
+            decoder.offer("x");
+            decoder.offer("3");
+            Assertions.assertThrows(NumberFormatException.class, () -> {
+                while (decoder.inFlight() > 0) {
+                    decoder.drain(decoded::add);
+                }
+            });
+            Assertions.assertEquals(List.of(1), decoded);
+            while (decoder.inFlight() > 0) {
+                decoder.drain(decoded::add);
+            }
+        }
+        Assertions.assertEquals(List.of(1, 3), decoded);
+    }
+}
@@ -0,0 +1,81 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BinaryRecordCodecTest {
+
+    @Test
+    public void testRoundTripWithSymbolDefinitions() {
+        List<Object> events = List.of(
+                new Trade(RefData.symbolEURUSD, 1, 100, -110.5),
+                new MidPrice(RefData.symbolEURUSD, 1.105),
+                new MidPrice(RefData.symbolUSDJPY, 151.25),
+                new Trade(RefData.symbolUSDJPY, Long.MAX_VALUE, -250.25, 37812.5),
+                new Trade(RefData.symbolEURUSD, 3, -1, 1.1));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        BinaryRecordCodec writer = new BinaryRecordCodec();
+        int position = 0;
+        for (Object event : events) {
+            int length = writer.encodedLength(event);
+            Assertions.assertEquals(length, writer.encode(event, buffer, position));
+            Assertions.assertEquals(0, length % BinaryRecordCodec.RECORD_ALIGNMENT);
+            position += length;
+        }
+        //two symbol definitions and five data records
+        Assertions.assertEquals(7 * BinaryRecordCodec.RECORD_ALIGNMENT, position);
+
+        BinaryRecordCodec reader = new BinaryRecordCodec();
+        List<Object> decoded = new ArrayList<>();
+        int length;
+        for (int offset = 0; (length = BinaryRecordCodec.recordLength(buffer, offset)) > 0; offset += length) {
+            Object event = reader.decode(buffer, offset);
+            if (event != null) {
+                decoded.add(event);
+            }
+        }
+        Assertions.assertEquals(events, decoded);
+        Assertions.assertEquals(RefData.symbolUSDJPY.id(), ((Trade) decoded.get(3)).symbol().id());
+    }
+
+    @Test
+    public void testIntendedSendTimeRoundTrip() {
+        List<Object> events = List.of(
+                new Trade(RefData.symbolEURUSD, 1, 100, -110.5, 1_700_000_000_123_456_789L),
+                new MidPrice(RefData.symbolEURUSD, 1.105, 1_700_000_000_223_456_789L),
+                new Trade(RefData.symbolEURUSD, 2, -1, 1.1));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+        BinaryRecordCodec writer = new BinaryRecordCodec();
+        int position = 0;
+        for (Object event : events) {
+            position += writer.encode(event, buffer, position);
+        }
+        //symbol definition, two slot timed trade, mid price and trade
+        Assertions.assertEquals(5 * BinaryRecordCodec.RECORD_ALIGNMENT, position);
+
+        BinaryRecordCodec reader = new BinaryRecordCodec();
+        List<Object> decoded = new ArrayList<>();
+        int length;
+        for (int offset = 0; (length = BinaryRecordCodec.recordLength(buffer, offset)) > 0; offset += length) {
+            Object event = reader.decode(buffer, offset);
+            if (event != null) {
+                decoded.add(event);
+            }
+        }
+        Assertions.assertEquals(events, decoded);
+    }
+
+    @Test
+    public void testUnsupportedEventHasNoEncoding() {
+        Assertions.assertEquals(0, new BinaryRecordCodec().encodedLength("not a feed record"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.calculator.InstrumentPosMtm;
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.PnlSummary;
+import com.telamin.mongoose.example.pnl.events.ReportingPnl;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class JsonCodecsTest {
+
+    @Test
+    public void testCodecOutputMatchesJackson() {
+        for (Object event : events()) {
+            Assertions.assertEquals(DataMappers.toJson(event), JsonCodecs.toJson(event));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (Object event : events()) {
+            String json = DataMappers.toJson(event);
+            Object decoded = JsonCodecs.toObject(json, event.getClass());
+            Assertions.assertEquals(event, decoded);
+            Assertions.assertEquals(json, JsonCodecs.toJson(decoded));
+        }
+    }
+
+    @Test
+    public void testDoublesWrittenAsDoubleToString() {
+        SplittableRandom random = new SplittableRandom(42);
+        JsonWriter writer = new JsonWriter();
+        double[] edges = {0.0, -0.0, 1e-3, 9.99e-4, 1e7, 9999999.99, 0.1 + 0.2, 1.0, -5.0, 123456.789012, Math.PI,
+                Double.MIN_VALUE, Double.MAX_VALUE, 1.0E-7};
+        for (double value : edges) {
+            Assertions.assertEquals(Double.toString(value), writer.reset().field("v", value).toString().substring(4));
+        }
+        for (int i = 0; i < 200_000; i++) {
+            double value = switch (i % 4) {
+                case 0 -> Math.round(random.nextDouble(-2000, 2000) * 100.0) / 100.0;
+                case 1 -> Math.round(random.nextDouble(0.5, 200) * 10000.0) / 10000.0;
+                case 2 -> random.nextDouble(-1e8, 1e8);
+                default -> Math.round(random.nextDouble(-1e7, 1e7) * 1e6) / 1e6;
+            };
+            writer.reset().writeDouble(value);
+            Assertions.assertEquals(Double.toString(value), writer.toString());
+        }
+    }
+
+    @Test
+    public void testDecodeFromReusedBytes() {
+        String json = DataMappers.toJson(new Trade(RefData.symbolUSDJPY, 7, -250.25, 37812.5, 1_700_000_000_123L));
+        byte[] line = ("  " + json + "\n").getBytes(StandardCharsets.UTF_8);
+        JsonReader reader = JsonCodecs.reader();
+        Trade trade = JsonCodecs.codecFor(Trade.class).decode(reader.reset(line, 2, line.length - 3));
+        Assertions.assertEquals(7, trade.id());
+        Assertions.assertEquals(-250.25, trade.dealtVolume());
+        Assertions.assertEquals(37812.5, trade.contraVolume());
+        Assertions.assertEquals(1_700_000_000_123L, trade.intendedSendNanos());
+        Assertions.assertEquals(RefData.symbolUSDJPY, trade.symbol());
+    }
+
+    @Test
+    public void testUnknownFieldsAndSpacingAreSkipped() {
+        String json = "{ \"extra\" : [1, {\"a\":\"}\"}], \"rate\" : 1.25e2 , \"symbol\":"
+                + DataMappers.toJson(RefData.symbolEURUSD) + ", \"note\":null}";
+        MidPrice midPrice = JsonCodecs.toObject(json, MidPrice.class);
+        Assertions.assertEquals(125.0, midPrice.rate());
+        Assertions.assertEquals(RefData.symbolEURUSD, midPrice.symbol());
+    }
+
+    @Test
+    public void testTypesWithoutCodecUseJackson() {
+        Assertions.assertEquals(DataMappers.toJson(RefData.symbolEURUSD), JsonCodecs.toJson(RefData.symbolEURUSD));
+        MapFromJson mapFromJson = new MapFromJson();
+        mapFromJson.setTargetType(MidPrice.class.getName());
+        MidPrice midPrice = new MidPrice(RefData.symbolEURUSD, 1.0842);
+        Assertions.assertEquals(midPrice, mapFromJson.apply(new MapToJson().apply(midPrice)));
+    }
+
+    private static List<Object> events() {
+        PnlSummary pnlSummary = new PnlSummary();
+        pnlSummary.setPnl(Double.NaN);
+        InstrumentPosMtm eur = new InstrumentPosMtm();
+        eur.setInstrument(RefData.EUR);
+        eur.setPosition(203.43);
+        eur.setMtmPosition(Double.NaN);
+        pnlSummary.getMtmAssetMap().put(RefData.EUR, eur);
+        InstrumentPosMtm usd = new InstrumentPosMtm();
+        usd.setInstrument(RefData.USD);
+        usd.setPosition(-1.0E-7);
+        usd.setMtmPosition(-118.45);
+        pnlSummary.getMtmAssetMap().put(RefData.USD, usd);
+        ReportingPnl reportingPnl = new ReportingPnl(RefData.EUR);
+        reportingPnl.setRate(1.0842);
+        reportingPnl.setPnl(1234567.891011);
+        pnlSummary.getReportingPnls().add(reportingPnl);
+        pnlSummary.getReportingPnls().add(new ReportingPnl(RefData.USD));
+
+        return List.of(
+                new Trade(RefData.symbolEURUSD, 1, 203.43, -118.45),
+                new Trade(RefData.symbolUSDJPY, Long.MAX_VALUE, -0.1, 1.7976931348623157E308, 1_700_000_000_123L),
+                new Trade(RefData.symbolEURUSD, -3, 12345678.123456789, 4.9E-324),
+                new MidPrice(RefData.symbolEURUSD, 1.8285),
+                new MidPrice(RefData.symbolUSDJPY, 151.25, 42),
+                pnlSummary,
+                new PnlSummary());
+    }
+}
@@ -0,0 +1,37 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OpenLoopScheduleTest {
+
+    @Test
+    public void testIntendedTimesIgnoreSendDelays() {
+        OpenLoopSchedule schedule = new OpenLoopSchedule(1_000_000, 1);
+        schedule.start(5_000);
+        Assertions.assertTrue(schedule.isDue(5_000));
+        Assertions.assertEquals(5_000, schedule.next());
+        Assertions.assertFalse(schedule.isDue(5_999));
+
+        //a sender stalled for 10 micros catches up with the intended times, not the time it woke up
+        int sent = 0;
+        long lastIntended = 0;
+        while (schedule.isDue(16_000)) {
+            lastIntended = schedule.next();
+            sent++;
+        }
+        Assertions.assertEquals(11, sent);
+        Assertions.assertEquals(16_000, lastIntended);
+    }
+
+    @Test
+    public void testBurstsShareAnIntendedTime() {
+        OpenLoopSchedule schedule = new OpenLoopSchedule(1_000, 4);
+        schedule.start(0);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(0, schedule.next());
+        }
+        Assertions.assertEquals(4_000_000, schedule.next());
+        Assertions.assertEquals(5, schedule.getSentCount());
+    }
+}
@@ -0,0 +1,98 @@
+package com.telamin.mongoose.example.pnl.helper;
+
+import com.telamin.mongoose.example.pnl.events.MidPrice;
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.refdata.RefData;
+import com.telamin.mongoose.example.pnl.refdata.Symbol;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class SyntheticUniverseTest {
+
+    @Test
+    public void testConnectedRateGraphOfRequestedSize() {
+        SyntheticUniverse universe = new SyntheticUniverse(2_000, 5_000, 42);
+        Assertions.assertEquals(2_000, universe.instruments().size());
+        Assertions.assertEquals(5_000, universe.symbols().size());
+        Assertions.assertEquals(RefData.USD, universe.instruments().get(0));
+
+        int[] parents = new int[universe.instruments().size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        Set<String> pairs = new HashSet<>();
+        Map<String, Integer> instrumentIndex = new HashMap<>();
+        for (int i = 0; i < universe.instruments().size(); i++) {
+            instrumentIndex.put(universe.instruments().get(i).instrumentName(), i);
+        }
+        for (int i = 0; i < universe.symbols().size(); i++) {
+            Symbol symbol = universe.symbols().get(i);
+            int dealt = instrumentIndex.get(symbol.dealtInstrument().instrumentName());
+            int contra = instrumentIndex.get(symbol.contraInstrument().instrumentName());
+            Assertions.assertNotEquals(dealt, contra);
+            Assertions.assertTrue(pairs.add(Math.min(dealt, contra) + ":" + Math.max(dealt, contra)), "duplicate pair");
+            Assertions.assertEquals(universe.usdValue(dealt) / universe.usdValue(contra), universe.midRate(i), 1e-4);
+            parents[root(parents, dealt)] = root(parents, contra);
+        }
+        int root = root(parents, 0);
+        for (int i = 0; i < parents.length; i++) {
+            Assertions.assertEquals(root, root(parents, i), "instrument not connected:" + i);
+        }
+    }
+
+    @Test
+    public void testSameSeedSameUniverseAndEvents() {
+        SyntheticUniverse universe = SyntheticUniverse.withDensity(500, 1.5, 7);
+        Assertions.assertEquals(750, universe.symbols().size());
+        Assertions.assertEquals(universe.symbols(), SyntheticUniverse.withDensity(500, 1.5, 7).symbols());
+        Assertions.assertNotEquals(universe.symbols(), SyntheticUniverse.withDensity(500, 1.5, 8).symbols());
+        Assertions.assertEquals(499, SyntheticUniverse.withDensity(500, 0.5, 7).symbols().size());
+
+        RandomTradeGenerator first = new RandomTradeGenerator(universe, 3);
+        RandomTradeGenerator second = new RandomTradeGenerator(universe, 3);
+        for (int i = 0; i < 1_000; i++) {
+            Trade trade = first.generateRandomTrade();
+            Trade other = second.generateRandomTrade();
+            Assertions.assertEquals(trade.symbol(), other.symbol());
+            Assertions.assertEquals(trade.dealtVolume(), other.dealtVolume());
+            Assertions.assertEquals(trade.contraVolume(), other.contraVolume());
+            MidPrice midPrice = first.generateRandomMidPrice();
+            Assertions.assertEquals(midPrice, second.generateRandomMidPrice());
+            int symbolIndex = universe.symbols().indexOf(midPrice.symbol());
+            Assertions.assertEquals(universe.midRate(symbolIndex), midPrice.rate(), universe.midRate(symbolIndex) * 0.006);
+        }
+    }
+
+    @Test
+    public void testZipfSkewOverUniverseSymbols() {
+        SyntheticUniverse universe = SyntheticUniverse.withDensity(10_000, 2, 42);
+        RandomTradeGenerator generator = new RandomTradeGenerator(universe, 42);
+        generator.setSymbolSkew(1.0);
+        List<Symbol> symbols = universe.symbols();
+        Map<Symbol, Integer> symbolIndex = new HashMap<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            symbolIndex.put(symbols.get(i), i);
+        }
+        int[] counts = new int[symbols.size()];
+        for (int i = 0; i < 100_000; i++) {
+            counts[symbolIndex.get(generator.generateRandomTrade().symbol())]++;
+        }
+        //harmonic weights over 20k symbols give the first symbol about 9% of trades and the second half of that
+        Assertions.assertTrue(counts[0] > 8_000 && counts[0] < 10_000, "first symbol trades:" + counts[0]);
+        Assertions.assertEquals(2.0, counts[0] / (double) counts[1], 0.3);
+    }
+
+    private static int root(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+}
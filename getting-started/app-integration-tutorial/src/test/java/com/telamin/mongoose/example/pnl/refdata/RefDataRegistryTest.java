@@ -0,0 +1,41 @@
+package com.telamin.mongoose.example.pnl.refdata;
+
+import com.telamin.mongoose.example.pnl.events.Trade;
+import com.telamin.mongoose.example.pnl.helper.DataMappers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RefDataRegistryTest {
+
+    @Test
+    public void testIdsInternedByName() {
+        Instrument eur = new Instrument("EUR");
+        Assertions.assertEquals(RefData.EUR.id(), eur.id());
+        Assertions.assertEquals(RefData.EUR, eur);
+        Assertions.assertEquals("EUR", RefDataRegistry.instrumentName(eur.id()));
+
+        Instrument firstSight = new Instrument("RefDataRegistryTest-NEW");
+        Assertions.assertEquals(RefDataRegistry.instrumentCount() - 1, firstSight.id());
+        Assertions.assertNotEquals(RefData.EUR, firstSight);
+    }
+
+    @Test
+    public void testIdMustBeInternedId() {
+        Assertions.assertEquals(RefData.EUR, new Instrument("EUR", RefData.EUR.id()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Instrument("EUR", RefData.USD.id()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Instrument("EUR", -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Symbol("EURUSD", RefData.EUR, RefData.USD,
+                RefData.symbolEURUSD.id() + 1));
+    }
+
+    @Test
+    public void testJsonRoundTripAssignsIds() {
+        Assertions.assertEquals("{\"instrumentName\":\"USD\"}", DataMappers.toJson(RefData.USD));
+
+        Trade trade = new Trade(RefData.symbolEURUSD, 42, 100, -110);
+        Trade readTrade = DataMappers.toObject(DataMappers.toJson(trade), Trade.class);
+        Assertions.assertEquals(trade, readTrade);
+        Assertions.assertEquals(RefData.symbolEURUSD.id(), readTrade.symbol().id());
+        Assertions.assertEquals(RefData.USD.id(), readTrade.contraInstrument().id());
+    }
+}
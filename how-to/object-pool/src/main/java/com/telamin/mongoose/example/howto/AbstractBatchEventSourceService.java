@@ -0,0 +1,75 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.fluxtion.runtime.annotations.runtime.ServiceRegistered;
+import com.telamin.mongoose.service.extension.AbstractEventSourceService;
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.ObjectPoolsRegistry;
+
+/**
+ * An event source that publishes events one at a time or in batches. A batch is claimed for N events, filled in order
+ * and committed as one {@link EventBatch}, so subscribers see one queue offer and one event cycle for the whole batch:
+ *
+ * <pre>{@code
+ * EventBatch<PooledMessage> batch = claim(64);
+ * for (int i = 0; i < 64; i++) {
+ *     PooledMessage msg = pool.acquire();
+ *     msg.value = value;
+ *     batch.add(msg);
+ * }
+ * commit(batch);
+ * }</pre>
+ * <p>
+ * Events of a batch keep their order, and batches and single events from one source arrive in publish order. The
+ * reference of each pooled event is held by its batch until every subscriber has handled the batch, see
+ * {@link EventBatch}.
+ * <p>
+ * Subscribers receive the {@link EventBatch} container, not the events it holds. A subscriber with a typed handler for
+ * T alone never sees a batched event, every subscriber of a batching source must accept {@link EventBatch} and
+ * handle its events in turn.
+ * <p>
+ * Batches are pooled in the injected {@link ObjectPoolsRegistry}, a subclass overriding
+ * {@link #setObjectPoolsRegistry(ObjectPoolsRegistry, String)} calls super. Like publish, claim and commit are called
+ * from the one publishing thread of the source.
+ *
+ * @param <T> the type of the events published
+ */
+public abstract class AbstractBatchEventSourceService<T> extends AbstractEventSourceService<Object> {
+
+    private ObjectPool<EventBatch<T>> batchPool;
+
+    protected AbstractBatchEventSourceService(String name) {
+        super(name);
+    }
+
+    @ServiceRegistered
+    @SuppressWarnings("unchecked")
+    public void setObjectPoolsRegistry(ObjectPoolsRegistry objectPoolsRegistry, String name) {
+        Class<EventBatch<T>> batchType = (Class<EventBatch<T>>) (Class<?>) EventBatch.class;
+        this.batchPool = objectPoolsRegistry.getOrCreate(batchType, EventBatch::new, EventBatch::clear);
+    }
+
+    /**
+     * @param size the events the batch is expected to hold, a batch grows if more are added
+     * @return an empty batch to fill and {@link #commit(EventBatch)}
+     */
+    protected EventBatch<T> claim(int size) {
+        if (batchPool == null) {
+            throw new IllegalStateException("batch pool not initialized, no ObjectPoolsRegistry injected into " + getName());
+        }
+        EventBatch<T> batch = batchPool.acquire();
+        batch.ensureCapacity(size);
+        return batch;
+    }
+
+    /**
+     * Publishes batch to all subscribers as one event. The batch and its events must not be used after commit.
+     */
+    protected void commit(EventBatch<T> batch) {
+        if (batch.isEmpty()) {
+            batch.getPoolTracker().releaseReference();
+            batch.getPoolTracker().returnToPool();
+            return;
+        }
+        output.publish(batch);
+    }
+}
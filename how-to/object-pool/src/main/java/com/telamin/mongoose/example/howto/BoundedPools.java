@@ -0,0 +1,364 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.fluxtion.runtime.annotations.runtime.ServiceRegistered;
+import com.telamin.fluxtion.runtime.lifecycle.Lifecycle;
+import com.telamin.mongoose.service.admin.AdminCommandRegistry;
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.ObjectPoolsRegistry;
+import com.telamin.mongoose.service.pool.PoolAware;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded object pools configured per pooled type with a {@link PoolConfig}: a pre-warmed initial size, a max size, an
+ * idle shrink and an exhaustion policy. Pools created through the registry returned by
+ * {@link #bound(ObjectPoolsRegistry)} for a configured type are bounded, other types pass through unchanged.
+ * <p>
+ * A registry pool has a fixed capacity and never frees an object, so a bounded pool holds one registry pool at a time,
+ * a generation. Growing past maxSize with {@link PoolConfig.ExhaustionPolicy#ALLOCATE} and shrinking replace the
+ * generation with a new one, the objects of the old generation return to it when released and are then collected with
+ * it. The bounded pool owns its type in the registry, a replacement removes the type and creates it again.
+ * <p>
+ * Registered as a service, configured from {@link com.telamin.mongoose.config.MongooseServerConfig} or YAML, a
+ * background thread checks for idle pools every {@value #SHRINK_CHECK_MILLIS} milliseconds, and with an
+ * {@link AdminCommandRegistry} the admin command pool.bounds prints one line per bounded pool.
+ */
+public class BoundedPools implements Lifecycle {
+
+    static final long SHRINK_CHECK_MILLIS = 100;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private Map<String, PoolConfig> pools = new HashMap<>();
+    private final List<BoundedPool<?>> boundedPools = new CopyOnWriteArrayList<>();
+    private AdminCommandRegistry adminRegistry;
+    private ScheduledExecutorService shrinkExecutor;
+
+    @ServiceRegistered
+    public void admin(AdminCommandRegistry adminRegistry) {
+        this.adminRegistry = adminRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (adminRegistry != null) {
+            adminRegistry.registerCommand("pool.bounds", this::bounds);
+        }
+        shrinkExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bounded-pools-shrink");
+            thread.setDaemon(true);
+            return thread;
+        });
+        shrinkExecutor.scheduleAtFixedRate(
+                this::shrinkIdlePools, SHRINK_CHECK_MILLIS, SHRINK_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (shrinkExecutor != null) {
+            shrinkExecutor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void tearDown() {
+        stop();
+    }
+
+    /**
+     * @return the pool configs keyed by the pooled class name, fully qualified or simple
+     */
+    public Map<String, PoolConfig> getPools() {
+        return pools;
+    }
+
+    public void setPools(Map<String, PoolConfig> pools) {
+        this.pools = pools;
+    }
+
+    public BoundedPools addPool(Class<? extends PoolAware> pooledType, PoolConfig config) {
+        pools.put(pooledType.getName(), config);
+        return this;
+    }
+
+    /**
+     * @return the config of pooledType, or null when its pools are not bounded
+     */
+    public PoolConfig config(Class<?> pooledType) {
+        PoolConfig config = pools.get(pooledType.getName());
+        return config != null ? config : pools.get(pooledType.getSimpleName());
+    }
+
+    /**
+     * @return a registry creating bounded pools in registry for the configured types
+     */
+    public ObjectPoolsRegistry bound(ObjectPoolsRegistry registry) {
+        return new BoundedRegistry(registry);
+    }
+
+    public List<BoundedPool<?>> allPools() {
+        return List.copyOf(boundedPools);
+    }
+
+    private void shrinkIdlePools() {
+        long now = System.nanoTime();
+        boundedPools.forEach(pool -> pool.shrinkIfIdle(now));
+    }
+
+    private void bounds(List<String> args, Consumer<Object> out, Consumer<Object> err) {
+        if (boundedPools.isEmpty()) {
+            out.accept("no bounded pools");
+            return;
+        }
+        boundedPools.forEach(pool -> out.accept(pool.toString()));
+    }
+
+    /**
+     * A pool of at most maxSize objects unless its policy is {@link PoolConfig.ExhaustionPolicy#ALLOCATE}.
+     * {@link #acquire()} returns null when the policy is {@link PoolConfig.ExhaustionPolicy#REJECT} and the pool is
+     * exhausted.
+     */
+    public static class BoundedPool<T extends PoolAware> implements ObjectPool<T> {
+
+        private final Class<T> pooledType;
+        private final ObjectPoolsRegistry registry;
+        private final Supplier<T> factory;
+        private final Consumer<T> reset;
+        private final PoolConfig config;
+        private final AtomicLong acquires = new AtomicLong();
+        private final AtomicLong grows = new AtomicLong();
+        private final AtomicLong spins = new AtomicLong();
+        private final AtomicLong blocks = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong shrinks = new AtomicLong();
+        private volatile Generation<T> generation;
+        private long lastCheckedAcquires;
+        private long idleSinceNanos = System.nanoTime();
+
+        private BoundedPool(Class<T> pooledType, ObjectPoolsRegistry registry, Supplier<T> factory, Consumer<T> reset, PoolConfig config) {
+            if (config.getMaxSize() <= 0 || config.getInitialSize() < 0 || config.getInitialSize() > config.getMaxSize()) {
+                throw new IllegalArgumentException("invalid pool config for " + pooledType.getName() + " " + config);
+            }
+            this.pooledType = pooledType;
+            this.registry = registry;
+            this.factory = factory;
+            this.reset = reset;
+            this.config = config;
+            this.generation = newGeneration(config.getMaxSize());
+        }
+
+        @Override
+        public T acquire() {
+            //only read to detect an idle pool, a lost update between publishing threads does not matter
+            acquires.lazySet(acquires.get() + 1);
+            Generation<T> current = generation;
+            if (current.exhausted()) {
+                return acquireExhausted(current);
+            }
+            return current.pool.acquire();
+        }
+
+        @Override
+        public int availableCount() {
+            return generation.pool.availableCount();
+        }
+
+        @Override
+        public void release(T pooled, Consumer<T> onReturn) {
+            generation.pool.release(pooled, onReturn);
+        }
+
+        @Override
+        public void removeFromPool(T pooled) {
+            generation.pool.removeFromPool(pooled);
+        }
+
+        public PoolConfig getConfig() {
+            return config;
+        }
+
+        /**
+         * @return the most objects the current generation holds, maxSize until the pool grows
+         */
+        public int getCapacity() {
+            return generation.capacity;
+        }
+
+        /**
+         * @return the objects created by the current generation
+         */
+        public int getCreated() {
+            return generation.created.get();
+        }
+
+        public long getGrows() {
+            return grows.get();
+        }
+
+        public long getSpins() {
+            return spins.get();
+        }
+
+        public long getBlocks() {
+            return blocks.get();
+        }
+
+        /**
+         * @return acquires that returned null under the REJECT policy
+         */
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getShrinks() {
+            return shrinks.get();
+        }
+
+        private T acquireExhausted(Generation<T> current) {
+            switch (config.getExhaustionPolicy()) {
+                case ALLOCATE -> {
+                    return grow(current).pool.acquire();
+                }
+                case BLOCK -> {
+                    blocks.incrementAndGet();
+                    while (generation.exhausted()) {
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    }
+                    return generation.pool.acquire();
+                }
+                case REJECT -> {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+                default -> {
+                    spins.incrementAndGet();
+                    return current.pool.acquire();
+                }
+            }
+        }
+
+        private synchronized Generation<T> grow(Generation<T> exhausted) {
+            if (generation == exhausted) {
+                grows.incrementAndGet();
+                generation = newGeneration(exhausted.capacity * 2);
+            }
+            return generation;
+        }
+
+        /**
+         * Replaces a grown or partly used generation with a pre-warmed one when no acquire happened for
+         * shrinkIdleMillis. Called by the shrink thread only.
+         */
+        private void shrinkIfIdle(long nowNanos) {
+            long acquireCount = acquires.get();
+            if (acquireCount != lastCheckedAcquires) {
+                lastCheckedAcquires = acquireCount;
+                idleSinceNanos = nowNanos;
+                return;
+            }
+            Generation<T> current = generation;
+            if (config.getShrinkIdleMillis() <= 0
+                    || nowNanos - idleSinceNanos < TimeUnit.MILLISECONDS.toNanos(config.getShrinkIdleMillis())
+                    || (current.capacity == config.getMaxSize() && current.created.get() <= config.getInitialSize())) {
+                return;
+            }
+            synchronized (this) {
+                if (generation == current) {
+                    shrinks.incrementAndGet();
+                    generation = newGeneration(config.getMaxSize());
+                }
+            }
+        }
+
+        private Generation<T> newGeneration(int capacity) {
+            AtomicInteger created = new AtomicInteger();
+            registry.remove(pooledType);
+            ObjectPool<T> pool = registry.getOrCreate(pooledType, () -> {
+                created.incrementAndGet();
+                return factory.get();
+            }, reset, capacity);
+            //pre-warm, the objects are created now and freed straight back, not counted by pool telemetry
+            PoolTelemetry.preWarm(pool, Math.min(config.getInitialSize(), capacity));
+            return new Generation<>(pool, capacity, created);
+        }
+
+        @Override
+        public String toString() {
+            Generation<T> current = generation;
+            return pooledType.getSimpleName()
+                    + " policy:" + config.getExhaustionPolicy()
+                    + " capacity:" + current.capacity
+                    + " created:" + current.created.get()
+                    + " available:" + current.pool.availableCount()
+                    + " grows:" + getGrows()
+                    + " spins:" + getSpins()
+                    + " blocks:" + getBlocks()
+                    + " rejected:" + getRejected()
+                    + " shrinks:" + getShrinks();
+        }
+    }
+
+    private record Generation<T extends PoolAware>(ObjectPool<T> pool, int capacity, AtomicInteger created) {
+
+        private boolean exhausted() {
+            return created.get() >= capacity && pool.availableCount() == 0;
+        }
+    }
+
+    private class BoundedRegistry implements ObjectPoolsRegistry {
+
+        private final ObjectPoolsRegistry delegate;
+
+        private BoundedRegistry(ObjectPoolsRegistry delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory) {
+            return getOrCreate(type, factory, null);
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset) {
+            PoolConfig config = config(type);
+            return config == null ? delegate.getOrCreate(type, factory, reset) : bounded(type, factory, reset, config);
+        }
+
+        /**
+         * A configured type ignores capacity, its maxSize applies.
+         */
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset, int capacity) {
+            PoolConfig config = config(type);
+            return config == null ? delegate.getOrCreate(type, factory, reset, capacity) : bounded(type, factory, reset, config);
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset, int capacity, int partitions) {
+            PoolConfig config = config(type);
+            return config == null ? delegate.getOrCreate(type, factory, reset, capacity, partitions) : bounded(type, factory, reset, config);
+        }
+
+        @Override
+        public void remove(Class<?> type) {
+            delegate.remove(type);
+            boundedPools.removeIf(pool -> pool.pooledType == type);
+        }
+
+        private <T extends PoolAware> ObjectPool<T> bounded(Class<T> type, Supplier<T> factory, Consumer<T> reset, PoolConfig config) {
+            BoundedPool<T> pool = new BoundedPool<>(type, delegate, factory, reset, config);
+            boundedPools.add(pool);
+            return pool;
+        }
+    }
+}
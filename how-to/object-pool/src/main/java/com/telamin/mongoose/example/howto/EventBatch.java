@@ -0,0 +1,86 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.mongoose.service.pool.PoolAware;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+import com.telamin.mongoose.service.pool.impl.PoolTracker;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A pooled container of events published as one event by an {@link AbstractBatchEventSourceService}, so a batch of N
+ * events costs one queue offer per subscriber instead of N. A consumer handles the events in the order they were added.
+ * <p>
+ * A pooled event added to the batch hands its publisher reference to the batch. The framework counts references on
+ * the batch, and when the batch returns to its pool, after the last subscriber's event cycle, it releases the reference
+ * of every pooled event it holds. A consumer that keeps an event beyond its cycle acquires its own reference, exactly
+ * as for an event published on its own.
+ */
+public class EventBatch<T> extends BasePoolAware {
+
+    private Object[] events = new Object[16];
+    private int size;
+
+    /**
+     * Appends event, ownership of the publisher reference of a pooled event passes to the batch.
+     */
+    public EventBatch<T> add(T event) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, size * 2);
+        }
+        events[size++] = event;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("index:" + index + " size:" + size);
+        }
+        return (T) events[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept((T) events[i]);
+        }
+    }
+
+    /**
+     * Makes room for capacity events, called when a batch is claimed so filling does not allocate.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > events.length) {
+            events = Arrays.copyOf(events, capacity);
+        }
+    }
+
+    /**
+     * Releases the reference held on every pooled event and empties the batch, the reset hook of the batch pool.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            if (events[i] instanceof PoolAware pooled && pooled.getPoolTracker() != null) {
+                PoolTracker<?> tracker = pooled.getPoolTracker();
+                tracker.releaseReference();
+                tracker.returnToPool();
+            }
+            events[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "EventBatch{size=" + size + '}';
+    }
+}
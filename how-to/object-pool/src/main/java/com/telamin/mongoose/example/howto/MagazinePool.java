@@ -0,0 +1,185 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.PoolAware;
+import com.telamin.mongoose.service.pool.impl.PoolTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A thread local cache in front of a shared {@link ObjectPool}, the depot, for several threads publishing pooled
+ * objects. Each publishing thread acquires from its own magazine, so producers no longer contend on the free lists of
+ * the depot.
+ * <p>
+ * A magazine holds one extra reference on every object it owns, so when the last consumer releases an object the
+ * framework finds a reference left and does not return it to the depot. The object stays in the magazine and is free
+ * again once that extra reference is the only one left. An acquire takes the next free object of the calling thread's
+ * magazine, resetting it with the reset hook. An empty magazine refills from the depot with one batch of refillSize
+ * objects, up to magazineSize objects. Past that, acquires fall back to the depot.
+ * <p>
+ * {@link #handBack()} returns all of the calling thread's objects to the depot in bulk. Objects still in flight return
+ * when their consumers release them. A producer thread should hand back before it exits, or the objects of its
+ * magazine stay out of the depot.
+ * <p>
+ * A depot that can refuse an acquire, a {@link BoundedPools} pool with the REJECT policy, propagates through the
+ * magazines. A refill keeps the objects obtained before the depot returned null, and an acquire returns null when the
+ * magazine has no free object and the depot refuses.
+ * <p>
+ * Reuse from a magazine bypasses the acquire and release of the depot, so metrics recorded by the depot miss it. Use
+ * {@link PoolTelemetry#instrument(MagazinePool, Class)}, or a reuse listener, to count it.
+ */
+public class MagazinePool<T extends PoolAware> implements ObjectPool<T> {
+
+    private final ObjectPool<T> depot;
+    private final Consumer<T> reset;
+    private final int magazineSize;
+    private final int refillSize;
+    private final ThreadLocal<Magazine> magazines = ThreadLocal.withInitial(Magazine::new);
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong depotFallbacks = new AtomicLong();
+    private Consumer<T> reuseListener;
+
+    /**
+     * @param depot        the shared pool magazines refill from and hand back to
+     * @param reset        resets an object reused from a magazine, the same hook the depot applies on return
+     * @param magazineSize the most objects one thread's magazine owns
+     * @param refillSize   the objects taken from the depot when a magazine has none free
+     */
+    public MagazinePool(ObjectPool<T> depot, Consumer<T> reset, int magazineSize, int refillSize) {
+        this.depot = depot;
+        this.reset = reset;
+        this.magazineSize = magazineSize;
+        this.refillSize = Math.max(1, Math.min(refillSize, magazineSize));
+    }
+
+    /**
+     * @return a free object of the calling thread's magazine or the depot, null if the depot refused the acquire
+     */
+    @Override
+    public T acquire() {
+        return magazines.get().acquire();
+    }
+
+    /**
+     * @return the free objects of the depot, objects free in magazines are not counted
+     */
+    @Override
+    public int availableCount() {
+        return depot.availableCount();
+    }
+
+    @Override
+    public void release(T pooled, Consumer<T> onReturn) {
+        depot.release(pooled, onReturn);
+    }
+
+    @Override
+    public void removeFromPool(T pooled) {
+        depot.removeFromPool(pooled);
+    }
+
+    /**
+     * Returns every object of the calling thread's magazine to the depot.
+     *
+     * @return the number of objects handed back
+     */
+    public int handBack() {
+        int count = magazines.get().handBack();
+        magazines.remove();
+        return count;
+    }
+
+    /**
+     * @param reuseListener notified on the acquiring thread each time a free magazine object is acquired again, set
+     *                      before the first acquire
+     */
+    public void setReuseListener(Consumer<T> reuseListener) {
+        this.reuseListener = reuseListener;
+    }
+
+    /**
+     * @return the number of batches magazines took from the depot
+     */
+    public long getRefills() {
+        return refills.get();
+    }
+
+    /**
+     * @return acquires served by the depot because the calling magazine was full and none of its objects were free
+     */
+    public long getDepotFallbacks() {
+        return depotFallbacks.get();
+    }
+
+    private class Magazine {
+        private final List<T> owned = new ArrayList<>();
+        private int cursor;
+
+        private T acquire() {
+            //objects are consumed in about the order they were published, the next owned object is usually free
+            int size = owned.size();
+            for (int i = 0; i < size; i++) {
+                T pooled = owned.get(cursor);
+                cursor = cursor + 1 == size ? 0 : cursor + 1;
+                PoolTracker<?> tracker = pooled.getPoolTracker();
+                if (tracker.currentRefCount() == 1) {
+                    tracker.acquireReference();
+                    if (reset != null) {
+                        reset.accept(pooled);
+                    }
+                    if (reuseListener != null) {
+                        reuseListener.accept(pooled);
+                    }
+                    return pooled;
+                }
+            }
+            if (size >= magazineSize) {
+                depotFallbacks.incrementAndGet();
+                return depot.acquire();
+            }
+            return refill(size);
+        }
+
+        /**
+         * Takes a batch from the depot, every object keeps the magazine reference and the first is returned with the
+         * caller reference it was acquired with. The batch stops at the first null from the depot.
+         */
+        private T refill(int size) {
+            refills.incrementAndGet();
+            int batch = Math.min(refillSize, magazineSize - size);
+            T first = null;
+            for (int i = 0; i < batch; i++) {
+                T pooled = depot.acquire();
+                if (pooled == null) {
+                    break;
+                }
+                pooled.getPoolTracker().acquireReference();
+                owned.add(pooled);
+                if (first == null) {
+                    first = pooled;
+                } else {
+                    pooled.getPoolTracker().releaseReference();
+                }
+            }
+            if (first != null) {
+                cursor = size + 1 == owned.size() ? 0 : size + 1;
+            }
+            return first;
+        }
+
+        private int handBack() {
+            for (T pooled : owned) {
+                PoolTracker<?> tracker = pooled.getPoolTracker();
+                tracker.releaseReference();
+                tracker.returnToPool();
+            }
+            int count = owned.size();
+            owned.clear();
+            cursor = 0;
+            return count;
+        }
+    }
+}
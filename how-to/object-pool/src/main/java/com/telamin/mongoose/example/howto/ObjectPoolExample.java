@@ -6,6 +6,9 @@ import com.telamin.fluxtion.runtime.output.MessageSink;
 import com.telamin.mongoose.MongooseServer;
 import com.telamin.mongoose.config.*;
 import com.telamin.mongoose.connector.memory.InMemoryMessageSink;
+import com.telamin.mongoose.service.admin.AdminCommandRegistry;
+import com.telamin.mongoose.service.admin.AdminCommandRequest;
+import com.telamin.mongoose.service.admin.impl.AdminCommandProcessor;
 import com.telamin.mongoose.service.extension.AbstractEventSourceService;
 import com.telamin.mongoose.service.pool.impl.BasePoolAware;
 import com.telamin.mongoose.service.pool.ObjectPool;
@@ -13,6 +16,9 @@ import com.telamin.mongoose.service.pool.ObjectPoolsRegistry;
 
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,6 +30,10 @@ import java.util.concurrent.TimeUnit;
  * - Publishing pooled events with automatic reference counting
  * - Zero-GC event processing at high rates
  * - Performance monitoring with GC and memory statistics
+ * - Pool telemetry and sampled leak detection read with the pool.stats and pool.leaks admin commands
+ * - Bounded pools with a pre-warmed size, idle shrink and exhaustion policy, configured as a service
+ * - Batch publishing, claiming a batch of pooled messages and committing it as one event
+ * - Off-heap pooled messages whose variable payload is written to and read from a slab slot without Strings
  */
 public class ObjectPoolExample {
 
@@ -31,8 +41,24 @@ public class ObjectPoolExample {
         System.out.println("Object Pool Example Started");
         System.out.println("Demonstrating zero-GC high-performance event publishing...");
 
+        // Pool metrics and leak detection, sampling every 16th acquire
+        PoolTelemetry poolTelemetry = new PoolTelemetry();
+        poolTelemetry.setLeakSampleInterval(16);
+        poolTelemetry.setLeakCycles(1_000);
+
+        // Bound the PooledMessage pool, pre-warmed with 64 messages and shrunk back after 500ms idle
+        PoolConfig messagePoolConfig = new PoolConfig();
+        messagePoolConfig.setInitialSize(64);
+        messagePoolConfig.setMaxSize(256);
+        messagePoolConfig.setShrinkIdleMillis(500);
+        BoundedPools boundedPools = new BoundedPools().addPool(PooledMessage.class, messagePoolConfig);
+
         // Create the pooled event source
         PooledEventSource eventSource = new PooledEventSource();
+        eventSource.setPoolTelemetry(poolTelemetry);
+
+        // Create the off-heap event source, payloads live in slab slots of 64 bytes
+        OffHeapEventSource offHeapSource = new OffHeapEventSource(new OffHeapSlab(OffHeapMessage.SLOT_SIZE, 256));
 
         // Create processor that handles pooled events
         PooledMessageProcessor processor = new PooledMessageProcessor();
@@ -43,7 +69,11 @@ public class ObjectPoolExample {
         // Configure and start the server using the simpler API
         MongooseServerConfig serverConfig = new MongooseServerConfig()
                 .addProcessor("pool-processor", processor, "pool-processor-agent")
-                .addEventSource(eventSource, "pooled-event-source", true);
+                .addEventSource(eventSource, "pooled-event-source", true)
+                .addEventSource(offHeapSource, "off-heap-event-source", true)
+                .addService(new AdminCommandProcessor(), AdminCommandRegistry.class, "adminService")
+                .addService(poolTelemetry, "poolTelemetry")
+                .addService(boundedPools, "boundedPools");
 
         MongooseServer server = MongooseServer.bootServer(serverConfig);
 
@@ -57,6 +87,10 @@ public class ObjectPoolExample {
             demonstrateBasicPooling(eventSource);
             demonstrateHighRatePublishing(eventSource, processor);
             demonstrateBurstPublishing(eventSource, processor);
+            demonstrateBatchPublishing(eventSource, processor);
+            demonstrateLeakDetection(eventSource, processor, server);
+            demonstrateBoundedPool(eventSource, processor, messagePoolConfig, server);
+            demonstrateOffHeapPayloads(offHeapSource, processor);
 
         } finally {
             server.stop();
@@ -132,6 +166,139 @@ public class ObjectPoolExample {
         System.out.println("Burst publishing completed. Total processed: " + processor.getProcessedCount());
     }
 
+    private static void demonstrateBatchPublishing(PooledEventSource eventSource, PooledMessageProcessor processor) throws InterruptedException {
+        System.out.println("\n=== Batch Publishing Demo ===");
+
+        int messageCount = 1_000_000;
+        int batchSize = 64;
+
+        // One queue offer and one processor event cycle per message
+        processor.resetCounters();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < messageCount; i++) {
+            eventSource.publish("single-message-");
+        }
+        awaitProcessed(processor, messageCount);
+        long singleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // One queue offer and one processor event cycle per batch of 64 messages
+        processor.resetCounters();
+        startTime = System.nanoTime();
+        for (int i = 0; i < messageCount / batchSize; i++) {
+            eventSource.publishBatch("batch-message-", batchSize);
+        }
+        awaitProcessed(processor, messageCount);
+        long batchMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        System.out.println("Single publish: " + messageCount + " messages processed in " + singleMs + " ms, "
+                + (messageCount * 1000L) / Math.max(singleMs, 1) + " messages/second");
+        System.out.println("Batch publish:  " + messageCount + " messages processed in " + batchMs + " ms, "
+                + (messageCount * 1000L) / Math.max(batchMs, 1) + " messages/second");
+    }
+
+    private static void awaitProcessed(PooledMessageProcessor processor, long count) throws InterruptedException {
+        while (processor.getProcessedCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void demonstrateLeakDetection(PooledEventSource eventSource, PooledMessageProcessor processor, MongooseServer server) throws InterruptedException {
+        System.out.println("\n=== Pool Telemetry and Leak Detection Demo ===");
+        AdminCommandRegistry adminRegistry = (AdminCommandRegistry) server.registeredServices().get("adminService").instance();
+        executeCommand(adminRegistry, "pool.stats");
+
+        // The processor keeps a reference to every 10th message, those messages never return to the pool
+        processor.setRetainEvery(10);
+        for (int i = 0; i < 1_000; i++) {
+            eventSource.publish("leaky-message-");
+        }
+        Thread.sleep(100);
+        processor.setRetainEvery(0);
+        // Later acquires age the retained messages past the leak cycles
+        for (int i = 0; i < 2_000; i++) {
+            eventSource.publish("aging-message-");
+        }
+        Thread.sleep(100);
+        executeCommand(adminRegistry, "pool.stats");
+        executeCommand(adminRegistry, "pool.leaks", "2");
+
+        System.out.println("Releasing " + processor.releaseRetained() + " retained messages");
+        executeCommand(adminRegistry, "pool.stats");
+    }
+
+    private static void demonstrateBoundedPool(PooledEventSource eventSource, PooledMessageProcessor processor,
+                                               PoolConfig poolConfig, MongooseServer server) throws InterruptedException {
+        System.out.println("\n=== Bounded Pool Demo ===");
+        AdminCommandRegistry adminRegistry = (AdminCommandRegistry) server.registeredServices().get("adminService").instance();
+
+        // The processor keeps every message, the pool is exhausted after maxSize publishes and rejects the rest
+        poolConfig.setExhaustionPolicy(PoolConfig.ExhaustionPolicy.REJECT);
+        processor.setRetainEvery(1);
+        int published = 0;
+        for (int i = 0; i < 1_000; i++) {
+            published += eventSource.publish("bounded-message-") ? 1 : 0;
+        }
+        Thread.sleep(100);
+        System.out.println("Published " + published + " of 1000 messages with the REJECT policy");
+        processor.setRetainEvery(0);
+        System.out.println("Releasing " + processor.releaseRetained() + " retained messages");
+
+        // Growing past maxSize, the pool shrinks back to its initial size once idle
+        poolConfig.setExhaustionPolicy(PoolConfig.ExhaustionPolicy.ALLOCATE);
+        processor.setRetainEvery(1);
+        for (int i = 0; i < 1_000; i++) {
+            eventSource.publish("growing-message-");
+        }
+        Thread.sleep(100);
+        processor.setRetainEvery(0);
+        processor.releaseRetained();
+        executeCommand(adminRegistry, "pool.bounds");
+
+        Thread.sleep(poolConfig.getShrinkIdleMillis() + 2 * BoundedPools.SHRINK_CHECK_MILLIS);
+        executeCommand(adminRegistry, "pool.bounds");
+        poolConfig.setExhaustionPolicy(PoolConfig.ExhaustionPolicy.SPIN);
+    }
+
+    private static void demonstrateOffHeapPayloads(OffHeapEventSource offHeapSource, PooledMessageProcessor processor) throws InterruptedException {
+        System.out.println("\n=== Off-Heap Payload Demo ===");
+
+        long startGcCount = getTotalGcCount();
+        long startMemory = getUsedMemoryMB();
+        int messageCount = 1_000_000;
+
+        // Variable payloads are built in a reused StringBuilder and copied into the slab slot
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < messageCount; i++) {
+            value.setLength(0);
+            value.append(i % 2 == 0 ? "order-" : "quote-").append(i);
+            offHeapSource.publish(value);
+
+            if (i % 10_000 == 0 && i > 0) {
+                Thread.sleep(1);
+            }
+        }
+        Thread.sleep(1000);
+
+        System.out.println("Published " + messageCount + " off-heap messages");
+        System.out.println("GC count increase: " + (getTotalGcCount() - startGcCount));
+        System.out.println("Memory change: " + (getUsedMemoryMB() - startMemory) + " MB");
+        System.out.println("Processed off-heap messages: " + processor.getOffHeapCount()
+                + ", orders: " + processor.getOffHeapOrderCount());
+        System.out.println("Slab slots: " + offHeapSource.getSlab().allocatedSlots()
+                + ", direct bytes: " + offHeapSource.getSlab().allocatedBytes());
+    }
+
+    private static void executeCommand(AdminCommandRegistry registry, String command, String... args) {
+        System.out.println("Executing: " + command + " " + String.join(" ", args));
+
+        AdminCommandRequest request = new AdminCommandRequest();
+        request.setCommand(command);
+        request.setArguments(List.of(args));
+        request.setOutput(result -> System.out.println("  " + result));
+        request.setErrOutput(error -> System.err.println("  Error: " + error));
+        registry.processAdminCommandRequest(request);
+    }
+
     private static long getTotalGcCount() {
         return ManagementFactory.getGarbageCollectorMXBeans().stream()
                 .mapToLong(GarbageCollectorMXBean::getCollectionCount)
@@ -160,8 +327,12 @@ public class ObjectPoolExample {
     /**
      * Event source that publishes pooled messages using ObjectPool
      */
-    public static class PooledEventSource extends AbstractEventSourceService<PooledMessage> {
+    public static class PooledEventSource extends AbstractBatchEventSourceService<PooledMessage> {
         private ObjectPool<PooledMessage> pool;
+        private ObjectPoolsRegistry objectPoolsRegistry;
+        private PoolTelemetry poolTelemetry;
+        private BoundedPools boundedPools;
+        private int magazineSize = 0;
         private int sequenceCounter = 0;
 
         public PooledEventSource() {
@@ -171,39 +342,185 @@ public class ObjectPoolExample {
         @ServiceRegistered
         public void setObjectPoolsRegistry(ObjectPoolsRegistry objectPoolsRegistry, String name) {
             System.out.println("ObjectPoolsRegistry injected into PooledEventSource");
+            super.setObjectPoolsRegistry(objectPoolsRegistry, name);
+            this.objectPoolsRegistry = objectPoolsRegistry;
+        }
+
+        @ServiceRegistered
+        public void setBoundedPools(BoundedPools boundedPools, String name) {
+            this.boundedPools = boundedPools;
+        }
+
+        /**
+         * Creates the pool once all services are injected, the injection order is not fixed
+         */
+        @Override
+        public void start() {
+            // Pools created through the instrumented registry record their metrics in the telemetry
+            ObjectPoolsRegistry registry = poolTelemetry == null ? objectPoolsRegistry : poolTelemetry.instrument(objectPoolsRegistry);
+            // A type configured in the bounded pools service gets a bounded pool
+            registry = boundedPools == null ? registry : boundedPools.bound(registry);
+
+            // Reset function, applied when a message returns to the pool
+            Consumer<PooledMessage> reset = pm -> {
+                pm.value = null;
+                pm.timestamp = 0;
+                pm.sequenceNumber = 0;
+            };
 
             // Create object pool with factory and reset function
-            this.pool = objectPoolsRegistry.getOrCreate(
+            this.pool = registry.getOrCreate(
                     PooledMessage.class,
                     PooledMessage::new,  // Factory function
-                    pm -> {              // Reset function
-                        pm.value = null;
-                        pm.timestamp = 0;
-                        pm.sequenceNumber = 0;
-                    }
+                    reset
             );
 
+            // Thread local magazines keep publishing threads off the shared free lists
+            if (magazineSize > 0) {
+                MagazinePool<PooledMessage> magazinePool = new MagazinePool<>(pool, reset, magazineSize, Math.max(1, magazineSize / 4));
+                this.pool = poolTelemetry == null ? magazinePool : poolTelemetry.instrument(magazinePool, PooledMessage.class);
+            }
+
             System.out.println("ObjectPool created for PooledMessage");
         }
 
+        /**
+         * Records pool metrics in poolTelemetry, set before the server boots.
+         */
+        public void setPoolTelemetry(PoolTelemetry poolTelemetry) {
+            this.poolTelemetry = poolTelemetry;
+        }
+
+        /**
+         * Acquires through a {@link MagazinePool} of magazineSize messages per publishing thread, 0 acquires straight
+         * from the shared pool. Set before the server boots.
+         */
+        public void setMagazineSize(int magazineSize) {
+            this.magazineSize = magazineSize;
+        }
+
         /**
          * Publish a message value. The framework acquires and releases references as the
          * message passes through queues and consumers; the object is returned to the pool
          * automatically at end-of-cycle once all references are released.
+         *
+         * @return false if the message was dropped, a bounded pool with the REJECT policy was exhausted
          */
-        public void publish(String value) {
+        public boolean publish(String value) {
             if (pool == null) {
                 System.err.println("Pool not initialized yet");
-                return;
+                return false;
             }
 
             PooledMessage msg = pool.acquire();
+            if (msg == null) {
+                return false;
+            }
             msg.value = value;
             msg.timestamp = System.currentTimeMillis();
             msg.sequenceNumber = ++sequenceCounter;
 
             output.publish(msg);
             // No manual release needed; the framework manages references after publish
+            return true;
+        }
+
+        /**
+         * Publish count messages with the same value as one batch, subscribers receive them in sequence order in a
+         * single {@link EventBatch}.
+         *
+         * @return the number of messages published, fewer than count if a bounded pool with the REJECT policy was
+         * exhausted
+         */
+        public int publishBatch(String value, int count) {
+            if (pool == null) {
+                System.err.println("Pool not initialized yet");
+                return 0;
+            }
+
+            EventBatch<PooledMessage> batch = claim(count);
+            for (int i = 0; i < count; i++) {
+                PooledMessage msg = pool.acquire();
+                if (msg == null) {
+                    break;
+                }
+                msg.value = value;
+                msg.timestamp = System.currentTimeMillis();
+                msg.sequenceNumber = ++sequenceCounter;
+                batch.add(msg);
+            }
+            int published = batch.size();
+            commit(batch);
+            return published;
+        }
+    }
+
+    /**
+     * Pooled message with an off-heap payload, the layout is a sequence number, a timestamp and a length prefixed
+     * ASCII value
+     */
+    public static class OffHeapMessage extends OffHeapPooledMessage {
+        public static final int SLOT_SIZE = 64;
+        public static final int SEQUENCE = 0;
+        public static final int TIMESTAMP = SEQUENCE + Long.BYTES;
+        public static final int VALUE = TIMESTAMP + Long.BYTES;
+
+        public OffHeapMessage(OffHeapSlab slab) {
+            super(slab);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("OffHeapMessage{value='");
+            getAscii(VALUE, sb);
+            return sb.append("', timestamp=").append(getLong(TIMESTAMP)).append(", seq=").append(getLong(SEQUENCE))
+                    .append('}').toString();
+        }
+    }
+
+    /**
+     * Event source that publishes off-heap pooled messages, the payload is copied into the message slab slot
+     */
+    public static class OffHeapEventSource extends AbstractEventSourceService<OffHeapMessage> {
+        private final OffHeapSlab slab;
+        private ObjectPool<OffHeapMessage> pool;
+        private long sequenceCounter = 0;
+
+        public OffHeapEventSource(OffHeapSlab slab) {
+            super("off-heap-event-source");
+            this.slab = slab;
+        }
+
+        @ServiceRegistered
+        public void setObjectPoolsRegistry(ObjectPoolsRegistry objectPoolsRegistry, String name) {
+            // Each new message takes a slab slot, the slot is reused with the message
+            this.pool = objectPoolsRegistry.getOrCreate(
+                    OffHeapMessage.class,
+                    () -> new OffHeapMessage(slab),
+                    OffHeapMessage::clearPayload
+            );
+            System.out.println("ObjectPool created for OffHeapMessage");
+        }
+
+        public OffHeapSlab getSlab() {
+            return slab;
+        }
+
+        /**
+         * Publish a value, copied as ASCII into the message payload so the caller can reuse it
+         */
+        public void publish(CharSequence value) {
+            if (pool == null) {
+                System.err.println("Pool not initialized yet");
+                return;
+            }
+
+            OffHeapMessage msg = pool.acquire();
+            msg.putLong(OffHeapMessage.SEQUENCE, ++sequenceCounter);
+            msg.putLong(OffHeapMessage.TIMESTAMP, System.currentTimeMillis());
+            msg.putAscii(OffHeapMessage.VALUE, value);
+
+            output.publish(msg);
         }
     }
 
@@ -216,6 +533,10 @@ public class ObjectPoolExample {
         private volatile long lastReportTime = System.currentTimeMillis();
         private volatile long lastReportCount = 0;
         private final StringBuilder sb = new StringBuilder();
+        private final List<PooledMessage> retained = new ArrayList<>();
+        private volatile int retainEvery = 0;
+        private volatile long offHeapCount = 0;
+        private volatile long offHeapOrderCount = 0;
 
         @ServiceRegistered
         public void wire(MessageSink<String> sink, String name) {
@@ -225,42 +546,95 @@ public class ObjectPoolExample {
         @Override
         protected boolean handleEvent(Object event) {
             if (event instanceof PooledMessage pooledMessage) {
-                processedCount++;
-
-
-                // Report progress every 10,000 messages
-                if (processedCount % 10_000 == 0) {
-                    long currentTime = System.currentTimeMillis();
-                    long timeDiff = currentTime - lastReportTime;
-                    long countDiff = processedCount - lastReportCount;
-
-                    if (timeDiff > 0) {
-                        long rate = (countDiff * 1000) / timeDiff;
-                        sb.append("Processed ").append(processedCount).append(" messages, rate: ").append(rate)
-                                .append(" msg/s, heap: ").append(getUsedMemoryMB()).append(" MB, GC: ")
-                                .append(getTotalGcCount());
-                        System.out.println(sb);
-                        sb.setLength(0);
+                handlePooledMessage(pooledMessage);
+            } else if (event instanceof EventBatch<?> batch) {
+                // Messages of a batch are handled in publish order in one event cycle
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.get(i) instanceof PooledMessage pooledMessage) {
+                        handlePooledMessage(pooledMessage);
                     }
+                }
+            } else if (event instanceof OffHeapMessage offHeapMessage) {
+                offHeapCount++;
+                // Fields are read in place, no String is created for the payload
+                if (offHeapMessage.asciiStartsWith(OffHeapMessage.VALUE, "order-")) {
+                    offHeapOrderCount++;
+                }
+            }
+
+            return true;
+        }
 
-                    lastReportTime = currentTime;
-                    lastReportCount = processedCount;
+        private void handlePooledMessage(PooledMessage pooledMessage) {
+            processedCount++;
+
+            // Report progress every 10,000 messages
+            if (processedCount % 10_000 == 0) {
+                long currentTime = System.currentTimeMillis();
+                long timeDiff = currentTime - lastReportTime;
+                long countDiff = processedCount - lastReportCount;
+
+                if (timeDiff > 0) {
+                    long rate = (countDiff * 1000) / timeDiff;
+                    sb.append("Processed ").append(processedCount).append(" messages, rate: ").append(rate)
+                            .append(" msg/s, heap: ").append(getUsedMemoryMB()).append(" MB, GC: ")
+                            .append(getTotalGcCount());
+                    System.out.println(sb);
+                    sb.setLength(0);
                 }
 
-                if (sink != null && processedCount <= 10) {
-                    String processedMessage = "PROCESSED: " + pooledMessage.toString();
-                    // Only send first few messages to sink to avoid overwhelming it
-                    sink.accept(processedMessage);
+                lastReportTime = currentTime;
+                lastReportCount = processedCount;
+            }
+
+            // Simulates a handler bug, keeping a message beyond the event cycle stops it returning to the pool
+            if (retainEvery > 0 && pooledMessage.sequenceNumber % retainEvery == 0) {
+                pooledMessage.getPoolTracker().acquireReference();
+                synchronized (retained) {
+                    retained.add(pooledMessage);
                 }
             }
 
-            return true;
+            if (sink != null && processedCount <= 10) {
+                String processedMessage = "PROCESSED: " + pooledMessage.toString();
+                // Only send first few messages to sink to avoid overwhelming it
+                sink.accept(processedMessage);
+            }
         }
 
         public long getProcessedCount() {
             return processedCount;
         }
 
+        public long getOffHeapCount() {
+            return offHeapCount;
+        }
+
+        public long getOffHeapOrderCount() {
+            return offHeapOrderCount;
+        }
+
+        public void setRetainEvery(int retainEvery) {
+            this.retainEvery = retainEvery;
+        }
+
+        /**
+         * Releases the references kept while retainEvery was set, the messages return to the pool.
+         *
+         * @return the number of messages released
+         */
+        public int releaseRetained() {
+            synchronized (retained) {
+                retained.forEach(message -> {
+                    message.getPoolTracker().releaseReference();
+                    message.getPoolTracker().returnToPool();
+                });
+                int count = retained.size();
+                retained.clear();
+                return count;
+            }
+        }
+
         public void resetCounters() {
             processedCount = 0;
             lastReportTime = System.currentTimeMillis();
@@ -0,0 +1,214 @@
+package com.telamin.mongoose.example.howto;
+
+import com.fluxtion.agrona.DirectBuffer;
+import com.fluxtion.agrona.concurrent.UnsafeBuffer;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+
+import java.nio.ByteOrder;
+
+/**
+ * A pooled message whose payload lives in a fixed size slot of an {@link OffHeapSlab}, the off heap counterpart of a
+ * {@link BasePoolAware} message with fields. Subclasses define the payload layout as byte offsets and read and write
+ * it with the typed accessors, so publishing a variable payload such as a text value copies bytes into direct memory
+ * instead of referencing a heap String, and a processor reads it back without materialising one.
+ * <p>
+ * Numbers are little endian. Byte sequences are stored as an int length followed by the bytes, the put methods return
+ * the bytes written so the next field can follow. A write past the end of the slot throws an
+ * IndexOutOfBoundsException and leaves the payload unchanged.
+ */
+public abstract class OffHeapPooledMessage extends BasePoolAware {
+
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private final UnsafeBuffer payload;
+
+    protected OffHeapPooledMessage(OffHeapSlab slab) {
+        this.payload = slab.allocateSlot();
+    }
+
+    /**
+     * @return the payload slot, e.g. for a sink to copy without decoding
+     */
+    public DirectBuffer payload() {
+        return payload;
+    }
+
+    public int payloadCapacity() {
+        return payload.capacity();
+    }
+
+    public void clearPayload() {
+        payload.setMemory(0, payload.capacity(), (byte) 0);
+    }
+
+    public long getLong(int index) {
+        return payload.getLong(index, ORDER);
+    }
+
+    public void putLong(int index, long value) {
+        payload.putLong(index, value, ORDER);
+    }
+
+    public int getInt(int index) {
+        return payload.getInt(index, ORDER);
+    }
+
+    public void putInt(int index, int value) {
+        payload.putInt(index, value, ORDER);
+    }
+
+    public double getDouble(int index) {
+        return payload.getDouble(index, ORDER);
+    }
+
+    public void putDouble(int index, double value) {
+        payload.putDouble(index, value, ORDER);
+    }
+
+    public short getShort(int index) {
+        return payload.getShort(index, ORDER);
+    }
+
+    public void putShort(int index, short value) {
+        payload.putShort(index, value, ORDER);
+    }
+
+    public byte getByte(int index) {
+        return payload.getByte(index);
+    }
+
+    public void putByte(int index, byte value) {
+        payload.putByte(index, value);
+    }
+
+    /**
+     * Writes value as ASCII, a char outside ASCII is written as '?'.
+     *
+     * @return the bytes written including the length
+     */
+    public int putAscii(int index, CharSequence value) {
+        int length = value.length();
+        payload.boundsCheck(index, Integer.BYTES + length);
+        payload.putInt(index, length, ORDER);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            payload.putByte(index + Integer.BYTES + i, c < 128 ? (byte) c : (byte) '?');
+        }
+        return Integer.BYTES + length;
+    }
+
+    /**
+     * Writes value as UTF-8 without creating an intermediate byte array.
+     *
+     * @return the bytes written including the length
+     */
+    public int putUtf8(int index, CharSequence value) {
+        int length = utf8Length(value);
+        payload.boundsCheck(index, Integer.BYTES + length);
+        payload.putInt(index, length, ORDER);
+        int position = index + Integer.BYTES;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                payload.putByte(position++, (byte) c);
+            } else if (c < 0x800) {
+                payload.putByte(position++, (byte) (0xC0 | c >> 6));
+                payload.putByte(position++, (byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                payload.putByte(position++, (byte) (0xF0 | codePoint >> 18));
+                payload.putByte(position++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                payload.putByte(position++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                payload.putByte(position++, (byte) (0x80 | codePoint & 0x3F));
+            } else {
+                char encoded = Character.isSurrogate(c) ? '?' : c;
+                payload.putByte(position++, (byte) (0xE0 | encoded >> 12));
+                payload.putByte(position++, (byte) (0x80 | encoded >> 6 & 0x3F));
+                payload.putByte(position++, (byte) (0x80 | encoded & 0x3F));
+            }
+        }
+        return Integer.BYTES + length;
+    }
+
+    /**
+     * @return the bytes written including the length
+     */
+    public int putBytes(int index, byte[] src, int offset, int length) {
+        payload.boundsCheck(index, Integer.BYTES + length);
+        payload.putInt(index, length, ORDER);
+        payload.putBytes(index + Integer.BYTES, src, offset, length);
+        return Integer.BYTES + length;
+    }
+
+    /**
+     * @return the length of the byte sequence at index, excluding its length field
+     */
+    public int bytesLength(int index) {
+        return payload.getInt(index, ORDER);
+    }
+
+    /**
+     * Copies the byte sequence at index into dst.
+     *
+     * @return the number of bytes copied
+     */
+    public int getBytes(int index, byte[] dst, int dstOffset) {
+        int length = bytesLength(index);
+        payload.getBytes(index + Integer.BYTES, dst, dstOffset, length);
+        return length;
+    }
+
+    /**
+     * Appends the ASCII sequence at index to dst, e.g. a reused StringBuilder.
+     *
+     * @return the number of chars appended
+     */
+    public int getAscii(int index, StringBuilder dst) {
+        int length = bytesLength(index);
+        for (int i = 0; i < length; i++) {
+            dst.append((char) payload.getByte(index + Integer.BYTES + i));
+        }
+        return length;
+    }
+
+    /**
+     * @return the UTF-8 sequence at index as a new String, for logging and tests
+     */
+    public String getUtf8(int index) {
+        return payload.getStringUtf8(index, ORDER);
+    }
+
+    public boolean asciiEquals(int index, CharSequence value) {
+        return bytesLength(index) == value.length() && asciiStartsWith(index, value);
+    }
+
+    public boolean asciiStartsWith(int index, CharSequence prefix) {
+        int length = prefix.length();
+        if (bytesLength(index) < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (payload.getByte(index + Integer.BYTES + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int utf8Length(CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
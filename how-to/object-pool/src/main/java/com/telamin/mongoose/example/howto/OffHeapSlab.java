@@ -0,0 +1,65 @@
+package com.telamin.mongoose.example.howto;
+
+import com.fluxtion.agrona.BitUtil;
+import com.fluxtion.agrona.concurrent.UnsafeBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Direct memory divided into fixed size slots, one per {@link OffHeapPooledMessage}. Memory is allocated in slabs of
+ * slotsPerSlab slots as messages are created, a slot belongs to its message for the life of the message, which the
+ * pool recycles, so publishing allocates nothing once the pool is warm.
+ * <p>
+ * Slots are 8 byte aligned and never shared. Slab memory is released when the slab and all its messages are
+ * collected. Slots are handed out by the pool factory, which may run on any publishing thread.
+ */
+public class OffHeapSlab {
+
+    private final int slotSize;
+    private final int slotsPerSlab;
+    private final List<UnsafeBuffer> slabs = new ArrayList<>();
+    private UnsafeBuffer currentSlab;
+    private int nextSlot;
+
+    /**
+     * @param slotSize     the payload bytes of each message, rounded up to a multiple of 8
+     * @param slotsPerSlab the slots allocated together in one block of direct memory
+     */
+    public OffHeapSlab(int slotSize, int slotsPerSlab) {
+        this.slotSize = BitUtil.align(Math.max(slotSize, 8), 8);
+        this.slotsPerSlab = Math.max(slotsPerSlab, 1);
+        this.nextSlot = this.slotsPerSlab;
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    /**
+     * @return the slots handed out, including those of messages no longer in use
+     */
+    public synchronized int allocatedSlots() {
+        return (slabs.size() - 1) * slotsPerSlab + nextSlot;
+    }
+
+    /**
+     * @return the direct memory allocated in bytes
+     */
+    public synchronized long allocatedBytes() {
+        return (long) slabs.size() * slotsPerSlab * slotSize;
+    }
+
+    /**
+     * @return a buffer over a new slot of exactly slotSize bytes, zeroed
+     */
+    synchronized UnsafeBuffer allocateSlot() {
+        if (nextSlot == slotsPerSlab) {
+            currentSlab = new UnsafeBuffer(ByteBuffer.allocateDirect(slotsPerSlab * slotSize));
+            slabs.add(currentSlab);
+            nextSlot = 0;
+        }
+        return new UnsafeBuffer(currentSlab, nextSlot++ * slotSize, slotSize);
+    }
+}
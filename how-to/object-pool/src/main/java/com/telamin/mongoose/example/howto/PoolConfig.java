@@ -0,0 +1,83 @@
+package com.telamin.mongoose.example.howto;
+
+/**
+ * Sizing and exhaustion policy of one bounded pool, see {@link BoundedPools}. A plain bean so it can be set from YAML.
+ */
+public class PoolConfig {
+
+    /**
+     * What an acquire does when all maxSize objects of the pool are in use.
+     */
+    public enum ExhaustionPolicy {
+        /**
+         * Grow the pool past maxSize, an idle shrink returns it to maxSize
+         */
+        ALLOCATE,
+        /**
+         * Busy spin until an object is returned, the behaviour of an unbounded registry pool at capacity
+         */
+        SPIN,
+        /**
+         * Park the publishing thread until an object is returned
+         */
+        BLOCK,
+        /**
+         * Count a rejection and return null, the publisher drops the event
+         */
+        REJECT
+    }
+
+    private int initialSize = 0;
+    private int maxSize = 256;
+    private long shrinkIdleMillis = 0;
+    private volatile ExhaustionPolicy exhaustionPolicy = ExhaustionPolicy.SPIN;
+
+    public int getInitialSize() {
+        return initialSize;
+    }
+
+    /**
+     * @param initialSize objects created when the pool is created, and kept by an idle shrink
+     */
+    public void setInitialSize(int initialSize) {
+        this.initialSize = initialSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getShrinkIdleMillis() {
+        return shrinkIdleMillis;
+    }
+
+    /**
+     * @param shrinkIdleMillis shrink the pool to initialSize after this long without an acquire, 0 never shrinks
+     */
+    public void setShrinkIdleMillis(long shrinkIdleMillis) {
+        this.shrinkIdleMillis = shrinkIdleMillis;
+    }
+
+    public ExhaustionPolicy getExhaustionPolicy() {
+        return exhaustionPolicy;
+    }
+
+    /**
+     * Read on every exhaustion, so it may be changed while the server runs.
+     */
+    public void setExhaustionPolicy(ExhaustionPolicy exhaustionPolicy) {
+        this.exhaustionPolicy = exhaustionPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolConfig{initialSize=" + initialSize
+                + ", maxSize=" + maxSize
+                + ", shrinkIdleMillis=" + shrinkIdleMillis
+                + ", exhaustionPolicy=" + exhaustionPolicy + '}';
+    }
+}
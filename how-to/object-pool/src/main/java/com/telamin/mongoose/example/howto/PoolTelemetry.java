@@ -0,0 +1,391 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.fluxtion.runtime.annotations.runtime.ServiceRegistered;
+import com.telamin.fluxtion.runtime.lifecycle.Lifecycle;
+import com.telamin.mongoose.service.admin.AdminCommandRegistry;
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.ObjectPoolsRegistry;
+import com.telamin.mongoose.service.pool.PoolAware;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Per type metrics of object pools, with an optional sampled leak detector.
+ * <p>
+ * Pools created through the registry returned by {@link #instrument(ObjectPoolsRegistry)} count objects acquired,
+ * released, outstanding, the outstanding high watermark and misses, acquires the factory had to allocate a new object
+ * for. Returns are counted through the reset hook the pool calls on release, so a pool type must be created through
+ * the instrumented registry before any un-instrumented getOrCreate of the same class. Objects a {@link BoundedPools}
+ * pool creates ahead of use when pre-warming are not counted.
+ * <p>
+ * A {@link MagazinePool} in front of an instrumented pool reuses objects without acquiring from it, instrument the
+ * magazine pool as well with {@link #instrument(MagazinePool, Class)}. A magazine only sees that an object is free when
+ * it reuses it, so an object free in a magazine counts as outstanding until it is reused or handed back.
+ * <p>
+ * With leakSampleInterval set, every nth acquire records its call site. A sampled object not released within
+ * leakCycles further acquires of its pool, one acquire is one published event, is reported as a leak, e.g. a handler
+ * that keeps a reference after the event cycle.
+ * <p>
+ * Registered as a service with an {@link AdminCommandRegistry} the metrics are readable with the admin commands:
+ * <ul>
+ *     <li>pool.stats - one line of metrics per pooled type</li>
+ *     <li>pool.leaks [max] - the acquire sites of sampled objects held longer than leakCycles</li>
+ * </ul>
+ */
+public class PoolTelemetry implements Lifecycle {
+
+    private static final int LEAK_SITE_FRAMES = 8;
+
+    private final Map<Class<?>, PoolMetrics> metricsByType = new ConcurrentHashMap<>();
+    private AdminCommandRegistry adminRegistry;
+    private int leakSampleInterval = 0;
+    private long leakCycles = 10_000;
+
+    @ServiceRegistered
+    public void admin(AdminCommandRegistry adminRegistry) {
+        this.adminRegistry = adminRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (adminRegistry != null) {
+            adminRegistry.registerCommand("pool.stats", this::stats);
+            adminRegistry.registerCommand("pool.leaks", this::leaks);
+        }
+    }
+
+    /**
+     * @return a registry creating pools in registry that record their metrics here
+     */
+    public ObjectPoolsRegistry instrument(ObjectPoolsRegistry registry) {
+        return new InstrumentedRegistry(registry);
+    }
+
+    /**
+     * Counts every reuse of a magazine object as the release of its previous use and a new acquire, recorded in the
+     * metrics of pooledType.
+     *
+     * @return magazinePool
+     */
+    public <T extends PoolAware> MagazinePool<T> instrument(MagazinePool<T> magazinePool, Class<T> pooledType) {
+        PoolMetrics metrics = metricsByType.computeIfAbsent(pooledType, PoolMetrics::new);
+        magazinePool.setReuseListener(pooled -> {
+            metrics.released(pooled);
+            metrics.acquired(pooled);
+        });
+        return magazinePool;
+    }
+
+    public PoolMetrics metrics(Class<?> pooledType) {
+        return metricsByType.get(pooledType);
+    }
+
+    public List<PoolMetrics> allMetrics() {
+        return new ArrayList<>(metricsByType.values());
+    }
+
+    public int getLeakSampleInterval() {
+        return leakSampleInterval;
+    }
+
+    /**
+     * @param leakSampleInterval record the acquire site of every nth acquire, 0 disables leak detection
+     */
+    public void setLeakSampleInterval(int leakSampleInterval) {
+        this.leakSampleInterval = leakSampleInterval;
+    }
+
+    public long getLeakCycles() {
+        return leakCycles;
+    }
+
+    public void setLeakCycles(long leakCycles) {
+        this.leakCycles = leakCycles;
+    }
+
+    private void stats(List<String> args, Consumer<Object> out, Consumer<Object> err) {
+        if (metricsByType.isEmpty()) {
+            out.accept("no instrumented pools");
+            return;
+        }
+        metricsByType.values().forEach(metrics -> out.accept(metrics.toString()));
+    }
+
+    private void leaks(List<String> args, Consumer<Object> out, Consumer<Object> err) {
+        int max = 10;
+        if (args.size() > 1) {
+            try {
+                max = Integer.parseInt(args.get(1));
+            } catch (NumberFormatException e) {
+                err.accept("Invalid max argument: " + args.get(1));
+                return;
+            }
+        }
+        if (leakSampleInterval <= 0) {
+            out.accept("leak detection disabled, set leakSampleInterval");
+            return;
+        }
+        for (PoolMetrics metrics : metricsByType.values()) {
+            List<LeakSite> leakSites = metrics.leakSites();
+            out.accept(metrics.getPooledType().getSimpleName() + " sampled leaks:" + leakSites.size());
+            leakSites.stream().limit(max).forEach(out);
+        }
+    }
+
+    /**
+     * The counters of one pooled type, safe to read from any thread.
+     */
+    public class PoolMetrics {
+
+        private final Class<?> pooledType;
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong released = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong highWatermark = new AtomicLong();
+        private final Map<Object, LeakSite> sampledSites = new IdentityHashMap<>();
+        private volatile int sampledCount;
+        private ObjectPool<?> pool;
+
+        private PoolMetrics(Class<?> pooledType) {
+            this.pooledType = pooledType;
+        }
+
+        public Class<?> getPooledType() {
+            return pooledType;
+        }
+
+        public long getAcquired() {
+            return acquired.get();
+        }
+
+        public long getReleased() {
+            return released.get();
+        }
+
+        public long getOutstanding() {
+            return acquired.get() - released.get();
+        }
+
+        public long getHighWatermark() {
+            return highWatermark.get();
+        }
+
+        /**
+         * @return acquires that allocated a new object because the pool had none free
+         */
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public int getAvailable() {
+            return pool == null ? 0 : pool.availableCount();
+        }
+
+        /**
+         * @return the sampled objects outstanding for more than leakCycles acquires, oldest first
+         */
+        public synchronized List<LeakSite> leakSites() {
+            long cycle = acquired.get();
+            return sampledSites.values().stream()
+                    .filter(site -> cycle - site.acquireCycle() > leakCycles)
+                    .sorted((a, b) -> Long.compare(a.acquireCycle(), b.acquireCycle()))
+                    .toList();
+        }
+
+        private void acquired(Object pooled) {
+            long cycle = acquired.incrementAndGet();
+            highWatermark.accumulateAndGet(cycle - released.get(), Math::max);
+            if (leakSampleInterval > 0 && cycle % leakSampleInterval == 0) {
+                LeakSite site = new LeakSite(pooledType.getSimpleName(), cycle, acquireSite());
+                synchronized (this) {
+                    sampledSites.put(pooled, site);
+                    sampledCount = sampledSites.size();
+                }
+            }
+        }
+
+        private void released(Object pooled) {
+            released.incrementAndGet();
+            if (sampledCount > 0) {
+                synchronized (this) {
+                    sampledSites.remove(pooled);
+                    sampledCount = sampledSites.size();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return pooledType.getSimpleName()
+                    + " acquired:" + getAcquired()
+                    + " released:" + getReleased()
+                    + " outstanding:" + getOutstanding()
+                    + " highWatermark:" + getHighWatermark()
+                    + " misses:" + getMisses()
+                    + " available:" + getAvailable()
+                    + " sampledOutstanding:" + sampledCount;
+        }
+    }
+
+    /**
+     * Where a sampled object was acquired, the acquire cycle is the pool acquire count at the time.
+     */
+    public record LeakSite(String pooledType, long acquireCycle, List<StackTraceElement> site) {
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(pooledType).append(" acquired at cycle ").append(acquireCycle);
+            site.forEach(frame -> sb.append("\n    at ").append(frame));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Creates count objects in a new pool and frees them straight back without the reset hook. An instrumented pool
+     * is warmed through its delegate, the objects add no misses, acquires or releases and do not advance the leak
+     * cycles.
+     */
+    static <T extends PoolAware> void preWarm(ObjectPool<T> pool, int count) {
+        InstrumentedPool<T> instrumented = pool instanceof InstrumentedPool<T> instrumentedPool ? instrumentedPool : null;
+        ObjectPool<T> target = instrumented == null ? pool : instrumented.delegate;
+        if (instrumented != null) {
+            instrumented.preWarming = true;
+        }
+        try {
+            List<T> warm = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                warm.add(target.acquire());
+            }
+            for (T pooled : warm) {
+                pooled.getPoolTracker().releaseReference();
+                target.release(pooled, null);
+            }
+        } finally {
+            if (instrumented != null) {
+                instrumented.preWarming = false;
+            }
+        }
+    }
+
+    private static List<StackTraceElement> acquireSite() {
+        List<StackTraceElement> frames = new ArrayList<>(LEAK_SITE_FRAMES);
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            if (frames.size() == LEAK_SITE_FRAMES) {
+                break;
+            }
+            if (!frame.getClassName().startsWith(PoolTelemetry.class.getName())) {
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+
+    private class InstrumentedRegistry implements ObjectPoolsRegistry {
+
+        private final ObjectPoolsRegistry delegate;
+
+        private InstrumentedRegistry(ObjectPoolsRegistry delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory) {
+            return getOrCreate(type, factory, null);
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset) {
+            InstrumentedPool<T> pool = new InstrumentedPool<>(metricsFor(type));
+            return pool.instrument(delegate.getOrCreate(type, pool.countingFactory(factory), countingReset(pool.metrics, reset)));
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset, int capacity) {
+            InstrumentedPool<T> pool = new InstrumentedPool<>(metricsFor(type));
+            return pool.instrument(delegate.getOrCreate(type, pool.countingFactory(factory), countingReset(pool.metrics, reset), capacity));
+        }
+
+        @Override
+        public <T extends PoolAware> ObjectPool<T> getOrCreate(Class<T> type, Supplier<T> factory, Consumer<T> reset, int capacity, int partitions) {
+            InstrumentedPool<T> pool = new InstrumentedPool<>(metricsFor(type));
+            return pool.instrument(delegate.getOrCreate(type, pool.countingFactory(factory), countingReset(pool.metrics, reset), capacity, partitions));
+        }
+
+        /**
+         * Keeps the metrics of type, a pool created again for the type continues its counts.
+         */
+        @Override
+        public void remove(Class<?> type) {
+            delegate.remove(type);
+        }
+
+        private PoolMetrics metricsFor(Class<?> type) {
+            return metricsByType.computeIfAbsent(type, PoolMetrics::new);
+        }
+
+        private <T> Consumer<T> countingReset(PoolMetrics metrics, Consumer<T> reset) {
+            return pooled -> {
+                metrics.released(pooled);
+                if (reset != null) {
+                    reset.accept(pooled);
+                }
+            };
+        }
+    }
+
+    private static final class InstrumentedPool<T extends PoolAware> implements ObjectPool<T> {
+
+        private final PoolMetrics metrics;
+        private ObjectPool<T> delegate;
+        //only set while pre-warming a new pool, its objects are not yet visible to another thread
+        private boolean preWarming;
+
+        private InstrumentedPool(PoolMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        private ObjectPool<T> instrument(ObjectPool<T> delegate) {
+            this.delegate = delegate;
+            metrics.pool = delegate;
+            return this;
+        }
+
+        private Supplier<T> countingFactory(Supplier<T> factory) {
+            return () -> {
+                if (!preWarming) {
+                    metrics.misses.incrementAndGet();
+                }
+                return factory.get();
+            };
+        }
+
+        @Override
+        public T acquire() {
+            T pooled = delegate.acquire();
+            metrics.acquired(pooled);
+            return pooled;
+        }
+
+        @Override
+        public int availableCount() {
+            return delegate.availableCount();
+        }
+
+        @Override
+        public void release(T pooled, Consumer<T> onReturn) {
+            delegate.release(pooled, onReturn);
+        }
+
+        @Override
+        public void removeFromPool(T pooled) {
+            delegate.removeFromPool(pooled);
+        }
+    }
+}
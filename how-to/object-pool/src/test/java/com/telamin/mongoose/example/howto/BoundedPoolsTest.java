@@ -0,0 +1,43 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+import com.telamin.mongoose.service.pool.impl.Pools;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BoundedPoolsTest {
+
+    @Test
+    public void testPreWarmIsNotCountedByTelemetry() {
+        PoolTelemetry telemetry = new PoolTelemetry();
+        telemetry.setLeakSampleInterval(1);
+        PoolConfig config = new PoolConfig();
+        config.setInitialSize(2);
+        config.setMaxSize(2);
+        config.setExhaustionPolicy(PoolConfig.ExhaustionPolicy.ALLOCATE);
+        BoundedPools boundedPools = new BoundedPools().addPool(WarmMessage.class, config);
+        ObjectPool<WarmMessage> pool = boundedPools.bound(telemetry.instrument(Pools.SHARED))
+                .getOrCreate(WarmMessage.class, WarmMessage::new);
+
+        PoolTelemetry.PoolMetrics metrics = telemetry.metrics(WarmMessage.class);
+        Assertions.assertEquals(0, metrics.getAcquired());
+        Assertions.assertEquals(0, metrics.getMisses());
+        Assertions.assertEquals(2, pool.availableCount());
+
+        //the third acquire grows into a new pre-warmed generation
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertNotNull(pool.acquire());
+        }
+        BoundedPools.BoundedPool<?> boundedPool = boundedPools.allPools().get(0);
+        Assertions.assertEquals(1, boundedPool.getGrows());
+        Assertions.assertEquals(2, boundedPool.getCreated());
+        Assertions.assertEquals(3, metrics.getAcquired());
+        Assertions.assertEquals(0, metrics.getReleased());
+        Assertions.assertEquals(0, metrics.getMisses());
+        Assertions.assertEquals(3, metrics.getOutstanding());
+    }
+
+    public static class WarmMessage extends BasePoolAware {
+    }
+}
@@ -0,0 +1,92 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+import com.telamin.mongoose.service.pool.impl.PoolTracker;
+import com.telamin.mongoose.service.pool.impl.Pools;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventBatchTest {
+
+    @Test
+    public void testEachMessageReturnsOnceAfterBatchCycle() {
+        AtomicInteger returned = new AtomicInteger();
+        ObjectPool<CycleMessage> pool = Pools.SHARED.getOrCreate(
+                CycleMessage.class, CycleMessage::new, message -> returned.incrementAndGet());
+        BatchSource<CycleMessage> source = new BatchSource<>();
+
+        EventBatch<CycleMessage> batch = source.claim(8);
+        for (int i = 0; i < 8; i++) {
+            batch.add(pool.acquire());
+        }
+        int available = pool.availableCount();
+        endOfCycle(batch);
+
+        Assertions.assertEquals(8, returned.get());
+        Assertions.assertEquals(available + 8, pool.availableCount());
+        Assertions.assertTrue(batch.isEmpty());
+
+        //the batch is reused empty and a second cycle returns only its own messages
+        EventBatch<CycleMessage> nextBatch = source.claim(2);
+        Assertions.assertSame(batch, nextBatch);
+        nextBatch.add(pool.acquire());
+        endOfCycle(nextBatch);
+        Assertions.assertEquals(9, returned.get());
+    }
+
+    @Test
+    public void testRetainedMessageStaysOutOfPool() {
+        AtomicInteger returned = new AtomicInteger();
+        ObjectPool<RetainedMessage> pool = Pools.SHARED.getOrCreate(
+                RetainedMessage.class, RetainedMessage::new, message -> returned.incrementAndGet());
+        BatchSource<RetainedMessage> source = new BatchSource<>();
+
+        EventBatch<RetainedMessage> batch = source.claim(2);
+        RetainedMessage retained = pool.acquire();
+        batch.add(retained).add(pool.acquire());
+
+        //a consumer keeps the first message beyond its cycle
+        retained.getPoolTracker().acquireReference();
+        endOfCycle(batch);
+        Assertions.assertEquals(1, returned.get());
+        Assertions.assertEquals(1, retained.getPoolTracker().currentRefCount());
+
+        endOfCycle(retained);
+        Assertions.assertEquals(2, returned.get());
+        Assertions.assertEquals(0, retained.getPoolTracker().currentRefCount());
+    }
+
+    @Test
+    public void testEmptyCommitReturnsBatch() {
+        BatchSource<CycleMessage> source = new BatchSource<>();
+        EventBatch<CycleMessage> batch = source.claim(4);
+        source.commit(batch);
+        Assertions.assertSame(batch, source.claim(4));
+    }
+
+    /**
+     * The references the framework releases once every subscriber has handled the event.
+     */
+    private static void endOfCycle(BasePoolAware pooled) {
+        PoolTracker<?> tracker = pooled.getPoolTracker();
+        tracker.releaseReference();
+        tracker.returnToPool();
+    }
+
+    private static class BatchSource<T> extends AbstractBatchEventSourceService<T> {
+
+        BatchSource() {
+            super("batchSource");
+            setObjectPoolsRegistry(Pools.SHARED, "batchSource");
+        }
+    }
+
+    public static class CycleMessage extends BasePoolAware {
+    }
+
+    public static class RetainedMessage extends BasePoolAware {
+    }
+}
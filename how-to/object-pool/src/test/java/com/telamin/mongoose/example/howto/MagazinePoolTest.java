@@ -0,0 +1,158 @@
+package com.telamin.mongoose.example.howto;
+
+import com.telamin.mongoose.service.pool.ObjectPool;
+import com.telamin.mongoose.service.pool.impl.BasePoolAware;
+import com.telamin.mongoose.service.pool.impl.PoolTracker;
+import com.telamin.mongoose.service.pool.impl.Pools;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MagazinePoolTest {
+
+    @Test
+    public void testReuseOnceMagazineReferenceIsTheLast() {
+        AtomicInteger resets = new AtomicInteger();
+        ObjectPool<ReuseMessage> depot = Pools.SHARED.getOrCreate(ReuseMessage.class, ReuseMessage::new);
+        MagazinePool<ReuseMessage> magazinePool = new MagazinePool<>(depot, message -> resets.incrementAndGet(), 2, 2);
+
+        //the refill takes two, the second is free in the magazine
+        ReuseMessage first = magazinePool.acquire();
+        Assertions.assertEquals(2, first.getPoolTracker().currentRefCount());
+        ReuseMessage second = magazinePool.acquire();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(2, second.getPoolTracker().currentRefCount());
+        Assertions.assertEquals(1, magazinePool.getRefills());
+        Assertions.assertEquals(1, resets.get());
+
+        //both in flight and the magazine is full, the depot serves the acquire
+        ReuseMessage fallback = magazinePool.acquire();
+        Assertions.assertNotSame(first, fallback);
+        Assertions.assertNotSame(second, fallback);
+        Assertions.assertEquals(1, magazinePool.getDepotFallbacks());
+
+        int depotAvailable = depot.availableCount();
+        endOfCycle(first);
+        Assertions.assertEquals(1, first.getPoolTracker().currentRefCount());
+        Assertions.assertEquals(depotAvailable, depot.availableCount());
+        Assertions.assertSame(first, magazinePool.acquire());
+        Assertions.assertEquals(2, resets.get());
+    }
+
+    @Test
+    public void testReleaseOnAnotherThread() throws InterruptedException {
+        ObjectPool<ThreadMessage> depot = Pools.SHARED.getOrCreate(ThreadMessage.class, ThreadMessage::new);
+        MagazinePool<ThreadMessage> magazinePool = new MagazinePool<>(depot, null, 1, 1);
+
+        ThreadMessage message = magazinePool.acquire();
+        Thread consumer = new Thread(() -> endOfCycle(message));
+        consumer.start();
+        consumer.join();
+
+        Assertions.assertEquals(1, message.getPoolTracker().currentRefCount());
+        Assertions.assertSame(message, magazinePool.acquire());
+        Assertions.assertEquals(0, magazinePool.getDepotFallbacks());
+
+        //another producer thread has its own magazine
+        ThreadMessage[] otherThreadMessage = new ThreadMessage[1];
+        Thread producer = new Thread(() -> otherThreadMessage[0] = magazinePool.acquire());
+        producer.start();
+        producer.join();
+        Assertions.assertNotSame(message, otherThreadMessage[0]);
+        Assertions.assertEquals(2, magazinePool.getRefills());
+    }
+
+    @Test
+    public void testHandBackWithObjectsInFlight() {
+        AtomicInteger returned = new AtomicInteger();
+        ObjectPool<HandBackMessage> depot = Pools.SHARED.getOrCreate(
+                HandBackMessage.class, HandBackMessage::new, message -> returned.incrementAndGet());
+        MagazinePool<HandBackMessage> magazinePool = new MagazinePool<>(depot, null, 4, 4);
+
+        HandBackMessage inFlight = magazinePool.acquire();
+        Assertions.assertEquals(4, magazinePool.handBack());
+        Assertions.assertEquals(3, returned.get());
+        Assertions.assertEquals(1, inFlight.getPoolTracker().currentRefCount());
+
+        endOfCycle(inFlight);
+        Assertions.assertEquals(4, returned.get());
+        Assertions.assertEquals(0, inFlight.getPoolTracker().currentRefCount());
+
+        //the next acquire starts a new magazine
+        magazinePool.acquire();
+        Assertions.assertEquals(2, magazinePool.getRefills());
+    }
+
+    @Test
+    public void testTelemetryCountsMagazineReuse() {
+        PoolTelemetry telemetry = new PoolTelemetry();
+        telemetry.setLeakSampleInterval(1);
+        telemetry.setLeakCycles(10);
+        ObjectPool<TelemetryMessage> depot = telemetry.instrument(Pools.SHARED)
+                .getOrCreate(TelemetryMessage.class, TelemetryMessage::new);
+        MagazinePool<TelemetryMessage> magazinePool = telemetry.instrument(
+                new MagazinePool<>(depot, null, 1, 1), TelemetryMessage.class);
+
+        for (int i = 0; i < 100; i++) {
+            endOfCycle(magazinePool.acquire());
+        }
+        PoolTelemetry.PoolMetrics metrics = telemetry.metrics(TelemetryMessage.class);
+        Assertions.assertEquals(100, metrics.getAcquired());
+        //the last message is free in the magazine, it is only seen as released when reused or handed back
+        Assertions.assertEquals(1, metrics.getOutstanding());
+        Assertions.assertEquals(1, metrics.getMisses());
+        Assertions.assertTrue(metrics.leakSites().isEmpty());
+
+        magazinePool.handBack();
+        Assertions.assertEquals(0, metrics.getOutstanding());
+    }
+
+    @Test
+    public void testRejectPropagatesThroughMagazine() {
+        PoolConfig config = new PoolConfig();
+        config.setInitialSize(0);
+        config.setMaxSize(2);
+        config.setExhaustionPolicy(PoolConfig.ExhaustionPolicy.REJECT);
+        ObjectPool<RejectMessage> depot = new BoundedPools().addPool(RejectMessage.class, config)
+                .bound(Pools.SHARED)
+                .getOrCreate(RejectMessage.class, RejectMessage::new);
+        MagazinePool<RejectMessage> magazinePool = new MagazinePool<>(depot, null, 4, 4);
+
+        //the refill stops at the rejection and keeps the two objects the depot gave
+        RejectMessage first = magazinePool.acquire();
+        RejectMessage second = magazinePool.acquire();
+        Assertions.assertNotNull(first);
+        Assertions.assertNotNull(second);
+        Assertions.assertNotSame(first, second);
+        Assertions.assertNull(magazinePool.acquire());
+
+        endOfCycle(second);
+        Assertions.assertSame(second, magazinePool.acquire());
+        Assertions.assertNull(magazinePool.acquire());
+    }
+
+    /**
+     * The references the framework releases once every consumer has seen the event.
+     */
+    private static void endOfCycle(BasePoolAware pooled) {
+        PoolTracker<?> tracker = pooled.getPoolTracker();
+        tracker.releaseReference();
+        tracker.returnToPool();
+    }
+
+    public static class ReuseMessage extends BasePoolAware {
+    }
+
+    public static class ThreadMessage extends BasePoolAware {
+    }
+
+    public static class HandBackMessage extends BasePoolAware {
+    }
+
+    public static class TelemetryMessage extends BasePoolAware {
+    }
+
+    public static class RejectMessage extends BasePoolAware {
+    }
+}